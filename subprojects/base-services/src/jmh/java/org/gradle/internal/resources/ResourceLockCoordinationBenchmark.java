@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import org.gradle.internal.Actions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.lock;
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
+
+/**
+ * Measures lock/unlock throughput through the coordination service when many threads contend, either for
+ * a handful of exclusive project locks or for a pool of leases smaller than the number of threads.
+ */
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ResourceLockCoordinationBenchmark {
+    private static final String SHARED_RESOURCE = "workers";
+
+    @Param({"2", "64"})
+    int projectCount;
+
+    @Param({"4"})
+    int leaseCount;
+
+    ResourceLockCoordinationService coordinationService;
+    SharedResourceLeaseRegistry leaseRegistry;
+    List<ResourceLock> projectLocks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        coordinationService = new DefaultResourceLockCoordinationService();
+        leaseRegistry = new SharedResourceLeaseRegistry(coordinationService);
+        leaseRegistry.registerSharedResource(SHARED_RESOURCE, leaseCount);
+        projectLocks = new ArrayList<ResourceLock>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            projectLocks.add(new ProjectLock(":project" + i, coordinationService, Actions.<ResourceLock>doNothing(), Actions.<ResourceLock>doNothing()));
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlockProjectLock() {
+        ResourceLock projectLock = projectLocks.get(ThreadLocalRandom.current().nextInt(projectCount));
+        coordinationService.withStateLock(lock(projectLock));
+        coordinationService.withStateLock(unlock(projectLock));
+    }
+
+    @Benchmark
+    public void acquireAndReleaseSharedLease() {
+        ResourceLock lease = leaseRegistry.getResourceLock(SHARED_RESOURCE, 1);
+        coordinationService.withStateLock(lock(lease));
+        coordinationService.withStateLock(unlock(lease));
+    }
+
+    @Benchmark
+    public void lockProjectLockWhileHoldingLease() {
+        ResourceLock lease = leaseRegistry.getResourceLock(SHARED_RESOURCE, 1);
+        ResourceLock projectLock = projectLocks.get(ThreadLocalRandom.current().nextInt(projectCount));
+        coordinationService.withStateLock(lock(lease));
+        coordinationService.withStateLock(lock(projectLock));
+        coordinationService.withStateLock(unlock(projectLock, lease));
+    }
+}
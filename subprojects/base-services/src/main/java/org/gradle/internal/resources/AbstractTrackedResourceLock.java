@@ -82,6 +82,14 @@ private void failIfNotInResourceLockStateChange() {
         }
     }
 
+    /**
+     * Returns the key identifying what this lock competes for. A thread blocked acquiring this lock is woken when any lock with an equal key is released.
+     * Locks that draw on a shared pool, such as leases, should return the pool.
+     */
+    protected Object getContentionKey() {
+        return this;
+    }
+
     abstract protected boolean acquireLock();
 
     abstract protected void releaseLock();
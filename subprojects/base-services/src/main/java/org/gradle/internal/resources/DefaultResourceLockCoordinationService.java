@@ -17,16 +17,30 @@
 package org.gradle.internal.resources;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.gradle.api.Transformer;
 import org.gradle.internal.UncheckedException;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Coordinates changes to resource lock state under a single lock, so that a transform can inspect and change multiple resource locks atomically.
+ *
+ * <p>Threads that retry an arbitrary transform are woken whenever any resource lock is released. Threads that block in {@link #lock(Iterable)}
+ * are only waiting for the resource lock they failed to acquire, so they are parked by contention key (see {@link AbstractTrackedResourceLock#getContentionKey()})
+ * and only woken when a resource lock with the same key is released, instead of every waiting thread re-running its transform on each release.</p>
+ */
 public class DefaultResourceLockCoordinationService implements ResourceLockCoordinationService {
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private final Map<Object, KeyedWaiters> keyedWaiters = Maps.newHashMap();
     private final ThreadLocal<List<ResourceLockState>> currentState = new ThreadLocal<List<ResourceLockState>>() {
         @Override
         protected List<ResourceLockState> initialValue() {
@@ -39,35 +53,32 @@ public boolean withStateLock(Transformer<ResourceLockState.Disposition, Resource
         while (true) {
             DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
             ResourceLockState.Disposition disposition;
-            synchronized (lock) {
-                try {
-                    currentState.get().add(resourceLockState);
-                    disposition = stateLockAction.transform(resourceLockState);
-
-                    switch (disposition) {
-                        case RETRY:
-                            resourceLockState.releaseLocks();
-                            try {
-                                lock.wait();
-                            } catch (InterruptedException e) {
-                                throw UncheckedException.throwAsUncheckedException(e);
-                            }
-                            break;
-                        case FINISHED:
-                            maybeNotifyStateChange(resourceLockState);
-                            return true;
-                        case FAILED:
-                            resourceLockState.releaseLocks();
-                            return false;
-                        default:
-                            throw new IllegalArgumentException("Unhandled disposition type: " + disposition.name());
-                    }
-                } catch (Throwable t) {
-                    resourceLockState.releaseLocks();
-                    throw UncheckedException.throwAsUncheckedException(t);
-                } finally {
-                    currentState.get().remove(resourceLockState);
+            lock.lock();
+            try {
+                currentState.get().add(resourceLockState);
+                disposition = stateLockAction.transform(resourceLockState);
+
+                switch (disposition) {
+                    case RETRY:
+                        resourceLockState.releaseLocks();
+                        // Only a plain lock() transform is known to be waiting on nothing but the resource lock it failed to acquire
+                        awaitStateChange(stateLockAction instanceof AcquireLocks ? resourceLockState.getBlockedOn() : null);
+                        break;
+                    case FINISHED:
+                        maybeNotifyStateChange(resourceLockState);
+                        return true;
+                    case FAILED:
+                        resourceLockState.releaseLocks();
+                        return false;
+                    default:
+                        throw new IllegalArgumentException("Unhandled disposition type: " + disposition.name());
                 }
+            } catch (Throwable t) {
+                resourceLockState.releaseLocks();
+                throw UncheckedException.throwAsUncheckedException(t);
+            } finally {
+                currentState.get().remove(resourceLockState);
+                lock.unlock();
             }
         }
     }
@@ -82,22 +93,80 @@ public ResourceLockState getCurrent() {
         }
     }
 
+    private void awaitStateChange(@Nullable ResourceLock blockedOn) {
+        Object contentionKey = blockedOn == null ? null : contentionKeyOf(blockedOn);
+        try {
+            if (contentionKey == null) {
+                stateChanged.await();
+                return;
+            }
+            KeyedWaiters waiters = keyedWaiters.get(contentionKey);
+            if (waiters == null) {
+                waiters = new KeyedWaiters(lock.newCondition());
+                keyedWaiters.put(contentionKey, waiters);
+            }
+            waiters.count++;
+            try {
+                waiters.condition.await();
+            } finally {
+                if (--waiters.count == 0) {
+                    keyedWaiters.remove(contentionKey);
+                }
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState) {
         if (resourceLockState.hasUnlockedResources()) {
-            notifyStateChange();
+            stateChanged.signalAll();
+            if (!keyedWaiters.isEmpty()) {
+                for (ResourceLock resourceLock : resourceLockState.unlockedResources) {
+                    Object contentionKey = contentionKeyOf(resourceLock);
+                    KeyedWaiters waiters = contentionKey == null ? null : keyedWaiters.get(contentionKey);
+                    if (waiters != null) {
+                        waiters.condition.signalAll();
+                    }
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static Object contentionKeyOf(ResourceLock resourceLock) {
+        if (resourceLock instanceof AbstractTrackedResourceLock) {
+            return ((AbstractTrackedResourceLock) resourceLock).getContentionKey();
         }
+        return null;
     }
 
     @Override
     public void notifyStateChange() {
-        synchronized (lock) {
-            lock.notifyAll();
+        lock.lock();
+        try {
+            stateChanged.signalAll();
+            for (KeyedWaiters waiters : keyedWaiters.values()) {
+                waiters.condition.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class KeyedWaiters {
+        private final Condition condition;
+        private int count;
+
+        KeyedWaiters(Condition condition) {
+            this.condition = condition;
         }
     }
 
     private static class DefaultResourceLockState implements ResourceLockState {
         private Set<ResourceLock> lockedResources;
         private Set<ResourceLock> unlockedResources;
+        private ResourceLock blockedOn;
         boolean rollback;
 
         @Override
@@ -124,6 +193,18 @@ boolean hasUnlockedResources() {
             return unlockedResources != null && !unlockedResources.isEmpty();
         }
 
+        /**
+         * Records that the transform is retrying only because the given resource lock could not be acquired.
+         */
+        void blockedOn(ResourceLock resourceLock) {
+            blockedOn = resourceLock;
+        }
+
+        @Nullable
+        ResourceLock getBlockedOn() {
+            return blockedOn;
+        }
+
         @Override
         public void releaseLocks() {
             if (lockedResources != null) {
@@ -195,7 +276,13 @@ private static class AcquireLocks implements Transformer<ResourceLockState.Dispo
         public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
             for (ResourceLock resourceLock : resourceLocks) {
                 if (!resourceLock.tryLock()) {
-                    return blocking ? ResourceLockState.Disposition.RETRY : ResourceLockState.Disposition.FAILED;
+                    if (!blocking) {
+                        return ResourceLockState.Disposition.FAILED;
+                    }
+                    if (resourceLockState instanceof DefaultResourceLockState) {
+                        ((DefaultResourceLockState) resourceLockState).blockedOn(resourceLock);
+                    }
+                    return ResourceLockState.Disposition.RETRY;
                 }
             }
             return ResourceLockState.Disposition.FINISHED;
@@ -59,6 +59,11 @@ public class SharedResourceLease extends AbstractTrackedResourceLock {
             this.semaphore = sharedResources.get(sharedResource);
         }
 
+        @Override
+        protected Object getContentionKey() {
+            return semaphore;
+        }
+
         @Override
         protected boolean acquireLock() {
             if (leases > semaphore.getLeft()) {
@@ -386,6 +386,12 @@ protected boolean doIsLockedByCurrentThread() {
             return active && Thread.currentThread() == ownerThread;
         }
 
+        @Override
+        protected Object getContentionKey() {
+            // All worker leases, including child leases, draw on the leases available from the root
+            return root;
+        }
+
         @Override
         protected boolean acquireLock() {
             if (parent.grantLease()) {
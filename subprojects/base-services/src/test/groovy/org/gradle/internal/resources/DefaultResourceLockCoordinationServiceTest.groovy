@@ -317,6 +317,124 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         false       | false       | FINISHED
     }
 
+    def "thread blocked in lock is woken when the resource it is waiting for is released"() {
+        def lock1 = resourceLock("lock1", true)
+        def lock2 = resourceLock("lock2", true)
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(lock(lock1))
+                instant.acquired
+            }
+
+            ConcurrentTestUtil.poll {
+                assert lock1.acquireAttempts.get() == 1
+            }
+            release(lock2)
+            Thread.sleep(100)
+            assert lock1.acquireAttempts.get() == 1
+
+            release(lock1)
+            thread.blockUntil.acquired
+        }
+
+        then:
+        lock1.acquireAttempts.get() == 2
+        lock1.lockedState
+    }
+
+    def "thread blocked in lock is woken when a resource with the same contention key is released"() {
+        def lease1 = resourceLock("lease1", true)
+        def lease2 = resourceLock("lease2", true)
+        def key = new Object()
+        lease1.contentionKey = key
+        lease2.contentionKey = key
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(lock(lease2))
+                instant.acquired
+            }
+
+            ConcurrentTestUtil.poll {
+                assert lease2.acquireAttempts.get() == 1
+            }
+            // Releasing lease1 returns the capacity lease2 is waiting for
+            lease2.lockedState = false
+            release(lease1)
+            thread.blockUntil.acquired
+        }
+
+        then:
+        lease2.acquireAttempts.get() == 2
+        lease2.lockedState
+    }
+
+    def "thread blocked in lock is woken on state change notification"() {
+        def lock1 = resourceLock("lock1", true)
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(lock(lock1))
+                instant.acquired
+            }
+
+            ConcurrentTestUtil.poll {
+                assert lock1.acquireAttempts.get() == 1
+            }
+            lock1.lockedState = false
+            coordinationService.notifyStateChange()
+            thread.blockUntil.acquired
+        }
+
+        then:
+        lock1.acquireAttempts.get() == 2
+        lock1.lockedState
+    }
+
+    def "thread retrying an arbitrary transform is woken when any resource is released"() {
+        def lock1 = resourceLock("lock1", true)
+        def lock2 = resourceLock("lock2", true)
+        def count = 0
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        def acquired = lock1.tryLock()
+                        count++
+                        instant."executed${count}"
+                        return acquired ? FINISHED : RETRY
+                    }
+                })
+            }
+
+            thread.blockUntil.executed1
+            lock1.lockedState = false
+            release(lock2)
+            thread.blockUntil.executed2
+        }
+
+        then:
+        lock1.lockedState
+    }
+
+    private void release(TestTrackedResourceLock resourceLock) {
+        resourceLock.lockedState = false
+        coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+            @Override
+            ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                resourceLockState.registerUnlocked(resourceLock)
+                return FINISHED
+            }
+        })
+    }
+
     TestTrackedResourceLock resourceLock(String displayName, boolean locked, boolean hasLock=false) {
         return new TestTrackedResourceLock(displayName, coordinationService, Mock(Action), Mock(Action), locked, hasLock)
     }
@@ -19,11 +19,14 @@ package org.gradle.internal.resources
 import org.gradle.api.Action
 
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 
 
 class TestTrackedResourceLock extends AbstractTrackedResourceLock {
     final AtomicBoolean lockedState = new AtomicBoolean()
     final AtomicBoolean hasLock = new AtomicBoolean()
+    final AtomicInteger acquireAttempts = new AtomicInteger()
+    Object contentionKey = this
 
     TestTrackedResourceLock(String displayName, ResourceLockCoordinationService coordinationService, Action<ResourceLock> lockAction, Action<ResourceLock> unlockAction) {
         super(displayName, coordinationService, lockAction, unlockAction)
@@ -51,8 +54,14 @@ class TestTrackedResourceLock extends AbstractTrackedResourceLock {
         return hasLock.get()
     }
 
+    @Override
+    protected Object getContentionKey() {
+        return contentionKey
+    }
+
     @Override
     protected boolean acquireLock() {
+        acquireAttempts.incrementAndGet()
         if (!lockedState.get()) {
             hasLock.set(true)
             lockedState.set(true)
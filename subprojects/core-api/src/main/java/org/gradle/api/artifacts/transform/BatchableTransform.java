@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.artifacts.transform;
+
+import org.gradle.api.Incubating;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Attaching this annotation to a {@link TransformAction} type it indicates that Gradle may transform several input artifacts of this type as a single unit of work.
+ *
+ * <p>
+ *     The action is still invoked once for each input artifact, with its own output location.
+ *     Gradle checks, records and caches the batch as a whole, which reduces the overhead for transforms which are cheap to run for each input artifact, like transforms of large class paths.
+ *     The result of each input artifact is kept separately, so it can be reused regardless of the other artifacts in the batch.
+ *     When the batch fails, Gradle transforms its input artifacts individually, so a failure is only reported for the input artifact which caused it.
+ * </p>
+ *
+ * <p>
+ *     Batching only applies to artifacts which are not produced by a project in the build, and to transforms which use neither {@link InputArtifactDependencies} nor {@link org.gradle.work.InputChanges}.
+ *     Other artifacts are transformed individually.
+ * </p>
+ *
+ * @since 6.0
+ */
+@Incubating
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface BatchableTransform {
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configuration
+
+import org.gradle.execution.TaskPathProjectEvaluator
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import spock.lang.Unroll
+
+class DecoupledProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+
+    def setup() {
+        settingsFile << "include 'a', 'b'"
+        file("gradle.properties") << "${TaskPathProjectEvaluator.DECOUPLED_PROJECT_PROPERTY}=true"
+        executer.withArguments("--parallel", "-D${TaskPathProjectEvaluator.PARALLEL_CONFIGURATION_PROPERTY}=true")
+    }
+
+    def "configures decoupled projects that only access their own state"() {
+        given:
+        ["a", "b"].each {
+            file("${it}/build.gradle") << """
+                ext.message = "configured \${name}"
+                tasks.register("hello") {
+                    doLast { println message }
+                }
+            """
+        }
+
+        when:
+        succeeds "hello"
+
+        then:
+        outputContains("configured a")
+        outputContains("configured b")
+    }
+
+    @Unroll
+    def "reports decoupled project that looks up #target using #expression"() {
+        given:
+        file("a/build.gradle") << ""
+        file("b/build.gradle") << """
+            ${expression}.ext.touched = true
+        """
+
+        when:
+        fails "help"
+
+        then:
+        failure.assertHasCause("Decoupled project :b is configured in parallel with other projects and cannot look up ${target}.")
+
+        where:
+        expression     | target
+        "rootProject"  | "project :"
+        "parent"       | "project :"
+        "project(':a')" | "project :a"
+    }
+}
@@ -354,7 +354,7 @@ private String instanceDescriptorFor(String path) {
 
     @Override
     public ProjectInternal getRootProject() {
-        return rootProject;
+        return lookUp(rootProject);
     }
 
     @Override
@@ -403,7 +403,7 @@ public File getRootDir() {
 
     @Override
     public ProjectInternal getParent() {
-        return parent;
+        return lookUp(parent);
     }
 
     @Override
@@ -443,7 +443,7 @@ public Object getGroup() {
         } else if (this == rootProject) {
             return "";
         }
-        group = rootProject.getName() + (getParent() == rootProject ? "" : "." + getParent().getPath().substring(1).replace(':', '.'));
+        group = rootProject.getName() + (parent == rootProject ? "" : "." + parent.getPath().substring(1).replace(':', '.'));
         return group;
     }
 
@@ -642,7 +642,15 @@ public ProjectInternal findProject(String path) {
         if (isNullOrEmpty(path)) {
             throw new InvalidUserDataException("A path must be specified!");
         }
-        return getProjectRegistry().getProject(absoluteProjectPath(path));
+        return lookUp(getProjectRegistry().getProject(absoluteProjectPath(path)));
+    }
+
+    @Nullable
+    private ProjectInternal lookUp(@Nullable ProjectInternal project) {
+        if (project != null && project != this) {
+            getMutationState().assertCanLookUp(project.getMutationState());
+        }
+        return project;
     }
 
     @Override
@@ -1345,7 +1353,7 @@ public void model(Closure<?> modelRules) {
         prepareForRuleBasedPlugins();
         ModelRegistry modelRegistry = getModelRegistry();
         if (TransformedModelDslBacking.isTransformedBlock(modelRules)) {
-            ClosureBackedAction.execute(new TransformedModelDslBacking(modelRegistry, this.getRootProject().getFileResolver()), modelRules);
+            ClosureBackedAction.execute(new TransformedModelDslBacking(modelRegistry, rootProject.getFileResolver()), modelRules);
         } else {
             new NonTransformedModelDslBacking(modelRegistry).configure(modelRules);
         }
@@ -17,6 +17,7 @@
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.gradle.api.InvalidUserCodeException;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.component.BuildIdentifier;
 import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
@@ -39,6 +40,7 @@
 public class DefaultProjectStateRegistry implements ProjectStateRegistry {
     private final WorkerLeaseService workerLeaseService;
     private final Object lock = new Object();
+    private final Object isolatedListenersLock = new Object();
     private final Map<Path, ProjectStateImpl> projectsByPath = Maps.newLinkedHashMap();
     private final Map<ProjectComponentIdentifier, ProjectStateImpl> projectsById = Maps.newLinkedHashMap();
     private final Map<Pair<BuildIdentifier, Path>, ProjectStateImpl> projectsByCompId = Maps.newLinkedHashMap();
@@ -49,6 +51,8 @@ protected Boolean initialValue() {
         }
     };
 
+    private final static ThreadLocal<ProjectStateImpl> ISOLATED_MUTATION_STATE = new ThreadLocal<ProjectStateImpl>();
+
     public DefaultProjectStateRegistry(WorkerLeaseService workerLeaseService) {
         this.workerLeaseService = workerLeaseService;
     }
@@ -137,6 +141,17 @@ public <T> T withLenientState(Factory<T> factory) {
         }
     }
 
+    @Override
+    public void withIsolatedMutableState(ProjectState project, Runnable action) {
+        ProjectStateImpl originalState = ISOLATED_MUTATION_STATE.get();
+        ISOLATED_MUTATION_STATE.set((ProjectStateImpl) project);
+        try {
+            project.withMutableState(action);
+        } finally {
+            ISOLATED_MUTATION_STATE.set(originalState);
+        }
+    }
+
     @Override
     public SafeExclusiveLock newExclusiveOperationLock() {
         return new SafeExclusiveLockImpl();
@@ -200,6 +215,12 @@ public void withLenientState(Runnable runnable) {
 
         @Override
         public <T> T withMutableState(final Factory<? extends T> factory) {
+            ProjectStateImpl isolatedProject = ISOLATED_MUTATION_STATE.get();
+            if (isolatedProject != null && isolatedProject != this) {
+                throw new InvalidUserCodeException(String.format("Decoupled %s is configured in parallel with other projects and cannot access the mutable state of %s.",
+                    isolatedProject.identifier.getDisplayName(), identifier.getDisplayName()));
+            }
+
             if (LENIENT_MUTATION_STATE.get()) {
                 return factory.create();
             }
@@ -238,6 +259,25 @@ private <T> T withProjectLock(ResourceLock projectLock, final Factory<? extends
             return workerLeaseService.withLocks(Collections.singleton(projectLock), factory);
         }
 
+        @Override
+        public void assertCanLookUp(ProjectState project) {
+            if (project != this && ISOLATED_MUTATION_STATE.get() == this) {
+                throw new InvalidUserCodeException(String.format("Decoupled %s is configured in parallel with other projects and cannot look up %s.",
+                    identifier.getDisplayName(), project.getComponentIdentifier().getDisplayName()));
+            }
+        }
+
+        @Override
+        public void notifyListeners(Runnable notification) {
+            if (ISOLATED_MUTATION_STATE.get() == null) {
+                notification.run();
+                return;
+            }
+            synchronized (isolatedListenersLock) {
+                notification.run();
+            }
+        }
+
         @Override
         public boolean hasMutableState() {
             return LENIENT_MUTATION_STATE.get() || workerLeaseService.getCurrentProjectLocks().contains(projectLock);
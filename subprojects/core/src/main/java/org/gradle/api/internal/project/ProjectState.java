@@ -59,4 +59,19 @@ public interface ProjectState extends ModelContainer {
      * <p>Note that the lock may be shared between projects.
      */
     ResourceLock getAccessLock();
+
+    /**
+     * Fails when the current thread configures this project in isolation and the given project is another project, as the lookup would give this project access to the other project.
+     *
+     * @see ProjectStateRegistry#withIsolatedMutableState(ProjectState, Runnable)
+     */
+    void assertCanLookUp(ProjectState project);
+
+    /**
+     * Runs the given notification of the evaluation listeners of this project. While projects are configured in isolation, their notifications run one at a time,
+     * as listeners can be shared between projects and are not required to be thread-safe.
+     *
+     * @see ProjectStateRegistry#withIsolatedMutableState(ProjectState, Runnable)
+     */
+    void notifyListeners(Runnable notification);
 }
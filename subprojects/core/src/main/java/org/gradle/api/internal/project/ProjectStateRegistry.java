@@ -72,6 +72,13 @@ public interface ProjectStateRegistry {
      */
     <T> T withLenientState(Factory<T> factory);
 
+    /**
+     * Runs the given action with the mutable state of the given project, failing any attempt the action makes from the current thread
+     * to access the mutable state of another project or to look up another project from the given project. This is used to configure
+     * decoupled projects concurrently.
+     */
+    void withIsolatedMutableState(ProjectState project, Runnable action);
+
     /**
      * Returns a {@link SafeExclusiveLock}.
      */
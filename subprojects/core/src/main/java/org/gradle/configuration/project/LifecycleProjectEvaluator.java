@@ -153,13 +153,18 @@ private NotifyBeforeEvaluate(ProjectInternal project, ProjectStateInternal state
         }
 
         @Override
-        public void run(BuildOperationContext context) {
-            try {
-                project.getProjectEvaluationBroadcaster().beforeEvaluate(project);
-                context.setResult(NotifyProjectBeforeEvaluatedBuildOperationType.RESULT);
-            } catch (Exception e) {
-                addConfigurationFailure(project, state, e, context);
-            }
+        public void run(final BuildOperationContext context) {
+            project.getMutationState().notifyListeners(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        project.getProjectEvaluationBroadcaster().beforeEvaluate(project);
+                        context.setResult(NotifyProjectBeforeEvaluatedBuildOperationType.RESULT);
+                    } catch (Exception e) {
+                        addConfigurationFailure(project, state, e, context);
+                    }
+                }
+            });
         }
 
         @Override
@@ -183,7 +188,16 @@ private NotifyAfterEvaluate(ProjectInternal project, ProjectStateInternal state)
         }
 
         @Override
-        public void run(BuildOperationContext context) {
+        public void run(final BuildOperationContext context) {
+            project.getMutationState().notifyListeners(new Runnable() {
+                @Override
+                public void run() {
+                    notifyAfterEvaluate(context);
+                }
+            });
+        }
+
+        private void notifyAfterEvaluate(BuildOperationContext context) {
             ProjectEvaluationListener nextBatch = project.getProjectEvaluationBroadcaster();
             Action<ProjectEvaluationListener> fireAction = new Action<ProjectEvaluationListener>() {
                 @Override
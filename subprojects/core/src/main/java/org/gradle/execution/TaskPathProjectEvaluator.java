@@ -16,16 +16,46 @@
 
 package org.gradle.execution;
 
+import com.google.common.collect.Lists;
+import org.gradle.api.Action;
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateRegistry;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class TaskPathProjectEvaluator implements ProjectConfigurer {
+    /**
+     * Enables configuring decoupled projects concurrently, when parallel project execution is enabled.
+     */
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.internal.configuration.parallel";
+
+    /**
+     * The project property a project sets to {@code true} to declare that its configuration neither accesses nor mutates other projects.
+     * Like any project property, it is inherited from the parent project.
+     *
+     * <p>While a decoupled project is configured concurrently, looking up another project through {@code project()}, {@code rootProject}
+     * or {@code parent} fails, and the evaluation listeners are notified for one project at a time.</p>
+     */
+    public static final String DECOUPLED_PROJECT_PROPERTY = "org.gradle.configuration.decoupled";
+
     private final BuildCancellationToken cancellationToken;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final ProjectStateRegistry projectStateRegistry;
 
-    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken) {
+    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor, ProjectStateRegistry projectStateRegistry) {
         this.cancellationToken = cancellationToken;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.projectStateRegistry = projectStateRegistry;
     }
 
     @Override
@@ -60,6 +90,10 @@ private void bindAllModelRules(ProjectInternal project) {
     @Override
     public void configureHierarchy(ProjectInternal project) {
         configure(project);
+        if (isParallelConfigurationEnabled(project)) {
+            configureSubprojectsInParallel(project);
+            return;
+        }
         for (Project sub : project.getSubprojects()) {
             configure((ProjectInternal) sub);
         }
@@ -72,4 +106,78 @@ public void configureHierarchyFully(ProjectInternal project) {
             configureFully((ProjectInternal) sub);
         }
     }
+
+    private static boolean isParallelConfigurationEnabled(ProjectInternal project) {
+        return Boolean.getBoolean(PARALLEL_CONFIGURATION_PROPERTY) && project.getGradle().getStartParameter().isParallelProjectExecutionEnabled();
+    }
+
+    private static boolean isDecoupled(ProjectInternal project) {
+        return Boolean.parseBoolean(String.valueOf(project.findProperty(DECOUPLED_PROJECT_PROPERTY)));
+    }
+
+    /**
+     * Configures the subprojects one level of the hierarchy at a time, so that every project is still configured after its parent.
+     * On each level the projects that are not decoupled are configured first, in the usual order, then the decoupled ones concurrently.
+     */
+    private void configureSubprojectsInParallel(ProjectInternal project) {
+        Map<Integer, List<ProjectInternal>> projectsByDepth = new TreeMap<Integer, List<ProjectInternal>>();
+        for (Project sub : project.getSubprojects()) {
+            List<ProjectInternal> projects = projectsByDepth.get(sub.getDepth());
+            if (projects == null) {
+                projects = Lists.newArrayList();
+                projectsByDepth.put(sub.getDepth(), projects);
+            }
+            projects.add((ProjectInternal) sub);
+        }
+        for (List<ProjectInternal> projects : projectsByDepth.values()) {
+            final List<ProjectInternal> decoupled = Lists.newArrayList();
+            for (ProjectInternal sub : projects) {
+                if (isDecoupled(sub)) {
+                    decoupled.add(sub);
+                } else {
+                    configure(sub);
+                }
+            }
+            if (decoupled.isEmpty()) {
+                continue;
+            }
+            if (cancellationToken.isCancellationRequested()) {
+                throw new BuildCancelledException();
+            }
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<ConfigureDecoupledProject>>() {
+                @Override
+                public void execute(BuildOperationQueue<ConfigureDecoupledProject> queue) {
+                    for (ProjectInternal sub : decoupled) {
+                        queue.add(new ConfigureDecoupledProject(sub));
+                    }
+                }
+            });
+        }
+    }
+
+    private class ConfigureDecoupledProject implements RunnableBuildOperation {
+        private final ProjectInternal project;
+
+        private ConfigureDecoupledProject(ProjectInternal project) {
+            this.project = project;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            if (cancellationToken.isCancellationRequested()) {
+                throw new BuildCancelledException();
+            }
+            projectStateRegistry.withIsolatedMutableState(project.getMutationState(), new Runnable() {
+                @Override
+                public void run() {
+                    project.evaluate();
+                }
+            });
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Configure decoupled project " + project.getIdentityPath());
+        }
+    }
 }
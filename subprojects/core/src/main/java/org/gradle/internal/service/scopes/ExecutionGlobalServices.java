@@ -20,6 +20,7 @@
 import groovy.transform.Generated;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.Task;
+import org.gradle.api.artifacts.transform.BatchableTransform;
 import org.gradle.api.artifacts.transform.CacheableTransform;
 import org.gradle.api.artifacts.transform.InputArtifact;
 import org.gradle.api.artifacts.transform.InputArtifactDependencies;
@@ -90,6 +91,7 @@ public class ExecutionGlobalServices {
     TypeAnnotationMetadataStore createAnnotationMetadataStore(CrossBuildInMemoryCacheFactory cacheFactory) {
         return new DefaultTypeAnnotationMetadataStore(
             ImmutableSet.of(
+                BatchableTransform.class,
                 CacheableTask.class,
                 CacheableTransform.class
             ),
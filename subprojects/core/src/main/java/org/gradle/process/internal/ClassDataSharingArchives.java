@@ -0,0 +1,193 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application class data sharing (AppCDS) archives for the JVMs that Gradle starts, such as the daemon and worker processes.
+ *
+ * <p>An archive holds the classes a JVM loaded during a previous run, pre-parsed and verified, so a JVM mapping it starts up faster. It is a dynamic
+ * archive, recorded by the first JVM started for a given class path using {@code -XX:ArchiveClassesAtExit}. This covers the classes that JVM actually
+ * loaded, including those loaded from jars by Gradle's own class loaders, and needs no separate dump process. The JVM writes the archive when it exits,
+ * so the archive is put in place by the next request for it, once the recorded file is no longer being written.</p>
+ *
+ * <p>An archive is only valid for the exact JVM that created it and for a class path that starts with the same jars, so it is keyed by the running
+ * JVM, the Gradle version, the class path jars and the jars loaded through other class loaders. Archives live in the version specific user home
+ * cache directory, and are cleaned up with it.</p>
+ */
+public class ClassDataSharingArchives {
+    /**
+     * Opts into creating and using class data sharing archives.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.jvm.class-data-sharing";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassDataSharingArchives.class);
+    private static final long STALE_RECORDING_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    // Writing an archive takes a few seconds at most, so a recorded archive that has not changed for a while is complete
+    private static final long SETTLED_RECORDING_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final String RECORDING_SUFFIX = ".jsa.recording";
+
+    private final File archivesDir;
+
+    public ClassDataSharingArchives(File archivesDir) {
+        this.archivesDir = archivesDir;
+    }
+
+    public static ClassDataSharingArchives forUserHome(File gradleUserHomeDir) {
+        return new ClassDataSharingArchives(new File(gradleUserHomeDir, "caches/" + GradleVersion.current().getVersion() + "/cds"));
+    }
+
+    /**
+     * Returns the arguments that make a JVM started with the given executable and class path use the archive for that class path. When there is
+     * no archive yet, the arguments make the JVM record the archive when it exits, unless another JVM is already recording it. No arguments are
+     * returned when class data sharing is not enabled, or not supported for the given JVM or class path.
+     *
+     * @param classpath the system class path of the JVM.
+     * @param otherClasspath the jars the JVM loads through other class loaders. These only distinguish the archives of JVMs with the same system class path.
+     */
+    public List<String> getJvmArgs(File javaExecutable, List<File> classpath, Collection<File> otherClasspath) {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY) || !isSupported(javaExecutable, classpath)) {
+            return Collections.emptyList();
+        }
+        String key = getKey(classpath, otherClasspath);
+        File archive = new File(archivesDir, key + ".jsa");
+        if (archive.isFile() || installRecordedArchive(key, archive)) {
+            return Arrays.asList("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xshare:auto", "-Xlog:cds*=off");
+        }
+        File recording = startRecording(key);
+        if (recording == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList("-XX:ArchiveClassesAtExit=" + recording.getAbsolutePath(), "-Xlog:cds*=off");
+    }
+
+    private static boolean isSupported(File javaExecutable, List<File> classpath) {
+        // Dynamic archives need Java 13. An archive is keyed by the running JVM, and it cannot contain classes from directories.
+        if (!JavaVersion.current().isCompatibleWith(JavaVersion.VERSION_13) || !sameFile(javaExecutable, Jvm.current().getJavaExecutable())) {
+            return false;
+        }
+        for (File file : classpath) {
+            if (!file.isFile()) {
+                return false;
+            }
+        }
+        return !classpath.isEmpty();
+    }
+
+    private static boolean sameFile(File file, File other) {
+        try {
+            return file.getCanonicalFile().equals(other.getCanonicalFile());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    String getKey(List<File> classpath, Collection<File> otherClasspath) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(System.getProperty("java.home"));
+        hasher.putString(System.getProperty("java.vm.version"));
+        hasher.putString(System.getProperty("os.arch"));
+        putFiles(hasher, classpath);
+        putFiles(hasher, otherClasspath);
+        return hasher.hash().toString();
+    }
+
+    private static void putFiles(Hasher hasher, Collection<File> files) {
+        hasher.putInt(files.size());
+        for (File file : files) {
+            hasher.putString(file.getAbsolutePath());
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+    }
+
+    /**
+     * Claims the recording of the archive with the given key, returning the file the JVM should record it to. Returns null when another JVM is recording it.
+     */
+    @Nullable
+    private File startRecording(String key) {
+        File marker = getMarker(key);
+        try {
+            GFileUtils.mkdirs(archivesDir);
+            if (marker.isFile() && System.currentTimeMillis() - marker.lastModified() > STALE_RECORDING_MILLIS) {
+                // The recording JVM is long running or did not write the archive, let another one try
+                GFileUtils.deleteQuietly(marker);
+            }
+            if (!marker.createNewFile()) {
+                return null;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not start recording class data sharing archive for {}.", key, e);
+            return null;
+        }
+        // Each recording JVM writes its own file, in case a JVM with a stale marker is still running
+        return new File(archivesDir, key + "-" + UUID.randomUUID() + RECORDING_SUFFIX);
+    }
+
+    /**
+     * Moves a completely written recording of the archive with the given key into place, and releases the recording marker.
+     */
+    private boolean installRecordedArchive(String key, File archive) {
+        File[] recordings = archivesDir.listFiles();
+        if (recordings == null) {
+            return false;
+        }
+        for (File recording : recordings) {
+            String name = recording.getName();
+            if (!name.startsWith(key + "-") || !name.endsWith(RECORDING_SUFFIX) || System.currentTimeMillis() - recording.lastModified() < SETTLED_RECORDING_MILLIS) {
+                continue;
+            }
+            try {
+                Files.move(recording.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                GFileUtils.deleteQuietly(getMarker(key));
+                return true;
+            } catch (IOException e) {
+                // Another process installed a recording first
+                GFileUtils.deleteQuietly(recording);
+                if (archive.isFile()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private File getMarker(String key) {
+        return new File(archivesDir, key + ".lock");
+    }
+}
@@ -22,6 +22,7 @@
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.io.StreamByteBuffer;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
@@ -31,6 +32,7 @@
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
 import org.gradle.internal.stream.EncodedStream;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.worker.GradleWorkerMain;
 import org.gradle.process.internal.worker.WorkerProcessBuilder;
@@ -39,6 +41,7 @@
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -72,12 +75,14 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
     private final TemporaryFileProvider temporaryFileProvider;
     private final JvmVersionDetector jvmVersionDetector;
     private final File gradleUserHomeDir;
+    private final ClassDataSharingArchives classDataSharingArchives;
 
     public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
         this.jvmVersionDetector = jvmVersionDetector;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharingArchives = ClassDataSharingArchives.forUserHome(gradleUserHomeDir);
     }
 
     @Override
@@ -91,6 +96,13 @@ public void prepareJavaCommand(Object workerId, String displayName, WorkerProces
         execSpec.setMain("worker." + GradleWorkerMain.class.getName());
 
         boolean useOptionsFile = shouldUseOptionsFile(execSpec);
+        // The archive records the classes loaded from the whole system class path, and from the implementation class path by the worker class loaders
+        List<File> systemClassPath = new ArrayList<File>(workerMainClassPath.getAsFiles());
+        if (useOptionsFile) {
+            systemClassPath.addAll(applicationClasspath);
+        }
+        execSpec.jvmArgs(classDataSharingArchives.getJvmArgs(new File(execSpec.getExecutable()), systemClassPath, toFiles(implementationClassPath)));
+
         if (useOptionsFile) {
             // Use an options file to pass across application classpath
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
@@ -148,6 +160,20 @@ public void prepareJavaCommand(Object workerId, String displayName, WorkerProces
         execSpec.setStandardInput(buffer.getInputStream());
     }
 
+    private static List<File> toFiles(List<URL> urls) {
+        List<File> files = new ArrayList<File>(urls.size());
+        for (URL url : urls) {
+            if ("file".equals(url.getProtocol())) {
+                try {
+                    files.add(new File(url.toURI()));
+                } catch (URISyntaxException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
+        return files;
+    }
+
     private boolean shouldUseOptionsFile(JavaExecHandleBuilder execSpec) {
         JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
         return executableVersion != null && executableVersion.isJava9Compatible();
@@ -27,6 +27,9 @@
      */
     String requireResource(URL resource);
 
+    /**
+     * Formats the given date, such as the time the page was generated. The formatted date is not taken into account when deciding whether the page has changed.
+     */
     String formatDate(Date date);
 
     T getOutput();
@@ -15,10 +15,13 @@
  */
 package org.gradle.reporting;
 
+import com.google.common.base.Charsets;
 import org.apache.commons.lang.StringUtils;
+import org.gradle.api.Action;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.internal.html.SimpleHtmlWriter;
 import org.gradle.internal.ErroringAction;
+import org.gradle.internal.Factory;
 import org.gradle.internal.IoActions;
 import org.gradle.util.GFileUtils;
 
@@ -27,8 +30,10 @@
 import java.io.Writer;
 import java.net.URL;
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class HtmlReportRenderer {
@@ -117,12 +122,13 @@ public void requireResource(URL source) {
         @Override
         public <T> void renderHtmlPage(final String name, final T model, final ReportRenderer<T, HtmlPageBuilder<SimpleHtmlWriter>> renderer) {
             File outputFile = new File(outputDirectory, name);
-            IoActions.writeTextFile(outputFile, "utf-8", new ErroringAction<Writer>() {
+            final List<String> formattedDates = new ArrayList<String>();
+            writeIfChanged(outputFile, formattedDates, new ErroringAction<Writer>() {
                 @Override
                 protected void doExecute(Writer writer) throws Exception {
                     SimpleHtmlWriter htmlWriter = new SimpleHtmlWriter(writer, "");
                     htmlWriter.startElement("html");
-                    renderer.render(model, new DefaultHtmlPageBuilder<SimpleHtmlWriter>(prefix(name), htmlWriter));
+                    renderer.render(model, new DefaultHtmlPageBuilder<SimpleHtmlWriter>(prefix(name), htmlWriter, formattedDates));
                     htmlWriter.endElement();
                 }
             });
@@ -131,10 +137,28 @@ protected void doExecute(Writer writer) throws Exception {
         @Override
         public <T> void renderRawHtmlPage(final String name, final T model, final ReportRenderer<T, HtmlPageBuilder<Writer>> renderer) {
             File outputFile = new File(outputDirectory, name);
-            IoActions.writeTextFile(outputFile, "utf-8", new ErroringAction<Writer>() {
+            final List<String> formattedDates = new ArrayList<String>();
+            writeIfChanged(outputFile, formattedDates, new ErroringAction<Writer>() {
                 @Override
                 protected void doExecute(Writer writer) throws Exception {
-                    renderer.render(model, new DefaultHtmlPageBuilder<Writer>(prefix(name), writer));
+                    renderer.render(model, new DefaultHtmlPageBuilder<Writer>(prefix(name), writer, formattedDates));
+                }
+            });
+        }
+
+        /**
+         * Writes the page unless only the dates formatted for it have changed, such as the time the page was generated.
+         */
+        private void writeIfChanged(File outputFile, final List<String> formattedDates, final Action<Writer> action) {
+            ReportFiles.writeTextIfChanged(outputFile, Charsets.UTF_8, new Action<File>() {
+                @Override
+                public void execute(File file) {
+                    IoActions.writeTextFile(file, "utf-8", action);
+                }
+            }, new Factory<List<String>>() {
+                @Override
+                public List<String> create() {
+                    return formattedDates;
                 }
             });
         }
@@ -156,10 +180,12 @@ private String prefix(String name) {
         private class DefaultHtmlPageBuilder<D> implements HtmlPageBuilder<D> {
             private final String prefix;
             private final D output;
+            private final List<String> formattedDates;
 
-            public DefaultHtmlPageBuilder(String prefix, D output) {
+            public DefaultHtmlPageBuilder(String prefix, D output, List<String> formattedDates) {
                 this.prefix = prefix;
                 this.output = output;
+                this.formattedDates = formattedDates;
             }
 
             @Override
@@ -170,7 +196,9 @@ public String requireResource(URL source) {
 
             @Override
             public String formatDate(Date date) {
-                return DateFormat.getDateTimeInstance().format(date);
+                String formattedDate = DateFormat.getDateTimeInstance().format(date);
+                formattedDates.add(formattedDate);
+                return formattedDate;
             }
 
             @Override
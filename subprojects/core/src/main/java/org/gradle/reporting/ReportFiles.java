@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.reporting;
+
+import com.google.common.io.Files;
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.Factory;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class ReportFiles {
+    private ReportFiles() {
+    }
+
+    /**
+     * Writes a report file using the given action, leaving an existing file untouched when the new content is identical.
+     * The content is written to a temporary sibling file first, so the report file is never observed half written.
+     */
+    public static void writeIfChanged(File reportFile, Action<? super File> writer) {
+        writeIfChanged(reportFile, writer, null, null);
+    }
+
+    /**
+     * Writes a text report file using the given action, leaving an existing file untouched when the new content is identical apart from the
+     * volatile parts, such as the time the report was generated. The volatile parts are queried once the new content is written.
+     */
+    public static void writeTextIfChanged(File reportFile, Charset charset, Action<? super File> writer, Factory<? extends List<String>> volatileParts) {
+        writeIfChanged(reportFile, writer, charset, volatileParts);
+    }
+
+    private static void writeIfChanged(File reportFile, Action<? super File> writer, Charset charset, Factory<? extends List<String>> volatileParts) {
+        File tempFile = new File(reportFile.getParentFile(), reportFile.getName() + ".tmp");
+        try {
+            writer.execute(tempFile);
+            List<String> parts = volatileParts == null ? Collections.<String>emptyList() : volatileParts.create();
+            if (reportFile.isFile() && hasSameContent(reportFile, tempFile, charset, parts)) {
+                GFileUtils.deleteQuietly(tempFile);
+                return;
+            }
+            java.nio.file.Files.move(tempFile.toPath(), reportFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            GFileUtils.deleteQuietly(tempFile);
+            throw new UncheckedIOException(String.format("Could not write report file '%s'.", reportFile), e);
+        } catch (RuntimeException e) {
+            GFileUtils.deleteQuietly(tempFile);
+            throw e;
+        }
+    }
+
+    private static boolean hasSameContent(File reportFile, File newFile, Charset charset, List<String> volatileParts) throws IOException {
+        if (volatileParts.isEmpty()) {
+            return reportFile.length() == newFile.length() && Files.equal(reportFile, newFile);
+        }
+        // Match the existing content against the new content, with any markup-free text in place of each volatile part.
+        // The parts are located from the end, as they are usually rendered in the footer.
+        String content = Files.asCharSource(newFile, charset).read();
+        StringBuilder pattern = new StringBuilder();
+        int end = content.length();
+        for (int i = volatileParts.size() - 1; i >= 0; i--) {
+            String part = volatileParts.get(i);
+            int start = content.lastIndexOf(part, end - part.length());
+            if (start < 0) {
+                return false;
+            }
+            pattern.insert(0, "[^<>]*" + Pattern.quote(content.substring(start + part.length(), end)));
+            end = start;
+        }
+        pattern.insert(0, Pattern.quote(content.substring(0, end)));
+        return Pattern.compile(pattern.toString()).matcher(Files.asCharSource(reportFile, charset).read()).matches();
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.project
 
+import org.gradle.api.InvalidUserCodeException
 import org.gradle.api.internal.SettingsInternal
 import org.gradle.api.internal.artifacts.DefaultBuildIdentifier
 import org.gradle.api.internal.artifacts.DefaultProjectComponentIdentifier
@@ -149,6 +150,102 @@ class DefaultProjectStateRegistryTest extends ConcurrentSpec {
         !registry.stateFor(project("p1")).hasMutableState()
     }
 
+    def "fails access to other projects while running with isolated state"() {
+        given:
+        def build = build("p1", "p2")
+        registry.registerProjects(build)
+        def state1 = registry.stateFor(project("p1"))
+        def state2 = registry.stateFor(project("p2"))
+        def accessedOwnState = false
+
+        when:
+        async {
+            workerThread {
+                registry.withIsolatedMutableState(state1) {
+                    state1.withMutableState {
+                        accessedOwnState = true
+                    }
+                    state2.withMutableState {
+                    }
+                }
+            }
+        }
+
+        then:
+        InvalidUserCodeException e = thrown()
+        e.message == "Decoupled project :p1 is configured in parallel with other projects and cannot access the mutable state of project :p2."
+        accessedOwnState
+    }
+
+    def "fails look up of other projects while running with isolated state"() {
+        given:
+        def build = build("p1", "p2")
+        registry.registerProjects(build)
+        def root = registry.stateFor(project(":"))
+        def state1 = registry.stateFor(project("p1"))
+        def state2 = registry.stateFor(project("p2"))
+
+        when:
+        state1.assertCanLookUp(state2)
+        state2.assertCanLookUp(root)
+        async {
+            workerThread {
+                registry.withIsolatedMutableState(state1) {
+                    state1.assertCanLookUp(state1)
+                    state2.assertCanLookUp(root)
+                }
+            }
+        }
+
+        then:
+        noExceptionThrown()
+
+        when:
+        async {
+            workerThread {
+                registry.withIsolatedMutableState(state1) {
+                    state1.assertCanLookUp(root)
+                }
+            }
+        }
+
+        then:
+        InvalidUserCodeException e = thrown()
+        e.message == "Decoupled project :p1 is configured in parallel with other projects and cannot look up project :."
+    }
+
+    def "notifies listeners of isolated projects one at a time"() {
+        given:
+        def build = build("p1", "p2")
+        registry.registerProjects(build)
+        def state1 = registry.stateFor(project("p1"))
+        def state2 = registry.stateFor(project("p2"))
+
+        when:
+        async {
+            workerThread {
+                registry.withIsolatedMutableState(state1) {
+                    state1.notifyListeners {
+                        instant.notified1
+                        thread.block()
+                        instant.finished1
+                    }
+                }
+            }
+            workerThread {
+                thread.blockUntil.notified1
+                registry.withIsolatedMutableState(state2) {
+                    state2.notifyListeners {
+                        instant.notified2
+                    }
+                }
+            }
+        }
+
+        then:
+        instant.notified2 > instant.finished1
+    }
+
     ProjectInternal project(String name) {
         def project = Stub(ProjectInternal)
         project.identityPath >> (name == ':' ? Path.ROOT : Path.ROOT.child(name))
@@ -57,6 +57,7 @@ class LifecycleProjectEvaluatorTest extends Specification {
         }
         project.getMutationState() >> mutationState
         mutationState.withMutableState(_) >> { args -> args[0].run() }
+        mutationState.notifyListeners(_) >> { args -> args[0].run() }
     }
 
     void "nothing happens if project was already configured"() {
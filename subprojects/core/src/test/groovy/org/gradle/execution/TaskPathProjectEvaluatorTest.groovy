@@ -16,15 +16,28 @@
 
 package org.gradle.execution
 
+import org.gradle.StartParameter
 import org.gradle.api.BuildCancelledException
+import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.api.internal.project.ProjectStateRegistry
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.util.Path
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Specification
 
 class TaskPathProjectEvaluatorTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
     private cancellationToken = Mock(BuildCancellationToken)
     private project = Mock(ProjectInternal)
-    private evaluator = new TaskPathProjectEvaluator(cancellationToken)
+    private buildOperationExecutor = new TestBuildOperationExecutor()
+    private projectStateRegistry = Mock(ProjectStateRegistry)
+    private evaluator = new TaskPathProjectEvaluator(cancellationToken, buildOperationExecutor, projectStateRegistry)
 
     def "project configuration fails when cancelled"() {
         given:
@@ -60,4 +73,71 @@ class TaskPathProjectEvaluatorTest extends Specification {
         1 * child1.evaluate()
         0 * child2._
     }
+
+    def "configures decoupled projects of each level of the hierarchy after the other projects of that level"() {
+        def coupled = subproject(1, false)
+        def decoupled = subproject(1, true)
+        def decoupledChild = subproject(2, true)
+        def coupledChild = subproject(2, false)
+
+        given:
+        System.setProperty(TaskPathProjectEvaluator.PARALLEL_CONFIGURATION_PROPERTY, "true")
+        project.gradle >> Stub(GradleInternal) {
+            getStartParameter() >> Stub(StartParameter) {
+                isParallelProjectExecutionEnabled() >> true
+            }
+        }
+        project.subprojects >> [decoupled, decoupledChild, coupled, coupledChild]
+
+        when:
+        evaluator.configureHierarchy(project)
+
+        then:
+        1 * project.evaluate()
+
+        then:
+        1 * coupled.evaluate()
+
+        then:
+        1 * projectStateRegistry.withIsolatedMutableState(decoupled.mutationState, _) >> { ProjectState state, Runnable action -> action.run() }
+        1 * decoupled.evaluate()
+
+        then:
+        1 * coupledChild.evaluate()
+
+        then:
+        1 * projectStateRegistry.withIsolatedMutableState(decoupledChild.mutationState, _) >> { ProjectState state, Runnable action -> action.run() }
+        1 * decoupledChild.evaluate()
+
+        and:
+        buildOperationExecutor.log.descriptors*.displayName == ["Configure decoupled project :p1", "Configure decoupled project :p2"]
+    }
+
+    def "configures decoupled projects in order when parallel configuration is not enabled"() {
+        def decoupled = subproject(1, true)
+
+        given:
+        project.subprojects >> [decoupled]
+
+        when:
+        evaluator.configureHierarchy(project)
+
+        then:
+        1 * project.evaluate()
+        1 * decoupled.evaluate()
+        0 * projectStateRegistry._
+    }
+
+    private int projectCount
+
+    private ProjectInternal subproject(int depth, boolean decoupled) {
+        def path = Path.path(":p" + (projectCount++))
+        def mutationState = Stub(ProjectState)
+        def subproject = Mock(ProjectInternal)
+        _ * subproject.depth >> depth
+        _ * subproject.identityPath >> path
+        _ * subproject.mutationState >> mutationState
+        _ * subproject.findProperty(TaskPathProjectEvaluator.DECOUPLED_PROJECT_PROPERTY) >> (decoupled ? "true" : null)
+        return subproject
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.JavaVersion
+import org.gradle.internal.jvm.Jvm
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+class ClassDataSharingArchivesTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def archivesDir = tmpDir.file("cds")
+    def archives = new ClassDataSharingArchives(archivesDir)
+    def jar = tmpDir.file("lib/gradle-launcher.jar").createFile()
+    def java = Jvm.current().javaExecutable
+
+    def "does not use archives unless enabled"() {
+        given:
+        archivesDir.file(archives.getKey([jar], []) + ".jsa").createFile()
+
+        expect:
+        archives.getJvmArgs(java, [jar], []).empty
+    }
+
+    def "does not use archives for another JVM"() {
+        given:
+        System.setProperty(ClassDataSharingArchives.ENABLED_PROPERTY, "true")
+
+        expect:
+        archives.getJvmArgs(tmpDir.file("other/bin/java"), [jar], []).empty
+        !archivesDir.exists()
+    }
+
+    def "does not use archives for a class path with directories"() {
+        given:
+        System.setProperty(ClassDataSharingArchives.ENABLED_PROPERTY, "true")
+
+        expect:
+        archives.getJvmArgs(java, [jar, tmpDir.createDir("classes")], []).empty
+        !archivesDir.exists()
+    }
+
+    @IgnoreIf({ !JavaVersion.current().isCompatibleWith(JavaVersion.VERSION_13) })
+    def "uses existing archive for the class path"() {
+        given:
+        System.setProperty(ClassDataSharingArchives.ENABLED_PROPERTY, "true")
+        def archive = archivesDir.file(archives.getKey([jar], []) + ".jsa").createFile()
+
+        expect:
+        archives.getJvmArgs(java, [jar], []) == ["-XX:SharedArchiveFile=" + archive.absolutePath, "-Xshare:auto", "-Xlog:cds*=off"]
+    }
+
+    @IgnoreIf({ !JavaVersion.current().isCompatibleWith(JavaVersion.VERSION_13) })
+    def "lets a single JVM record the archive for the class path"() {
+        given:
+        System.setProperty(ClassDataSharingArchives.ENABLED_PROPERTY, "true")
+
+        when:
+        def args = archives.getJvmArgs(java, [jar], [])
+
+        then:
+        args.size() == 2
+        args[0].startsWith("-XX:ArchiveClassesAtExit=" + archivesDir.file(archives.getKey([jar], [])).absolutePath)
+        args[1] == "-Xlog:cds*=off"
+
+        and:
+        archives.getJvmArgs(java, [jar], []).empty
+    }
+
+    @IgnoreIf({ !JavaVersion.current().isCompatibleWith(JavaVersion.VERSION_13) })
+    def "uses recorded archive once the recording JVM has written it"() {
+        given:
+        System.setProperty(ClassDataSharingArchives.ENABLED_PROPERTY, "true")
+        def recording = new File(archives.getJvmArgs(java, [jar], [])[0] - "-XX:ArchiveClassesAtExit=")
+        def archive = archivesDir.file(archives.getKey([jar], []) + ".jsa")
+
+        when:
+        recording.text = "archive"
+
+        then:
+        archives.getJvmArgs(java, [jar], []).empty
+        !archive.exists()
+
+        when:
+        recording.lastModified = System.currentTimeMillis() - 60000
+
+        then:
+        archives.getJvmArgs(java, [jar], []) == ["-XX:SharedArchiveFile=" + archive.absolutePath, "-Xshare:auto", "-Xlog:cds*=off"]
+        archive.text == "archive"
+        archivesDir.list() as List == [archive.name]
+    }
+
+    def "archive key changes with the class path"() {
+        def otherJar = tmpDir.file("lib/other.jar").createFile()
+
+        expect:
+        archives.getKey([jar], []) == archives.getKey([jar], [])
+        archives.getKey([jar], []) != archives.getKey([jar, otherJar], [])
+        archives.getKey([jar], []) != archives.getKey([otherJar], [])
+        archives.getKey([jar], []) != archives.getKey([jar], [otherJar])
+        archives.getKey([jar], [otherJar]) != archives.getKey([jar, otherJar], [])
+    }
+}
@@ -108,6 +108,64 @@ class HtmlReportRendererTest extends Specification {
 ''')
     }
 
+    def "leaves page untouched when its content has not changed"() {
+        def destFile = tmpDir.file("out.html")
+        def pageRenderer = Stub(ReportRenderer) {
+            render(_, _) >> { String model, HtmlPageBuilder<Writer> builder ->
+                builder.output.write("<html>" + model + "</html>")
+            }
+        }
+
+        given:
+        renderer.renderRawSinglePage("original", pageRenderer, destFile)
+        destFile.lastModified = 1000
+
+        when:
+        renderer.renderRawSinglePage("original", pageRenderer, destFile)
+
+        then:
+        destFile.lastModified() == 1000
+        destFile.getText("utf-8") == "<html>original</html>"
+
+        when:
+        renderer.renderRawSinglePage("changed", pageRenderer, destFile)
+
+        then:
+        destFile.lastModified() != 1000
+        destFile.getText("utf-8") == "<html>changed</html>"
+        destFile.parentFile.list() as Set == ["out.html"] as Set
+    }
+
+    def "leaves page untouched when only its generation time has changed"() {
+        def destFile = tmpDir.file("out.html")
+        def generatedAt = 0L
+        def pageRenderer = Stub(ReportRenderer) {
+            render(_, _) >> { String model, HtmlPageBuilder<Writer> builder ->
+                builder.output.write("<html><p>" + model + "</p><p>Generated at " + builder.formatDate(new Date(generatedAt)) + "</p></html>")
+            }
+        }
+
+        given:
+        renderer.renderRawSinglePage("original", pageRenderer, destFile)
+        destFile.lastModified = 1000
+
+        when:
+        generatedAt = 100000000000L
+        renderer.renderRawSinglePage("original", pageRenderer, destFile)
+
+        then:
+        destFile.lastModified() == 1000
+
+        when:
+        generatedAt = 200000000000L
+        renderer.renderRawSinglePage("changed", pageRenderer, destFile)
+
+        then:
+        destFile.lastModified() != 1000
+        destFile.getText("utf-8").contains("<p>changed</p>")
+        destFile.parentFile.list() as Set == ["out.html"] as Set
+    }
+
     def "copies resources into output directory"() {
         def destDir = tmpDir.file("out")
         def reportRenderer = Mock(ReportRenderer)
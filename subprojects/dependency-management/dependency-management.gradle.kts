@@ -109,6 +109,9 @@ dependencies {
     testFixturesImplementation(library("inject"))
 
     crossVersionTestRuntimeOnly(project(":maven"))
+
+    jmhImplementation(testFixtures(project(":core")))
+    jmhImplementation(testFixtures(project(":execution")))
 }
 
 gradlebuildJava {
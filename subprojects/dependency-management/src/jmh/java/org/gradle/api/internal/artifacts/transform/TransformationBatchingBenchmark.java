@@ -0,0 +1,415 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.Describable;
+import org.gradle.api.artifacts.component.BuildIdentifier;
+import org.gradle.api.artifacts.transform.TransformAction;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemLocation;
+import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.DefaultWellKnownFileLocations;
+import org.gradle.api.internal.file.TestFiles;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.FileNormalizer;
+import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.controller.BuildCacheLoadCommand;
+import org.gradle.caching.internal.controller.BuildCacheStoreCommand;
+import org.gradle.initialization.DefaultBuildCancellationToken;
+import org.gradle.internal.Try;
+import org.gradle.internal.execution.CachingResult;
+import org.gradle.internal.execution.ExecutionRequestContext;
+import org.gradle.internal.execution.OutputChangeListener;
+import org.gradle.internal.execution.TestExecutionHistoryStore;
+import org.gradle.internal.execution.WorkExecutor;
+import org.gradle.internal.execution.history.OutputFilesRepository;
+import org.gradle.internal.execution.history.changes.DefaultExecutionStateChangeDetector;
+import org.gradle.internal.execution.timeout.impl.DefaultTimeoutHandler;
+import org.gradle.internal.file.Deleter;
+import org.gradle.internal.fingerprint.AbsolutePathInputNormalizer;
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileCollectionFingerprinter;
+import org.gradle.internal.fingerprint.FileCollectionFingerprinterRegistry;
+import org.gradle.internal.fingerprint.impl.AbsolutePathFileCollectionFingerprinter;
+import org.gradle.internal.fingerprint.impl.DefaultFileCollectionFingerprinterRegistry;
+import org.gradle.internal.fingerprint.impl.DefaultFileCollectionSnapshotter;
+import org.gradle.internal.fingerprint.impl.OutputFileCollectionFingerprinter;
+import org.gradle.internal.fingerprint.overlap.impl.DefaultOverlappingOutputDetector;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.id.UniqueId;
+import org.gradle.internal.operations.TestBuildOperationExecutor;
+import org.gradle.internal.scopeids.id.BuildInvocationScopeId;
+import org.gradle.internal.service.scopes.ExecutionGradleServices;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.impl.DefaultFileSystemMirror;
+import org.gradle.internal.snapshot.impl.DefaultFileSystemSnapshotter;
+import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter;
+import org.gradle.work.InputChanges;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares transforming many small input artifacts one unit of work at a time with transforming them in batches.
+ *
+ * A batch size of 1 uses the per-artifact code path.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TransformationBatchingBenchmark {
+    private static final ClassLoaderHierarchyHasher CLASS_LOADER_HASHER = classLoader -> HashCode.fromInt(1234);
+
+    @Param({"1", "32"})
+    int batchSize;
+
+    @Param({"1000"})
+    int inputArtifactCount;
+
+    File tempDir;
+    List<File> inputArtifacts;
+    DefaultFileSystemMirror fileSystemMirror;
+    DefaultTransformerInvocationFactory invocationFactory;
+    FileCollectionFingerprinterRegistry fingerprinterRegistry;
+    ArtifactTransformDependencies dependencies;
+    Transformer transformer = new CopyingTransformer();
+
+    @Setup(Level.Trial)
+    public void createInputArtifacts() throws IOException {
+        tempDir = Files.createTempDirectory("transformation-batching").toFile();
+        inputArtifacts = new ArrayList<>(inputArtifactCount);
+        for (int i = 0; i < inputArtifactCount; i++) {
+            File inputArtifact = new File(tempDir, "inputs/input-" + i + ".jar");
+            FileUtils.writeStringToFile(inputArtifact, "input " + i, "utf-8");
+            inputArtifacts.add(inputArtifact);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createInvocationFactory() throws IOException {
+        File storeDir = new File(tempDir, "transforms");
+        FileUtils.deleteDirectory(storeDir);
+
+        fileSystemMirror = new DefaultFileSystemMirror(new DefaultWellKnownFileLocations(ImmutableList.of()));
+        DefaultFileSystemSnapshotter fileSystemSnapshotter = TestFiles.fileSystemSnapshotter(fileSystemMirror, new StringInterner());
+        DefaultFileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSystemSnapshotter, TestFiles.fileSystem());
+        fingerprinterRegistry = new DefaultFileCollectionFingerprinterRegistry(ImmutableList.of(
+            new AbsolutePathFileCollectionFingerprinter(fileCollectionSnapshotter),
+            new OutputFileCollectionFingerprinter(fileCollectionSnapshotter)
+        ));
+        FileCollection noFiles = TestFiles.fileCollectionFactory().empty();
+        dependencies = new ArtifactTransformDependencies() {
+            @Override
+            public FileCollection getFiles() {
+                return noFiles;
+            }
+
+            @Override
+            public CurrentFileCollectionFingerprint fingerprint(FileCollectionFingerprinter fingerprinter) {
+                return fingerprinter.empty();
+            }
+        };
+        invocationFactory = new DefaultTransformerInvocationFactory(
+            createWorkExecutor(),
+            fileSystemSnapshotter,
+            new NoOpArtifactTransformListener(),
+            new DirectoryWorkspaceProvider(storeDir, new TestExecutionHistoryStore()),
+            TestFiles.fileCollectionFactory(),
+            fileCollectionSnapshotter,
+            new NoProjectsProjectFinder(),
+            new TestBuildOperationExecutor()
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTempDir() throws IOException {
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void transform(Blackhole blackhole) {
+        TransformationBatcher batcher = new TransformationBatcher(transformer, invocationFactory, batchSize);
+        List<CacheableInvocation<ImmutableList<File>>> invocations = new ArrayList<>(inputArtifacts.size());
+        for (File inputArtifact : inputArtifacts) {
+            CacheableInvocation<ImmutableList<File>> invocation = batcher.createInvocation(inputArtifact, dependencies, TransformationSubject.initial(inputArtifact), fingerprinterRegistry);
+            blackhole.consume(invocation.getCachedResult());
+            invocations.add(invocation);
+        }
+        for (CacheableInvocation<ImmutableList<File>> invocation : invocations) {
+            blackhole.consume(invocation.invoke().get());
+        }
+    }
+
+    private WorkExecutor<ExecutionRequestContext, CachingResult> createWorkExecutor() {
+        return new ExecutionGradleServices().createWorkExecutor(
+            null,
+            new DisabledBuildCacheController(),
+            new DefaultBuildCancellationToken(),
+            new BuildInvocationScopeId(UniqueId.generate()),
+            new TestBuildOperationExecutor(),
+            () -> false,
+            CLASS_LOADER_HASHER,
+            new FileUtilsDeleter(),
+            new DefaultExecutionStateChangeDetector(),
+            new OutputChangeListener() {
+                @Override
+                public void beforeOutputChange() {
+                    fileSystemMirror.beforeOutputChange();
+                }
+
+                @Override
+                public void beforeOutputChange(Iterable<String> affectedOutputPaths) {
+                    fileSystemMirror.beforeOutputChange(affectedOutputPaths);
+                }
+            },
+            new OutputFilesRepository() {
+                @Override
+                public boolean isGeneratedByGradle(File file) {
+                    return true;
+                }
+
+                @Override
+                public void recordOutputs(Iterable<? extends FileSystemSnapshot> outputFileFingerprints) {
+                }
+            },
+            new DefaultOverlappingOutputDetector(),
+            new DefaultTimeoutHandler(null),
+            new DefaultValueSnapshotter(CLASS_LOADER_HASHER, null)
+        );
+    }
+
+    private static class CopyingTransformer implements Transformer {
+        @Override
+        public Class<?> getImplementationClass() {
+            return TransformAction.class;
+        }
+
+        @Override
+        public ImmutableAttributes getFromAttributes() {
+            return ImmutableAttributes.EMPTY;
+        }
+
+        @Override
+        public boolean requiresDependencies() {
+            return false;
+        }
+
+        @Override
+        public boolean requiresInputChanges() {
+            return false;
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return false;
+        }
+
+        @Override
+        public boolean isBatchable() {
+            return true;
+        }
+
+        @Override
+        public ImmutableList<File> transform(Provider<FileSystemLocation> inputArtifactProvider, File outputDir, ArtifactTransformDependencies dependencies, @Nullable InputChanges inputChanges) {
+            File inputArtifact = inputArtifactProvider.get().getAsFile();
+            File outputFile = new File(outputDir, inputArtifact.getName());
+            try {
+                FileUtils.copyFile(inputArtifact, outputFile);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return ImmutableList.of(outputFile);
+        }
+
+        @Override
+        public HashCode getSecondaryInputHash() {
+            return HashCode.fromInt(1234);
+        }
+
+        @Override
+        public void isolateParameters(FileCollectionFingerprinterRegistry fingerprinterRegistry) {
+        }
+
+        @Override
+        public Class<? extends FileNormalizer> getInputArtifactNormalizer() {
+            return AbsolutePathInputNormalizer.class;
+        }
+
+        @Override
+        public Class<? extends FileNormalizer> getInputArtifactDependenciesNormalizer() {
+            return AbsolutePathInputNormalizer.class;
+        }
+
+        @Override
+        public boolean isIsolated() {
+            return true;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "copying transformer";
+        }
+
+        @Override
+        public void visitDependencies(TaskDependencyResolveContext context) {
+        }
+    }
+
+    private static class DirectoryWorkspaceProvider implements CachingTransformationWorkspaceProvider {
+        private final File storeDir;
+        private final TestExecutionHistoryStore executionHistoryStore;
+
+        DirectoryWorkspaceProvider(File storeDir, TestExecutionHistoryStore executionHistoryStore) {
+            this.storeDir = storeDir;
+            this.executionHistoryStore = executionHistoryStore;
+        }
+
+        @Override
+        public TestExecutionHistoryStore getExecutionHistoryStore() {
+            return executionHistoryStore;
+        }
+
+        @Override
+        public Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity identity, TransformationWorkspaceAction workspaceAction) {
+            String identityString = identity.getIdentity();
+            return workspaceAction.useWorkspace(identityString, new DefaultTransformationWorkspace(new File(storeDir, identityString)));
+        }
+
+        @Override
+        public Try<ImmutableList<ImmutableList<File>>> withWorkspaces(List<TransformationWorkspaceIdentity> identities, BatchWorkspaceAction workspaceAction) {
+            ImmutableList.Builder<TransformationWorkspace> workspaces = ImmutableList.builderWithExpectedSize(identities.size());
+            for (TransformationWorkspaceIdentity identity : identities) {
+                workspaces.add(new DefaultTransformationWorkspace(new File(storeDir, identity.getIdentity())));
+            }
+            return workspaceAction.useWorkspaces(workspaces.build());
+        }
+
+        @Nullable
+        @Override
+        public Try<ImmutableList<File>> getCachedResult(TransformationWorkspaceIdentity identity) {
+            return null;
+        }
+
+        @Override
+        public void cacheResult(TransformationWorkspaceIdentity identity, Try<ImmutableList<File>> result) {
+        }
+    }
+
+    private static class NoOpArtifactTransformListener implements ArtifactTransformListener {
+        @Override
+        public void beforeTransformerInvocation(Describable transformer, Describable subject) {
+        }
+
+        @Override
+        public void afterTransformerInvocation(Describable transformer, Describable subject) {
+        }
+    }
+
+    private static class NoProjectsProjectFinder implements ProjectFinder {
+        @Override
+        public ProjectInternal getProject(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Nullable
+        @Override
+        public ProjectInternal findProject(String path) {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public ProjectInternal findProject(BuildIdentifier build, String path) {
+            return null;
+        }
+    }
+
+    private static class DisabledBuildCacheController implements BuildCacheController {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isEmitDebugLogging() {
+            return false;
+        }
+
+        @Override
+        public <T> Optional<T> load(BuildCacheLoadCommand<T> command) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void store(BuildCacheStoreCommand command) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class FileUtilsDeleter implements Deleter {
+        @Override
+        public boolean deleteRecursively(File target, boolean followSymlinks) {
+            return FileUtils.deleteQuietly(target);
+        }
+
+        @Override
+        public boolean ensureEmptyDirectory(File target, boolean followSymlinks) throws IOException {
+            File[] children = target.listFiles();
+            FileUtils.forceDelete(target);
+            FileUtils.forceMkdir(target);
+            return children == null || children.length == 0;
+        }
+
+        @Override
+        public boolean delete(File target) throws IOException {
+            return Files.deleteIfExists(target.toPath());
+        }
+    }
+}
@@ -29,6 +29,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetadata;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConnectionFailureRepositoryBlacklister;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryBlacklister;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolutionProfiler;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride;
@@ -275,7 +276,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(StartParameter start
                                                                 List<ResourceConnectorFactory> resourceConnectorFactories,
                                                                 BuildOperationExecutor buildOperationExecutor,
                                                                 ProducerGuard<ExternalResourceName> producerGuard,
-                                                                FileResourceRepository fileResourceRepository) {
+                                                                FileResourceRepository fileResourceRepository,
+                                                                ResolutionProfiler resolutionProfiler) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
         return new RepositoryTransportFactory(
             resourceConnectorFactories,
@@ -287,7 +289,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(StartParameter start
             buildOperationExecutor,
             startParameterResolutionOverride,
             producerGuard,
-            fileResourceRepository);
+            fileResourceRepository,
+            resolutionProfiler);
     }
 
     RepositoryBlacklister createRepositoryBlacklister() {
@@ -300,7 +303,8 @@ ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleR
                                               ImmutableModuleIdentifierFactory moduleIdentifierFactory,
                                               RepositoryBlacklister repositoryBlacklister,
                                               VersionParser versionParser,
-                                              InstantiatorFactory instantiatorFactory) {
+                                              InstantiatorFactory instantiatorFactory,
+                                              ResolutionProfiler resolutionProfiler) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
         return new ResolveIvyFactory(
             moduleRepositoryCacheProvider,
@@ -310,7 +314,16 @@ ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleR
             moduleIdentifierFactory,
             repositoryBlacklister,
             versionParser,
-            instantiatorFactory);
+            instantiatorFactory,
+            resolutionProfiler);
+    }
+
+    ResolutionProfiler createResolutionProfiler(StartParameter startParameter) {
+        String reportPath = System.getProperty(ResolutionProfiler.REPORT_FILE_PROPERTY);
+        if (reportPath == null) {
+            return new ResolutionProfiler(null);
+        }
+        return new ResolutionProfiler(startParameter.getCurrentDir().toPath().resolve(reportPath).toFile());
     }
 
     ArtifactDependencyResolver createArtifactDependencyResolver(ResolveIvyFactory resolveIvyFactory,
@@ -36,6 +36,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.ProjectIvyDependencyDescriptorFactory;
 import org.gradle.api.internal.artifacts.transform.ArtifactTransformActionScheme;
 import org.gradle.api.internal.artifacts.transform.ArtifactTransformParameterScheme;
+import org.gradle.api.internal.artifacts.transform.BatchableTransformTypeAnnotationHandler;
 import org.gradle.api.internal.artifacts.transform.CacheableTransformTypeAnnotationHandler;
 import org.gradle.api.internal.artifacts.transform.InputArtifactAnnotationHandler;
 import org.gradle.api.internal.artifacts.transform.InputArtifactDependenciesAnnotationHandler;
@@ -119,6 +120,10 @@ TypeAnnotationHandler createCacheableTransformAnnotationHandler() {
         return new CacheableTransformTypeAnnotationHandler();
     }
 
+    TypeAnnotationHandler createBatchableTransformAnnotationHandler() {
+        return new BatchableTransformTypeAnnotationHandler();
+    }
+
     InputArtifactAnnotationHandler createInputArtifactAnnotationHandler() {
         return new InputArtifactAnnotationHandler();
     }
@@ -58,7 +58,7 @@ ImmutableTransformationWorkspaceProvider createTransformerWorkspaceProvider(Arti
     }
 
     ImmutableCachingTransformationWorkspaceProvider createCachingTransformerWorkspaceProvider(ImmutableTransformationWorkspaceProvider immutableTransformationWorkspaceProvider, ListenerManager listenerManager) {
-        ImmutableCachingTransformationWorkspaceProvider cachingWorkspaceProvider = new ImmutableCachingTransformationWorkspaceProvider(immutableTransformationWorkspaceProvider);
+        ImmutableCachingTransformationWorkspaceProvider cachingWorkspaceProvider = new ImmutableCachingTransformationWorkspaceProvider(immutableTransformationWorkspaceProvider, ImmutableCachingTransformationWorkspaceProvider.DEFAULT_MAX_RETAINED_RESULTS);
         listenerManager.addListener(new RootBuildLifecycleListener() {
             @Override
             public void afterStart() {
@@ -82,8 +82,9 @@ public class DynamicVersionResolver {
     private final ComponentMetadataProcessorFactory componentMetadataProcessor;
     private final ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor;
     private final CachePolicy cachePolicy;
+    private final ResolutionProfiler resolutionProfiler;
 
-    public DynamicVersionResolver(VersionedComponentChooser versionedComponentChooser, VersionParser versionParser, Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessor, ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor, CachePolicy cachePolicy) {
+    public DynamicVersionResolver(VersionedComponentChooser versionedComponentChooser, VersionParser versionParser, Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessor, ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor, CachePolicy cachePolicy, ResolutionProfiler resolutionProfiler) {
         this.versionedComponentChooser = versionedComponentChooser;
         this.versionParser = versionParser;
         this.metaDataFactory = metaDataFactory;
@@ -91,6 +92,7 @@ public DynamicVersionResolver(VersionedComponentChooser versionedComponentChoose
         this.componentMetadataProcessor = componentMetadataProcessor;
         this.componentMetadataSupplierRuleExecutor = componentMetadataSupplierRuleExecutor;
         this.cachePolicy = cachePolicy;
+        this.resolutionProfiler = resolutionProfiler;
     }
 
     public void add(ModuleComponentRepository repository) {
@@ -169,15 +171,18 @@ private RepositoryChainModuleResolution findLatestModule(LinkedList<RepositoryRe
         RepositoryChainModuleResolution best = null;
         while (!queue.isEmpty()) {
             RepositoryResolveState request = queue.removeFirst();
+            ResolutionProfiler.Scope scope = resolutionProfiler.start(request.repository.getName(), moduleOf(request.dependency.getSelector()), ResolutionProfiler.Operation.DYNAMIC_VERSION, request.hasSearchedLocally());
             try {
                 request.resolve();
             } catch (Exception t) {
+                scope.finish(false, true, 0);
                 failures.add(t);
                 if (isCriticalFailure(t)) {
                     queue.clear();
                 }
                 continue;
             }
+            scope.finish(request.resolvedVersionMetadata.getState() == Resolved, request.resolvedVersionMetadata.getState() == Failed, 0);
             switch (request.resolvedVersionMetadata.getState()) {
                 case Failed:
                     failures.add(request.resolvedVersionMetadata.getFailure());
@@ -206,6 +211,10 @@ private RepositoryChainModuleResolution findLatestModule(LinkedList<RepositoryRe
         return best;
     }
 
+    private static String moduleOf(ModuleComponentSelector selector) {
+        return selector.getGroup() + ":" + selector.getModule();
+    }
+
     private RepositoryChainModuleResolution chooseBest(RepositoryChainModuleResolution one, RepositoryChainModuleResolution two) {
         if (one == null || two == null) {
             return two == null ? one : two;
@@ -282,6 +291,13 @@ public boolean canMakeFurtherAttempts() {
             return versionListingResult.canMakeFurtherAttempts();
         }
 
+        /**
+         * Whether the cache of the repository has already been searched, so any further attempt goes to the remote repository.
+         */
+        boolean hasSearchedLocally() {
+            return versionListingResult.searchedLocally;
+        }
+
         void resolve() {
             versionListingResult.resolve();
             switch (versionListingResult.result.getState()) {
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.resources.ResourceException;
+import org.gradle.internal.resource.ReadableContent;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.ExternalResourceConnector;
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * An ExternalResourceConnector that reports each request, and the bytes downloaded by it, to a {@link ResolutionProfiler}.
+ */
+class ProfilingExternalResourceConnector implements ExternalResourceConnector {
+    private final String repositoryName;
+    private final ExternalResourceConnector delegate;
+    private final ResolutionProfiler profiler;
+
+    ProfilingExternalResourceConnector(String repositoryName, ExternalResourceConnector delegate, ResolutionProfiler profiler) {
+        this.repositoryName = repositoryName;
+        this.delegate = delegate;
+        this.profiler = profiler;
+    }
+
+    @Nullable
+    @Override
+    public ExternalResourceReadResponse openResource(URI location, boolean revalidate) throws ResourceException {
+        ResolutionProfiler.RequestStats stats = profiler.requestStarted(repositoryName);
+        return countBytes(delegate.openResource(location, revalidate), stats);
+    }
+
+    @Nullable
+    @Override
+    public ExternalResourceReadResponse openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) throws ResourceException {
+        ResolutionProfiler.RequestStats stats = profiler.requestStarted(repositoryName);
+        return countBytes(delegate.openResourceIfChanged(location, cachedMetaData), stats);
+    }
+
+    @Nullable
+    @Override
+    public ExternalResourceMetaData getMetaData(URI location, boolean revalidate) throws ResourceException {
+        profiler.requestStarted(repositoryName);
+        return delegate.getMetaData(location, revalidate);
+    }
+
+    @Nullable
+    @Override
+    public List<String> list(URI parent) throws ResourceException {
+        profiler.requestStarted(repositoryName);
+        return delegate.list(parent);
+    }
+
+    @Override
+    public void upload(ReadableContent resource, URI destination) throws IOException {
+        delegate.upload(resource, destination);
+    }
+
+    @Nullable
+    private static ExternalResourceReadResponse countBytes(@Nullable ExternalResourceReadResponse response, ResolutionProfiler.RequestStats stats) {
+        if (response == null) {
+            return null;
+        }
+        return new ExternalResourceReadResponse() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return new CountingInputStream(response.openStream(), stats);
+            }
+
+            @Override
+            public ExternalResourceMetaData getMetaData() {
+                return response.getMetaData();
+            }
+
+            @Override
+            public boolean isUnchanged() {
+                return response.isUnchanged();
+            }
+
+            @Override
+            public void close() throws IOException {
+                response.close();
+            }
+        };
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final ResolutionProfiler.RequestStats stats;
+
+        CountingInputStream(InputStream in, ResolutionProfiler.RequestStats stats) {
+            super(in);
+            this.stats = stats;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result >= 0) {
+                stats.bytesDownloaded(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                stats.bytesDownloaded(count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long count = super.skip(n);
+            if (count > 0) {
+                stats.bytesDownloaded(count);
+            }
+            return count;
+        }
+    }
+}
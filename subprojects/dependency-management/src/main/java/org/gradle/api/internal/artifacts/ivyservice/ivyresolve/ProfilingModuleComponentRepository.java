@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.repositories.resolver.MetadataFetchingCost;
+import org.gradle.api.internal.component.ArtifactType;
+import org.gradle.internal.component.external.model.ModuleDependencyMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
+import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult;
+import org.gradle.internal.resolve.result.BuildableComponentArtifactsResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
+
+/**
+ * A ModuleComponentRepository that reports the time spent in each access of the local and remote repository to a {@link ResolutionProfiler}.
+ */
+public class ProfilingModuleComponentRepository extends BaseModuleComponentRepository {
+
+    public ProfilingModuleComponentRepository(ModuleComponentRepository delegate, ResolutionProfiler profiler) {
+        super(delegate,
+            new ProfilingAccess(delegate.getName(), delegate.getLocalAccess(), false, profiler),
+            new ProfilingAccess(delegate.getName(), delegate.getRemoteAccess(), true, profiler));
+    }
+
+    private static class ProfilingAccess implements ModuleComponentRepositoryAccess {
+        private final String repositoryName;
+        private final ModuleComponentRepositoryAccess delegate;
+        private final boolean remote;
+        private final ResolutionProfiler profiler;
+
+        ProfilingAccess(String repositoryName, ModuleComponentRepositoryAccess delegate, boolean remote, ResolutionProfiler profiler) {
+            this.repositoryName = repositoryName;
+            this.delegate = delegate;
+            this.remote = remote;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public String toString() {
+            return "profiling > " + delegate.toString();
+        }
+
+        @Override
+        public void listModuleVersions(ModuleDependencyMetadata dependency, BuildableModuleVersionListingResolveResult result) {
+            int attempted = result.getAttempted().size();
+            ModuleComponentSelector selector = dependency.getSelector();
+            ResolutionProfiler.Scope scope = profiler.start(repositoryName, selector.getGroup() + ":" + selector.getModule(), ResolutionProfiler.Operation.VERSION_LISTING, remote);
+            boolean completed = false;
+            try {
+                delegate.listModuleVersions(dependency, result);
+                completed = true;
+            } finally {
+                scope.finish(result.getState() == BuildableModuleVersionListingResolveResult.State.Listed,
+                    !completed || result.getState() == BuildableModuleVersionListingResolveResult.State.Failed, result.getAttempted().size() - attempted);
+            }
+        }
+
+        @Override
+        public void resolveComponentMetaData(ModuleComponentIdentifier moduleComponentIdentifier, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
+            int attempted = result.getAttempted().size();
+            ResolutionProfiler.Scope scope = profiler.start(repositoryName, moduleComponentIdentifier.getGroup() + ":" + moduleComponentIdentifier.getModule(), ResolutionProfiler.Operation.METADATA, remote);
+            boolean completed = false;
+            try {
+                delegate.resolveComponentMetaData(moduleComponentIdentifier, requestMetaData, result);
+                completed = true;
+            } finally {
+                scope.finish(result.getState() == BuildableModuleComponentMetaDataResolveResult.State.Resolved,
+                    !completed || result.getState() == BuildableModuleComponentMetaDataResolveResult.State.Failed, result.getAttempted().size() - attempted);
+            }
+        }
+
+        @Override
+        public void resolveArtifacts(ComponentResolveMetadata component, BuildableComponentArtifactsResolveResult result) {
+            ResolutionProfiler.Scope scope = profiler.start(repositoryName, moduleOf(component.getId()), ResolutionProfiler.Operation.ARTIFACTS, remote);
+            boolean completed = false;
+            try {
+                delegate.resolveArtifacts(component, result);
+                completed = true;
+            } finally {
+                boolean failed = !completed || result.hasResult() && result.getFailure() != null;
+                scope.finish(result.hasResult() && !failed, failed, 0);
+            }
+        }
+
+        @Override
+        public void resolveArtifactsWithType(ComponentResolveMetadata component, ArtifactType artifactType, BuildableArtifactSetResolveResult result) {
+            ResolutionProfiler.Scope scope = profiler.start(repositoryName, moduleOf(component.getId()), ResolutionProfiler.Operation.ARTIFACTS, remote);
+            boolean completed = false;
+            try {
+                delegate.resolveArtifactsWithType(component, artifactType, result);
+                completed = true;
+            } finally {
+                boolean failed = !completed || result.hasResult() && result.getFailure() != null;
+                scope.finish(result.hasResult() && !failed, failed, 0);
+            }
+        }
+
+        @Override
+        public void resolveArtifact(ComponentArtifactMetadata artifact, ModuleSource moduleSource, BuildableArtifactResolveResult result) {
+            int attempted = result.getAttempted().size();
+            ResolutionProfiler.Scope scope = profiler.start(repositoryName, moduleOf(artifact.getComponentId()), ResolutionProfiler.Operation.ARTIFACT, remote);
+            boolean completed = false;
+            try {
+                delegate.resolveArtifact(artifact, moduleSource, result);
+                completed = true;
+            } finally {
+                boolean failed = !completed || result.hasResult() && result.getFailure() != null;
+                scope.finish(result.hasResult() && !failed, failed, result.getAttempted().size() - attempted);
+            }
+        }
+
+        @Override
+        public MetadataFetchingCost estimateMetadataFetchingCost(ModuleComponentIdentifier moduleComponentIdentifier) {
+            return delegate.estimateMetadataFetchingCost(moduleComponentIdentifier);
+        }
+
+        private static String moduleOf(ComponentIdentifier componentId) {
+            if (componentId instanceof ModuleComponentIdentifier) {
+                ModuleComponentIdentifier moduleComponentId = (ModuleComponentIdentifier) componentId;
+                return moduleComponentId.getGroup() + ":" + moduleComponentId.getModule();
+            }
+            return componentId.getDisplayName();
+        }
+    }
+}
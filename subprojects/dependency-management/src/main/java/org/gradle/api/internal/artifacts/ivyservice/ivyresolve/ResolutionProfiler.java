@@ -0,0 +1,268 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.resource.transfer.ExternalResourceConnector;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how much time each repository spends on each module, and writes a report at the end of the build.
+ *
+ * Profiling is opt-in, by setting the {@value #REPORT_FILE_PROPERTY} system property to the location of the report.
+ * The report is a CSV file with one row per repository, module and operation, slowest first.
+ *
+ * Each repository access runs in a {@link Scope}. Requests made and bytes downloaded by the external resource connector of a repository
+ * are attributed to the innermost scope of the requesting thread, or to {@link Operation#OTHER} when the request happens outside of any scope.
+ * The time of a {@link Operation#DYNAMIC_VERSION} selection includes the version listing and metadata accesses it makes.
+ */
+public class ResolutionProfiler implements Closeable {
+    public static final String REPORT_FILE_PROPERTY = "org.gradle.internal.resolution.profile";
+
+    private static final Logger LOGGER = Logging.getLogger(ResolutionProfiler.class);
+
+    private static final String NO_MODULE = "-";
+
+    public enum Operation {
+        METADATA, VERSION_LISTING, DYNAMIC_VERSION, ARTIFACTS, ARTIFACT, OTHER
+    }
+
+    private final File reportFile;
+    private final ConcurrentMap<Key, Stats> stats = new ConcurrentHashMap<Key, Stats>();
+    private final ThreadLocal<ActiveScope> currentScope = new ThreadLocal<ActiveScope>();
+
+    public ResolutionProfiler(@Nullable File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    public boolean isEnabled() {
+        return reportFile != null;
+    }
+
+    /**
+     * Starts a single access to a repository. The access must be finished on the same thread.
+     *
+     * @param remote whether the access goes to the remote repository, rather than to the cache of the repository.
+     */
+    public Scope start(String repository, String module, Operation operation, boolean remote) {
+        if (!isEnabled()) {
+            return Scope.DISABLED;
+        }
+        ActiveScope scope = new ActiveScope(statsFor(new Key(repository, module, operation)), remote, currentScope.get());
+        currentScope.set(scope);
+        return scope;
+    }
+
+    /**
+     * Returns a connector which reports the requests of the given repository to this profiler, or the given connector when profiling is disabled.
+     */
+    public ExternalResourceConnector profileExternalResourceConnector(String repository, ExternalResourceConnector connector) {
+        if (!isEnabled()) {
+            return connector;
+        }
+        return new ProfilingExternalResourceConnector(repository, connector, this);
+    }
+
+    /**
+     * Records a request made to the given repository, returning the statistics the downloaded bytes of the request should be added to.
+     */
+    RequestStats requestStarted(String repository) {
+        ActiveScope scope = currentScope.get();
+        Stats target = scope != null ? scope.stats : statsFor(new Key(repository, NO_MODULE, Operation.OTHER));
+        target.resourceRequests.incrementAndGet();
+        return target;
+    }
+
+    private Stats statsFor(Key key) {
+        Stats entry = stats.get(key);
+        if (entry == null) {
+            Stats newEntry = new Stats();
+            entry = stats.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public void close() {
+        if (reportFile == null || stats.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Key, Stats>> entries = new ArrayList<Map.Entry<Key, Stats>>(stats.entrySet());
+        entries.sort((left, right) -> Long.compare(right.getValue().durationNanos.get(), left.getValue().durationNanos.get()));
+        try {
+            File parentDir = reportFile.getParentFile();
+            if (parentDir != null) {
+                Files.createDirectories(parentDir.toPath());
+            }
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8))) {
+                writer.println("repository,module,operation,cacheRequests,cacheHits,remoteRequests,remoteHits,failures,locationsAttempted,resourceRequests,bytesDownloaded,timeMs");
+                for (Map.Entry<Key, Stats> entry : entries) {
+                    Key key = entry.getKey();
+                    Stats value = entry.getValue();
+                    writer.println(csv(key.repository) + ',' + csv(key.module) + ',' + key.operation
+                        + ',' + value.cacheRequests + ',' + value.cacheHits
+                        + ',' + value.remoteRequests + ',' + value.remoteHits
+                        + ',' + value.failures + ',' + value.locationsAttempted
+                        + ',' + value.resourceRequests + ',' + value.bytesDownloaded
+                        + ',' + TimeUnit.NANOSECONDS.toMillis(value.durationNanos.get()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write dependency resolution profile to " + reportFile, e);
+        } finally {
+            stats.clear();
+        }
+        LOGGER.lifecycle("Dependency resolution profile written to {}", reportFile);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static class Key {
+        private final String repository;
+        private final String module;
+        private final Operation operation;
+
+        Key(String repository, String module, Operation operation) {
+            this.repository = repository;
+            this.module = module;
+            this.operation = operation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return repository.equals(key.repository) && module.equals(key.module) && operation == key.operation;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = repository.hashCode();
+            result = 31 * result + module.hashCode();
+            result = 31 * result + operation.hashCode();
+            return result;
+        }
+    }
+
+    /**
+     * A single access to a repository, which requests made by the current thread are attributed to until it is finished.
+     */
+    public interface Scope {
+        Scope DISABLED = (found, failed, locationsAttempted) -> {
+        };
+
+        /**
+         * Finishes the access.
+         *
+         * @param found whether the access produced the requested metadata, version list or artifact.
+         * @param locationsAttempted the number of locations that were probed by the access.
+         */
+        void finish(boolean found, boolean failed, int locationsAttempted);
+    }
+
+    private class ActiveScope implements Scope {
+        private final Stats stats;
+        private final boolean remote;
+        private final ActiveScope outer;
+        private final long startNanos = System.nanoTime();
+
+        private ActiveScope(Stats stats, boolean remote, @Nullable ActiveScope outer) {
+            this.stats = stats;
+            this.remote = remote;
+            this.outer = outer;
+        }
+
+        @Override
+        public void finish(boolean found, boolean failed, int locationsAttempted) {
+            if (outer == null) {
+                currentScope.remove();
+            } else {
+                currentScope.set(outer);
+            }
+            stats.record(remote, found, failed, locationsAttempted, System.nanoTime() - startNanos);
+        }
+    }
+
+    interface RequestStats {
+        void bytesDownloaded(long count);
+    }
+
+    private static class Stats implements RequestStats {
+        private final AtomicLong cacheRequests = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong remoteRequests = new AtomicLong();
+        private final AtomicLong remoteHits = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong locationsAttempted = new AtomicLong();
+        private final AtomicLong resourceRequests = new AtomicLong();
+        private final AtomicLong bytesDownloaded = new AtomicLong();
+        private final AtomicLong durationNanos = new AtomicLong();
+
+        void record(boolean remote, boolean found, boolean failed, int attempted, long nanos) {
+            if (remote) {
+                remoteRequests.incrementAndGet();
+                if (found) {
+                    remoteHits.incrementAndGet();
+                }
+            } else {
+                cacheRequests.incrementAndGet();
+                if (found) {
+                    cacheHits.incrementAndGet();
+                }
+            }
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            locationsAttempted.addAndGet(attempted);
+            durationNanos.addAndGet(nanos);
+        }
+
+        @Override
+        public void bytesDownloaded(long count) {
+            bytesDownloaded.addAndGet(count);
+        }
+    }
+}
@@ -143,6 +143,12 @@ public ExternalResourceReadResponse openResource(URI location, boolean revalidat
             throw offlineResource(location);
         }
 
+        @Nullable
+        @Override
+        public ExternalResourceReadResponse openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) throws ResourceException {
+            throw offlineResource(location);
+        }
+
         @Nullable
         @Override
         public ExternalResourceMetaData getMetaData(URI location, boolean revalidate) throws ResourceException {
@@ -19,6 +19,7 @@
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Striped;
 import org.gradle.internal.Try;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.execution.history.ExecutionHistoryStore;
@@ -26,13 +27,16 @@
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Lock;
 
 @ThreadSafe
 public abstract class AbstractCachingTransformationWorkspaceProvider implements CachingTransformationWorkspaceProvider {
 
     private final TransformationWorkspaceProvider delegate;
     private final Cache<TransformationWorkspaceIdentity, Try<ImmutableList<File>>> inMemoryResultCache = CacheBuilder.newBuilder().build();
+    private final Striped<Lock> workspaceLocks = Striped.lock(Runtime.getRuntime().availableProcessors() * 4);
 
     public AbstractCachingTransformationWorkspaceProvider(TransformationWorkspaceProvider delegate) {
         this.delegate = delegate;
@@ -46,13 +50,24 @@ public ExecutionHistoryStore getExecutionHistoryStore() {
     @Nullable
     @Override
     public Try<ImmutableList<File>> getCachedResult(TransformationWorkspaceIdentity identity) {
-        return inMemoryResultCache.getIfPresent(identity);
+        Try<ImmutableList<File>> result = inMemoryResultCache.getIfPresent(identity);
+        if (result == null) {
+            result = getRetainedResult(identity);
+            if (result != null) {
+                inMemoryResultCache.put(identity, result);
+            }
+        }
+        return result;
     }
 
     @Override
     public Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity identity, TransformationWorkspaceAction workspaceAction) {
         try {
             return inMemoryResultCache.get(identity, () -> {
+                    Try<ImmutableList<File>> retainedResult = getRetainedResult(identity);
+                    if (retainedResult != null) {
+                        return retainedResult;
+                    }
                     return delegate.withWorkspace(identity, workspaceAction);
                 });
         } catch (ExecutionException e) {
@@ -60,7 +75,39 @@ public Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity id
         }
     }
 
+    @Override
+    public Try<ImmutableList<ImmutableList<File>>> withWorkspaces(List<TransformationWorkspaceIdentity> identities, BatchWorkspaceAction workspaceAction) {
+        // Locks are acquired in a consistent order, so batches sharing some of their workspaces cannot deadlock
+        Iterable<Lock> locks = workspaceLocks.bulkGet(identities);
+        locks.forEach(Lock::lock);
+        try {
+            return delegate.withWorkspaces(identities, workspaceAction);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    @Override
+    public void cacheResult(TransformationWorkspaceIdentity identity, Try<ImmutableList<File>> result) {
+        inMemoryResultCache.put(identity, result);
+    }
+
+    /**
+     * Returns a result retained from a previous build, if any.
+     */
+    @Nullable
+    protected Try<ImmutableList<File>> getRetainedResult(TransformationWorkspaceIdentity identity) {
+        return null;
+    }
+
+    /**
+     * Called for each result of the current build when the in-memory cache is cleared.
+     */
+    protected void retainResult(TransformationWorkspaceIdentity identity, Try<ImmutableList<File>> result) {
+    }
+
     public void clearInMemoryCache() {
+        inMemoryResultCache.asMap().forEach(this::retainResult);
         inMemoryResultCache.invalidateAll();
     }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform;
+
+import org.gradle.api.artifacts.transform.BatchableTransform;
+import org.gradle.api.artifacts.transform.TransformAction;
+import org.gradle.api.internal.tasks.properties.annotations.TypeAnnotationHandler;
+import org.gradle.internal.reflect.ParameterValidationContext;
+import org.gradle.model.internal.type.ModelType;
+
+import java.lang.annotation.Annotation;
+
+public class BatchableTransformTypeAnnotationHandler implements TypeAnnotationHandler {
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return BatchableTransform.class;
+    }
+
+    @Override
+    public void validateTypeMetadata(Class<?> classWithAnnotationAttached, ParameterValidationContext visitor) {
+        if (!TransformAction.class.isAssignableFrom(classWithAnnotationAttached)) {
+            visitor.visitErrorStrict(String.format("Cannot use @%s with type %s. This annotation can only be used with %s types.", getAnnotationType().getSimpleName(), ModelType.of(classWithAnnotationAttached).getDisplayName(), TransformAction.class.getSimpleName()));
+        }
+    }
+}
@@ -16,8 +16,10 @@
 
 package org.gradle.api.internal.artifacts.transform;
 
+import com.google.common.collect.ImmutableList;
 import org.gradle.internal.Try;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -95,6 +97,46 @@ public Try<T> invoke() {
         };
     }
 
+    /**
+     * Concatenates the results of a batch of invocations, in order.
+     *
+     * The batch has a cached result when each of the invocations has one, so only the invocations without a cached result are computed on {@link #invoke}.
+     * The first failure is the result of the batch.
+     */
+    static <T> CacheableInvocation<ImmutableList<T>> batch(List<? extends CacheableInvocation<ImmutableList<T>>> invocations) {
+        return new CacheableInvocation<ImmutableList<T>>() {
+            @Override
+            public Optional<Try<ImmutableList<T>>> getCachedResult() {
+                ImmutableList.Builder<T> builder = ImmutableList.builder();
+                for (CacheableInvocation<ImmutableList<T>> invocation : invocations) {
+                    Optional<Try<ImmutableList<T>>> cachedResult = invocation.getCachedResult();
+                    if (!cachedResult.isPresent()) {
+                        return Optional.empty();
+                    }
+                    Try<ImmutableList<T>> result = cachedResult.get();
+                    if (!result.isSuccessful()) {
+                        return Optional.of(result);
+                    }
+                    builder.addAll(result.get());
+                }
+                return Optional.of(Try.successful(builder.build()));
+            }
+
+            @Override
+            public Try<ImmutableList<T>> invoke() {
+                ImmutableList.Builder<T> builder = ImmutableList.builder();
+                for (CacheableInvocation<ImmutableList<T>> invocation : invocations) {
+                    Try<ImmutableList<T>> result = invocation.invoke();
+                    if (!result.isSuccessful()) {
+                        return result;
+                    }
+                    builder.addAll(result.get());
+                }
+                return Try.successful(builder.build());
+            }
+        };
+    }
+
     /**
      * An invocation with no cached result, requiring to do the expensive computation on {@link #invoke}.
      */
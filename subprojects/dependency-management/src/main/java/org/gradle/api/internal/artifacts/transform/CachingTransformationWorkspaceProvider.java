@@ -26,4 +26,9 @@ public interface CachingTransformationWorkspaceProvider extends TransformationWo
 
     @Nullable
     Try<ImmutableList<File>> getCachedResult(TransformationWorkspaceIdentity identity);
+
+    /**
+     * Caches the result of a transformation which has been executed as part of a batch.
+     */
+    void cacheResult(TransformationWorkspaceIdentity identity, Try<ImmutableList<File>> result);
 }
@@ -18,6 +18,7 @@
 
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.artifacts.transform.ArtifactTransform;
+import org.gradle.api.artifacts.transform.BatchableTransform;
 import org.gradle.api.artifacts.transform.CacheableTransform;
 import org.gradle.api.artifacts.transform.InputArtifact;
 import org.gradle.api.artifacts.transform.InputArtifactDependencies;
@@ -109,6 +110,7 @@ public ArtifactTransformRegistration create(ImmutableAttributes from, ImmutableA
         DefaultParameterValidationContext parameterValidationContext = new DefaultParameterValidationContext(validationMessages);
         actionMetadata.collectValidationFailures(null, parameterValidationContext);
         boolean cacheable = implementation.isAnnotationPresent(CacheableTransform.class);
+        boolean batchable = implementation.isAnnotationPresent(BatchableTransform.class);
 
         // Should retain this on the metadata rather than calculate on each invocation
         Class<? extends FileNormalizer> inputArtifactNormalizer = null;
@@ -141,6 +143,7 @@ public ArtifactTransformRegistration create(ImmutableAttributes from, ImmutableA
             FileParameterUtils.normalizerOrDefault(inputArtifactNormalizer),
             FileParameterUtils.normalizerOrDefault(dependenciesNormalizer),
             cacheable,
+            batchable,
             buildOperationExecutor,
             classLoaderHierarchyHasher,
             isolatableFactory,
@@ -97,6 +97,7 @@ public class DefaultTransformer extends AbstractTransformer<TransformAction> {
     private final boolean requiresInputChanges;
     private final InstanceFactory<? extends TransformAction> instanceFactory;
     private final boolean cacheable;
+    private final boolean batchable;
 
     private IsolatedParameters isolatedParameters;
 
@@ -108,6 +109,7 @@ public DefaultTransformer(
         Class<? extends FileNormalizer> inputArtifactNormalizer,
         Class<? extends FileNormalizer> dependenciesNormalizer,
         boolean cacheable,
+        boolean batchable,
         BuildOperationExecutor buildOperationExecutor,
         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
         IsolatableFactory isolatableFactory,
@@ -133,6 +135,7 @@ public DefaultTransformer(
         this.requiresDependencies = instanceFactory.serviceInjectionTriggeredByAnnotation(InputArtifactDependencies.class);
         this.requiresInputChanges = instanceFactory.requiresService(InputChanges.class);
         this.cacheable = cacheable;
+        this.batchable = batchable;
     }
 
     public static void validateInputFileNormalizer(String propertyName, @Nullable Class<? extends FileNormalizer> normalizer, boolean cacheable, ParameterValidationContext parameterValidationContext) {
@@ -176,6 +179,11 @@ public boolean isCacheable() {
         return cacheable;
     }
 
+    @Override
+    public boolean isBatchable() {
+        return batchable;
+    }
+
     @Override
     public HashCode getSecondaryInputHash() {
         return getIsolatedParameters().getSecondaryInputsHash();
@@ -19,6 +19,7 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
+import org.gradle.api.Describable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
 import org.gradle.api.file.FileSystemLocation;
@@ -62,6 +63,7 @@
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.time.Timer;
+import org.gradle.util.GFileUtils;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -70,7 +72,10 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -78,6 +83,7 @@
 public class DefaultTransformerInvocationFactory implements TransformerInvocationFactory {
     private static final CachingDisabledReason NOT_CACHEABLE = new CachingDisabledReason(CachingDisabledReasonCategory.NOT_CACHEABLE, "Caching not enabled.");
     private static final String INPUT_ARTIFACT_PROPERTY_NAME = "inputArtifact";
+    private static final String INPUT_ARTIFACTS_PROPERTY_NAME = "inputArtifacts";
     private static final String DEPENDENCIES_PROPERTY_NAME = "inputArtifactDependencies";
     private static final String SECONDARY_INPUTS_HASH_PROPERTY_NAME = "inputPropertiesHash";
     private static final String OUTPUT_DIRECTORY_PROPERTY_NAME = "outputDirectory";
@@ -115,7 +121,7 @@ public DefaultTransformerInvocationFactory(
     }
 
     @Override
-    public CacheableInvocation<ImmutableList<File>> createInvocation(Transformer transformer, File inputArtifact, ArtifactTransformDependencies dependencies, TransformationSubject subject, FileCollectionFingerprinterRegistry fingerprinterRegistry) {
+    public TransformerInvocation createInvocation(Transformer transformer, File inputArtifact, ArtifactTransformDependencies dependencies, TransformationSubject subject, FileCollectionFingerprinterRegistry fingerprinterRegistry) {
         ProjectInternal producerProject = determineProducerProject(subject);
         CachingTransformationWorkspaceProvider workspaceProvider = determineWorkspaceProvider(producerProject);
 
@@ -130,9 +136,14 @@ public CacheableInvocation<ImmutableList<File>> createInvocation(Transformer tra
 
         TransformationWorkspaceIdentity identity = getTransformationIdentity(producerProject, inputArtifactSnapshot, normalizedInputPath, transformer, dependenciesFingerprint);
 
-        return new CacheableInvocation<ImmutableList<File>>() {
+        return new TransformerInvocation() {
             private Try<ImmutableList<File>> cachedResult;
 
+            @Override
+            public TransformationWorkspaceIdentity getWorkspaceIdentity() {
+                return identity;
+            }
+
             @Override
             public Try<ImmutableList<File>> invoke() {
                 return cachedResult != null
@@ -159,6 +170,180 @@ public Optional<Try<ImmutableList<File>>> getCachedResult() {
         };
     }
 
+    @Override
+    public CacheableInvocation<ImmutableList<ImmutableList<File>>> createBatchInvocation(Transformer transformer, List<File> inputArtifacts, ArtifactTransformDependencies dependencies, Describable subject, FileCollectionFingerprinterRegistry fingerprinterRegistry) {
+        FileCollectionFingerprinter inputArtifactFingerprinter = fingerprinterRegistry.getFingerprinter(transformer.getInputArtifactNormalizer());
+        FileCollectionFingerprinter outputFingerprinter = fingerprinterRegistry.getFingerprinter(OutputNormalizer.class);
+        FileCollectionFingerprinter dependencyFingerprinter = fingerprinterRegistry.getFingerprinter(transformer.getInputArtifactDependenciesNormalizer());
+
+        CurrentFileCollectionFingerprint dependenciesFingerprint = dependencies.fingerprint(dependencyFingerprinter);
+        ImmutableList.Builder<BatchMember> builder = ImmutableList.builderWithExpectedSize(inputArtifacts.size());
+        for (File inputArtifact : inputArtifacts) {
+            FileSystemLocationSnapshot inputArtifactSnapshot = fileSystemSnapshotter.snapshot(inputArtifact);
+            String normalizedInputPath = inputArtifactFingerprinter.normalizePath(inputArtifactSnapshot);
+            TransformationWorkspaceIdentity identity = getImmutableTransformationIdentity(normalizedInputPath, inputArtifactSnapshot, transformer, dependenciesFingerprint);
+            builder.add(new BatchMember(inputArtifact, inputArtifactSnapshot, identity));
+        }
+        ImmutableList<BatchMember> members = builder.build();
+
+        return new CacheableInvocation<ImmutableList<ImmutableList<File>>>() {
+            private Try<ImmutableList<ImmutableList<File>>> cachedResult;
+
+            @Override
+            public Try<ImmutableList<ImmutableList<File>>> invoke() {
+                return cachedResult != null
+                    ? cachedResult
+                    : doTransformBatch(
+                        transformer,
+                        subject,
+                        members,
+                        dependencies,
+                        dependenciesFingerprint,
+                        inputArtifactFingerprinter,
+                        outputFingerprinter
+                    );
+            }
+
+            @Override
+            public Optional<Try<ImmutableList<ImmutableList<File>>>> getCachedResult() {
+                ImmutableList.Builder<ImmutableList<File>> results = ImmutableList.builderWithExpectedSize(members.size());
+                for (BatchMember member : members) {
+                    Try<ImmutableList<File>> result = immutableTransformationWorkspaceProvider.getCachedResult(member.identity);
+                    if (result == null) {
+                        return Optional.empty();
+                    }
+                    if (!result.isSuccessful()) {
+                        cachedResult = Try.failure(result.getFailure().get());
+                        return Optional.of(cachedResult);
+                    }
+                    results.add(result.get());
+                }
+                cachedResult = Try.successful(results.build());
+                return Optional.of(cachedResult);
+            }
+        };
+    }
+
+    private Try<ImmutableList<ImmutableList<File>>> doTransformBatch(
+        Transformer transformer,
+        Describable subject,
+        ImmutableList<BatchMember> members,
+        ArtifactTransformDependencies dependencies,
+        CurrentFileCollectionFingerprint dependenciesFingerprint,
+        FileCollectionFingerprinter inputArtifactFingerprinter,
+        FileCollectionFingerprinter outputFingerprinter
+    ) {
+        ImmutableList.Builder<TransformationWorkspaceIdentity> workspaceIdentities = ImmutableList.builderWithExpectedSize(members.size());
+        for (BatchMember member : members) {
+            workspaceIdentities.add(new BatchMemberWorkspaceIdentity(member.identity));
+        }
+        CachingTransformationWorkspaceProvider workspaceProvider = immutableTransformationWorkspaceProvider;
+
+        return buildOperationExecutor.call(new CallableBuildOperation<Try<ImmutableList<ImmutableList<File>>>>() {
+            @Override
+            public Try<ImmutableList<ImmutableList<File>>> call(BuildOperationContext context) {
+                return fireTransformListeners(transformer, subject, () -> workspaceProvider.withWorkspaces(workspaceIdentities.build(), workspaces -> {
+                    // Another batch may have transformed some of the input artifacts while it was using their workspaces
+                    List<Try<ImmutableList<File>>> memberResults = new ArrayList<>(members.size());
+                    ImmutableList.Builder<BatchMember> remainingMembers = ImmutableList.builderWithExpectedSize(members.size());
+                    ImmutableList.Builder<TransformationWorkspace> remainingWorkspaces = ImmutableList.builderWithExpectedSize(members.size());
+                    for (int i = 0; i < members.size(); i++) {
+                        Try<ImmutableList<File>> cachedResult = workspaceProvider.getCachedResult(members.get(i).identity);
+                        memberResults.add(cachedResult);
+                        if (cachedResult == null) {
+                            remainingMembers.add(members.get(i));
+                            remainingWorkspaces.add(workspaces.get(i));
+                        }
+                    }
+                    ImmutableList<BatchMember> membersToTransform = remainingMembers.build();
+                    if (!membersToTransform.isEmpty()) {
+                        Try<ImmutableList<ImmutableList<File>>> transformed = executeBatch(
+                            transformer,
+                            remainingWorkspaces.build(),
+                            membersToTransform,
+                            dependencies,
+                            dependenciesFingerprint,
+                            inputArtifactFingerprinter,
+                            outputFingerprinter
+                        );
+                        if (!transformed.isSuccessful()) {
+                            return transformed;
+                        }
+                        Iterator<ImmutableList<File>> transformedResults = transformed.get().iterator();
+                        for (int i = 0; i < members.size(); i++) {
+                            if (memberResults.get(i) == null) {
+                                Try<ImmutableList<File>> result = Try.successful(transformedResults.next());
+                                workspaceProvider.cacheResult(members.get(i).identity, result);
+                                memberResults.set(i, result);
+                            }
+                        }
+                    }
+                    ImmutableList.Builder<ImmutableList<File>> results = ImmutableList.builderWithExpectedSize(members.size());
+                    for (Try<ImmutableList<File>> result : memberResults) {
+                        if (!result.isSuccessful()) {
+                            return Try.failure(result.getFailure().get());
+                        }
+                        results.add(result.get());
+                    }
+                    return Try.successful(results.build());
+                }));
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                String displayName = transformer.getDisplayName() + " " + members.size() + " input artifacts";
+                return BuildOperationDescriptor.displayName(displayName)
+                    .progressDisplayName(displayName);
+            }
+        });
+    }
+
+    private Try<ImmutableList<ImmutableList<File>>> executeBatch(
+        Transformer transformer,
+        ImmutableList<TransformationWorkspace> workspaces,
+        ImmutableList<BatchMember> members,
+        ArtifactTransformDependencies dependencies,
+        CurrentFileCollectionFingerprint dependenciesFingerprint,
+        FileCollectionFingerprinter inputArtifactFingerprinter,
+        FileCollectionFingerprinter outputFingerprinter
+    ) {
+        Hasher hasher = Hashing.newHasher();
+        for (BatchMember member : members) {
+            hasher.putString(member.identity.getIdentity());
+        }
+        String transformIdentity = "transform/" + hasher.hash();
+        BatchTransformerExecution execution = new BatchTransformerExecution(
+            transformer,
+            workspaces,
+            transformIdentity,
+            members,
+            dependencies,
+            dependenciesFingerprint,
+            snapshotOutputs(fileCollectionSnapshotter, fileCollectionFactory, workspaces),
+            immutableTransformationWorkspaceProvider.getExecutionHistoryStore(),
+            fileCollectionFactory,
+            fileCollectionSnapshotter,
+            inputArtifactFingerprinter,
+            outputFingerprinter
+        );
+
+        CachingResult outcome = workExecutor.execute(new ExecutionRequestContext() {
+            @Override
+            public UnitOfWork getWork() {
+                return execution;
+            }
+
+            @Override
+            public Optional<String> getRebuildReason() {
+                return Optional.empty();
+            }
+        });
+
+        return outcome.getOutcome()
+            .tryMap(outcome1 -> execution.loadResultsFiles())
+            .mapFailure(failure -> new TransformException(String.format("Execution failed for %s.", execution.getDisplayName()), failure));
+    }
+
     private Try<ImmutableList<File>> doTransform(
         CachingTransformationWorkspaceProvider workspaceProvider,
         TransformationWorkspaceIdentity identity,
@@ -262,7 +447,7 @@ private ProjectInternal determineProducerProject(TransformationSubject subject)
         return projectFinder.findProject(projectComponentIdentifier.getBuild(), projectComponentIdentifier.getProjectPath());
     }
 
-    private Try<ImmutableList<File>> fireTransformListeners(Transformer transformer, TransformationSubject subject, Supplier<Try<ImmutableList<File>>> execution) {
+    private <T> Try<T> fireTransformListeners(Transformer transformer, Describable subject, Supplier<Try<T>> execution) {
         artifactTransformListener.beforeTransformerInvocation(transformer, subject);
         try {
             return execution.get();
@@ -329,50 +514,12 @@ public WorkResult execute(@Nullable InputChangesInternal inputChanges, InputChan
             File resultsFile = workspace.getResultsFile();
 
             ImmutableList<File> result = transformer.transform(inputArtifactProvider, outputDir, dependencies, inputChanges);
-            writeResultsFile(outputDir, resultsFile, result);
+            writeResultsFile(inputArtifact, outputDir, resultsFile, result);
             return WorkResult.DID_WORK;
         }
 
-        private void writeResultsFile(File outputDir, File resultsFile, ImmutableList<File> result) {
-            String outputDirPrefix = outputDir.getPath() + File.separator;
-            String inputFilePrefix = inputArtifact.getPath() + File.separator;
-            Stream<String> relativePaths = result.stream().map(file -> {
-                if (file.equals(outputDir)) {
-                    return OUTPUT_FILE_PATH_PREFIX;
-                }
-                if (file.equals(inputArtifact)) {
-                    return INPUT_FILE_PATH_PREFIX;
-                }
-                String absolutePath = file.getAbsolutePath();
-                if (absolutePath.startsWith(outputDirPrefix)) {
-                    return OUTPUT_FILE_PATH_PREFIX + RelativePath.parse(true, absolutePath.substring(outputDirPrefix.length())).getPathString();
-                }
-                if (absolutePath.startsWith(inputFilePrefix)) {
-                    return INPUT_FILE_PATH_PREFIX + RelativePath.parse(true, absolutePath.substring(inputFilePrefix.length())).getPathString();
-                }
-                throw new IllegalStateException("Invalid result path: " + absolutePath);
-            });
-            UncheckedException.callUnchecked(() -> Files.write(resultsFile.toPath(), (Iterable<String>) relativePaths::iterator));
-        }
-
         private ImmutableList<File> loadResultsFile() {
-            Path transformerResultsPath = workspace.getResultsFile().toPath();
-            try {
-                ImmutableList.Builder<File> builder = ImmutableList.builder();
-                List<String> paths = Files.readAllLines(transformerResultsPath, StandardCharsets.UTF_8);
-                for (String path : paths) {
-                    if (path.startsWith(OUTPUT_FILE_PATH_PREFIX)) {
-                        builder.add(new File(workspace.getOutputDirectory(), path.substring(2)));
-                    } else if (path.startsWith(INPUT_FILE_PATH_PREFIX)) {
-                        builder.add(new File(inputArtifact, path.substring(2)));
-                    } else {
-                        throw new IllegalStateException("Cannot parse result path string: " + path);
-                    }
-                }
-                return builder.build();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
+            return DefaultTransformerInvocationFactory.loadResultsFile(inputArtifact, workspace);
         }
 
         @Override
@@ -493,6 +640,291 @@ public String getDisplayName() {
         }
     }
 
+    /**
+     * Transforms a batch of input artifacts as a single unit of work.
+     *
+     * Each input artifact has its own workspace, so the results for an input artifact can be reused by batches with different input artifacts.
+     */
+    private static class BatchTransformerExecution implements UnitOfWork {
+        private final Transformer transformer;
+        private final List<TransformationWorkspace> workspaces;
+        private final String identityString;
+        private final ImmutableList<BatchMember> members;
+        private final ExecutionHistoryStore executionHistoryStore;
+        private final ArtifactTransformDependencies dependencies;
+        private final CurrentFileCollectionFingerprint dependenciesFingerprint;
+        private final ImmutableSortedMap<String, FileSystemSnapshot> outputFileSnapshotsBeforeExecution;
+
+        private final FileCollectionFactory fileCollectionFactory;
+        private final FileCollectionSnapshotter fileCollectionSnapshotter;
+        private final FileCollectionFingerprinter inputArtifactFingerprinter;
+        private final FileCollectionFingerprinter outputFingerprinter;
+
+        private final Timer executionTimer;
+
+        public BatchTransformerExecution(
+            Transformer transformer,
+            List<TransformationWorkspace> workspaces,
+            String identityString,
+            ImmutableList<BatchMember> members,
+            ArtifactTransformDependencies dependencies,
+            CurrentFileCollectionFingerprint dependenciesFingerprint,
+            ImmutableSortedMap<String, FileSystemSnapshot> outputFileSnapshotsBeforeExecution,
+
+            ExecutionHistoryStore executionHistoryStore,
+            FileCollectionFactory fileCollectionFactory,
+            FileCollectionSnapshotter fileCollectionSnapshotter,
+            FileCollectionFingerprinter inputArtifactFingerprinter,
+            FileCollectionFingerprinter outputFingerprinter
+        ) {
+            this.transformer = transformer;
+            this.workspaces = workspaces;
+            this.identityString = identityString;
+            this.members = members;
+            this.dependencies = dependencies;
+            this.dependenciesFingerprint = dependenciesFingerprint;
+            this.outputFileSnapshotsBeforeExecution = outputFileSnapshotsBeforeExecution;
+            this.executionHistoryStore = executionHistoryStore;
+            this.fileCollectionFactory = fileCollectionFactory;
+            this.fileCollectionSnapshotter = fileCollectionSnapshotter;
+            this.inputArtifactFingerprinter = inputArtifactFingerprinter;
+            this.outputFingerprinter = outputFingerprinter;
+            this.executionTimer = Time.startTimer();
+        }
+
+        @Override
+        public WorkResult execute(@Nullable InputChangesInternal inputChanges, InputChangesContext context) {
+            for (int i = 0; i < members.size(); i++) {
+                File inputArtifact = members.get(i).inputArtifact;
+                TransformationWorkspace workspace = workspaces.get(i);
+                if (hasReusableResult(inputArtifact, workspace)) {
+                    continue;
+                }
+                File outputDir = workspace.getOutputDirectory();
+                File resultsFile = workspace.getResultsFile();
+                GFileUtils.deleteQuietly(resultsFile);
+                GFileUtils.deleteQuietly(outputDir);
+                GFileUtils.mkdirs(outputDir);
+
+                ImmutableList<File> result = transformer.transform(Providers.of(new DefaultFileSystemLocation(inputArtifact)), outputDir, dependencies, null);
+                writeResultsFile(inputArtifact, outputDir, resultsFile, result);
+            }
+            return WorkResult.DID_WORK;
+        }
+
+        private static boolean hasReusableResult(File inputArtifact, TransformationWorkspace workspace) {
+            if (!workspace.getResultsFile().isFile()) {
+                return false;
+            }
+            try {
+                return loadResultsFile(inputArtifact, workspace).stream().allMatch(File::exists);
+            } catch (IllegalStateException | UncheckedIOException e) {
+                return false;
+            }
+        }
+
+        private ImmutableList<ImmutableList<File>> loadResultsFiles() {
+            ImmutableList.Builder<ImmutableList<File>> builder = ImmutableList.builderWithExpectedSize(members.size());
+            for (int i = 0; i < members.size(); i++) {
+                builder.add(loadResultsFile(members.get(i).inputArtifact, workspaces.get(i)));
+            }
+            return builder.build();
+        }
+
+        @Override
+        public Optional<ExecutionHistoryStore> getExecutionHistoryStore() {
+            return Optional.of(executionHistoryStore);
+        }
+
+        @Override
+        public Optional<Duration> getTimeout() {
+            return Optional.empty();
+        }
+
+        @Override
+        public InputChangeTrackingStrategy getInputChangeTrackingStrategy() {
+            return InputChangeTrackingStrategy.NONE;
+        }
+
+        @Override
+        public void visitImplementations(ImplementationVisitor visitor) {
+            visitor.visitImplementation(transformer.getImplementationClass());
+        }
+
+        @Override
+        public void visitInputProperties(InputPropertyVisitor visitor) {
+            // Emulate secondary inputs as a single property for now
+            visitor.visitInputProperty(SECONDARY_INPUTS_HASH_PROPERTY_NAME, transformer.getSecondaryInputHash().toString());
+        }
+
+        @Override
+        public void visitInputFileProperties(InputFilePropertyVisitor visitor) {
+            ImmutableList.Builder<File> inputArtifacts = ImmutableList.builderWithExpectedSize(members.size());
+            ImmutableList.Builder<FileSystemLocationSnapshot> inputArtifactSnapshots = ImmutableList.builderWithExpectedSize(members.size());
+            for (BatchMember member : members) {
+                inputArtifacts.add(member.inputArtifact);
+                inputArtifactSnapshots.add(member.inputArtifactSnapshot);
+            }
+            visitor.visitInputFileProperty(INPUT_ARTIFACTS_PROPERTY_NAME, inputArtifacts.build(), false,
+                () -> inputArtifactFingerprinter.fingerprint(inputArtifactSnapshots.build()));
+            visitor.visitInputFileProperty(DEPENDENCIES_PROPERTY_NAME, dependencies, false,
+                () -> dependenciesFingerprint);
+        }
+
+        @Override
+        public void visitOutputProperties(OutputPropertyVisitor visitor) {
+            for (int i = 0; i < workspaces.size(); i++) {
+                TransformationWorkspace workspace = workspaces.get(i);
+                visitor.visitOutputProperty(memberPropertyName(OUTPUT_DIRECTORY_PROPERTY_NAME, i), TreeType.DIRECTORY, ImmutableList.of(workspace.getOutputDirectory()));
+                visitor.visitOutputProperty(memberPropertyName(RESULTS_FILE_PROPERTY_NAME, i), TreeType.FILE, ImmutableList.of(workspace.getResultsFile()));
+            }
+        }
+
+        @Override
+        public boolean shouldCleanupOutputsOnNonIncrementalExecution() {
+            // Results of input artifacts which have already been transformed by a different batch are reused
+            return false;
+        }
+
+        @Override
+        public long markExecutionTime() {
+            return executionTimer.getElapsedMillis();
+        }
+
+        @Override
+        public void visitLocalState(LocalStateVisitor visitor) {
+        }
+
+        @Override
+        public void validate() {
+        }
+
+        @Override
+        public Optional<CachingDisabledReason> shouldDisableCaching(@Nullable OverlappingOutputs detectedOverlappingOutputs) {
+            return transformer.isCacheable()
+                ? Optional.empty()
+                : Optional.of(NOT_CACHEABLE);
+        }
+
+        @Override
+        public boolean isAllowedToLoadFromCache() {
+            return true;
+        }
+
+        @Override
+        public Optional<? extends Iterable<String>> getChangingOutputs() {
+            ImmutableList.Builder<String> changingOutputs = ImmutableList.builderWithExpectedSize(2 * workspaces.size());
+            for (TransformationWorkspace workspace : workspaces) {
+                changingOutputs.add(workspace.getOutputDirectory().getAbsolutePath());
+                changingOutputs.add(workspace.getResultsFile().getAbsolutePath());
+            }
+            return Optional.of(changingOutputs.build());
+        }
+
+        @Override
+        public ImmutableSortedMap<String, FileSystemSnapshot> snapshotOutputsBeforeExecution() {
+            return outputFileSnapshotsBeforeExecution;
+        }
+
+        @Override
+        public ImmutableSortedMap<String, FileSystemSnapshot> snapshotOutputsAfterExecution() {
+            return snapshotOutputs(fileCollectionSnapshotter, fileCollectionFactory, workspaces);
+        }
+
+        @Override
+        public ImmutableSortedMap<String, CurrentFileCollectionFingerprint> fingerprintAndFilterOutputSnapshots(
+            ImmutableSortedMap<String, FileCollectionFingerprint> afterPreviousExecutionOutputFingerprints,
+            ImmutableSortedMap<String, FileSystemSnapshot> beforeExecutionOutputSnapshots,
+            ImmutableSortedMap<String, FileSystemSnapshot> afterExecutionOutputSnapshots,
+            boolean hasDetectedOverlappingOutputs
+        ) {
+            //noinspection ConstantConditions
+            return ImmutableSortedMap.copyOfSorted(
+                Maps.transformEntries(
+                    afterExecutionOutputSnapshots,
+                    (key, value) -> outputFingerprinter.fingerprint(ImmutableList.of(value))
+                )
+            );
+        }
+
+        @Override
+        public String getIdentity() {
+            return identityString;
+        }
+
+        @Override
+        public void visitOutputTrees(CacheableTreeVisitor visitor) {
+            for (int i = 0; i < workspaces.size(); i++) {
+                TransformationWorkspace workspace = workspaces.get(i);
+                visitor.visitOutputTree(memberPropertyName(OUTPUT_DIRECTORY_PROPERTY_NAME, i), TreeType.DIRECTORY, workspace.getOutputDirectory());
+                visitor.visitOutputTree(memberPropertyName(RESULTS_FILE_PROPERTY_NAME, i), TreeType.FILE, workspace.getResultsFile());
+            }
+        }
+
+        @Override
+        public String getDisplayName() {
+            return transformer.getDisplayName() + ": " + members.size() + " input artifacts";
+        }
+    }
+
+    private static class BatchMember {
+        private final File inputArtifact;
+        private final FileSystemLocationSnapshot inputArtifactSnapshot;
+        private final TransformationWorkspaceIdentity identity;
+
+        BatchMember(File inputArtifact, FileSystemLocationSnapshot inputArtifactSnapshot, TransformationWorkspaceIdentity identity) {
+            this.inputArtifact = inputArtifact;
+            this.inputArtifactSnapshot = inputArtifactSnapshot;
+            this.identity = identity;
+        }
+    }
+
+    private static String memberPropertyName(String propertyName, int index) {
+        return propertyName + "." + index;
+    }
+
+    private static void writeResultsFile(File inputArtifact, File outputDir, File resultsFile, ImmutableList<File> result) {
+        String outputDirPrefix = outputDir.getPath() + File.separator;
+        String inputFilePrefix = inputArtifact.getPath() + File.separator;
+        Stream<String> relativePaths = result.stream().map(file -> {
+            if (file.equals(outputDir)) {
+                return OUTPUT_FILE_PATH_PREFIX;
+            }
+            if (file.equals(inputArtifact)) {
+                return INPUT_FILE_PATH_PREFIX;
+            }
+            String absolutePath = file.getAbsolutePath();
+            if (absolutePath.startsWith(outputDirPrefix)) {
+                return OUTPUT_FILE_PATH_PREFIX + RelativePath.parse(true, absolutePath.substring(outputDirPrefix.length())).getPathString();
+            }
+            if (absolutePath.startsWith(inputFilePrefix)) {
+                return INPUT_FILE_PATH_PREFIX + RelativePath.parse(true, absolutePath.substring(inputFilePrefix.length())).getPathString();
+            }
+            throw new IllegalStateException("Invalid result path: " + absolutePath);
+        });
+        UncheckedException.callUnchecked(() -> Files.write(resultsFile.toPath(), (Iterable<String>) relativePaths::iterator));
+    }
+
+    private static ImmutableList<File> loadResultsFile(File inputArtifact, TransformationWorkspace workspace) {
+        Path transformerResultsPath = workspace.getResultsFile().toPath();
+        try {
+            ImmutableList.Builder<File> builder = ImmutableList.builder();
+            List<String> paths = Files.readAllLines(transformerResultsPath, StandardCharsets.UTF_8);
+            for (String path : paths) {
+                if (path.startsWith(OUTPUT_FILE_PATH_PREFIX)) {
+                    builder.add(new File(workspace.getOutputDirectory(), path.substring(2)));
+                } else if (path.startsWith(INPUT_FILE_PATH_PREFIX)) {
+                    builder.add(new File(inputArtifact, path.substring(2)));
+                } else {
+                    throw new IllegalStateException("Cannot parse result path string: " + path);
+                }
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private static ImmutableSortedMap<String, FileSystemSnapshot> snapshotOutputs(FileCollectionSnapshotter fileCollectionSnapshotter, FileCollectionFactory fileCollectionFactory, TransformationWorkspace workspace) {
         List<FileSystemSnapshot> outputFingerprint = fileCollectionSnapshotter.snapshot(fileCollectionFactory.fixed(workspace.getOutputDirectory()));
         List<FileSystemSnapshot> resultsFileFingerprint = fileCollectionSnapshotter.snapshot(fileCollectionFactory.fixed(workspace.getResultsFile()));
@@ -501,6 +933,17 @@ private static ImmutableSortedMap<String, FileSystemSnapshot> snapshotOutputs(Fi
             RESULTS_FILE_PROPERTY_NAME, CompositeFileSystemSnapshot.of(resultsFileFingerprint));
     }
 
+    private static ImmutableSortedMap<String, FileSystemSnapshot> snapshotOutputs(FileCollectionSnapshotter fileCollectionSnapshotter, FileCollectionFactory fileCollectionFactory, List<TransformationWorkspace> workspaces) {
+        ImmutableSortedMap.Builder<String, FileSystemSnapshot> builder = ImmutableSortedMap.naturalOrder();
+        for (int i = 0; i < workspaces.size(); i++) {
+            ImmutableSortedMap<String, FileSystemSnapshot> memberSnapshots = snapshotOutputs(fileCollectionSnapshotter, fileCollectionFactory, workspaces.get(i));
+            for (Map.Entry<String, FileSystemSnapshot> entry : memberSnapshots.entrySet()) {
+                builder.put(memberPropertyName(entry.getKey(), i), entry.getValue());
+            }
+        }
+        return builder.build();
+    }
+
     private static class ImmutableTransformationWorkspaceIdentity implements TransformationWorkspaceIdentity {
         private final String inputArtifactPath;
         private final HashCode inputArtifactHash;
@@ -604,4 +1047,42 @@ public int hashCode() {
             return result;
         }
     }
+
+    /**
+     * Identity of the workspace of an input artifact transformed as part of a batch.
+     *
+     * Separate from the workspace of the same input artifact transformed on its own, since the workspaces have a different execution history.
+     */
+    private static class BatchMemberWorkspaceIdentity implements TransformationWorkspaceIdentity {
+        private final TransformationWorkspaceIdentity delegate;
+
+        public BatchMemberWorkspaceIdentity(TransformationWorkspaceIdentity delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getIdentity() {
+            Hasher hasher = Hashing.newHasher();
+            hasher.putString("batch");
+            hasher.putString(delegate.getIdentity());
+            return hasher.hash().toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BatchMemberWorkspaceIdentity that = (BatchMemberWorkspaceIdentity) o;
+            return delegate.equals(that.delegate);
+        }
+
+        @Override
+        public int hashCode() {
+            return delegate.hashCode();
+        }
+    }
 }
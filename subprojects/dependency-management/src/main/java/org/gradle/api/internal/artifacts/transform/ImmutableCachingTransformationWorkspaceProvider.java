@@ -16,8 +16,88 @@
 
 package org.gradle.api.internal.artifacts.transform;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.Try;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+/**
+ * Caches the results of immutable transformations in memory.
+ *
+ * Successful results are retained across builds, up to a maximum number of results. A retained result is only reused while the results file of its workspace
+ * and its output files have the same size and modification time as when the result was retained. The results file is written each time the transformation runs,
+ * so this detects a workspace that has been cleaned up or in which the transformation has run again. Changes to files nested in an output directory that leave
+ * the directory itself untouched are not detected.
+ */
 public class ImmutableCachingTransformationWorkspaceProvider extends AbstractCachingTransformationWorkspaceProvider {
-    public ImmutableCachingTransformationWorkspaceProvider(TransformationWorkspaceProvider delegate) {
+    public static final long DEFAULT_MAX_RETAINED_RESULTS = 20000;
+
+    private final ImmutableTransformationWorkspaceProvider delegate;
+    private final Cache<TransformationWorkspaceIdentity, RetainedResult> retainedResults;
+
+    public ImmutableCachingTransformationWorkspaceProvider(ImmutableTransformationWorkspaceProvider delegate, long maxRetainedResults) {
         super(delegate);
+        this.delegate = delegate;
+        this.retainedResults = CacheBuilder.newBuilder().maximumSize(maxRetainedResults).build();
+    }
+
+    @Nullable
+    @Override
+    protected Try<ImmutableList<File>> getRetainedResult(TransformationWorkspaceIdentity identity) {
+        RetainedResult retainedResult = retainedResults.getIfPresent(identity);
+        if (retainedResult == null) {
+            return null;
+        }
+        if (retainedResult.hasChanged()) {
+            // The workspace has been cleaned up, the transformation has run again or an output file has changed since the result was retained
+            retainedResults.invalidate(identity);
+            return null;
+        }
+        delegate.markAccessed(identity);
+        return Try.successful(retainedResult.files);
+    }
+
+    @Override
+    protected void retainResult(TransformationWorkspaceIdentity identity, Try<ImmutableList<File>> result) {
+        result.ifSuccessful(files -> {
+            File resultsFile = delegate.getResultsFile(identity);
+            if (resultsFile.isFile()) {
+                retainedResults.put(identity, new RetainedResult(resultsFile, files));
+            }
+        });
+    }
+
+    private static class RetainedResult {
+        private final ImmutableList<File> files;
+        private final ImmutableList<File> checkedFiles;
+        private final long[] lengths;
+        private final long[] lastModifiedTimes;
+
+        RetainedResult(File resultsFile, ImmutableList<File> files) {
+            this.files = files;
+            this.checkedFiles = ImmutableList.<File>builder().add(resultsFile).addAll(files).build();
+            this.lengths = new long[checkedFiles.size()];
+            this.lastModifiedTimes = new long[checkedFiles.size()];
+            for (int i = 0; i < checkedFiles.size(); i++) {
+                File file = checkedFiles.get(i);
+                lengths[i] = file.length();
+                lastModifiedTimes[i] = file.lastModified();
+            }
+        }
+
+        boolean hasChanged() {
+            for (int i = 0; i < checkedFiles.size(); i++) {
+                File file = checkedFiles.get(i);
+                // lastModified() is 0 when the file does not exist
+                long lastModified = file.lastModified();
+                if (lastModified == 0 || lastModified != lastModifiedTimes[i] || file.length() != lengths[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
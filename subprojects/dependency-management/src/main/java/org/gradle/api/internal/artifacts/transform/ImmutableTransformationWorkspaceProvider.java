@@ -33,6 +33,7 @@
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.Closeable;
 import java.io.File;
+import java.util.List;
 
 import static org.gradle.api.internal.artifacts.ivyservice.CacheLayout.TRANSFORMS_STORE;
 import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES;
@@ -75,13 +76,48 @@ public ExecutionHistoryStore getExecutionHistoryStore() {
     public Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity identity, TransformationWorkspaceAction workspaceAction) {
         return cache.withFileLock(() -> {
             String workspacePath = identity.getIdentity();
-            TransformationWorkspace workspace = new DefaultTransformationWorkspace(new File(filesOutputDirectory, workspacePath));
-            fileAccessTracker.markAccessed(workspace.getResultsFile());
-            fileAccessTracker.markAccessed(workspace.getOutputDirectory());
+            TransformationWorkspace workspace = workspaceFor(workspacePath);
+            markAccessed(workspace);
             return workspaceAction.useWorkspace(workspacePath, workspace);
         });
     }
 
+    @Override
+    public Try<ImmutableList<ImmutableList<File>>> withWorkspaces(List<TransformationWorkspaceIdentity> identities, BatchWorkspaceAction workspaceAction) {
+        return cache.withFileLock(() -> {
+            ImmutableList.Builder<TransformationWorkspace> workspaces = ImmutableList.builderWithExpectedSize(identities.size());
+            for (TransformationWorkspaceIdentity identity : identities) {
+                TransformationWorkspace workspace = workspaceFor(identity.getIdentity());
+                markAccessed(workspace);
+                workspaces.add(workspace);
+            }
+            return workspaceAction.useWorkspaces(workspaces.build());
+        });
+    }
+
+    /**
+     * Marks the workspace for the given identity as accessed, so it is not removed by cache cleanup while its results are still in use.
+     */
+    public void markAccessed(TransformationWorkspaceIdentity identity) {
+        markAccessed(workspaceFor(identity.getIdentity()));
+    }
+
+    /**
+     * Returns the results file of the workspace for the given identity. The file is written each time the transformation runs in the workspace.
+     */
+    public File getResultsFile(TransformationWorkspaceIdentity identity) {
+        return workspaceFor(identity.getIdentity()).getResultsFile();
+    }
+
+    private TransformationWorkspace workspaceFor(String workspacePath) {
+        return new DefaultTransformationWorkspace(new File(filesOutputDirectory, workspacePath));
+    }
+
+    private void markAccessed(TransformationWorkspace workspace) {
+        fileAccessTracker.markAccessed(workspace.getResultsFile());
+        fileAccessTracker.markAccessed(workspace.getOutputDirectory());
+    }
+
     @Override
     public void close() {
         cache.close();
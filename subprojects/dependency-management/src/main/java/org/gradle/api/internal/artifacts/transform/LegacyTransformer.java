@@ -69,6 +69,11 @@ public boolean isCacheable() {
         return false;
     }
 
+    @Override
+    public boolean isBatchable() {
+        return false;
+    }
+
     @Override
     public ImmutableList<File> transform(Provider<FileSystemLocation> inputArtifactProvider, File outputDir, ArtifactTransformDependencies dependencies, @Nullable InputChanges inputChanges) {
         File inputArtifact = inputArtifactProvider.get().getAsFile();
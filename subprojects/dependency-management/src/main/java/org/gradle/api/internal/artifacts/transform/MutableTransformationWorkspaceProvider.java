@@ -26,6 +26,7 @@
 
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.File;
+import java.util.List;
 
 @NotThreadSafe
 public class MutableTransformationWorkspaceProvider implements TransformationWorkspaceProvider, ReservedFileSystemLocation {
@@ -50,6 +51,16 @@ public Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity id
         return workspaceAction.useWorkspace(workspacePath, workspace);
     }
 
+    @Override
+    public Try<ImmutableList<ImmutableList<File>>> withWorkspaces(List<TransformationWorkspaceIdentity> identities, BatchWorkspaceAction workspaceAction) {
+        File baseDir = baseDirectory.get().getAsFile();
+        ImmutableList.Builder<TransformationWorkspace> workspaces = ImmutableList.builderWithExpectedSize(identities.size());
+        for (TransformationWorkspaceIdentity identity : identities) {
+            workspaces.add(new DefaultTransformationWorkspace(new File(baseDir, identity.getIdentity())));
+        }
+        return workspaceAction.useWorkspaces(workspaces.build());
+    }
+
     @Override
     public Provider<? extends FileSystemLocation> getReservedFileSystemLocation() {
         return baseDirectory;
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.internal.artifacts.transform.TransformerInvocationFactory.TransformerInvocation;
+import org.gradle.internal.Describables;
+import org.gradle.internal.Try;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.fingerprint.FileCollectionFingerprinterRegistry;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Transforms the input artifacts of a batchable transformer in batches.
+ *
+ * An input artifact is queued once it is known to have no cached result. Invoking the transformation of a queued input artifact
+ * transforms it together with other queued input artifacts, up to the batch size. When the input artifact is already part of a batch
+ * transformed by another thread, the invoking thread transforms the next batch of queued input artifacts instead of waiting idle.
+ *
+ * An input artifact is queued at most once per workspace identity: invocations for a transformation which is already queued or being
+ * transformed wait for the result of the existing transformation.
+ */
+@ThreadSafe
+class TransformationBatcher {
+    static final String BATCH_SIZE_PROPERTY = "org.gradle.internal.transform.batch-size";
+    static final int DEFAULT_BATCH_SIZE = 32;
+
+    private final Transformer transformer;
+    private final TransformerInvocationFactory transformerInvocationFactory;
+    private final int batchSize;
+    // Guarded by this
+    private final Set<QueuedTransformation> queued = new LinkedHashSet<>();
+    // Guarded by this, the queued transformations and the claimed transformations which have not completed yet
+    private final Map<TransformationWorkspaceIdentity, QueuedTransformation> pending = new HashMap<>();
+
+    TransformationBatcher(Transformer transformer, TransformerInvocationFactory transformerInvocationFactory, int batchSize) {
+        this.transformer = transformer;
+        this.transformerInvocationFactory = transformerInvocationFactory;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the batch size configured for the build, or 1 when batching is disabled.
+     */
+    static int configuredBatchSize() {
+        return Math.max(1, Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+    }
+
+    public CacheableInvocation<ImmutableList<File>> createInvocation(File inputArtifact, ArtifactTransformDependencies dependencies, TransformationSubject subject, FileCollectionFingerprinterRegistry fingerprinterRegistry) {
+        TransformerInvocation invocation = transformerInvocationFactory.createInvocation(transformer, inputArtifact, dependencies, subject, fingerprinterRegistry);
+        return new CacheableInvocation<ImmutableList<File>>() {
+            private QueuedTransformation transformation;
+
+            @Override
+            public Optional<Try<ImmutableList<File>>> getCachedResult() {
+                Optional<Try<ImmutableList<File>>> cachedResult = invocation.getCachedResult();
+                if (!cachedResult.isPresent() && transformation == null) {
+                    transformation = enqueue(new QueuedTransformation(inputArtifact, dependencies, fingerprinterRegistry, invocation));
+                }
+                return cachedResult;
+            }
+
+            @Override
+            public Try<ImmutableList<File>> invoke() {
+                if (transformation == null) {
+                    transformation = enqueue(new QueuedTransformation(inputArtifact, dependencies, fingerprinterRegistry, invocation));
+                }
+                return transform(transformation);
+            }
+        };
+    }
+
+    /**
+     * Returns an invocation transforming each of the input artifacts, where the input artifacts without a cached result are transformed in batches.
+     */
+    public CacheableInvocation<ImmutableList<File>> createInvocation(List<File> inputArtifacts, ArtifactTransformDependencies dependencies, TransformationSubject subject, FileCollectionFingerprinterRegistry fingerprinterRegistry) {
+        ImmutableList.Builder<CacheableInvocation<ImmutableList<File>>> builder = ImmutableList.builderWithExpectedSize(inputArtifacts.size());
+        for (File inputArtifact : inputArtifacts) {
+            builder.add(createInvocation(inputArtifact, dependencies, subject, fingerprinterRegistry));
+        }
+        ImmutableList<CacheableInvocation<ImmutableList<File>>> invocations = builder.build();
+        CacheableInvocation<ImmutableList<File>> batch = CacheableInvocation.batch(invocations);
+        return new CacheableInvocation<ImmutableList<File>>() {
+            @Override
+            public Optional<Try<ImmutableList<File>>> getCachedResult() {
+                // Queue all input artifacts without a cached result, so they end up in the same batch
+                invocations.forEach(CacheableInvocation::getCachedResult);
+                return batch.getCachedResult();
+            }
+
+            @Override
+            public Try<ImmutableList<File>> invoke() {
+                invocations.forEach(CacheableInvocation::getCachedResult);
+                return batch.invoke();
+            }
+        };
+    }
+
+    /**
+     * Queues the given transformation, or returns the pending transformation with the same workspace identity.
+     */
+    private synchronized QueuedTransformation enqueue(QueuedTransformation transformation) {
+        QueuedTransformation existing = pending.putIfAbsent(transformation.getWorkspaceIdentity(), transformation);
+        if (existing != null) {
+            return existing;
+        }
+        queued.add(transformation);
+        return transformation;
+    }
+
+    private void complete(QueuedTransformation transformation, Try<ImmutableList<File>> result) {
+        synchronized (this) {
+            pending.remove(transformation.getWorkspaceIdentity());
+        }
+        transformation.complete(result);
+    }
+
+    private Try<ImmutableList<File>> transform(QueuedTransformation transformation) {
+        while (!transformation.isComplete()) {
+            List<QueuedTransformation> batch = claimBatch(transformation);
+            if (batch.isEmpty()) {
+                break;
+            }
+            transformBatch(batch);
+        }
+        return transformation.awaitResult();
+    }
+
+    /**
+     * Claims a batch starting with the given transformation, or with the next queued transformation when the given one has already been claimed.
+     */
+    private synchronized List<QueuedTransformation> claimBatch(QueuedTransformation preferred) {
+        QueuedTransformation first = preferred.claimed ? nextQueued() : preferred;
+        if (first == null) {
+            return ImmutableList.of();
+        }
+        first.claimed = true;
+        queued.remove(first);
+        List<QueuedTransformation> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        Iterator<QueuedTransformation> iterator = queued.iterator();
+        while (batch.size() < batchSize && iterator.hasNext()) {
+            QueuedTransformation candidate = iterator.next();
+            if (candidate.canBatchWith(first)) {
+                candidate.claimed = true;
+                iterator.remove();
+                batch.add(candidate);
+            }
+        }
+        return batch;
+    }
+
+    @Nullable
+    private QueuedTransformation nextQueued() {
+        Iterator<QueuedTransformation> iterator = queued.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void transformBatch(List<QueuedTransformation> batch) {
+        if (batch.size() == 1) {
+            transformIndividually(batch.get(0));
+            return;
+        }
+        ImmutableList.Builder<File> inputArtifacts = ImmutableList.builderWithExpectedSize(batch.size());
+        for (QueuedTransformation transformation : batch) {
+            inputArtifacts.add(transformation.inputArtifact);
+        }
+        QueuedTransformation first = batch.get(0);
+        Try<ImmutableList<ImmutableList<File>>> results = Try.ofFailable(() ->
+            transformerInvocationFactory.createBatchInvocation(transformer, inputArtifacts.build(), first.dependencies, Describables.of(batch.size(), "input artifacts"), first.fingerprinterRegistry).invoke()
+        ).flatMap(result -> result);
+        if (!results.isSuccessful()) {
+            // Transform the input artifacts one by one, so the failure is only reported for the input artifacts it applies to
+            batch.forEach(this::transformIndividually);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), Try.successful(results.get().get(i)));
+        }
+    }
+
+    private void transformIndividually(QueuedTransformation transformation) {
+        complete(transformation, Try.ofFailable(transformation.invocation::invoke).flatMap(result -> result));
+    }
+
+    private static class QueuedTransformation {
+        private final File inputArtifact;
+        private final ArtifactTransformDependencies dependencies;
+        private final FileCollectionFingerprinterRegistry fingerprinterRegistry;
+        private final TransformerInvocation invocation;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        // Guarded by the batcher
+        private boolean claimed;
+        private volatile Try<ImmutableList<File>> result;
+
+        QueuedTransformation(File inputArtifact, ArtifactTransformDependencies dependencies, FileCollectionFingerprinterRegistry fingerprinterRegistry, TransformerInvocation invocation) {
+            this.inputArtifact = inputArtifact;
+            this.dependencies = dependencies;
+            this.fingerprinterRegistry = fingerprinterRegistry;
+            this.invocation = invocation;
+        }
+
+        TransformationWorkspaceIdentity getWorkspaceIdentity() {
+            return invocation.getWorkspaceIdentity();
+        }
+
+        boolean canBatchWith(QueuedTransformation other) {
+            return dependencies == other.dependencies && fingerprinterRegistry == other.fingerprinterRegistry;
+        }
+
+        boolean isComplete() {
+            return result != null;
+        }
+
+        void complete(Try<ImmutableList<File>> result) {
+            this.result = result;
+            completed.countDown();
+        }
+
+        Try<ImmutableList<File>> awaitResult() {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            return result;
+        }
+    }
+}
@@ -53,6 +53,7 @@ public class TransformationStep implements Transformation, TaskDependencyContain
     private final ProjectInternal owningProject;
     private final FileCollectionFingerprinterRegistry globalFingerprinterRegistry;
     private final ModelContainer owner;
+    private final TransformationBatcher batcher;
 
     public TransformationStep(Transformer transformer, TransformerInvocationFactory transformerInvocationFactory, DomainObjectContext owner, ProjectStateRegistry projectRegistry, FileCollectionFingerprinterRegistry globalFingerprinterRegistry) {
         this.transformer = transformer;
@@ -61,6 +62,7 @@ public TransformationStep(Transformer transformer, TransformerInvocationFactory
         this.isolationLock = projectRegistry.newExclusiveOperationLock();
         this.owningProject = owner.getProject();
         this.owner = owner.getModel();
+        this.batcher = createBatcher(transformer, transformerInvocationFactory);
         this.isolateAction = transformer.isIsolated() ? null : new WorkNodeAction() {
             @Nullable
             @Override
@@ -76,6 +78,15 @@ public void run(NodeExecutionContext context) {
         };
     }
 
+    @Nullable
+    private static TransformationBatcher createBatcher(Transformer transformer, TransformerInvocationFactory transformerInvocationFactory) {
+        int batchSize = TransformationBatcher.configuredBatchSize();
+        if (!transformer.isBatchable() || transformer.requiresDependencies() || transformer.requiresInputChanges() || batchSize == 1) {
+            return null;
+        }
+        return new TransformationBatcher(transformer, transformerInvocationFactory, batchSize);
+    }
+
     public Transformer getTransformer() {
         return transformer;
     }
@@ -111,29 +122,34 @@ public CacheableInvocation<TransformationSubject> createInvocation(Transformatio
                 if (inputArtifacts.isEmpty()) {
                     return CacheableInvocation.cached(Try.successful(subjectToTransform.createSubjectFromResult(ImmutableList.of())));
                 } else if (inputArtifacts.size() > 1) {
-                    return CacheableInvocation.nonCached(() ->
-                        doTransform(subjectToTransform, fingerprinterRegistry, dependencies, inputArtifacts)
-                    );
+                    return createBatchInvocation(subjectToTransform, fingerprinterRegistry, dependencies, inputArtifacts);
                 } else {
                     File inputArtifact = inputArtifacts.iterator().next();
-                    return transformerInvocationFactory.createInvocation(transformer, inputArtifact, dependencies, subjectToTransform, fingerprinterRegistry)
-                        .map(subjectToTransform::createSubjectFromResult);
+                    CacheableInvocation<ImmutableList<File>> invocation = isBatched(subjectToTransform)
+                        ? batcher.createInvocation(inputArtifact, dependencies, subjectToTransform, fingerprinterRegistry)
+                        : transformerInvocationFactory.createInvocation(transformer, inputArtifact, dependencies, subjectToTransform, fingerprinterRegistry);
+                    return invocation.map(subjectToTransform::createSubjectFromResult);
                 }
             })
             .getOrMapFailure(failure -> CacheableInvocation.cached(Try.failure(failure)));
     }
 
-    private Try<TransformationSubject> doTransform(TransformationSubject subjectToTransform, FileCollectionFingerprinterRegistry fingerprinterRegistry, ArtifactTransformDependencies dependencies, ImmutableList<File> inputArtifacts) {
-        ImmutableList.Builder<File> builder = ImmutableList.builder();
-        for (File inputArtifact : inputArtifacts) {
-            Try<ImmutableList<File>> result = transformerInvocationFactory.createInvocation(transformer, inputArtifact, dependencies, subjectToTransform, fingerprinterRegistry).invoke();
+    private boolean isBatched(TransformationSubject subjectToTransform) {
+        // Batches use the immutable workspace, so they cannot contain artifacts produced by a project of the build
+        return batcher != null && !subjectToTransform.getProducer().isPresent();
+    }
 
-            if (result.getFailure().isPresent()) {
-                return Try.failure(result.getFailure().get());
-            }
-            builder.addAll(result.get());
+    private CacheableInvocation<TransformationSubject> createBatchInvocation(TransformationSubject subjectToTransform, FileCollectionFingerprinterRegistry fingerprinterRegistry, ArtifactTransformDependencies dependencies, ImmutableList<File> inputArtifacts) {
+        if (isBatched(subjectToTransform)) {
+            return batcher.createInvocation(inputArtifacts, dependencies, subjectToTransform, fingerprinterRegistry)
+                .map(subjectToTransform::createSubjectFromResult);
+        }
+        ImmutableList.Builder<CacheableInvocation<ImmutableList<File>>> invocations = ImmutableList.builderWithExpectedSize(inputArtifacts.size());
+        for (File inputArtifact : inputArtifacts) {
+            invocations.add(transformerInvocationFactory.createInvocation(transformer, inputArtifact, dependencies, subjectToTransform, fingerprinterRegistry));
         }
-        return Try.successful(subjectToTransform.createSubjectFromResult(builder.build()));
+        return CacheableInvocation.batch(invocations.build())
+            .map(subjectToTransform::createSubjectFromResult);
     }
 
     private void isolateTransformerParameters(FileCollectionFingerprinterRegistry fingerprinterRegistry) {
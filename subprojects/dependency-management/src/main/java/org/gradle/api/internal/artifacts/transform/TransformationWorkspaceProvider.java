@@ -21,6 +21,7 @@
 import org.gradle.internal.execution.history.ExecutionHistoryStore;
 
 import java.io.File;
+import java.util.List;
 
 public interface TransformationWorkspaceProvider {
     /**
@@ -28,6 +29,13 @@ public interface TransformationWorkspaceProvider {
      */
     Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity identity, TransformationWorkspaceAction workspaceAction);
 
+    /**
+     * Provides a workspace for each transformation of a batch, for executing the batch as a whole.
+     *
+     * No other batch uses any of the workspaces while the action runs.
+     */
+    Try<ImmutableList<ImmutableList<File>>> withWorkspaces(List<TransformationWorkspaceIdentity> identities, BatchWorkspaceAction workspaceAction);
+
     /**
      * The execution history store for transformations using the provided workspaces.
      */
@@ -38,6 +46,11 @@ interface TransformationWorkspaceAction {
         Try<ImmutableList<File>> useWorkspace(String transformationIdentity, TransformationWorkspace workspace);
     }
 
+    @FunctionalInterface
+    interface BatchWorkspaceAction {
+        Try<ImmutableList<ImmutableList<File>>> useWorkspaces(List<TransformationWorkspace> workspaces);
+    }
+
     interface TransformationWorkspace {
         File getOutputDirectory();
         File getResultsFile();
@@ -55,6 +55,11 @@ public interface Transformer extends Describable, TaskDependencyContainer {
      */
     boolean isCacheable();
 
+    /**
+     * Whether the transformer can be invoked for several input artifacts as part of a single unit of work.
+     */
+    boolean isBatchable();
+
     ImmutableList<File> transform(Provider<FileSystemLocation> inputArtifactProvider, File outputDir, ArtifactTransformDependencies dependencies, @Nullable InputChanges inputChanges);
 
     /**
@@ -17,15 +17,33 @@
 package org.gradle.api.internal.artifacts.transform;
 
 import com.google.common.collect.ImmutableList;
+import org.gradle.api.Describable;
 import org.gradle.internal.fingerprint.FileCollectionFingerprinterRegistry;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.File;
+import java.util.List;
 
 @ThreadSafe
 public interface TransformerInvocationFactory {
     /**
      * Returns an invocation which allows invoking the actual transformer.
      */
-    CacheableInvocation<ImmutableList<File>> createInvocation(Transformer transformer, File inputArtifact, ArtifactTransformDependencies dependencies, TransformationSubject subject, FileCollectionFingerprinterRegistry fingerprinterRegistry);
+    TransformerInvocation createInvocation(Transformer transformer, File inputArtifact, ArtifactTransformDependencies dependencies, TransformationSubject subject, FileCollectionFingerprinterRegistry fingerprinterRegistry);
+
+    /**
+     * Returns an invocation which invokes the transformer on each of the input artifacts as part of a single unit of work.
+     *
+     * The input artifacts must not be produced by a project of the build. The result contains the transformed files of each input artifact, in order.
+     */
+    CacheableInvocation<ImmutableList<ImmutableList<File>>> createBatchInvocation(Transformer transformer, List<File> inputArtifacts, ArtifactTransformDependencies dependencies, Describable subject, FileCollectionFingerprinterRegistry fingerprinterRegistry);
+
+    interface TransformerInvocation extends CacheableInvocation<ImmutableList<File>> {
+        /**
+         * The identity of the workspace the input artifact is transformed in.
+         *
+         * Invocations with the same workspace identity produce the same result.
+         */
+        TransformationWorkspaceIdentity getWorkspaceIdentity();
+    }
 }
@@ -98,6 +98,11 @@ public LocallyAvailableExternalResource get() {
                 // We have a cached version, but it might be out of date, so we tell the upstreams to revalidate too
                 final boolean revalidate = true;
 
+                // Without local candidates to consider, fetch the content only if it has changed since it was cached
+                if (cached != null && cached.getExternalResourceMetaData() != null && (additionalCandidates == null || additionalCandidates.isNone())) {
+                    return copyToCacheIfChanged(location, fileStore, cached);
+                }
+
                 // Get the metadata first to see if it's there
                 final ExternalResourceMetaData remoteMetaData = delegate.resource(location, revalidate).getMetaData();
                 if (remoteMetaData == null) {
@@ -214,6 +219,34 @@ private LocallyAvailableExternalResource copyToCache(final ExternalResourceName
         }
     }
 
+    @Nullable
+    private LocallyAvailableExternalResource copyToCacheIfChanged(final ExternalResourceName source, final ResourceFileStore fileStore, CachedExternalResource cached) {
+        DownloadAction downloadAction = new DownloadAction(source);
+        ExternalResourceReadResult<Object> result;
+        try {
+            result = delegate.withProgressLogging().resource(source, true).withContentIfChanged(cached.getExternalResourceMetaData(), downloadAction);
+        } catch (Exception e) {
+            throw ResourceExceptions.getFailed(source.getUri(), e);
+        }
+        if (result == null) {
+            return null;
+        }
+
+        if (result.isUnchanged()) {
+            LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", source, cached.getExternalLastModified());
+            // Update the cache entry in the index: this resets the age of the cached entry to zero
+            cachedExternalResourceIndex.store(source.toString(), cached.getCachedFile(), cached.getExternalResourceMetaData());
+            return fileResourceRepository.resource(cached.getCachedFile(), source.getUri(), cached.getExternalResourceMetaData());
+        }
+
+        // Move into cache
+        try {
+            return moveIntoCache(source, downloadAction.destination, fileStore, downloadAction.metaData);
+        } finally {
+            downloadAction.destination.delete();
+        }
+    }
+
     private LocallyAvailableExternalResource moveIntoCache(final ExternalResourceName source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
         return artifactCacheLockingManager.useCache(new Factory<LocallyAvailableExternalResource>() {
             @Override
@@ -43,6 +43,17 @@ public ExternalResourceReadResponse openResource(URI location, boolean revalidat
         }
     }
 
+    @Override
+    @Nullable
+    public ExternalResourceReadResponse openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) {
+        ExternalResourceReadResponse resource = delegate.openResourceIfChanged(location, cachedMetaData);
+        if (resource != null && !resource.isUnchanged()) {
+            return new ProgressLoggingExternalResource(location, resource);
+        } else {
+            return resource;
+        }
+    }
+
     @Override
     @Nullable
     public ExternalResourceMetaData getMetaData(URI location, boolean revalidate) {
@@ -78,6 +89,11 @@ public ExternalResourceMetaData getMetaData() {
             return resource.getMetaData();
         }
 
+        @Override
+        public boolean isUnchanged() {
+            return resource.isUnchanged();
+        }
+
         public String toString() {
             return resource.toString();
         }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata
+import org.gradle.internal.component.external.model.ModuleDependencyMetadata
+import org.gradle.internal.component.model.ComponentArtifacts
+import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.resolve.result.DefaultBuildableComponentArtifactsResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableModuleVersionListingResolveResult
+import org.gradle.internal.resource.transfer.ExternalResourceConnector
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ProfilingModuleComponentRepositoryTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def localAccess = Mock(ModuleComponentRepositoryAccess)
+    def remoteAccess = Mock(ModuleComponentRepositoryAccess)
+    def delegate = Stub(ModuleComponentRepository) {
+        getName() >> "repo"
+        getLocalAccess() >> localAccess
+        getRemoteAccess() >> remoteAccess
+    }
+    def reportFile = tmpDir.file("reports/profile.csv")
+    def profiler = new ResolutionProfiler(reportFile)
+    def repository = new ProfilingModuleComponentRepository(delegate, profiler)
+    def componentId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "foo"), "1.0")
+    def requestMetaData = Stub(ComponentOverrideMetadata)
+
+    def "records cache and remote accesses per repository and module"() {
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repository.localAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+        repository.remoteAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+        profiler.close()
+
+        then:
+        1 * localAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+        1 * remoteAccess.resolveComponentMetaData(componentId, requestMetaData, result) >> {
+            result.attempted("https://repo/org/foo/1.0/foo-1.0.pom")
+            result.resolved(Stub(ModuleComponentResolveMetadata))
+        }
+
+        and:
+        def lines = reportFile.readLines()
+        lines.size() == 2
+        lines[0] == "repository,module,operation,cacheRequests,cacheHits,remoteRequests,remoteHits,failures,locationsAttempted,resourceRequests,bytesDownloaded,timeMs"
+        lines[1].startsWith("repo,org:foo,METADATA,1,0,1,1,0,1,")
+    }
+
+    def "records remote probes for modules the repository does not host"() {
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repository.remoteAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+        profiler.close()
+
+        then:
+        1 * remoteAccess.resolveComponentMetaData(componentId, requestMetaData, result) >> {
+            result.attempted("https://repo/org/foo/1.0/foo-1.0.pom")
+            result.attempted("https://repo/org/foo/1.0/foo-1.0.jar")
+            result.missing()
+        }
+
+        and:
+        reportFile.readLines()[1].startsWith("repo,org:foo,METADATA,0,0,1,0,0,2,")
+    }
+
+    def "records artifact set resolution"() {
+        def component = Stub(ComponentResolveMetadata) {
+            getId() >> componentId
+        }
+        def result = new DefaultBuildableComponentArtifactsResolveResult()
+
+        when:
+        repository.remoteAccess.resolveArtifacts(component, result)
+        profiler.close()
+
+        then:
+        1 * remoteAccess.resolveArtifacts(component, result) >> {
+            result.resolved(Stub(ComponentArtifacts))
+        }
+
+        and:
+        reportFile.readLines()[1].startsWith("repo,org:foo,ARTIFACTS,0,0,1,1,0,0,0,0,")
+    }
+
+    def "attributes requests and downloaded bytes to the innermost access"() {
+        def connector = Mock(ExternalResourceConnector)
+        def profilingConnector = profiler.profileExternalResourceConnector("repo", connector)
+        def location = new URI("https://repo/org/foo/maven-metadata.xml")
+        def response = Stub(ExternalResourceReadResponse) {
+            openStream() >> new ByteArrayInputStream(new byte[12])
+        }
+
+        when:
+        def dynamicVersion = profiler.start("repo", "org:foo", ResolutionProfiler.Operation.DYNAMIC_VERSION, true)
+        repository.remoteAccess.listModuleVersions(Stub(ModuleDependencyMetadata) {
+            getSelector() >> DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", "foo"), "1.+")
+        }, new DefaultBuildableModuleVersionListingResolveResult())
+        dynamicVersion.finish(true, false, 0)
+        profiler.close()
+
+        then:
+        1 * remoteAccess.listModuleVersions(_, _) >> {
+            def stream = profilingConnector.openResource(location, false).openStream()
+            stream.read()
+            stream.read(new byte[8])
+            stream.skip(3)
+            profilingConnector.getMetaData(location, false)
+        }
+        1 * connector.openResource(location, false) >> response
+
+        and:
+        def lines = reportFile.readLines()
+        lines.size() == 3
+        lines.find { it.startsWith("repo,org:foo,VERSION_LISTING,") }.startsWith("repo,org:foo,VERSION_LISTING,0,0,1,0,0,0,2,12,")
+        lines.find { it.startsWith("repo,org:foo,DYNAMIC_VERSION,") }.startsWith("repo,org:foo,DYNAMIC_VERSION,0,0,1,1,0,0,0,0,")
+    }
+
+    def "attributes requests made outside of an access to the repository"() {
+        def connector = Mock(ExternalResourceConnector)
+        def profilingConnector = profiler.profileExternalResourceConnector("repo", connector)
+
+        when:
+        profilingConnector.list(new URI("https://repo/org/foo/"))
+        profiler.close()
+
+        then:
+        reportFile.readLines()[1].startsWith("repo,-,OTHER,0,0,0,0,0,0,1,0,")
+    }
+
+    def "does not profile requests when disabled"() {
+        def connector = Mock(ExternalResourceConnector)
+
+        expect:
+        new ResolutionProfiler(null).profileExternalResourceConnector("repo", connector).is(connector)
+        new ResolutionProfiler(null).start("repo", "org:foo", ResolutionProfiler.Operation.METADATA, true).is(ResolutionProfiler.Scope.DISABLED)
+    }
+
+    def "does not write report when nothing was resolved"() {
+        when:
+        profiler.close()
+
+        then:
+        !reportFile.exists()
+    }
+}
@@ -83,7 +83,7 @@ class ResolveIvyFactoryTest extends Specification {
         versionParser = new VersionParser()
         instantiatorFactory = Mock()
 
-        resolveIvyFactory = new ResolveIvyFactory(cacheProvider, startParameterResolutionOverride, buildCommencedTimeProvider, versionComparator, moduleIdentifierFactory, repositoryBlacklister, versionParser, instantiatorFactory)
+        resolveIvyFactory = new ResolveIvyFactory(cacheProvider, startParameterResolutionOverride, buildCommencedTimeProvider, versionComparator, moduleIdentifierFactory, repositoryBlacklister, versionParser, instantiatorFactory, new ResolutionProfiler(null))
     }
 
     def "returns an empty resolver when no repositories are configured" () {
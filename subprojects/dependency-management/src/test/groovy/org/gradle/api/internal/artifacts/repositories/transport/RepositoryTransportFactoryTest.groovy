@@ -20,6 +20,7 @@ import com.google.common.collect.Lists
 import org.gradle.StartParameter
 import org.gradle.api.InvalidUserDataException
 import org.gradle.api.credentials.Credentials
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolutionProfiler
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride
 import org.gradle.authentication.Authentication
 import org.gradle.cache.internal.ProducerGuard
@@ -44,7 +45,7 @@ class RepositoryTransportFactoryTest extends Specification {
         connectorFactory2.getSupportedAuthentication() >> ([] as Set)
         List<ResourceConnectorFactory> resourceConnectorFactories = Lists.newArrayList(connectorFactory1, connectorFactory2)
         StartParameterResolutionOverride override = new StartParameterResolutionOverride(new StartParameter())
-        repositoryTransportFactory = new RepositoryTransportFactory(resourceConnectorFactories, null, null, null, null, null, null, override, producerGuard, Mock(FileResourceRepository))
+        repositoryTransportFactory = new RepositoryTransportFactory(resourceConnectorFactories, null, null, null, null, null, null, override, producerGuard, Mock(FileResourceRepository), new ResolutionProfiler(null))
     }
 
     def "cannot create a transport for url with unsupported scheme"() {
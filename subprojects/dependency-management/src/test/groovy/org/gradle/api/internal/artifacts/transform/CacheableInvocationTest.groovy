@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.transform
 
+import com.google.common.collect.ImmutableList
 import org.gradle.internal.Try
 import spock.lang.Specification
 
@@ -41,4 +42,50 @@ class CacheableInvocationTest extends Specification {
         where:
         first << [CacheableInvocation.nonCached { Try.successful(5) }, CacheableInvocation.cached(Try.successful(5))]
     }
+
+    def "batch is cached when all invocations are cached"() {
+        def batch = CacheableInvocation.batch([
+            CacheableInvocation.cached(Try.successful(ImmutableList.of(1, 2))),
+            CacheableInvocation.cached(Try.successful(ImmutableList.of(3)))
+        ])
+
+        expect:
+        batch.cachedResult.get().get() == [1, 2, 3]
+        batch.invoke().get() == [1, 2, 3]
+    }
+
+    def "batch only computes invocations without cached result"() {
+        def invocationCount = new AtomicInteger(0)
+        def batch = CacheableInvocation.batch([
+            CacheableInvocation.cached(Try.successful(ImmutableList.of(1))),
+            CacheableInvocation.nonCached {
+                invocationCount.incrementAndGet()
+                Try.successful(ImmutableList.of(2))
+            },
+            CacheableInvocation.cached(Try.successful(ImmutableList.of(3)))
+        ])
+
+        expect:
+        !batch.cachedResult.present
+        batch.invoke().get() == [1, 2, 3]
+        invocationCount.get() == 1
+    }
+
+    def "batch fails with first failure"() {
+        def failure = new RuntimeException("broken")
+        def invocationCount = new AtomicInteger(0)
+        def batch = CacheableInvocation.batch([
+            CacheableInvocation.cached(Try.successful(ImmutableList.of(1))),
+            CacheableInvocation.cached(Try.failure(failure)),
+            CacheableInvocation.nonCached {
+                invocationCount.incrementAndGet()
+                Try.successful(ImmutableList.of(3))
+            }
+        ])
+
+        expect:
+        batch.cachedResult.get().failure.get() == failure
+        batch.invoke().failure.get() == failure
+        invocationCount.get() == 0
+    }
 }
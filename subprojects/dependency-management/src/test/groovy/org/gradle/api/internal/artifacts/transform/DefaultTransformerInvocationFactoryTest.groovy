@@ -31,6 +31,7 @@ import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.tasks.TaskDependencyResolveContext
 import org.gradle.api.provider.Provider
 import org.gradle.api.tasks.FileNormalizer
+import org.gradle.internal.Describables
 import org.gradle.internal.Try
 import org.gradle.internal.component.local.model.ComponentFileArtifactIdentifier
 import org.gradle.internal.execution.TestExecutionHistoryStore
@@ -151,6 +152,11 @@ class DefaultTransformerInvocationFactoryTest extends AbstractProjectBuilderSpec
             return false
         }
 
+        @Override
+        boolean isBatchable() {
+            return true
+        }
+
         @Override
         ImmutableList<File> transform(Provider<FileSystemLocation> inputArtifactProvider, File outputDir, ArtifactTransformDependencies dependencies, InputChanges inputChanges) {
             return ImmutableList.copyOf(transformationAction.apply(inputArtifactProvider.get().asFile, outputDir))
@@ -412,6 +418,137 @@ class DefaultTransformerInvocationFactoryTest extends AbstractProjectBuilderSpec
         workspaces.size() == 1
     }
 
+    def "transforms batch of input artifacts as a single unit of work"() {
+        def inputArtifacts = (1..3).collect { index ->
+            def inputArtifact = temporaryFolder.file("input${index}")
+            inputArtifact.text = "my input ${index}"
+            inputArtifact
+        }
+        def transformedArtifacts = []
+        def transformer = TestTransformer.create { input, outputDir ->
+            transformedArtifacts << input
+            def outputFile = new File(outputDir, input.name)
+            outputFile.text = input.text + " transformed"
+            return [outputFile]
+        }
+
+        when:
+        def result = invokeBatch(transformer, inputArtifacts)
+
+        then:
+        transformedArtifacts == inputArtifacts
+        result.get().size() == 3
+        result.get().collect { it*.text } == [["my input 1 transformed"], ["my input 2 transformed"], ["my input 3 transformed"]]
+        result.get().collect { it[0].parentFile }.unique().size() == 3
+        1 * artifactTransformListener.beforeTransformerInvocation(_, _)
+        1 * artifactTransformListener.afterTransformerInvocation(_, _)
+
+        when:
+        transformedArtifacts.clear()
+        invokeBatch(transformer, inputArtifacts)
+
+        then:
+        transformedArtifacts.empty
+    }
+
+    def "reuses results of input artifacts transformed by a different batch"() {
+        def inputArtifacts = (1..4).collect { index ->
+            def inputArtifact = temporaryFolder.file("input${index}")
+            inputArtifact.text = "my input ${index}"
+            inputArtifact
+        }
+        def transformedArtifacts = []
+        def transformer = TestTransformer.create { input, outputDir ->
+            transformedArtifacts << input
+            def outputFile = new File(outputDir, input.name)
+            outputFile.text = input.text + " transformed"
+            return [outputFile]
+        }
+
+        when:
+        def first = invokeBatch(transformer, inputArtifacts[0..1])
+        def second = invokeBatch(transformer, inputArtifacts[1..3])
+
+        then:
+        transformedArtifacts == inputArtifacts
+        second.get()[0] == first.get()[1]
+        second.get().collect { it*.text } == [["my input 2 transformed"], ["my input 3 transformed"], ["my input 4 transformed"]]
+    }
+
+    def "does not transform input artifacts of a batch again which have been transformed while the batch was waiting for their workspaces"() {
+        def inputArtifacts = (1..3).collect { index ->
+            def inputArtifact = temporaryFolder.file("input${index}")
+            inputArtifact.text = "my input ${index}"
+            inputArtifact
+        }
+        def transformedArtifacts = []
+        def transformer = TestTransformer.create { input, outputDir ->
+            transformedArtifacts << input
+            def outputFile = new File(outputDir, input.name)
+            outputFile.text = input.text + " transformed"
+            return [outputFile]
+        }
+        def cachedResults = [:]
+        def cachingWorkspaceProvider = new TestTransformationWorkspaceProvider(immutableTransformsStoreDirectory, executionHistoryStore) {
+            @Override
+            Try<ImmutableList<File>> getCachedResult(TransformationWorkspaceIdentity identity) {
+                cachedResults[identity]
+            }
+
+            @Override
+            void cacheResult(TransformationWorkspaceIdentity identity, Try<ImmutableList<File>> result) {
+                cachedResults[identity] = result
+            }
+        }
+        def cachingInvoker = new DefaultTransformerInvocationFactory(
+            workExecutorTestFixture.workExecutor,
+            fileSystemSnapshotter,
+            artifactTransformListener,
+            cachingWorkspaceProvider,
+            fileCollectionFactory,
+            fileCollectionSnapshotter,
+            projectFinder,
+            buildOperationExecutor
+        )
+
+        when:
+        def first = cachingInvoker.createBatchInvocation(transformer, inputArtifacts[0..1], dependencies, Describables.of("batch"), fingerprinterRegistry).invoke()
+        transformedArtifacts.clear()
+        // Invoke without checking for cached results first, like a batch which has been waiting for the workspaces
+        def second = cachingInvoker.createBatchInvocation(transformer, inputArtifacts[1..2], dependencies, Describables.of("batch"), fingerprinterRegistry).invoke()
+
+        then:
+        transformedArtifacts == [inputArtifacts[2]]
+        second.get()[0] == first.get()[1]
+        second.get().collect { it*.text } == [["my input 2 transformed"], ["my input 3 transformed"]]
+    }
+
+    def "re-runs transform of input artifact whose results have been removed from the batch workspace"() {
+        def inputArtifacts = (1..2).collect { index ->
+            def inputArtifact = temporaryFolder.file("input${index}")
+            inputArtifact.text = "my input ${index}"
+            inputArtifact
+        }
+        def transformedArtifacts = []
+        def transformer = TestTransformer.create { input, outputDir ->
+            transformedArtifacts << input
+            def outputFile = new File(outputDir, input.name)
+            outputFile.text = input.text + " transformed"
+            return [outputFile]
+        }
+
+        when:
+        def first = invokeBatch(transformer, inputArtifacts)
+        first.get()[1][0].delete()
+        fileSystemMirror.beforeBuildFinished()
+        transformedArtifacts.clear()
+        def second = invokeBatch(transformer, inputArtifacts)
+
+        then:
+        transformedArtifacts == [inputArtifacts[1]]
+        second.get()[1][0].text == "my input 2 transformed"
+    }
+
     enum TransformationType {
         MUTABLE, IMMUTABLE
     }
@@ -449,4 +586,8 @@ class DefaultTransformerInvocationFactoryTest extends AbstractProjectBuilderSpec
     ) {
         return invoker.createInvocation(transformer, inputArtifact, dependencies, subject, fingerprinterRegistry).invoke()
     }
+
+    private Try<ImmutableList<ImmutableList<File>>> invokeBatch(Transformer transformer, List<File> inputArtifacts) {
+        return invoker.createBatchInvocation(transformer, inputArtifacts, dependencies, Describables.of("batch"), fingerprinterRegistry).invoke()
+    }
 }
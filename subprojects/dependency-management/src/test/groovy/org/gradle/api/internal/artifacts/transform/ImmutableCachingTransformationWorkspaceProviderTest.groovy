@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform
+
+import com.google.common.collect.ImmutableList
+import org.gradle.internal.Try
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ImmutableCachingTransformationWorkspaceProviderTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def delegate = Mock(ImmutableTransformationWorkspaceProvider) {
+        getResultsFile(_) >> { TransformationWorkspaceIdentity identity -> tmpDir.file("${identity.identity}.bin") }
+    }
+    def workspaceProvider = new ImmutableCachingTransformationWorkspaceProvider(delegate, 2)
+    def identity = new TestWorkspaceIdentity("id")
+    def action = Mock(TransformationWorkspaceProvider.TransformationWorkspaceAction)
+
+    def "reuses successful result from previous build when workspace is unchanged"() {
+        def output = tmpDir.createFile("output.jar")
+        tmpDir.createFile("id.bin")
+        def result = Try.successful(ImmutableList.of(output))
+
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+        workspaceProvider.clearInMemoryCache()
+
+        then:
+        1 * delegate.withWorkspace(identity, action) >> result
+
+        when:
+        def cachedResult = workspaceProvider.getCachedResult(identity)
+
+        then:
+        cachedResult.get() == [output]
+        1 * delegate.markAccessed(identity)
+        0 * delegate._
+
+        when:
+        def secondResult = workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        secondResult.get() == [output]
+        0 * delegate._
+    }
+
+    def "does not reuse result from previous build when output files have been removed"() {
+        def output = tmpDir.createFile("output.jar")
+        tmpDir.createFile("id.bin")
+        def result = Try.successful(ImmutableList.of(output))
+
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+        workspaceProvider.clearInMemoryCache()
+        output.delete()
+
+        then:
+        1 * delegate.withWorkspace(identity, action) >> result
+
+        when:
+        def cachedResult = workspaceProvider.getCachedResult(identity)
+
+        then:
+        cachedResult == null
+        0 * delegate._
+
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        1 * delegate.withWorkspace(identity, action) >> result
+    }
+
+    @Unroll
+    def "does not reuse result from previous build when #description"() {
+        def output = tmpDir.createFile("output.jar")
+        def resultsFile = tmpDir.createFile("id.bin")
+        def result = Try.successful(ImmutableList.of(output))
+
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+        workspaceProvider.clearInMemoryCache()
+        change(resultsFile, output)
+
+        then:
+        1 * delegate.withWorkspace(identity, action) >> result
+
+        when:
+        def cachedResult = workspaceProvider.getCachedResult(identity)
+
+        then:
+        cachedResult == null
+        0 * delegate._
+
+        where:
+        description                         | change
+        "the workspace has been cleaned up" | { File results, File out -> results.delete() }
+        "the transformation has run again"  | { File results, File out -> results.lastModified = results.lastModified() - 10000 }
+        "an output file has been modified"  | { File results, File out -> out << "changed" }
+    }
+
+    def "does not retain result without results file"() {
+        def output = tmpDir.createFile("output.jar")
+
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+        workspaceProvider.clearInMemoryCache()
+
+        then:
+        1 * delegate.withWorkspace(identity, action) >> Try.successful(ImmutableList.of(output))
+
+        expect:
+        workspaceProvider.getCachedResult(identity) == null
+    }
+
+    def "does not reuse failed result from previous build"() {
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+        workspaceProvider.clearInMemoryCache()
+
+        then:
+        1 * delegate.withWorkspace(identity, action) >> Try.failure(new RuntimeException("broken"))
+
+        expect:
+        workspaceProvider.getCachedResult(identity) == null
+    }
+
+    def "retains a bounded number of results"() {
+        def output = tmpDir.createFile("output.jar")
+        def result = Try.successful(ImmutableList.of(output))
+        def identities = (1..5).collect { new TestWorkspaceIdentity("id-$it") }
+        identities.each { tmpDir.createFile("${it.identity}.bin") }
+
+        when:
+        identities.each { workspaceProvider.withWorkspace(it, action) }
+        workspaceProvider.clearInMemoryCache()
+
+        then:
+        5 * delegate.withWorkspace(_, action) >> result
+
+        expect:
+        identities.count { workspaceProvider.getCachedResult(it) != null } <= 2
+    }
+
+    private static class TestWorkspaceIdentity implements TransformationWorkspaceIdentity {
+        private final String name
+
+        TestWorkspaceIdentity(String name) {
+            this.name = name
+        }
+
+        @Override
+        String getIdentity() {
+            return name
+        }
+
+        boolean equals(o) {
+            if (this.is(o)) {
+                return true
+            }
+            if (getClass() != o.class) {
+                return false
+            }
+            return name == ((TestWorkspaceIdentity) o).name
+        }
+
+        int hashCode() {
+            return name.hashCode()
+        }
+    }
+}
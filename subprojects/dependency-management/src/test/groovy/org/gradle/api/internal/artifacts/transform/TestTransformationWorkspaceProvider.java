@@ -22,6 +22,7 @@
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.List;
 
 public class TestTransformationWorkspaceProvider implements CachingTransformationWorkspaceProvider {
     private final File transformationsStoreDirectory;
@@ -43,9 +44,22 @@ public Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity id
         return workspaceAction.useWorkspace(identityString, new DefaultTransformationWorkspace(new File(transformationsStoreDirectory, identityString)));
     }
 
+    @Override
+    public Try<ImmutableList<ImmutableList<File>>> withWorkspaces(List<TransformationWorkspaceIdentity> identities, BatchWorkspaceAction workspaceAction) {
+        ImmutableList.Builder<TransformationWorkspace> workspaces = ImmutableList.builder();
+        for (TransformationWorkspaceIdentity identity : identities) {
+            workspaces.add(new DefaultTransformationWorkspace(new File(transformationsStoreDirectory, identity.getIdentity())));
+        }
+        return workspaceAction.useWorkspaces(workspaces.build());
+    }
+
     @Nullable
     @Override
     public Try<ImmutableList<File>> getCachedResult(TransformationWorkspaceIdentity identity) {
         return null;
     }
+
+    @Override
+    public void cacheResult(TransformationWorkspaceIdentity identity, Try<ImmutableList<File>> result) {
+    }
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform
+
+import com.google.common.collect.ImmutableList
+import groovy.transform.EqualsAndHashCode
+import org.gradle.internal.Try
+import org.gradle.internal.fingerprint.FileCollectionFingerprinterRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class TransformationBatcherTest extends Specification {
+    def transformer = Mock(Transformer)
+    def invocationFactory = Mock(TransformerInvocationFactory)
+    def dependencies = Mock(ArtifactTransformDependencies)
+    def fingerprinterRegistry = Mock(FileCollectionFingerprinterRegistry)
+    def individuallyTransformed = new CopyOnWriteArrayList<File>()
+    def batches = new CopyOnWriteArrayList<List<File>>()
+    def failure = new RuntimeException("broken")
+    def failing = [] as Set<File>
+
+    def a = new File("a")
+    def b = new File("b")
+    def c = new File("c")
+    def d = new File("d")
+
+    def setup() {
+        invocationFactory.createInvocation(transformer, _, _, _, fingerprinterRegistry) >> { args ->
+            File inputArtifact = args[1]
+            def invocation = CacheableInvocation.nonCached {
+                individuallyTransformed.add(inputArtifact)
+                failing.contains(inputArtifact) ? Try.failure(failure) : Try.successful(ImmutableList.of(transformed(inputArtifact)))
+            }
+            def identity = new InputArtifactIdentity(inputArtifact, args[2] as ArtifactTransformDependencies)
+            new TransformerInvocationFactory.TransformerInvocation() {
+                @Override
+                TransformationWorkspaceIdentity getWorkspaceIdentity() {
+                    identity
+                }
+
+                @Override
+                Optional<Try<ImmutableList<File>>> getCachedResult() {
+                    invocation.getCachedResult()
+                }
+
+                @Override
+                Try<ImmutableList<File>> invoke() {
+                    invocation.invoke()
+                }
+            }
+        }
+    }
+
+    def "transforms queued input artifacts in a single batch"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 32)
+        def invocations = [a, b, c].collect { batcher.createInvocation(it, dependencies, TransformationSubject.initial(it), fingerprinterRegistry) }
+        invocationFactory.createBatchInvocation(transformer, _, dependencies, _, fingerprinterRegistry) >> { args -> successfulBatch(args[1]) }
+
+        when:
+        invocations*.getCachedResult()
+        def results = invocations*.invoke()
+
+        then:
+        results*.get() == [[transformed(a)], [transformed(b)], [transformed(c)]]
+        batches == [[a, b, c]]
+        individuallyTransformed.empty
+    }
+
+    def "does not exceed batch size"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 2)
+        def invocations = [a, b, c].collect { batcher.createInvocation(it, dependencies, TransformationSubject.initial(it), fingerprinterRegistry) }
+        invocationFactory.createBatchInvocation(transformer, _, dependencies, _, fingerprinterRegistry) >> { args -> successfulBatch(args[1]) }
+
+        when:
+        invocations*.getCachedResult()
+        def results = invocations*.invoke()
+
+        then:
+        results*.get() == [[transformed(a)], [transformed(b)], [transformed(c)]]
+        batches == [[a, b]]
+        individuallyTransformed == [c]
+    }
+
+    def "transforms input artifacts of a multi-file subject in a single batch"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 32)
+        def invocation = batcher.createInvocation([a, b, c], dependencies, TransformationSubject.initial(a), fingerprinterRegistry)
+        invocationFactory.createBatchInvocation(transformer, _, dependencies, _, fingerprinterRegistry) >> { args -> successfulBatch(args[1]) }
+
+        when:
+        def result = invocation.invoke()
+
+        then:
+        result.get() == [transformed(a), transformed(b), transformed(c)]
+        batches == [[a, b, c]]
+    }
+
+    def "does not batch input artifacts with different dependencies"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 32)
+        def otherDependencies = Mock(ArtifactTransformDependencies)
+        def invocations = [
+            batcher.createInvocation(a, dependencies, TransformationSubject.initial(a), fingerprinterRegistry),
+            batcher.createInvocation(b, otherDependencies, TransformationSubject.initial(b), fingerprinterRegistry),
+            batcher.createInvocation(c, dependencies, TransformationSubject.initial(c), fingerprinterRegistry)
+        ]
+        invocationFactory.createBatchInvocation(transformer, _, dependencies, _, fingerprinterRegistry) >> { args -> successfulBatch(args[1]) }
+
+        when:
+        invocations*.getCachedResult()
+        def results = invocations*.invoke()
+
+        then:
+        results*.get() == [[transformed(a)], [transformed(b)], [transformed(c)]]
+        batches == [[a, c]]
+        individuallyTransformed == [b]
+    }
+
+    def "transforms next queued batch while input artifact is transformed by another thread"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 2)
+        def invocations = [a, b, c, d].collect { batcher.createInvocation(it, dependencies, TransformationSubject.initial(it), fingerprinterRegistry) }
+        def secondBatchTransformed = new CountDownLatch(1)
+        Try<ImmutableList<File>> resultOfB = null
+        Thread otherThread = null
+        invocationFactory.createBatchInvocation(transformer, [a, b], dependencies, _, fingerprinterRegistry) >> { args ->
+            CacheableInvocation.nonCached {
+                // b is part of this batch, so the other thread picks up the next batch
+                otherThread = Thread.start {
+                    resultOfB = invocations[1].invoke()
+                }
+                assert secondBatchTransformed.await(10, TimeUnit.SECONDS)
+                successfulBatch(args[1]).invoke()
+            }
+        }
+        invocationFactory.createBatchInvocation(transformer, [c, d], dependencies, _, fingerprinterRegistry) >> { args ->
+            CacheableInvocation.nonCached {
+                def result = successfulBatch(args[1]).invoke()
+                secondBatchTransformed.countDown()
+                result
+            }
+        }
+
+        when:
+        invocations*.getCachedResult()
+        def resultOfA = invocations[0].invoke()
+        otherThread.join()
+
+        then:
+        resultOfA.get() == [transformed(a)]
+        resultOfB.get() == [transformed(b)]
+        invocations[2].invoke().get() == [transformed(c)]
+        invocations[3].invoke().get() == [transformed(d)]
+        batches == [[c, d], [a, b]]
+        individuallyTransformed.empty
+    }
+
+    def "transforms input artifact once when it is requested again while queued"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 32)
+        def invocations = [a, b, a].collect { batcher.createInvocation(it, dependencies, TransformationSubject.initial(it), fingerprinterRegistry) }
+        invocationFactory.createBatchInvocation(transformer, _, dependencies, _, fingerprinterRegistry) >> { args -> successfulBatch(args[1]) }
+
+        when:
+        invocations*.getCachedResult()
+        def results = invocations*.invoke()
+
+        then:
+        results*.get() == [[transformed(a)], [transformed(b)], [transformed(a)]]
+        batches == [[a, b]]
+        individuallyTransformed.empty
+    }
+
+    def "waits for the batch transforming the same input artifact instead of transforming it again"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 32)
+        def invocations = [a, b].collect { batcher.createInvocation(it, dependencies, TransformationSubject.initial(it), fingerprinterRegistry) }
+        Try<ImmutableList<File>> resultOfDuplicate = null
+        Thread otherThread = null
+        invocationFactory.createBatchInvocation(transformer, [a, b], dependencies, _, fingerprinterRegistry) >> { args ->
+            CacheableInvocation.nonCached {
+                otherThread = Thread.start {
+                    def duplicate = batcher.createInvocation(a, dependencies, TransformationSubject.initial(a), fingerprinterRegistry)
+                    duplicate.getCachedResult()
+                    resultOfDuplicate = duplicate.invoke()
+                }
+                def deadline = System.currentTimeMillis() + 10000
+                while (otherThread.state != Thread.State.WAITING) {
+                    assert System.currentTimeMillis() < deadline
+                    Thread.sleep(10)
+                }
+                successfulBatch(args[1]).invoke()
+            }
+        }
+
+        when:
+        invocations*.getCachedResult()
+        def results = invocations*.invoke()
+        otherThread.join()
+
+        then:
+        results*.get() == [[transformed(a)], [transformed(b)]]
+        resultOfDuplicate.get() == [transformed(a)]
+        batches == [[a, b]]
+        individuallyTransformed.empty
+    }
+
+    def "transforms input artifacts individually when batch fails"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 32)
+        def invocations = [a, b].collect { batcher.createInvocation(it, dependencies, TransformationSubject.initial(it), fingerprinterRegistry) }
+        failing.add(b)
+        invocationFactory.createBatchInvocation(transformer, _, dependencies, _, fingerprinterRegistry) >> CacheableInvocation.nonCached { Try.failure(failure) }
+
+        when:
+        invocations*.getCachedResult()
+        def results = invocations*.invoke()
+
+        then:
+        results[0].get() == [transformed(a)]
+        results[1].failure.get() == failure
+        individuallyTransformed == [a, b]
+    }
+
+    def "transforms input artifact individually when it has not been queued"() {
+        def batcher = new TransformationBatcher(transformer, invocationFactory, 32)
+        def invocation = batcher.createInvocation(a, dependencies, TransformationSubject.initial(a), fingerprinterRegistry)
+
+        when:
+        def result = invocation.invoke()
+
+        then:
+        result.get() == [transformed(a)]
+        individuallyTransformed == [a]
+        0 * invocationFactory.createBatchInvocation(_, _, _, _, _)
+    }
+
+    private CacheableInvocation<ImmutableList<ImmutableList<File>>> successfulBatch(List<File> inputArtifacts) {
+        batches.add(inputArtifacts)
+        def results = ImmutableList.copyOf(inputArtifacts.collect { ImmutableList.of(transformed(it)) })
+        CacheableInvocation.cached(Try.successful(results))
+    }
+
+    private static File transformed(File inputArtifact) {
+        new File(inputArtifact.name + ".transformed")
+    }
+
+    @EqualsAndHashCode
+    private static class InputArtifactIdentity implements TransformationWorkspaceIdentity {
+        final File inputArtifact
+        final ArtifactTransformDependencies dependencies
+
+        InputArtifactIdentity(File inputArtifact, ArtifactTransformDependencies dependencies) {
+            this.inputArtifact = inputArtifact
+            this.dependencies = dependencies
+        }
+
+        @Override
+        String getIdentity() {
+            inputArtifact.name
+        }
+    }
+}
@@ -205,7 +205,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
     }
 
-    def "reuses cached resource if ETag matches"() {
+    def "reuses cached resource if ETag matches when there are local candidates"() {
         given:
         def etag = "686897696a7c876b7e"
         def localCandidates = Mock(LocallyAvailableResourceCandidates)
@@ -241,12 +241,104 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
             getCachedFile() >> cachedFile
         }
         timeProvider.currentTime >> 24000L
+        localCandidates.none >> false
         1 * repository.resource(location, true) >> remoteResource
         1 * index.store("thing", cachedFile, cachedMetaData)
         1 * fileRepository.resource(cachedFile, location.uri, cachedMetaData) >> resultResource
         0 * _._
     }
 
+    def "reuses cached resource if conditional request finds it unchanged"() {
+        given:
+        def location = new ExternalResourceName("thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def cachedMetaData = Stub(ExternalResourceMetaData)
+        def remoteResource = Mock(ExternalResource)
+        def resultResource = Stub(LocallyAvailableExternalResource)
+
+        when:
+        def result = cache.getResource(location, null, fileStore, null)
+
+        then:
+        result == resultResource
+
+        and:
+        1 * index.lookup("thing") >> Stub(CachedExternalResource) {
+            getCachedAt() >> 23999L
+            getExternalResourceMetaData() >> cachedMetaData
+            getCachedFile() >> cachedFile
+        }
+        timeProvider.currentTime >> 24000L
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.resource(location, true) >> remoteResource
+        1 * remoteResource.withContentIfChanged(cachedMetaData, _) >> ExternalResourceReadResult.unchanged()
+        1 * index.store("thing", cachedFile, cachedMetaData)
+        1 * fileRepository.resource(cachedFile, location.uri, cachedMetaData) >> resultResource
+        0 * _._
+    }
+
+    def "downloads resource and moves it into the cache when conditional request finds it changed"() {
+        given:
+        def location = new ExternalResourceName("thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def cachedMetaData = Stub(ExternalResourceMetaData)
+        def remoteMetaData = Stub(ExternalResourceMetaData)
+        def remoteResource = Mock(ExternalResource)
+        def localResource = new DefaultLocallyAvailableResource(cachedFile)
+        def resultResource = Stub(LocallyAvailableExternalResource)
+
+        when:
+        def result = cache.getResource(location, null, fileStore, localCandidates)
+
+        then:
+        result == resultResource
+
+        and:
+        1 * index.lookup("thing") >> Stub(CachedExternalResource) {
+            getCachedAt() >> 23999L
+            getExternalResourceMetaData() >> cachedMetaData
+        }
+        timeProvider.currentTime >> 24000L
+        localCandidates.none >> true
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.resource(location, true) >> remoteResource
+        1 * remoteResource.withContentIfChanged(cachedMetaData, _) >> { ExternalResourceMetaData m, ExternalResource.ContentAction a ->
+            a.execute(new ByteArrayInputStream(), remoteMetaData)
+            ExternalResourceReadResult.of(0, null)
+        }
+
+        and:
+        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * index.store("thing", cachedFile, remoteMetaData)
+        1 * fileRepository.resource(cachedFile, location.uri, remoteMetaData) >> resultResource
+        0 * _._
+    }
+
+    def "returns null when conditional request finds the resource missing"() {
+        given:
+        def location = new ExternalResourceName("thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def remoteResource = Mock(ExternalResource)
+
+        when:
+        def result = cache.getResource(location, null, fileStore, null)
+
+        then:
+        result == null
+
+        and:
+        1 * index.lookup("thing") >> Stub(CachedExternalResource) {
+            getCachedAt() >> 23999L
+            getExternalResourceMetaData() >> Stub(ExternalResourceMetaData)
+        }
+        timeProvider.currentTime >> 24000L
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.resource(location, true) >> remoteResource
+        1 * remoteResource.withContentIfChanged(_, _) >> null
+        0 * _._
+    }
+
     def "will download sha1 for finding candidates if not available in meta-data"() {
         given:
         def localCandidates = Mock(LocallyAvailableResourceCandidates)
@@ -55,6 +55,7 @@ class DefaultTransformerCodec(
 ) : Codec<DefaultTransformer> {
     override suspend fun WriteContext.encode(value: DefaultTransformer) {
         writeClass(value.implementationClass)
+        writeBoolean(value.isBatchable)
 
         // Write isolated parameters
         value.isolateParameters(fileCollectionFingerprinterRegistry)
@@ -66,6 +67,7 @@ class DefaultTransformerCodec(
 
     override suspend fun ReadContext.decode(): DefaultTransformer? {
         val implementationClass = readClass().asSubclass(TransformAction::class.java)
+        val batchable = readBoolean()
         val secondaryInputsHash = HashCode.fromBytes(readBinary())
         // TODO - should not need to do anything with the context classloader
         val previousContextClassLoader = Thread.currentThread().contextClassLoader
@@ -83,6 +85,7 @@ class DefaultTransformerCodec(
             AbsolutePathInputNormalizer::class.java,
             AbsolutePathInputNormalizer::class.java,
             false,
+            batchable,
             buildOperationExecutor,
             classLoaderHierarchyHasher,
             isolatableFactory,
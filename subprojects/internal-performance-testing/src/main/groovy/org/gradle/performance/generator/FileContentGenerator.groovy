@@ -130,6 +130,7 @@ abstract class FileContentGenerator {
         ${->
             config.systemProperties.entrySet().collect { "systemProp.${it.key}=${it.value}" }.join("\n")
         }
+        ${config.decoupledProjects ? "systemProp.org.gradle.internal.configuration.parallel=true\norg.gradle.configuration.decoupled=true" : ""}
         """
     }
 
@@ -63,6 +63,14 @@ enum JavaTestProject {
         .withFeaturePreviews('GROOVY_COMPILATION_AVOIDANCE')
         .assembleChangeFile()
         .testChangeFile(450, 2250, 45000).create()),
+    LARGE_JAVA_MULTI_PROJECT_DECOUPLED(new TestProjectGeneratorConfigurationBuilder("largeJavaMultiProjectDecoupled", "largeJavaMultiProject")
+        .withSourceFiles(20)
+        .withSubProjects(1200)
+        .withDaemonMemory('3g')
+        .withCompilerMemory('256m')
+        .withDecoupledProjects(true)
+        .assembleChangeFile()
+        .create()),
     LARGE_JAVA_MULTI_PROJECT_NO_BUILD_SRC(
         new TestProjectGeneratorConfigurationBuilder("largeJavaMultiProjectNoBuildSrc", "largeJavaMultiProject")
             .withBuildSrc(false)
@@ -54,6 +54,7 @@ class TestProjectGeneratorConfiguration {
     int maxParallelForks
     int testForkEvery
     boolean useTestNG
+    boolean decoupledProjects
     Map<String, String> fileToChangeByScenario
 }
 
@@ -142,6 +143,7 @@ class TestProjectGeneratorConfigurationBuilder {
         config.maxParallelForks = this.subProjects > 0 ? 1 : 4
         config.testForkEvery = 1000
         config.useTestNG = this.useTestNG
+        config.decoupledProjects = this.decoupledProjects
         config.fileToChangeByScenario = this.fileToChangeByScenario
         return config
     }
@@ -15,7 +15,9 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.gradle.api.Action;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.file.FileOperations;
@@ -26,28 +28,45 @@
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class DefaultClasspathEntrySnapshotter {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultClasspathEntrySnapshotter.class);
 
+    /**
+     * Jars with more classes than this are split into batches of this size, which are analyzed concurrently.
+     */
+    static final int CLASSES_PER_BATCH = 1000;
+
     private final FileHasher fileHasher;
     private final StreamHasher hasher;
     private final ClassDependenciesAnalyzer analyzer;
     private final FileOperations fileOperations;
+    private final BuildOperationExecutor buildOperationExecutor;
 
-    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations) {
+    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations, BuildOperationExecutor buildOperationExecutor) {
         this.fileHasher = fileHasher;
         this.hasher = streamHasher;
         this.analyzer = analyzer;
         this.fileOperations = fileOperations;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry) {
@@ -66,15 +85,112 @@ public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry)
         return new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
 
-    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws IOException {
         if (hasExtension(classpathEntry, ".jar")) {
-            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(accumulator, hashes));
+            visitJar(classpathEntry, hashes, accumulator);
         }
         if (classpathEntry.isDirectory()) {
             fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes));
         }
     }
 
+    private void visitJar(final File jar, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws IOException {
+        int classCount = countClasses(jar);
+        if (classCount <= CLASSES_PER_BATCH) {
+            fileOperations.zipTree(jar).visit(new JarEntryVisitor(accumulator, hashes, 0, Integer.MAX_VALUE));
+            return;
+        }
+
+        // Every batch visits the jar on its own, skipping the classes of the other batches. The zip tree is visited in the same
+        // order each time, so merging the batches in order gives the same result as a single sequential visit.
+        final List<AnalyzeBatch> batches = Lists.newArrayList();
+        for (int start = 0; start < classCount; start += CLASSES_PER_BATCH) {
+            batches.add(new AnalyzeBatch(jar, start, Math.min(start + CLASSES_PER_BATCH, classCount)));
+        }
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<AnalyzeBatch>>() {
+            @Override
+            public void execute(BuildOperationQueue<AnalyzeBatch> queue) {
+                for (AnalyzeBatch batch : batches) {
+                    queue.add(batch);
+                }
+            }
+        });
+        for (AnalyzeBatch batch : batches) {
+            batch.results.replayInto(accumulator, hashes);
+        }
+    }
+
+    private static int countClasses(File jar) throws IOException {
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            int count = 0;
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private class AnalyzeBatch implements RunnableBuildOperation {
+        private final File jar;
+        private final int start;
+        private final int end;
+        private final BatchResults results = new BatchResults();
+
+        private AnalyzeBatch(File jar, int start, int end) {
+            this.jar = jar;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            fileOperations.zipTree(jar).visit(new JarEntryVisitor(results, results.hashes, start, end));
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Analyze classes " + start + " to " + end + " of " + jar);
+        }
+    }
+
+    /**
+     * Records the outcome of a batch in visiting order, to be replayed into the accumulator of the whole jar.
+     */
+    private static class BatchResults extends ClassDependentsAccumulator {
+        private final List<ClassAnalysis> classes = Lists.newArrayList();
+        private final Map<String, HashCode> hashes = Maps.newLinkedHashMap();
+        private String fullRebuildCause;
+
+        @Override
+        public void addClass(ClassAnalysis classAnalysis) {
+            classes.add(classAnalysis);
+        }
+
+        @Override
+        public void fullRebuildNeeded(String fullRebuildCause) {
+            if (this.fullRebuildCause == null) {
+                this.fullRebuildCause = fullRebuildCause;
+            }
+        }
+
+        void replayInto(ClassDependentsAccumulator accumulator, Map<String, HashCode> allHashes) {
+            for (ClassAnalysis analysis : classes) {
+                accumulator.addClass(analysis);
+            }
+            allHashes.putAll(hashes);
+            if (fullRebuildCause != null) {
+                accumulator.fullRebuildNeeded(fullRebuildCause);
+            }
+        }
+    }
+
     private abstract class EntryVisitor implements FileVisitor {
         private final ClassDependentsAccumulator accumulator;
         private final Map<String, HashCode> hashes;
@@ -90,7 +206,7 @@ public void visitDir(FileVisitDetails dirDetails) {
 
         @Override
         public void visitFile(FileVisitDetails fileDetails) {
-            if (!fileDetails.getName().endsWith(".class")) {
+            if (!fileDetails.getName().endsWith(".class") || !accept(fileDetails)) {
                 return;
             }
 
@@ -108,13 +224,31 @@ public void visitFile(FileVisitDetails fileDetails) {
             }
         }
 
+        protected boolean accept(FileVisitDetails fileDetails) {
+            return true;
+        }
+
         protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
     }
 
     private class JarEntryVisitor extends EntryVisitor {
+        private final int start;
+        private final int end;
+        private int classIndex;
 
-        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
+        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes, int start, int end) {
             super(accumulator, hashes);
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected boolean accept(FileVisitDetails fileDetails) {
+            int index = classIndex++;
+            if (index + 1 >= end) {
+                fileDetails.stopVisiting();
+            }
+            return index >= start && index < end;
         }
 
         @Override
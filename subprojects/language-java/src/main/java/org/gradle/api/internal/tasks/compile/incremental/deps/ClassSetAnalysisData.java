@@ -16,9 +16,6 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntSets;
 import org.apache.commons.lang.StringUtils;
@@ -28,23 +25,112 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.IntSetSerializer;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeSet;
 
+/**
+ * The class level dependency graph of a set of classes.
+ *
+ * <p>Every class name that is mentioned, either as a class of the set or as a dependency of one, is stored once in a sorted name table
+ * and identified by its index in that table. The dependents of all classes are stored in a single array, with the dependents of
+ * class {@code i} at the positions {@code dependentOffsets[i]} to {@code dependentOffsets[i + 1]}. This keeps the graph of even large
+ * modules down to a few arrays, instead of a set of strings per class, and dependents are only turned into class names when queried.</p>
+ */
 public class ClassSetAnalysisData {
     public static final String PACKAGE_INFO = "package-info";
 
-    private final Set<String> classes;
-    private final Map<String, DependentsSet> dependents;
-    private final Map<String, IntSet> classesToConstants;
+    private static final int[] NO_IDS = new int[0];
+
+    private final String[] classNames;
+    private final BitSet classes;
+    private final int[] dependentOffsets;
+    private final int[] dependentIds;
+    // Sparse tables, sorted by class id
+    private final int[] dependencyToAllIds;
+    private final DependentsSet[] dependencyToAll;
+    private final int[] constantsIds;
+    private final IntSet[] constants;
     private final String fullRebuildCause;
 
-    public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, String fullRebuildCause) {
+    public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, @Nullable String fullRebuildCause) {
+        Set<String> names = new TreeSet<String>(classes);
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            names.add(entry.getKey());
+            if (!entry.getValue().isDependencyToAll()) {
+                names.addAll(entry.getValue().getDependentClasses());
+            }
+        }
+        names.addAll(classesToConstants.keySet());
+        this.classNames = names.toArray(new String[0]);
+
+        this.classes = new BitSet(classNames.length);
+        for (String className : classes) {
+            this.classes.set(idOf(className));
+        }
+
+        this.dependentOffsets = new int[classNames.length + 1];
+        List<Integer> dependencyToAllIds = new ArrayList<Integer>();
+        int[][] dependentsById = new int[classNames.length][];
+        int dependentCount = 0;
+        for (int id = 0; id < classNames.length; id++) {
+            DependentsSet dependentsSet = dependents.get(classNames[id]);
+            if (dependentsSet == null) {
+                continue;
+            }
+            if (dependentsSet.isDependencyToAll()) {
+                dependencyToAllIds.add(id);
+                continue;
+            }
+            int[] ids = idsOf(dependentsSet.getDependentClasses());
+            dependentsById[id] = ids;
+            dependentCount += ids.length;
+        }
+        this.dependentIds = new int[dependentCount];
+        int offset = 0;
+        for (int id = 0; id < classNames.length; id++) {
+            dependentOffsets[id] = offset;
+            int[] ids = dependentsById[id];
+            if (ids != null) {
+                System.arraycopy(ids, 0, dependentIds, offset, ids.length);
+                offset += ids.length;
+            }
+        }
+        dependentOffsets[classNames.length] = offset;
+
+        this.dependencyToAllIds = toArray(dependencyToAllIds);
+        this.dependencyToAll = new DependentsSet[this.dependencyToAllIds.length];
+        for (int i = 0; i < this.dependencyToAllIds.length; i++) {
+            dependencyToAll[i] = dependents.get(classNames[this.dependencyToAllIds[i]]);
+        }
+
+        this.constantsIds = idsOf(classesToConstants.keySet());
+        this.constants = new IntSet[constantsIds.length];
+        for (int i = 0; i < constantsIds.length; i++) {
+            constants[i] = classesToConstants.get(classNames[constantsIds[i]]);
+        }
+        this.fullRebuildCause = fullRebuildCause;
+    }
+
+    private ClassSetAnalysisData(String[] classNames, BitSet classes, int[] dependentOffsets, int[] dependentIds, int[] dependencyToAllIds, DependentsSet[] dependencyToAll, int[] constantsIds, IntSet[] constants, @Nullable String fullRebuildCause) {
+        this.classNames = classNames;
         this.classes = classes;
-        this.dependents = dependents;
-        this.classesToConstants = classesToConstants;
+        this.dependentOffsets = dependentOffsets;
+        this.dependentIds = dependentIds;
+        this.dependencyToAllIds = dependencyToAllIds;
+        this.dependencyToAll = dependencyToAll;
+        this.constantsIds = constantsIds;
+        this.constants = constants;
         this.fullRebuildCause = fullRebuildCause;
     }
 
@@ -56,27 +142,113 @@ public DependentsSet getDependents(String className) {
             String packageName = className.equals(PACKAGE_INFO) ? null : StringUtils.removeEnd(className, "." + PACKAGE_INFO);
             return getDependentsOfPackage(packageName);
         }
-        DependentsSet dependentsSet = dependents.get(className);
-        return dependentsSet == null ? DependentsSet.empty() : dependentsSet;
+        int id = idOf(className);
+        if (id < 0) {
+            return DependentsSet.empty();
+        }
+        int dependencyToAllIndex = Arrays.binarySearch(dependencyToAllIds, id);
+        if (dependencyToAllIndex >= 0) {
+            return dependencyToAll[dependencyToAllIndex];
+        }
+        int start = dependentOffsets[id];
+        int end = dependentOffsets[id + 1];
+        return start == end ? DependentsSet.empty() : DependentsSet.dependentClasses(new ClassNameSet(start, end));
     }
 
-    private DependentsSet getDependentsOfPackage(String packageName) {
-        Set<String> typesInPackage = Sets.newHashSet();
-        for (String type : classes) {
-            int i = type.lastIndexOf(".");
-            if (i < 0 && packageName == null || i > 0 && type.substring(0, i).equals(packageName)) {
-                typesInPackage.add(type);
+    private DependentsSet getDependentsOfPackage(@Nullable String packageName) {
+        Set<String> typesInPackage = new HashSet<String>();
+        if (packageName == null) {
+            for (int id = classes.nextSetBit(0); id >= 0; id = classes.nextSetBit(id + 1)) {
+                if (classNames[id].indexOf('.') < 0) {
+                    typesInPackage.add(classNames[id]);
+                }
+            }
+        } else {
+            // The names are sorted, so all names starting with the package prefix are next to each other
+            String prefix = packageName + ".";
+            int id = Arrays.binarySearch(classNames, prefix);
+            for (id = id < 0 ? -id - 1 : id; id < classNames.length && classNames[id].startsWith(prefix); id++) {
+                if (classes.get(id) && classNames[id].indexOf('.', prefix.length()) < 0) {
+                    typesInPackage.add(classNames[id]);
+                }
             }
         }
         return DependentsSet.dependentClasses(typesInPackage);
     }
 
     public IntSet getConstants(String className) {
-        IntSet integers = classesToConstants.get(className);
-        if (integers == null) {
-            return IntSets.EMPTY_SET;
+        int id = idOf(className);
+        int index = id < 0 ? -1 : Arrays.binarySearch(constantsIds, id);
+        return index < 0 ? IntSets.EMPTY_SET : constants[index];
+    }
+
+    private int idOf(String className) {
+        int id = Arrays.binarySearch(classNames, className);
+        return id < 0 ? -1 : id;
+    }
+
+    private int[] idsOf(Set<String> names) {
+        int[] ids = new int[names.size()];
+        int i = 0;
+        for (String name : names) {
+            ids[i++] = idOf(name);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values.isEmpty()) {
+            return NO_IDS;
+        }
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * A view of a range of the dependent ids as class names.
+     */
+    private class ClassNameSet extends AbstractSet<String> {
+        private final int start;
+        private final int end;
+
+        ClassNameSet(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int next = start;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public String next() {
+                    if (next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    return classNames[dependentIds[next++]];
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
         }
-        return integers;
     }
 
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
@@ -89,105 +261,99 @@ public Serializer(StringInterner interner) {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
-
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> classes = ImmutableSet.builder();
+            String[] classNames = new String[count];
+            String previous = "";
             for (int i = 0; i < count; i++) {
-                classes.add(readClassName(decoder, classNameMap));
+                // Names are sorted, so each one is stored as the length of the prefix it shares with the previous name plus the rest
+                int commonPrefix = decoder.readSmallInt();
+                String className = interner.intern(previous.substring(0, commonPrefix) + decoder.readString());
+                classNames[i] = className;
+                previous = className;
+            }
+
+            BitSet classes = new BitSet(count);
+            int[] dependentOffsets = new int[count + 1];
+            int dependentCount = 0;
+            for (int i = 0; i < count; i++) {
+                dependentOffsets[i] = dependentCount;
+                int flags = decoder.readSmallInt();
+                if ((flags & 1) != 0) {
+                    classes.set(i);
+                }
+                dependentCount += flags >>> 1;
+            }
+            dependentOffsets[count] = dependentCount;
+
+            int[] dependentIds = new int[dependentCount];
+            for (int i = 0; i < count; i++) {
+                int previousId = 0;
+                for (int j = dependentOffsets[i]; j < dependentOffsets[i + 1]; j++) {
+                    // Dependents of a class are sorted, so only the gap to the previous one is stored
+                    previousId += decoder.readSmallInt();
+                    dependentIds[j] = previousId;
+                }
             }
 
             count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
+            int[] dependencyToAllIds = new int[count];
+            DependentsSet[] dependencyToAll = new DependentsSet[count];
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+                dependencyToAllIds[i] = decoder.readSmallInt();
+                dependencyToAll[i] = DependentsSet.dependencyToAll(decoder.readNullableString());
             }
 
             count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builder();
+            int[] constantsIds = new int[count];
+            IntSet[] constants = new IntSet[count];
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
-                classesToConstantsBuilder.put(className, constants);
+                constantsIds[i] = decoder.readSmallInt();
+                constants[i] = IntSetSerializer.INSTANCE.read(decoder);
             }
 
             String fullRebuildCause = decoder.readNullableString();
 
-            return new ClassSetAnalysisData(classes.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), fullRebuildCause);
+            return new ClassSetAnalysisData(classNames, classes, dependentOffsets, dependentIds, dependencyToAllIds, dependencyToAll, constantsIds, constants, fullRebuildCause);
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
-            encoder.writeSmallInt(value.classes.size());
-            for (String clazz : value.classes) {
-                writeClassName(clazz, classNameMap, encoder);
-            }
-
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
+            String[] classNames = value.classNames;
+            encoder.writeSmallInt(classNames.length);
+            String previous = "";
+            for (String className : classNames) {
+                int commonPrefix = StringUtils.indexOfDifference(previous, className);
+                commonPrefix = commonPrefix < 0 ? className.length() : commonPrefix;
+                encoder.writeSmallInt(commonPrefix);
+                encoder.writeString(className.substring(commonPrefix));
+                previous = className;
             }
 
-            encoder.writeSmallInt(value.classesToConstants.size());
-            for (Map.Entry<String, IntSet> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                IntSetSerializer.INSTANCE.write(encoder, entry.getValue());
-            }
-            encoder.writeNullableString(value.fullRebuildCause);
-        }
-
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            byte b = decoder.readByte();
-            if (b == 1) {
-                return DependentsSet.dependencyToAll(decoder.readNullableString());
+            int[] dependentOffsets = value.dependentOffsets;
+            for (int i = 0; i < classNames.length; i++) {
+                int dependentCount = dependentOffsets[i + 1] - dependentOffsets[i];
+                encoder.writeSmallInt(dependentCount << 1 | (value.classes.get(i) ? 1 : 0));
             }
-            int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-            for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
-            }
-            return DependentsSet.dependentClasses(builder.build());
-        }
-
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
-            if (dependentsSet.isDependencyToAll()) {
-                encoder.writeByte((byte) 1);
-                encoder.writeNullableString(dependentsSet.getDescription());
-            } else {
-                encoder.writeByte((byte) 2);
-                encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
-                for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
+            for (int i = 0; i < classNames.length; i++) {
+                int previousId = 0;
+                for (int j = dependentOffsets[i]; j < dependentOffsets[i + 1]; j++) {
+                    encoder.writeSmallInt(value.dependentIds[j] - previousId);
+                    previousId = value.dependentIds[j];
                 }
             }
-        }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = interner.intern(decoder.readString());
-                classNameMap.put(id, className);
-                return className;
+            encoder.writeSmallInt(value.dependencyToAllIds.length);
+            for (int i = 0; i < value.dependencyToAllIds.length; i++) {
+                encoder.writeSmallInt(value.dependencyToAllIds[i]);
+                encoder.writeNullableString(value.dependencyToAll[i].getDescription());
             }
-            return classNameMap.get(id);
-        }
 
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
-                encoder.writeSmallInt(id);
+            encoder.writeSmallInt(value.constantsIds.length);
+            for (int i = 0; i < value.constantsIds.length; i++) {
+                encoder.writeSmallInt(value.constantsIds[i]);
+                IntSetSerializer.INSTANCE.write(encoder, value.constants[i]);
             }
+            encoder.writeNullableString(value.fullRebuildCause);
         }
     }
 }
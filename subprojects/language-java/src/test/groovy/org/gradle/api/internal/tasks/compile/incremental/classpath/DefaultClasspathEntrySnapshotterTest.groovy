@@ -16,7 +16,10 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.classpath
 
+import it.unimi.dsi.fastutil.ints.IntSets
 import org.gradle.api.file.ConfigurableFileTree
+import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.file.FileOperations
@@ -25,12 +28,16 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.StreamHasher
+import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
 @UsesNativeServices
 class DefaultClasspathEntrySnapshotterTest extends Specification {
 
@@ -40,7 +47,8 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
     def streamHasher = Mock(StreamHasher)
     def classDependenciesAnalyzer = Mock(ClassDependenciesAnalyzer)
     def fileOperations = Mock(FileOperations)
-    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations)
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, buildOperationExecutor)
 
     def "creates snapshot for an empty entry"() {
         expect:
@@ -85,4 +93,51 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.classAnalysis
     }
+
+    def "analyzes the classes of a large jar in batches and keeps them in jar order"() {
+        def classCount = DefaultClasspathEntrySnapshotter.CLASSES_PER_BATCH * 2 + 1
+        def jar = temp.file("lib.jar")
+        def names = (0..<classCount).collect { String.format("C%05d", it) }
+        jar.withOutputStream { out ->
+            def zip = new ZipOutputStream(out)
+            names.each { zip.putNextEntry(new ZipEntry(it + ".class")); zip.closeEntry() }
+            zip.close()
+        }
+        def visitedClasses = 0
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        3 * fileOperations.zipTree(jar) >> Stub(FileTree) {
+            visit(_) >> { FileVisitor visitor ->
+                def stopped = false
+                names.each { name ->
+                    if (!stopped) {
+                        visitedClasses++
+                        visitor.visitFile([
+                            getName: { name + ".class" },
+                            open: { new ByteArrayInputStream(new byte[0]) },
+                            stopVisiting: { stopped = true }
+                        ] as FileVisitDetails)
+                    }
+                }
+                null
+            }
+        }
+        classCount * streamHasher.hash(_) >> HashCode.fromInt(1)
+        classCount * classDependenciesAnalyzer.getClassAnalysis(_, _) >> { HashCode hash, FileVisitDetails d ->
+            Stub(ClassAnalysis) {
+                getClassName() >> d.name - ".class"
+                getClassDependencies() >> []
+                getConstants() >> IntSets.EMPTY_SET
+            }
+        }
+        buildOperationExecutor.operations.size() == 3
+
+        and:
+        snapshot.classes.size() == classCount
+        snapshot.hashes.keySet() == names as Set
+        visitedClasses < classCount * 3
+    }
 }
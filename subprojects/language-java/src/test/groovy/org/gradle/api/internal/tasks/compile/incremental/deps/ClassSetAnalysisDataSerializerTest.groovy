@@ -38,23 +38,47 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
             [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET]
             ,"Because"
         )
-        def os = new ByteArrayOutputStream()
-        def e = new OutputStreamBackedEncoder(os)
 
         when:
-        serializer.write(e, data)
-        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+        ClassSetAnalysisData read = serializeAndRead(data)
+
+        then:
+        read.getDependents("A").dependencyToAll
+        read.getDependents("A").description == "Because"
+        read.getConstants("C") == [1, 2] as Set
+        read.getConstants("D") == [] as Set
+        read.getConstants("A") == [] as Set
+    }
+
+    def "serializes dependents"() {
+        def data = new ClassSetAnalysisData(["org.A", "org.B", "org.sub.C", "D", "org.A\$Inner"] as Set,
+            ["org.A": dependentClasses("org.B", "org.sub.C"), "org.B": dependentClasses("org.sub.C"), "org.sub.C": dependentClasses(), "D": dependencyToAll("D is special"), "java.lang.Object": dependentClasses("org.A", "D")],
+            [:],
+            null
+        )
+
+        when:
+        ClassSetAnalysisData read = serializeAndRead(data)
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
+        read.getDependents("org.A").dependentClasses == ["org.B", "org.sub.C"] as Set
+        read.getDependents("org.B").dependentClasses == ["org.sub.C"] as Set
+        read.getDependents("org.sub.C").dependentClasses.empty
+        read.getDependents("java.lang.Object").dependentClasses == ["org.A", "D"] as Set
+        read.getDependents("Unknown").dependentClasses.empty
+        !read.getDependents("org.A").dependencyToAll
+        read.getDependents("D").dependencyToAll
+        read.getDependents("D").description == "D is special"
 
-        ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
-        }
+        and:
+        read.getDependents("org.package-info").dependentClasses == ["org.A", "org.B", "org.A\$Inner"] as Set
+        read.getDependents("package-info").dependentClasses == ["D"] as Set
+    }
 
-        read.dependents["D"].dependencyToAll
-        read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
-        read.fullRebuildCause == "Because"
+    private ClassSetAnalysisData serializeAndRead(ClassSetAnalysisData data) {
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+        serializer.write(e, data)
+        return serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
     }
 }
@@ -30,10 +30,12 @@ dependencies {
     implementation(project(":coreApi"))
     implementation(project(":modelCore"))
     implementation(project(":core"))
+    implementation(project(":buildCache"))
     implementation(project(":files"))
     implementation(project(":fileCollections"))
     implementation(project(":persistentCache"))
     implementation(project(":snapshots"))
+    implementation(project(":execution"))
     implementation(project(":dependencyManagement"))
     implementation(project(":platformBase"))
     implementation(project(":platformNative"))
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.cpp
+
+import org.gradle.language.nativeplatform.internal.incremental.UnityBuildCompiler
+import org.gradle.nativeplatform.fixtures.AbstractInstalledToolChainIntegrationSpec
+
+class CppUnityBuildIntegrationTest extends AbstractInstalledToolChainIntegrationSpec implements CppTaskNames {
+    def unityDir = file("build/obj/main/debug/unity")
+
+    def setup() {
+        settingsFile << "rootProject.name = 'app'"
+        buildFile << """
+            apply plugin: 'cpp-application'
+        """
+        file("src/main/headers/numbers.h") << """
+            int one();
+            int two();
+            int three();
+        """
+        file("src/main/cpp/one.cpp") << number("one", 1)
+        file("src/main/cpp/two.cpp") << number("two", 2)
+        file("src/main/cpp/three.cpp") << number("three", 3)
+        file("src/main/cpp/main.cpp") << """
+            #include <stdio.h>
+            #include "numbers.h"
+
+            int main() {
+                printf("%d\\n", one() + two() + three());
+                return 0;
+            }
+        """
+    }
+
+    def "links the executable after unity builds are switched on and off"() {
+        when:
+        unityBuild(4)
+        succeeds "installDebug"
+
+        then:
+        unityDir.listFiles().length > 0
+        installation("build/install/main/debug").exec().out == "6\n"
+
+        when:
+        unityBuild(0)
+        succeeds "installDebug"
+
+        then:
+        result.assertTasksNotSkipped(tasks.debug.compile, tasks.debug.link, tasks.debug.install, ":installDebug")
+        !unityDir.exists()
+        installation("build/install/main/debug").exec().out == "6\n"
+
+        when:
+        unityBuild(2)
+        succeeds "installDebug"
+
+        then:
+        result.assertTasksNotSkipped(tasks.debug.compile, tasks.debug.link, tasks.debug.install, ":installDebug")
+        unityDir.listFiles().length > 0
+        installation("build/install/main/debug").exec().out == "6\n"
+    }
+
+    def "links the executable after a change to a source file of a batch"() {
+        given:
+        unityBuild(4)
+        succeeds "installDebug"
+
+        when:
+        file("src/main/cpp/two.cpp").text = number("two", 20)
+        unityBuild(4)
+        succeeds "installDebug"
+
+        then:
+        result.assertTasksNotSkipped(tasks.debug.compile, tasks.debug.link, tasks.debug.install, ":installDebug")
+        installation("build/install/main/debug").exec().out == "24\n"
+    }
+
+    private void unityBuild(int batchSize) {
+        executer.withArgument("-D${UnityBuildCompiler.BATCH_SIZE_PROPERTY}=${batchSize}")
+    }
+
+    private static String number(String name, int value) {
+        return """
+            #include "numbers.h"
+
+            int ${name}() {
+                return ${value};
+            }
+        """
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.language.nativeplatform.internal;
 
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.operations.logging.BuildOperationLogger;
 import org.gradle.nativeplatform.internal.AbstractBinaryToolSpec;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
@@ -45,6 +46,7 @@ public abstract class AbstractNativeCompileSpec extends AbstractBinaryToolSpec i
     private File preCompiledHeaderObjectFile;
     private List<File> sourceFilesForPch = new ArrayList<File>();
     private String preCompiledHeader;
+    private Map<File, HashCode> translationUnitHashes = Collections.emptyMap();
 
     @Override
     public List<File> getIncludeRoots() {
@@ -228,4 +230,14 @@ public List<File> getSourceFilesForPch() {
     public void setSourceFilesForPch(List<File> sourceFilesForPch) {
         this.sourceFilesForPch = sourceFilesForPch;
     }
+
+    @Override
+    public Map<File, HashCode> getTranslationUnitHashes() {
+        return translationUnitHashes;
+    }
+
+    @Override
+    public void setTranslationUnitHashes(Map<File, HashCode> translationUnitHashes) {
+        this.translationUnitHashes = translationUnitHashes;
+    }
 }
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal;
+
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.WorkResults;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.controller.BuildCacheLoadCommand;
+import org.gradle.caching.internal.controller.BuildCacheStoreCommand;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.language.base.compile.CompilerVersion;
+import org.gradle.language.base.internal.compile.Compiler;
+import org.gradle.nativeplatform.internal.CompilerOutputFileNamingSchemeFactory;
+import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fetches the object file of each translation unit from the build cache before compiling, and stores the object files of the translation units that had to be compiled.
+ *
+ * The cache key of a translation unit is made of the content of the source file and of every header it includes, the macros, the include roots, the compiler arguments and the identity of the compiler.
+ * Paths are hashed as absolute paths, as the compiler embeds them in the object file, e.g. through {@code __FILE__} or the compilation directory of the debug information.
+ * When relocation is enabled, paths inside the root directory of the build are hashed relative to it instead, so the object files can be shared between checkouts in different locations.
+ * This is only correct when the compiler is told to remap these paths, e.g. with {@code -fdebug-prefix-map} and {@code -fmacro-prefix-map}.
+ * Source files whose include closure is not known, and compilations using a pre-compiled header, are always compiled.
+ */
+public class ObjectFileCachingCompiler<T extends NativeCompileSpec> implements Compiler<T> {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.native.object-file-cache";
+    public static final String RELOCATABLE_PROPERTY = "org.gradle.internal.native.object-file-cache.relocatable";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjectFileCachingCompiler.class);
+    private static final List<String> PATH_OPTIONS = Arrays.asList("-I", "-isystem", "-iquote", "-idirafter", "/I");
+
+    private final Compiler<T> delegate;
+    private final BuildCacheController buildCache;
+    private final CompilerOutputFileNamingSchemeFactory compilerOutputFileNamingSchemeFactory;
+    private final String objectFileExtension;
+    private final CompilerVersion compilerVersion;
+    @Nullable
+    private final String rootPath;
+
+    /**
+     * @param relocatableRootDir the root directory to hash paths relative to, or {@code null} to hash absolute paths.
+     */
+    public ObjectFileCachingCompiler(Compiler<T> delegate, BuildCacheController buildCache, CompilerOutputFileNamingSchemeFactory compilerOutputFileNamingSchemeFactory, String objectFileExtension, CompilerVersion compilerVersion, @Nullable File relocatableRootDir) {
+        this.delegate = delegate;
+        this.buildCache = buildCache;
+        this.compilerOutputFileNamingSchemeFactory = compilerOutputFileNamingSchemeFactory;
+        this.objectFileExtension = objectFileExtension;
+        this.compilerVersion = compilerVersion;
+        this.rootPath = relocatableRootDir == null ? null : relocatableRootDir.getAbsolutePath() + File.separator;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public static boolean isRelocatable() {
+        return Boolean.getBoolean(RELOCATABLE_PROPERTY);
+    }
+
+    @Override
+    public WorkResult execute(T spec) {
+        if (!buildCache.isEnabled() || spec.getPreCompiledHeader() != null) {
+            return delegate.execute(spec);
+        }
+
+        List<File> toCompile = new ArrayList<File>();
+        Map<File, BuildCacheKey> toStore = new LinkedHashMap<File, BuildCacheKey>();
+        boolean loaded = false;
+        for (File sourceFile : spec.getSourceFiles()) {
+            HashCode translationUnitHash = spec.getTranslationUnitHashes().get(sourceFile);
+            if (translationUnitHash == null) {
+                toCompile.add(sourceFile);
+                continue;
+            }
+            BuildCacheKey key = new ObjectFileCacheKey(cacheKey(spec, sourceFile, translationUnitHash));
+            File objectFile = getObjectFile(spec.getObjectFileDir(), sourceFile);
+            if (buildCache.load(new LoadObjectFile(key, objectFile)).isPresent()) {
+                LOGGER.info("Loaded object file for {} from cache entry {}", sourceFile, key.getHashCode());
+                loaded = true;
+            } else {
+                toCompile.add(sourceFile);
+                toStore.put(sourceFile, key);
+            }
+        }
+
+        spec.setSourceFiles(toCompile);
+        WorkResult result = delegate.execute(spec);
+
+        for (Map.Entry<File, BuildCacheKey> entry : toStore.entrySet()) {
+            File objectFile = getObjectFile(spec.getObjectFileDir(), entry.getKey());
+            if (objectFile.isFile()) {
+                buildCache.store(new StoreObjectFile(entry.getValue(), objectFile));
+            }
+        }
+        return WorkResults.didWork(loaded || result.getDidWork());
+    }
+
+    private HashCode cacheKey(T spec, File sourceFile, HashCode translationUnitHash) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(spec.getClass().getName());
+        hasher.putString(compilerVersion.getType());
+        hasher.putString(compilerVersion.getVendor());
+        hasher.putString(compilerVersion.getVersion());
+        hasher.putString(spec.getTargetPlatform().getOperatingSystem().getName());
+        hasher.putString(spec.getTargetPlatform().getArchitecture().getName());
+        hasher.putString(objectFileExtension);
+        // The absolute path of the source file ends up in the object file, e.g. through __FILE__ or the debug information, unless the compiler is told to remap it
+        hasher.putString(normalizePath(sourceFile.getAbsolutePath()));
+        hasher.putHash(translationUnitHash);
+        for (Map.Entry<String, String> macro : new TreeMap<String, String>(spec.getMacros()).entrySet()) {
+            hasher.putString(macro.getKey());
+            if (macro.getValue() == null) {
+                hasher.putNull();
+            } else {
+                hasher.putString(macro.getValue());
+            }
+        }
+        putPaths(hasher, spec.getIncludeRoots());
+        putPaths(hasher, spec.getSystemIncludeRoots());
+        List<String> args = spec.getAllArgs();
+        hasher.putInt(args.size());
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (PATH_OPTIONS.contains(arg) && i + 1 < args.size()) {
+                hasher.putString(arg);
+                hasher.putString(normalizePath(args.get(++i)));
+            } else if (arg.length() > 2 && (arg.startsWith("-I") || arg.startsWith("/I"))) {
+                hasher.putString(arg.substring(0, 2));
+                hasher.putString(normalizePath(arg.substring(2)));
+            } else {
+                hasher.putString(arg);
+            }
+        }
+        hasher.putBoolean(spec.isPositionIndependentCode());
+        hasher.putBoolean(spec.isDebuggable());
+        hasher.putBoolean(spec.isOptimized());
+        return hasher.hash();
+    }
+
+    private void putPaths(Hasher hasher, List<File> files) {
+        hasher.putInt(files.size());
+        for (File file : files) {
+            hasher.putString(normalizePath(file.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * Makes absolute paths inside the root directory relative to it, when relocation is enabled. Other paths are left unchanged.
+     */
+    private String normalizePath(String path) {
+        if (rootPath != null && path.startsWith(rootPath)) {
+            return "<root>/" + path.substring(rootPath.length()).replace(File.separatorChar, '/');
+        }
+        return path;
+    }
+
+    private File getObjectFile(File objectFileRoot, File sourceFile) {
+        return compilerOutputFileNamingSchemeFactory.create()
+            .withObjectFileNameSuffix(objectFileExtension)
+            .withOutputBaseFolder(objectFileRoot)
+            .map(sourceFile);
+    }
+
+    private static class LoadObjectFile implements BuildCacheLoadCommand<File> {
+        private final BuildCacheKey key;
+        private final File objectFile;
+
+        LoadObjectFile(BuildCacheKey key, File objectFile) {
+            this.key = key;
+            this.objectFile = objectFile;
+        }
+
+        @Override
+        public BuildCacheKey getKey() {
+            return key;
+        }
+
+        @Override
+        public Result<File> load(InputStream inputStream) throws IOException {
+            // Unpack next to the object file first, so that a failed load does not leave a truncated object file behind
+            File tempFile = new File(objectFile.getParentFile(), objectFile.getName() + ".tmp");
+            Files.createDirectories(objectFile.getParentFile().toPath());
+            Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile.toPath(), objectFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return new Result<File>() {
+                @Override
+                public long getArtifactEntryCount() {
+                    return 1;
+                }
+
+                @Override
+                public File getMetadata() {
+                    return objectFile;
+                }
+            };
+        }
+    }
+
+    private static class StoreObjectFile implements BuildCacheStoreCommand {
+        private final BuildCacheKey key;
+        private final File objectFile;
+
+        StoreObjectFile(BuildCacheKey key, File objectFile) {
+            this.key = key;
+            this.objectFile = objectFile;
+        }
+
+        @Override
+        public BuildCacheKey getKey() {
+            return key;
+        }
+
+        @Override
+        public Result store(OutputStream outputStream) throws IOException {
+            Files.copy(objectFile.toPath(), outputStream);
+            return new Result() {
+                @Override
+                public long getArtifactEntryCount() {
+                    return 1;
+                }
+            };
+        }
+    }
+
+    private static class ObjectFileCacheKey implements BuildCacheKey {
+        private final HashCode hashCode;
+
+        ObjectFileCacheKey(HashCode hashCode) {
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public String getHashCode() {
+            return hashCode.toString();
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return hashCode.toByteArray();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "object file " + hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return getDisplayName();
+        }
+    }
+}
@@ -50,6 +50,7 @@ public class DefaultIncrementalCompilerBuilder implements IncrementalCompilerBui
     private final Deleter deleter;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final IncludeDirectoryIndex includeDirectoryIndex;
     private final TaskFileVarFactory fileVarFactory;
 
     public DefaultIncrementalCompilerBuilder(
@@ -59,6 +60,7 @@ public DefaultIncrementalCompilerBuilder(
         Deleter deleter,
         DirectoryFileTreeFactory directoryFileTreeFactory,
         FileSystemSnapshotter fileSystemSnapshotter,
+        IncludeDirectoryIndex includeDirectoryIndex,
         TaskFileVarFactory fileVarFactory
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
@@ -66,6 +68,7 @@ public DefaultIncrementalCompilerBuilder(
         this.deleter = deleter;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.fileSystemSnapshotter = fileSystemSnapshotter;
+        this.includeDirectoryIndex = includeDirectoryIndex;
         this.fileVarFactory = fileVarFactory;
         this.sourceParser = sourceParser;
     }
@@ -84,6 +87,7 @@ public IncrementalCompiler newCompiler(TaskInternal task, FileCollection sourceF
             deleter,
             directoryFileTreeFactory,
             fileSystemSnapshotter,
+            includeDirectoryIndex,
             fileVarFactory
         );
     }
@@ -95,6 +99,7 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
         private final Deleter deleter;
         private final DirectoryFileTreeFactory directoryFileTreeFactory;
         private final FileSystemSnapshotter fileSystemSnapshotter;
+        private final IncludeDirectoryIndex includeDirectoryIndex;
 
         private final Map<String, String> macros;
         private final Provider<Boolean> importAware;
@@ -119,6 +124,7 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
             Deleter deleter,
             DirectoryFileTreeFactory directoryFileTreeFactory,
             FileSystemSnapshotter fileSystemSnapshotter,
+            IncludeDirectoryIndex includeDirectoryIndex,
             TaskFileVarFactory fileVarFactory
         ) {
             this.taskOutputs = task.getOutputs();
@@ -134,6 +140,7 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
             this.deleter = deleter;
             this.directoryFileTreeFactory = directoryFileTreeFactory;
             this.fileSystemSnapshotter = fileSystemSnapshotter;
+            this.includeDirectoryIndex = includeDirectoryIndex;
             this.sourceParser = sourceParser;
         }
 
@@ -142,6 +149,7 @@ public <T extends NativeCompileSpec> Compiler<T> createCompiler(Compiler<T> comp
             if (incrementalCompilation == null) {
                 throw new IllegalStateException("Header files should be calculated before compiler is created.");
             }
+            compiler = new UnityBuildCompiler<T>(compiler, incrementalCompilation, UnityBuildCompiler.getBatchSize());
             return new IncrementalNativeCompiler<T>(taskOutputs, compiler, deleter, compileStateCache, incrementalCompilation);
         }
 
@@ -150,9 +158,9 @@ public Set<File> getFiles() {
             List<File> includeRoots = ImmutableList.copyOf(includeDirs);
             compileStateCache = compilationStateCacheFactory.create(taskPath);
             DefaultSourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(sourceParser, importAware.get());
-            DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(includeRoots, fileSystemSnapshotter);
+            DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(includeRoots, includeDirectoryIndex);
             IncludeDirectives includeDirectives = directivesForMacros(macros);
-            IncrementalCompileFilesFactory incrementalCompileFilesFactory = new IncrementalCompileFilesFactory(includeDirectives, sourceIncludesParser, dependencyParser, fileSystemSnapshotter);
+            IncrementalCompileFilesFactory incrementalCompileFilesFactory = new IncrementalCompileFilesFactory(includeDirectives, sourceIncludesParser, dependencyParser, fileSystemSnapshotter, buildOperationExecutor);
             IncrementalCompileProcessor incrementalCompileProcessor = new IncrementalCompileProcessor(compileStateCache, incrementalCompileFilesFactory, buildOperationExecutor);
 
             incrementalCompilation = incrementalCompileProcessor.processSourceFiles(sourceFiles.getFiles());
@@ -15,16 +15,16 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
-import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 import org.gradle.internal.file.FileType;
-import org.gradle.internal.hash.HashCode;
-import org.gradle.internal.snapshot.FileSystemSnapshotter;
 import org.gradle.language.nativeplatform.internal.Expression;
 import org.gradle.language.nativeplatform.internal.Include;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 import org.gradle.language.nativeplatform.internal.IncludeType;
 import org.gradle.language.nativeplatform.internal.Macro;
 import org.gradle.language.nativeplatform.internal.MacroFunction;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeDirectoryIndex.CachedIncludeFile;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeDirectoryIndex.IncludeDirectory;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.ComplexExpression;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.SimpleExpression;
 
@@ -33,7 +33,6 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -41,18 +40,16 @@
 import java.util.Set;
 
 public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
-    private static final MissingIncludeFile MISSING_INCLUDE_FILE = new MissingIncludeFile();
-    private final FileSystemSnapshotter fileSystemSnapshotter;
-    private final Map<File, DirectoryContents> includeRoots = new HashMap<File, DirectoryContents>();
+    private final IncludeDirectoryIndex includeDirectoryIndex;
     private final FixedIncludePath includePath;
 
-    public DefaultSourceIncludesResolver(List<File> includePaths, FileSystemSnapshotter fileSystemSnapshotter) {
-        this.fileSystemSnapshotter = fileSystemSnapshotter;
-        List<DirectoryContents> includeDirs = new ArrayList<DirectoryContents>(includePaths.size());
+    public DefaultSourceIncludesResolver(List<File> includePaths, IncludeDirectoryIndex includeDirectoryIndex) {
+        this.includeDirectoryIndex = includeDirectoryIndex;
+        List<IncludeDirectory> includeDirs = new ArrayList<IncludeDirectory>(includePaths.size());
         for (File includeDir : includePaths) {
-            includeDirs.add(toDir(includeDir));
+            includeDirs.add(includeDirectoryIndex.getDirectory(includeDir));
         }
-        this.includePath = new FixedIncludePath(includeDirs);
+        this.includePath = new FixedIncludePath(includeDirs, includeDirectoryIndex.getSearchPathLookups(ImmutableList.copyOf(includePaths)));
     }
 
     @Override
@@ -257,22 +254,13 @@ public IncludeFile resolveInclude(@Nullable File sourceFile, String includePath)
         return path.searchForDependency(includePath, sourceFile != null);
     }
 
-    private DirectoryContents toDir(File includeDir) {
-        DirectoryContents directoryContents = includeRoots.get(includeDir);
-        if (directoryContents == null) {
-            directoryContents = new DirectoryContents(includeDir);
-            includeRoots.put(includeDir, directoryContents);
-        }
-        return directoryContents;
-    }
-
     private IncludePath prependSourceDir(File sourceFile, FixedIncludePath includePaths) {
         File sourceDir = sourceFile.getParentFile();
         if (includePaths.startsWith(sourceDir)) {
             // Source dir already at the start of the path, just use the include path
             return includePaths;
         }
-        return new PrefixedIncludePath(toDir(sourceDir), includePaths);
+        return new PrefixedIncludePath(includeDirectoryIndex.getDirectory(sourceDir), includePaths);
     }
 
     private static abstract class IncludePath {
@@ -281,10 +269,10 @@ private static abstract class IncludePath {
     }
 
     private static class PrefixedIncludePath extends IncludePath {
-        private final DirectoryContents head;
+        private final IncludeDirectory head;
         private final IncludePath tail;
 
-        PrefixedIncludePath(DirectoryContents head, IncludePath tail) {
+        PrefixedIncludePath(IncludeDirectory head, IncludePath tail) {
             this.head = head;
             this.tail = tail;
         }
@@ -301,11 +289,12 @@ IncludeFile searchForDependency(String includePath, boolean quotedPath) {
     }
 
     private static class FixedIncludePath extends IncludePath {
-        private final List<DirectoryContents> directories;
-        private final Map<String, CachedIncludeFile> cachedLookups = new HashMap<String, CachedIncludeFile>();
+        private final List<IncludeDirectory> directories;
+        private final Map<String, CachedIncludeFile> cachedLookups;
 
-        FixedIncludePath(List<DirectoryContents> directories) {
+        FixedIncludePath(List<IncludeDirectory> directories, Map<String, CachedIncludeFile> cachedLookups) {
             this.directories = directories;
+            this.cachedLookups = cachedLookups;
         }
 
         @Nullable
@@ -313,14 +302,14 @@ private static class FixedIncludePath extends IncludePath {
         IncludeFile searchForDependency(String includePath, boolean quotedPath) {
             CachedIncludeFile includeFile = cachedLookups.get(includePath);
             if (includeFile == null) {
-                for (DirectoryContents dir : directories) {
+                for (IncludeDirectory dir : directories) {
                     includeFile = dir.get(includePath);
                     if (includeFile.getType() == FileType.RegularFile) {
                         break;
                     }
                 }
                 if (includeFile == null) {
-                    includeFile = MISSING_INCLUDE_FILE;
+                    includeFile = IncludeDirectoryIndex.MISSING_INCLUDE_FILE;
                 }
                 cachedLookups.put(includePath, includeFile);
             }
@@ -331,123 +320,7 @@ IncludeFile searchForDependency(String includePath, boolean quotedPath) {
         }
 
         public boolean startsWith(File sourceDir) {
-            return directories.size() > 0 && directories.get(0).searchDir.equals(sourceDir);
-        }
-    }
-
-    private class DirectoryContents {
-        private final File searchDir;
-        private final Map<String, CachedIncludeFile> contents = new HashMap<String, CachedIncludeFile>();
-
-        DirectoryContents(File searchDir) {
-            this.searchDir = searchDir;
-        }
-
-        CachedIncludeFile get(String includePath) {
-            CachedIncludeFile includeFile = contents.get(includePath);
-            if (includeFile != null) {
-                return includeFile;
-            }
-
-            File candidate = new File(searchDir, includePath);
-            HashCode contentHash = fileSystemSnapshotter.getRegularFileContentHash(candidate);
-            includeFile = contentHash != null ? new SystemIncludeFile(candidate, includePath, contentHash) : MISSING_INCLUDE_FILE;
-            contents.put(includePath, includeFile);
-            return includeFile;
-        }
-    }
-
-    private static abstract class CachedIncludeFile {
-        abstract FileType getType();
-
-        abstract IncludeFile toIncludeFile(boolean quotedPath);
-    }
-
-    private static class MissingIncludeFile extends CachedIncludeFile {
-        MissingIncludeFile() {
-        }
-
-        @Override
-        FileType getType() {
-            return FileType.Missing;
-        }
-
-        @Override
-        IncludeFile toIncludeFile(boolean quotedPath) {
-            throw new UnsupportedOperationException();
-        }
-    }
-
-    private static class SystemIncludeFile extends CachedIncludeFile implements IncludeFile {
-        final File file;
-        final String includePath;
-        final HashCode contentHash;
-
-        SystemIncludeFile(File file, String includePath, HashCode contentHash) {
-            this.file = file;
-            this.includePath = includePath;
-            this.contentHash = contentHash;
-        }
-
-        @Override
-        public String getPath() {
-            return includePath;
-        }
-
-        @Override
-        public boolean isQuotedInclude() {
-            return false;
-        }
-
-        @Override
-        public File getFile() {
-            return file;
-        }
-
-        @Override
-        FileType getType() {
-            return FileType.RegularFile;
-        }
-
-        @Override
-        public HashCode getContentHash() {
-            return contentHash;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == this) {
-                return true;
-            }
-            if (obj == null || getClass() != obj.getClass()) {
-                return false;
-            }
-            SystemIncludeFile other = (SystemIncludeFile) obj;
-            return Objects.equal(file, other.file) && contentHash.equals(other.contentHash);
-        }
-
-        @Override
-        public int hashCode() {
-            return contentHash.hashCode();
-        }
-
-        @Override
-        IncludeFile toIncludeFile(boolean quotedPath) {
-            if (quotedPath) {
-                return new QuotedIncludeFile(file, includePath, contentHash);
-            }
-            return this;
-        }
-
-        private static class QuotedIncludeFile extends SystemIncludeFile {
-            QuotedIncludeFile(File file, String includePath, HashCode contentHash) {
-                super(file, includePath, contentHash);
-            }
-
-            @Override
-            public boolean isQuotedInclude() {
-                return true;
-            }
+            return directories.size() > 0 && directories.get(0).getSearchDir().equals(sourceDir);
         }
     }
 
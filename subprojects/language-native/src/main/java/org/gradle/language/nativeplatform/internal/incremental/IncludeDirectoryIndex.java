@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.base.Objects;
+import org.gradle.initialization.RootBuildLifecycleListener;
+import org.gradle.internal.execution.OutputChangeListener;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.FileSystemSnapshotter;
+import org.gradle.language.nativeplatform.internal.incremental.SourceIncludesResolver.IncludeFile;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index of the header files found in include directories, shared by all native compile tasks of the build session.
+ *
+ * The entries of a directory are discarded when task outputs are written to, or above, that directory, and everything is discarded at the end of each build.
+ */
+public class IncludeDirectoryIndex implements OutputChangeListener, RootBuildLifecycleListener {
+    static final CachedIncludeFile MISSING_INCLUDE_FILE = new MissingIncludeFile();
+
+    private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final ConcurrentMap<File, IncludeDirectory> directories = new ConcurrentHashMap<File, IncludeDirectory>();
+    private final ConcurrentMap<List<File>, ConcurrentMap<String, CachedIncludeFile>> searchPathLookups = new ConcurrentHashMap<List<File>, ConcurrentMap<String, CachedIncludeFile>>();
+
+    public IncludeDirectoryIndex(FileSystemSnapshotter fileSystemSnapshotter) {
+        this.fileSystemSnapshotter = fileSystemSnapshotter;
+    }
+
+    IncludeDirectory getDirectory(File searchDir) {
+        IncludeDirectory directory = directories.get(searchDir);
+        if (directory == null) {
+            directory = new IncludeDirectory(searchDir);
+            IncludeDirectory existing = directories.putIfAbsent(searchDir, directory);
+            if (existing != null) {
+                directory = existing;
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Returns the shared results of searching the given include path for include paths.
+     */
+    ConcurrentMap<String, CachedIncludeFile> getSearchPathLookups(List<File> searchPath) {
+        ConcurrentMap<String, CachedIncludeFile> lookups = searchPathLookups.get(searchPath);
+        if (lookups == null) {
+            lookups = new ConcurrentHashMap<String, CachedIncludeFile>();
+            ConcurrentMap<String, CachedIncludeFile> existing = searchPathLookups.putIfAbsent(searchPath, lookups);
+            if (existing != null) {
+                lookups = existing;
+            }
+        }
+        return lookups;
+    }
+
+    @Override
+    public void beforeOutputChange() {
+        directories.clear();
+        searchPathLookups.clear();
+    }
+
+    @Override
+    public void beforeOutputChange(Iterable<String> affectedOutputPaths) {
+        for (String outputPath : affectedOutputPaths) {
+            Iterator<File> searchDirs = directories.keySet().iterator();
+            while (searchDirs.hasNext()) {
+                if (isAffected(searchDirs.next(), outputPath)) {
+                    searchDirs.remove();
+                }
+            }
+            Iterator<List<File>> searchPaths = searchPathLookups.keySet().iterator();
+            while (searchPaths.hasNext()) {
+                for (File searchDir : searchPaths.next()) {
+                    if (isAffected(searchDir, outputPath)) {
+                        searchPaths.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isAffected(File searchDir, String outputPath) {
+        String searchPath = searchDir.getAbsolutePath();
+        return searchPath.equals(outputPath)
+            || searchPath.startsWith(outputPath + File.separator)
+            || outputPath.startsWith(searchPath + File.separator);
+    }
+
+    @Override
+    public void afterStart() {
+    }
+
+    @Override
+    public void beforeComplete() {
+        beforeOutputChange();
+    }
+
+    class IncludeDirectory {
+        private final File searchDir;
+        private final ConcurrentMap<String, CachedIncludeFile> contents = new ConcurrentHashMap<String, CachedIncludeFile>();
+
+        IncludeDirectory(File searchDir) {
+            this.searchDir = searchDir;
+        }
+
+        File getSearchDir() {
+            return searchDir;
+        }
+
+        CachedIncludeFile get(String includePath) {
+            CachedIncludeFile includeFile = contents.get(includePath);
+            if (includeFile != null) {
+                return includeFile;
+            }
+
+            File candidate = new File(searchDir, includePath);
+            HashCode contentHash = fileSystemSnapshotter.getRegularFileContentHash(candidate);
+            includeFile = contentHash != null ? new SystemIncludeFile(candidate, includePath, contentHash) : MISSING_INCLUDE_FILE;
+            contents.put(includePath, includeFile);
+            return includeFile;
+        }
+    }
+
+    static abstract class CachedIncludeFile {
+        abstract FileType getType();
+
+        abstract IncludeFile toIncludeFile(boolean quotedPath);
+    }
+
+    private static class MissingIncludeFile extends CachedIncludeFile {
+        MissingIncludeFile() {
+        }
+
+        @Override
+        FileType getType() {
+            return FileType.Missing;
+        }
+
+        @Override
+        IncludeFile toIncludeFile(boolean quotedPath) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class SystemIncludeFile extends CachedIncludeFile implements IncludeFile {
+        final File file;
+        final String includePath;
+        final HashCode contentHash;
+
+        SystemIncludeFile(File file, String includePath, HashCode contentHash) {
+            this.file = file;
+            this.includePath = includePath;
+            this.contentHash = contentHash;
+        }
+
+        @Override
+        public String getPath() {
+            return includePath;
+        }
+
+        @Override
+        public boolean isQuotedInclude() {
+            return false;
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        FileType getType() {
+            return FileType.RegularFile;
+        }
+
+        @Override
+        public HashCode getContentHash() {
+            return contentHash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            SystemIncludeFile other = (SystemIncludeFile) obj;
+            return Objects.equal(file, other.file) && contentHash.equals(other.contentHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return contentHash.hashCode();
+        }
+
+        @Override
+        IncludeFile toIncludeFile(boolean quotedPath) {
+            if (quotedPath) {
+                return new QuotedIncludeFile(file, includePath, contentHash);
+            }
+            return this;
+        }
+
+        private static class QuotedIncludeFile extends SystemIncludeFile {
+            QuotedIncludeFile(File file, String includePath, HashCode contentHash) {
+                super(file, includePath, contentHash);
+            }
+
+            @Override
+            public boolean isQuotedInclude() {
+                return true;
+            }
+        }
+    }
+}
@@ -17,7 +17,13 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import com.google.common.collect.ImmutableSet;
+import org.gradle.api.Action;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
 import org.gradle.language.nativeplatform.internal.Include;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
@@ -41,18 +47,21 @@ public class IncrementalCompileFilesFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalCompileFilesFactory.class);
     private static final String IGNORE_UNRESOLVED_HEADERS_IN_DEPENDENCIES_PROPERTY_NAME = "org.gradle.internal.native.headers.unresolved.dependencies.ignore";
+    private static final int SOURCE_FILES_PER_BATCH = 50;
 
     private final IncludeDirectives initialIncludeDirectives;
     private final SourceIncludesParser sourceIncludesParser;
     private final SourceIncludesResolver sourceIncludesResolver;
     private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final BuildOperationExecutor buildOperationExecutor;
     private final boolean ignoreUnresolvedHeadersInDependencies;
 
-    public IncrementalCompileFilesFactory(IncludeDirectives initialIncludeDirectives, SourceIncludesParser sourceIncludesParser, SourceIncludesResolver sourceIncludesResolver, FileSystemSnapshotter fileSystemSnapshotter) {
+    public IncrementalCompileFilesFactory(IncludeDirectives initialIncludeDirectives, SourceIncludesParser sourceIncludesParser, SourceIncludesResolver sourceIncludesResolver, FileSystemSnapshotter fileSystemSnapshotter, BuildOperationExecutor buildOperationExecutor) {
         this.initialIncludeDirectives = initialIncludeDirectives;
         this.sourceIncludesParser = sourceIncludesParser;
         this.sourceIncludesResolver = sourceIncludesResolver;
         this.fileSystemSnapshotter = fileSystemSnapshotter;
+        this.buildOperationExecutor = buildOperationExecutor;
         this.ignoreUnresolvedHeadersInDependencies = Boolean.getBoolean(IGNORE_UNRESOLVED_HEADERS_IN_DEPENDENCIES_PROPERTY_NAME);
     }
 
@@ -79,53 +88,121 @@ public IncrementalCompilation getResult() {
 
         @Override
         public void processSource(File sourceFile) {
-            if (visitSourceFile(sourceFile)) {
-                toRecompile.add(sourceFile);
+            processSources(Collections.singletonList(sourceFile));
+        }
+
+        @Override
+        public void processSources(List<File> sourceFiles) {
+            final SourceFileAnalysis[] analyses = new SourceFileAnalysis[sourceFiles.size()];
+            for (int i = 0; i < analyses.length; i++) {
+                analyses[i] = new SourceFileAnalysis(sourceFiles.get(i));
+            }
+
+            // Checking whether the include file graph of a source file has changed only reads the previous state, and parsing a source file only reads
+            // the file, so source files can be checked and parsed concurrently
+            forEachInParallel(analyses, "Parse and check include file graphs", new Action<SourceFileAnalysis>() {
+                @Override
+                public void execute(SourceFileAnalysis analysis) {
+                    checkSourceFile(analysis);
+                }
+            });
+
+            // The include file graphs are calculated one source file after another, in order, as the results for header files are reused by later source files
+            for (SourceFileAnalysis analysis : analyses) {
+                if (analysis.requiresVisit()) {
+                    if (!visitedFiles.containsKey(analysis.sourceFile)) {
+                        visitedFiles.put(analysis.sourceFile, new FileDetails(analysis.directives));
+                    }
+                    CollectingMacroLookup visibleMacros = new CollectingMacroLookup(initialIncludeDirectives);
+                    analysis.visitResult = visitFile(analysis.sourceFile, analysis.fileContent, visibleMacros, new HashSet<HashCode>(), existingHeaders);
+                }
+            }
+
+            // Collecting the edges of a calculated graph only reads the results
+            forEachInParallel(analyses, "Collect include file graphs", new Action<SourceFileAnalysis>() {
+                @Override
+                public void execute(SourceFileAnalysis analysis) {
+                    if (analysis.visitResult != null) {
+                        Set<IncludeFileEdge> includedFiles = new LinkedHashSet<IncludeFileEdge>();
+                        analysis.visitResult.collectFilesInto(includedFiles, new HashSet<File>());
+                        analysis.newState = new SourceFileState(analysis.fileContent, analysis.visitResult.result == IncludeFileResolutionResult.UnresolvedMacroIncludes, ImmutableSet.copyOf(includedFiles));
+                    }
+                }
+            });
+
+            for (SourceFileAnalysis analysis : analyses) {
+                if (recordSourceFile(analysis)) {
+                    toRecompile.add(analysis.sourceFile);
+                }
+            }
+        }
+
+        private void checkSourceFile(SourceFileAnalysis analysis) {
+            analysis.fileContent = fileSystemSnapshotter.getRegularFileContentHash(analysis.sourceFile);
+            if (analysis.fileContent == null) {
+                return;
+            }
+            analysis.previousState = previous.getState(analysis.sourceFile);
+            if (analysis.previousState != null) {
+                // Already seen this source file before. See if we can reuse the analysis from last time
+                Set<File> headers = new HashSet<File>();
+                if (graphHasNotChanged(analysis.sourceFile, analysis.fileContent, analysis.previousState, headers)) {
+                    analysis.unchangedHeaders = headers;
+                }
+                // Else, something has changed in the include file graph for this source file, so analyse again
+            }
+            if (analysis.requiresVisit()) {
+                analysis.directives = sourceIncludesParser.parseIncludes(analysis.sourceFile);
             }
         }
 
         /**
          * @return true if this source file requires recompilation, false otherwise.
          */
-        private boolean visitSourceFile(File sourceFile) {
-            HashCode fileContent = fileSystemSnapshotter.getRegularFileContentHash(sourceFile);
-            if (fileContent == null) {
+        private boolean recordSourceFile(SourceFileAnalysis analysis) {
+            if (analysis.fileContent == null) {
                 // Skip things that aren't files
                 return false;
             }
 
-            SourceFileState previousState = previous.getState(sourceFile);
-
-            if (previousState != null) {
-                // Already seen this source file before. See if we can reuse the analysis from last time
-                if (graphHasNotChanged(sourceFile, fileContent, previousState, existingHeaders)) {
-                    // Include file graph for this source file has not changed, skip this file
-                    current.setState(sourceFile, previousState);
-                    if (previousState.isHasUnresolved() && !ignoreUnresolvedHeadersInDependencies) {
-                        hasUnresolvedHeaders = true;
-                        return true;
-                    }
-                    return false;
+            if (analysis.unchangedHeaders != null) {
+                // Include file graph for this source file has not changed, skip this file
+                existingHeaders.addAll(analysis.unchangedHeaders);
+                current.setState(analysis.sourceFile, analysis.previousState);
+                if (analysis.previousState.isHasUnresolved() && !ignoreUnresolvedHeadersInDependencies) {
+                    hasUnresolvedHeaders = true;
+                    return true;
                 }
-                // Else, something has changed in the include file graph for this source file, so analyse again
+                return false;
             }
 
             // Source file has not been compiled before, or its include file graph has changed in some way
-            // Calculate the include file graph for the source file and mark for recompilation
-
-            CollectingMacroLookup visibleMacros = new CollectingMacroLookup(initialIncludeDirectives);
-            FileVisitResult result = visitFile(sourceFile, fileContent, visibleMacros, new HashSet<HashCode>(), existingHeaders);
-            Set<IncludeFileEdge> includedFiles = new LinkedHashSet<IncludeFileEdge>();
-            result.collectFilesInto(includedFiles, new HashSet<File>());
-            SourceFileState newState = new SourceFileState(fileContent, result.result == IncludeFileResolutionResult.UnresolvedMacroIncludes, ImmutableSet.copyOf(includedFiles));
-            current.setState(sourceFile, newState);
-            if (newState.isHasUnresolved()) {
+            // Use the calculated include file graph for the source file and mark for recompilation
+            current.setState(analysis.sourceFile, analysis.newState);
+            if (analysis.newState.isHasUnresolved()) {
                 hasUnresolvedHeaders = true;
             }
             return true;
         }
 
-        private boolean graphHasNotChanged(File sourceFile, HashCode fileHash, SourceFileState previousState, Set<File> existingHeaders) {
+        private void forEachInParallel(final SourceFileAnalysis[] analyses, final String displayName, final Action<SourceFileAnalysis> action) {
+            if (analyses.length <= SOURCE_FILES_PER_BATCH) {
+                for (SourceFileAnalysis analysis : analyses) {
+                    action.execute(analysis);
+                }
+                return;
+            }
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<SourceFileBatch>>() {
+                @Override
+                public void execute(BuildOperationQueue<SourceFileBatch> queue) {
+                    for (int start = 0; start < analyses.length; start += SOURCE_FILES_PER_BATCH) {
+                        queue.add(new SourceFileBatch(displayName, analyses, start, Math.min(start + SOURCE_FILES_PER_BATCH, analyses.length), action));
+                    }
+                }
+            });
+        }
+
+        private boolean graphHasNotChanged(File sourceFile, HashCode fileHash, SourceFileState previousState, Set<File> headers) {
             if (!fileHash.equals(previousState.getHash())) {
                 // Source file has changed
                 return false;
@@ -137,7 +214,6 @@ private boolean graphHasNotChanged(File sourceFile, HashCode fileHash, SourceFil
 
             // Check each unique edge in the include file graph
             Map<HashCode, File> includes = new HashMap<HashCode, File>(previousState.getEdges().size());
-            Set<File> headers = new HashSet<File>();
             includes.put(fileHash, sourceFile);
             for (IncludeFileEdge includeFileEdge : previousState.getEdges()) {
                 File includedFrom = includeFileEdge.getIncludedBy() != null ? includes.get(includeFileEdge.getIncludedBy()) : null;
@@ -151,13 +227,10 @@ private boolean graphHasNotChanged(File sourceFile, HashCode fileHash, SourceFil
                     // Include file changed
                     return false;
                 }
-                if (!existingHeaders.contains(includeFile.getFile())) {
-                    // Collect for later, do not add until the graph is known to have not changed
-                    headers.add(includeFile.getFile());
-                }
+                // Collect for later, do not add until the graph is known to have not changed
+                headers.add(includeFile.getFile());
                 includes.put(hash, includeFile.getFile());
             }
-            existingHeaders.addAll(headers);
             return true;
         }
 
@@ -229,6 +302,57 @@ private List<File> getRemovedSources() {
         }
     }
 
+    /**
+     * The analysis of a single source file, as it moves through the steps of {@link IncrementalCompileSourceProcessor#processSources(List)}.
+     */
+    private static class SourceFileAnalysis {
+        final File sourceFile;
+        HashCode fileContent;
+        SourceFileState previousState;
+        // Non-null when the include file graph has not changed since the previous compilation
+        Set<File> unchangedHeaders;
+        // Non-null when the source file requires a visit, parsed before the include file graph is calculated
+        IncludeDirectives directives;
+        FileVisitResult visitResult;
+        SourceFileState newState;
+
+        SourceFileAnalysis(File sourceFile) {
+            this.sourceFile = sourceFile;
+        }
+
+        boolean requiresVisit() {
+            return fileContent != null && unchangedHeaders == null;
+        }
+    }
+
+    private static class SourceFileBatch implements RunnableBuildOperation {
+        private final String displayName;
+        private final SourceFileAnalysis[] analyses;
+        private final int start;
+        private final int end;
+        private final Action<SourceFileAnalysis> action;
+
+        SourceFileBatch(String displayName, SourceFileAnalysis[] analyses, int start, int end, Action<SourceFileAnalysis> action) {
+            this.displayName = displayName;
+            this.analyses = analyses;
+            this.start = start;
+            this.end = end;
+            this.action = action;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            for (int i = start; i < end; i++) {
+                action.execute(analyses[i]);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName(displayName + " of source files " + start + " to " + end);
+        }
+    }
+
     private enum IncludeFileResolutionResult {
         NoMacroIncludes,
         HasMacroIncludes, // but all resolved ok
@@ -15,6 +15,7 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import com.google.common.collect.ImmutableList;
 import org.gradle.cache.PersistentStateCache;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -41,9 +42,7 @@ public IncrementalCompilation processSourceFiles(final Collection<File> sourceFi
             public IncrementalCompilation call(BuildOperationContext context) {
                 CompilationState previousCompileState = previousCompileStateCache.get();
                 IncrementalCompileSourceProcessor processor = incrementalCompileFilesFactory.files(previousCompileState);
-                for (File sourceFile : sourceFiles) {
-                    processor.processSource(sourceFile);
-                }
+                processor.processSources(ImmutableList.copyOf(sourceFiles));
                 return processor.getResult();
             }
 
@@ -17,9 +17,15 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import java.io.File;
+import java.util.List;
 
 public interface IncrementalCompileSourceProcessor {
     void processSource(File sourceFile);
 
+    /**
+     * Processes the given source files, as if each were passed to {@link #processSource(File)} in order. Independent parts of the analysis may run concurrently.
+     */
+    void processSources(List<File> sourceFiles);
+
     IncrementalCompilation getResult();
 }
@@ -16,6 +16,7 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.gradle.api.NonNullApi;
 import org.gradle.api.internal.TaskOutputsInternal;
@@ -24,8 +25,11 @@
 import org.gradle.cache.PersistentStateCache;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.language.base.internal.tasks.SimpleStaleClassCleaner;
+import org.gradle.language.nativeplatform.internal.ObjectFileCachingCompiler;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +37,7 @@
 import java.io.File;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @NonNullApi
 public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements Compiler<T> {
@@ -105,6 +110,35 @@ private List<File> getSourceFilesForPch(T spec) {
         return Collections.emptyList();
     }
 
+    private Map<File, HashCode> getTranslationUnitHashes(T spec) {
+        if (!ObjectFileCachingCompiler.isEnabled()) {
+            // Only the object file cache uses the hashes
+            return Collections.emptyMap();
+        }
+        // The object file for a source file is determined by the content of the source file and every header it (transitively) includes.
+        // When some include could not be resolved, e.g. a macro include, the closure is not known and no hash is provided.
+        CompilationState finalState = incrementalCompilation.getFinalState();
+        ImmutableMap.Builder<File, HashCode> hashes = ImmutableMap.builder();
+        for (File sourceFile : spec.getSourceFiles()) {
+            SourceFileState state = finalState.getState(sourceFile);
+            if (state == null || state.isHasUnresolved()) {
+                continue;
+            }
+            List<String> edges = Lists.newArrayListWithCapacity(state.getEdges().size());
+            for (IncludeFileEdge edge : state.getEdges()) {
+                edges.add(edge.getIncludedBy() + ":" + edge.getIncludePath() + ":" + edge.getResolvedTo());
+            }
+            Collections.sort(edges);
+            Hasher hasher = Hashing.newHasher();
+            hasher.putHash(state.getHash());
+            for (String edge : edges) {
+                hasher.putString(edge);
+            }
+            hashes.put(sourceFile, hasher.hash());
+        }
+        return hashes.build();
+    }
+
     private static String getCantUsePCHMessage(String pchHeader, File sourceFile) {
         return "The source file "
             .concat(sourceFile.getName())
@@ -118,12 +152,14 @@ protected WorkResult doIncrementalCompile(IncrementalCompilation compilation, T
         spec.setSourceFiles(compilation.getRecompile());
         spec.setRemovedSourceFiles(compilation.getRemoved());
         spec.setSourceFilesForPch(getSourceFilesForPch(spec));
+        spec.setTranslationUnitHashes(getTranslationUnitHashes(spec));
         return delegateCompiler.execute(spec);
     }
 
     protected WorkResult doCleanIncrementalCompile(T spec) {
         boolean deleted = cleanPreviousOutputs(spec);
         spec.setSourceFilesForPch(getSourceFilesForPch(spec));
+        spec.setTranslationUnitHashes(getTranslationUnitHashes(spec));
         WorkResult compileResult = delegateCompiler.execute(spec);
         if (deleted && !compileResult.getDidWork()) {
             return WorkResults.didWork(true);
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.language.base.internal.compile.Compiler;
+import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compiles the source files of a full compilation in batches, each batch as a generated unity translation unit that includes the source files of the batch.
+ *
+ * Source files are batched by the headers they include, so that each batch parses the headers it shares only once.
+ * An incremental compilation compiles each source file on its own. When a change touches a source file of a batch, the object file of the batch is removed and all source files of the batch are compiled on their own.
+ * The unity translation units are kept in the object file directory, so the batch membership is restored from the build cache together with the object files.
+ * They include the source files by a path relative to themselves where possible, so they stay valid when the build is relocated.
+ */
+public class UnityBuildCompiler<T extends NativeCompileSpec> implements Compiler<T> {
+    public static final String BATCH_SIZE_PROPERTY = "org.gradle.internal.native.unity-build-batch-size";
+    private static final String UNITY_FILE_PREFIX = "unity-";
+    private static final String INCLUDE_PREFIX = "#include \"";
+
+    private final Compiler<T> delegate;
+    private final IncrementalCompilation incrementalCompilation;
+    private final int batchSize;
+
+    public UnityBuildCompiler(Compiler<T> delegate, IncrementalCompilation incrementalCompilation, int batchSize) {
+        this.delegate = delegate;
+        this.incrementalCompilation = incrementalCompilation;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the configured batch size, or 0 when unity builds are disabled.
+     */
+    public static int getBatchSize() {
+        int batchSize = Integer.getInteger(BATCH_SIZE_PROPERTY, 0);
+        return batchSize > 1 ? batchSize : 0;
+    }
+
+    @Override
+    public WorkResult execute(T spec) {
+        if (spec.getPreCompiledHeader() != null) {
+            return delegate.execute(spec);
+        }
+        File unityDir = new File(spec.getObjectFileDir(), "unity");
+        if (spec.isIncrementalCompile()) {
+            // Batches from a previous compilation need to be split up even when unity builds have been disabled since
+            fallBackForTouchedBatches(spec, unityDir);
+        } else {
+            // The object files of previous batches have already been cleaned
+            GFileUtils.deleteDirectory(unityDir);
+            if (batchSize > 1) {
+                compileInBatches(spec, unityDir);
+            }
+        }
+        return delegate.execute(spec);
+    }
+
+    private void fallBackForTouchedBatches(T spec, File unityDir) {
+        File[] unityFiles = unityDir.listFiles();
+        if (unityFiles == null) {
+            // The previous compilation did not create any batches
+            return;
+        }
+        CompilationState finalState = incrementalCompilation.getFinalState();
+        Set<File> touched = new HashSet<File>(spec.getSourceFiles());
+        touched.addAll(spec.getRemovedSourceFiles());
+        List<File> sourceFiles = new ArrayList<File>(spec.getSourceFiles());
+        List<File> removedSourceFiles = new ArrayList<File>(spec.getRemovedSourceFiles());
+        for (File unityFile : unityFiles) {
+            List<File> members = readMembers(unityFile);
+            if (Collections.disjoint(members, touched)) {
+                continue;
+            }
+            // Removing the unity file as a source file removes the object file of the batch
+            removedSourceFiles.add(unityFile);
+            GFileUtils.forceDelete(unityFile);
+            for (File member : members) {
+                if (!touched.contains(member) && finalState.getState(member) != null) {
+                    sourceFiles.add(member);
+                }
+            }
+        }
+        spec.setSourceFiles(sourceFiles);
+        spec.setRemovedSourceFiles(removedSourceFiles);
+    }
+
+    private void compileInBatches(T spec, File unityDir) {
+        CompilationState finalState = incrementalCompilation.getFinalState();
+        List<File> sourceFiles = new ArrayList<File>();
+        Map<String, List<File>> candidatesByExtension = new LinkedHashMap<String, List<File>>();
+        for (File sourceFile : spec.getSourceFiles()) {
+            SourceFileState state = finalState.getState(sourceFile);
+            if (state == null || state.isHasUnresolved()) {
+                // Cannot tell which headers the source file shares with others
+                sourceFiles.add(sourceFile);
+                continue;
+            }
+            String extension = Files.getFileExtension(sourceFile.getName());
+            List<File> candidates = candidatesByExtension.get(extension);
+            if (candidates == null) {
+                candidates = new ArrayList<File>();
+                candidatesByExtension.put(extension, candidates);
+            }
+            candidates.add(sourceFile);
+        }
+
+        for (Map.Entry<String, List<File>> entry : candidatesByExtension.entrySet()) {
+            List<File> candidates = entry.getValue();
+            sortByIncludedHeaders(candidates, finalState);
+            for (List<File> batch : Lists.partition(candidates, batchSize)) {
+                if (batch.size() == 1) {
+                    sourceFiles.add(batch.get(0));
+                } else {
+                    sourceFiles.add(writeUnityFile(unityDir, batch, entry.getKey()));
+                }
+            }
+        }
+        spec.setSourceFiles(sourceFiles);
+    }
+
+    /**
+     * Orders the source files so that source files that include the same headers, in the same order, are next to each other.
+     */
+    private static void sortByIncludedHeaders(List<File> sourceFiles, CompilationState finalState) {
+        final Map<File, String> keys = new LinkedHashMap<File, String>();
+        for (File sourceFile : sourceFiles) {
+            SourceFileState state = finalState.getState(sourceFile);
+            List<String> directHeaders = new ArrayList<String>();
+            Set<String> allHeaders = new TreeSet<String>();
+            for (IncludeFileEdge edge : state.getEdges()) {
+                if (state.getHash().equals(edge.getIncludedBy())) {
+                    directHeaders.add(edge.getResolvedTo().toString());
+                }
+                allHeaders.add(edge.getResolvedTo().toString());
+            }
+            keys.put(sourceFile, Joiner.on(',').join(directHeaders) + ";" + Joiner.on(',').join(allHeaders) + ";" + sourceFile.getPath());
+        }
+        Collections.sort(sourceFiles, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return keys.get(o1).compareTo(keys.get(o2));
+            }
+        });
+    }
+
+    private static File writeUnityFile(File unityDir, List<File> batch, String extension) {
+        StringBuilder content = new StringBuilder("// Unity translation unit generated by Gradle\n");
+        for (File sourceFile : batch) {
+            content.append(INCLUDE_PREFIX).append(includePath(unityDir, sourceFile)).append("\"\n");
+        }
+        String name = UNITY_FILE_PREFIX + Hashing.hashString(content).toString() + (extension.isEmpty() ? "" : "." + extension);
+        File unityFile = new File(unityDir, name);
+        GFileUtils.writeFile(content.toString(), unityFile);
+        return unityFile;
+    }
+
+    private static String includePath(File unityDir, File sourceFile) {
+        Path sourcePath = sourceFile.getAbsoluteFile().toPath();
+        try {
+            sourcePath = unityDir.getAbsoluteFile().toPath().relativize(sourcePath);
+        } catch (IllegalArgumentException e) {
+            // On another file system root, use the absolute path
+        }
+        return sourcePath.toString().replace('\\', '/');
+    }
+
+    private static List<File> readMembers(File unityFile) {
+        List<File> members = new ArrayList<File>();
+        Path unityDir = unityFile.getAbsoluteFile().getParentFile().toPath();
+        try {
+            for (String line : Files.readLines(unityFile, Charsets.UTF_8)) {
+                if (line.startsWith(INCLUDE_PREFIX) && line.endsWith("\"")) {
+                    members.add(unityDir.resolve(line.substring(INCLUDE_PREFIX.length(), line.length() - 1)).normalize().toFile());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return members;
+    }
+}
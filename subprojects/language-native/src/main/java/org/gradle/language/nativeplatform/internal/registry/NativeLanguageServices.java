@@ -16,16 +16,24 @@
 
 package org.gradle.language.nativeplatform.internal.registry;
 
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
+import org.gradle.internal.snapshot.FileSystemSnapshotter;
 import org.gradle.language.cpp.internal.NativeDependencyCache;
 import org.gradle.language.internal.DefaultNativeComponentFactory;
 import org.gradle.language.nativeplatform.internal.incremental.DefaultCompilationStateCacheFactory;
 import org.gradle.language.nativeplatform.internal.incremental.DefaultIncrementalCompilerBuilder;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeDirectoryIndex;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CachingCSourceParser;
 import org.gradle.language.nativeplatform.internal.toolchains.DefaultToolChainSelector;
 
 public class NativeLanguageServices extends AbstractPluginServiceRegistry {
+    @Override
+    public void registerBuildSessionServices(ServiceRegistration registration) {
+        registration.addProvider(new NativeLanguageBuildSessionScopeServices());
+    }
+
     @Override
     public void registerGradleServices(ServiceRegistration registration) {
         registration.add(DefaultCompilationStateCacheFactory.class);
@@ -43,4 +51,14 @@ public void registerProjectServices(ServiceRegistration registration) {
         registration.add(DefaultToolChainSelector.class);
         registration.add(DefaultNativeComponentFactory.class);
     }
+
+    private static class NativeLanguageBuildSessionScopeServices {
+        IncludeDirectoryIndex createIncludeDirectoryIndex(FileSystemSnapshotter fileSystemSnapshotter) {
+            return new IncludeDirectoryIndex(fileSystemSnapshotter);
+        }
+
+        void configure(ServiceRegistration serviceRegistration, ListenerManager listenerManager, IncludeDirectoryIndex includeDirectoryIndex) {
+            listenerManager.addListener(includeDirectoryIndex);
+        }
+    }
 }
@@ -36,12 +36,17 @@
 import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.internal.Cast;
 import org.gradle.internal.operations.logging.BuildOperationLogger;
 import org.gradle.internal.operations.logging.BuildOperationLoggerFactory;
 import org.gradle.language.base.internal.compile.Compiler;
+import org.gradle.language.base.internal.compile.VersionAwareCompiler;
+import org.gradle.language.nativeplatform.internal.ObjectFileCachingCompiler;
 import org.gradle.language.nativeplatform.internal.incremental.IncrementalCompilerBuilder;
+import org.gradle.language.nativeplatform.internal.incremental.UnityBuildCompiler;
 import org.gradle.nativeplatform.internal.BuildOperationLoggingCompilerDecorator;
+import org.gradle.nativeplatform.internal.CompilerOutputFileNamingSchemeFactory;
 import org.gradle.nativeplatform.platform.NativePlatform;
 import org.gradle.nativeplatform.platform.internal.NativePlatformInternal;
 import org.gradle.nativeplatform.toolchain.Clang;
@@ -93,6 +98,8 @@ public Boolean transform(NativeToolChain nativeToolChain) {
                 return nativeToolChain instanceof Gcc || nativeToolChain instanceof Clang;
             }
         }));
+        // Unity builds produce different object files, so switching them on or off or changing the batch size requires a full compilation
+        getInputs().property("unityBuildBatchSize", UnityBuildCompiler.getBatchSize());
     }
 
     @Inject
@@ -147,6 +154,16 @@ protected void configureSpec(NativeCompileSpec spec) {
     private <T extends NativeCompileSpec> WorkResult doCompile(T spec, PlatformToolProvider platformToolProvider) {
         Class<T> specType = Cast.uncheckedCast(spec.getClass());
         Compiler<T> baseCompiler = platformToolProvider.newCompiler(specType);
+        if (ObjectFileCachingCompiler.isEnabled() && baseCompiler instanceof VersionAwareCompiler) {
+            baseCompiler = new ObjectFileCachingCompiler<T>(
+                baseCompiler,
+                getServices().get(BuildCacheController.class),
+                getServices().get(CompilerOutputFileNamingSchemeFactory.class),
+                platformToolProvider.getObjectFileExtension(),
+                ((VersionAwareCompiler) baseCompiler).getVersion(),
+                ObjectFileCachingCompiler.isRelocatable() ? getProject().getRootDir() : null
+            );
+        }
         Compiler<T> incrementalCompiler = this.incrementalCompiler.createCompiler(baseCompiler);
         Compiler<T> loggingCompiler = BuildOperationLoggingCompilerDecorator.wrap(incrementalCompiler);
         return loggingCompiler.execute(spec);
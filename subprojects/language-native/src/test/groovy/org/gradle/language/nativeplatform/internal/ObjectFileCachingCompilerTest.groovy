@@ -0,0 +1,247 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.tasks.WorkResults
+import org.gradle.caching.internal.controller.BuildCacheController
+import org.gradle.caching.internal.controller.BuildCacheLoadCommand
+import org.gradle.caching.internal.controller.BuildCacheStoreCommand
+import org.gradle.internal.hash.HashCode
+import org.gradle.language.base.compile.CompilerVersion
+import org.gradle.language.base.internal.compile.Compiler
+import org.gradle.language.cpp.tasks.internal.DefaultCppCompileSpec
+import org.gradle.nativeplatform.internal.CompilerOutputFileNamingSchemeFactory
+import org.gradle.nativeplatform.platform.internal.ArchitectureInternal
+import org.gradle.nativeplatform.platform.internal.NativePlatformInternal
+import org.gradle.nativeplatform.platform.internal.OperatingSystemInternal
+import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ObjectFileCachingCompilerTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDirProvider = new TestNameTestDirectoryProvider()
+
+    def namingSchemeFactory = new CompilerOutputFileNamingSchemeFactory(TestFiles.resolver(tmpDirProvider.testDirectory))
+    def entries = [:]
+    def buildCache = new InMemoryBuildCacheController(entries)
+    def compilerVersion = Stub(CompilerVersion) {
+        getType() >> "gcc"
+        getVendor() >> "GNU"
+        getVersion() >> "9.2.0"
+    }
+    def delegate = Mock(Compiler)
+    TestFile rootDir = tmpDirProvider.file("checkout")
+    def compiler = new ObjectFileCachingCompiler<NativeCompileSpec>(delegate, buildCache, namingSchemeFactory, ".o", compilerVersion, null)
+
+    TestFile objectFileDir = tmpDirProvider.createDir("objs")
+    TestFile main = rootDir.file("src/main.cpp")
+    TestFile util = rootDir.file("src/util.cpp")
+
+    def "stores object files of compiled sources and loads them instead of compiling"() {
+        when:
+        def result = compiler.execute(spec([(main): HashCode.fromInt(1), (util): HashCode.fromInt(2)]))
+
+        then:
+        1 * delegate.execute({ it.sourceFiles == [main, util] }) >> { NativeCompileSpec spec -> compileSources(spec) }
+        result.didWork
+        entries.size() == 2
+
+        when:
+        objectFileDir.deleteDir()
+        result = compiler.execute(spec([(main): HashCode.fromInt(1), (util): HashCode.fromInt(3)]))
+
+        then:
+        1 * delegate.execute({ it.sourceFiles == [util] }) >> { NativeCompileSpec spec -> compileSources(spec) }
+        result.didWork
+        objectFile(main).text == "object for main.cpp"
+        objectFile(util).text == "object for util.cpp"
+        entries.size() == 3
+    }
+
+    def "does not load object files compiled with different arguments"() {
+        def hashes = [(main): HashCode.fromInt(1)]
+
+        when:
+        compiler.execute(spec(hashes))
+
+        then:
+        1 * delegate.execute(_) >> { NativeCompileSpec spec -> compileSources(spec) }
+
+        when:
+        def changed = spec(hashes)
+        changed.define("DEBUG")
+        compiler.execute(changed)
+
+        then:
+        1 * delegate.execute({ it.sourceFiles == [main, util] }) >> { NativeCompileSpec s -> compileSources(s) }
+        entries.size() == 2
+    }
+
+    def "always compiles source files without translation unit hash"() {
+        when:
+        compiler.execute(spec([(main): HashCode.fromInt(1)]))
+        compiler.execute(spec([(main): HashCode.fromInt(1)]))
+
+        then:
+        1 * delegate.execute({ it.sourceFiles == [main, util] }) >> { NativeCompileSpec spec -> compileSources(spec) }
+        1 * delegate.execute({ it.sourceFiles == [util] }) >> { NativeCompileSpec spec -> compileSources(spec) }
+        entries.size() == 1
+    }
+
+    def "does not use the cache when a pre-compiled header is used"() {
+        def withPch = spec([(main): HashCode.fromInt(1), (util): HashCode.fromInt(2)])
+        withPch.preCompiledHeader = "header.h"
+
+        when:
+        compiler.execute(withPch)
+
+        then:
+        1 * delegate.execute({ it.sourceFiles == [main, util] }) >> { NativeCompileSpec s -> compileSources(s) }
+        entries.isEmpty()
+    }
+
+    def "does not load object files compiled in a checkout at another location"() {
+        def otherRootDir = tmpDirProvider.file("other-checkout")
+        def otherCompiler = new ObjectFileCachingCompiler<NativeCompileSpec>(delegate, buildCache, namingSchemeFactory, ".o", compilerVersion, null)
+        def otherMain = otherRootDir.file("src/main.cpp")
+        def otherUtil = otherRootDir.file("src/util.cpp")
+
+        when:
+        compiler.execute(spec([(main): HashCode.fromInt(1), (util): HashCode.fromInt(2)], rootDir))
+
+        then:
+        1 * delegate.execute(_) >> { NativeCompileSpec spec -> compileSources(spec) }
+        entries.size() == 2
+
+        when:
+        objectFileDir.deleteDir()
+        otherCompiler.execute(spec([(otherMain): HashCode.fromInt(1), (otherUtil): HashCode.fromInt(2)], otherRootDir))
+
+        then:
+        1 * delegate.execute({ it.sourceFiles == [otherMain, otherUtil] }) >> { NativeCompileSpec spec -> compileSources(spec) }
+        entries.size() == 4
+    }
+
+    def "loads object files compiled in a checkout at another location when relocation is enabled"() {
+        def compiler = new ObjectFileCachingCompiler<NativeCompileSpec>(delegate, buildCache, namingSchemeFactory, ".o", compilerVersion, rootDir)
+        def otherRootDir = tmpDirProvider.file("other-checkout")
+        def otherCompiler = new ObjectFileCachingCompiler<NativeCompileSpec>(delegate, buildCache, namingSchemeFactory, ".o", compilerVersion, otherRootDir)
+        def otherMain = otherRootDir.file("src/main.cpp")
+        def otherUtil = otherRootDir.file("src/util.cpp")
+
+        when:
+        compiler.execute(spec([(main): HashCode.fromInt(1), (util): HashCode.fromInt(2)], rootDir))
+
+        then:
+        1 * delegate.execute(_) >> { NativeCompileSpec spec -> compileSources(spec) }
+        entries.size() == 2
+
+        when:
+        objectFileDir.deleteDir()
+        otherCompiler.execute(spec([(otherMain): HashCode.fromInt(1), (otherUtil): HashCode.fromInt(2)], otherRootDir))
+
+        then:
+        1 * delegate.execute({ it.sourceFiles.empty }) >> WorkResults.didWork(false)
+        objectFile(otherMain).text == "object for main.cpp"
+        entries.size() == 2
+    }
+
+    def "does not load object files compiled with include roots outside the root directory at another location"() {
+        def compiler = new ObjectFileCachingCompiler<NativeCompileSpec>(delegate, buildCache, namingSchemeFactory, ".o", compilerVersion, rootDir)
+        def hashes = [(main): HashCode.fromInt(1)]
+
+        when:
+        compiler.execute(spec(hashes, rootDir, tmpDirProvider.file("headers")))
+
+        then:
+        1 * delegate.execute(_) >> { NativeCompileSpec spec -> compileSources(spec) }
+
+        when:
+        compiler.execute(spec(hashes, rootDir, tmpDirProvider.file("other-headers")))
+
+        then:
+        1 * delegate.execute({ it.sourceFiles == [main, util] }) >> { NativeCompileSpec s -> compileSources(s) }
+        entries.size() == 2
+    }
+
+    private NativeCompileSpec spec(Map<File, HashCode> hashes, TestFile sourceRoot = rootDir, File headers = null) {
+        headers = headers ?: sourceRoot.file("include")
+        def spec = new DefaultCppCompileSpec()
+        spec.objectFileDir = objectFileDir
+        spec.targetPlatform = Stub(NativePlatformInternal) {
+            getOperatingSystem() >> Stub(OperatingSystemInternal) { getName() >> "linux" }
+            getArchitecture() >> Stub(ArchitectureInternal) { getName() >> "x86-64" }
+        }
+        spec.source([sourceRoot.file("src/main.cpp"), sourceRoot.file("src/util.cpp")])
+        spec.include(headers)
+        spec.args(["-I" + headers.absolutePath, "-isystem", new File(headers, "system").absolutePath])
+        spec.translationUnitHashes = hashes
+        return spec
+    }
+
+    private compileSources(NativeCompileSpec spec) {
+        spec.sourceFiles.each { sourceFile ->
+            def objectFile = objectFile(sourceFile)
+            objectFile.parentFile.mkdirs()
+            objectFile.text = "object for ${sourceFile.name}"
+        }
+        WorkResults.didWork(!spec.sourceFiles.empty)
+    }
+
+    private TestFile objectFile(File sourceFile) {
+        new TestFile(namingSchemeFactory.create().withObjectFileNameSuffix(".o").withOutputBaseFolder(objectFileDir).map(sourceFile))
+    }
+
+    private static class InMemoryBuildCacheController implements BuildCacheController {
+        final Map<String, byte[]> entries
+
+        InMemoryBuildCacheController(Map<String, byte[]> entries) {
+            this.entries = entries
+        }
+
+        @Override
+        boolean isEnabled() {
+            true
+        }
+
+        @Override
+        boolean isEmitDebugLogging() {
+            false
+        }
+
+        @Override
+        <T> Optional<T> load(BuildCacheLoadCommand<T> command) {
+            def entry = entries[command.key.hashCode]
+            entry == null ? Optional.empty() : Optional.of(command.load(new ByteArrayInputStream(entry)).metadata)
+        }
+
+        @Override
+        void store(BuildCacheStoreCommand command) {
+            def output = new ByteArrayOutputStream()
+            command.store(output)
+            entries[command.key.hashCode] = output.toByteArray()
+        }
+
+        @Override
+        void close() {
+        }
+    }
+}
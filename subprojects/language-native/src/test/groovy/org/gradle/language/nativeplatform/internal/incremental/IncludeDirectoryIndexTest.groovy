@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.internal.snapshot.impl.TestFileSnapshotter
+import org.gradle.language.nativeplatform.internal.incremental.SourceIncludesResolver.IncludeFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IncludeDirectoryIndexTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def index = new IncludeDirectoryIndex(new TestFileSnapshotter())
+    def sdkDir = temporaryFolder.createDir("sdk")
+    def generatedDir = temporaryFolder.createDir("build/generated")
+    def includePaths = [generatedDir, sdkDir]
+
+    def "resolvers share the contents of include directories"() {
+        def header = sdkDir.createFile("sdk.h")
+
+        expect:
+        resolve("sdk.h").file == header
+        resolve("other.h") == null
+
+        when:
+        header.delete()
+        sdkDir.createFile("other.h")
+
+        then:
+        resolve("sdk.h").file == header
+        resolve("other.h") == null
+    }
+
+    def "discards the contents of include directories affected by task outputs"() {
+        def sdkHeader = sdkDir.createFile("sdk.h")
+        resolve("sdk.h")
+        resolve("generated.h")
+
+        when:
+        def generatedHeader = generatedDir.createFile("generated.h")
+        sdkHeader.delete()
+        index.beforeOutputChange([temporaryFolder.file("build").absolutePath])
+
+        then:
+        resolve("generated.h").file == generatedHeader
+        resolve("sdk.h").file == sdkHeader
+    }
+
+    def "discards the contents of include directories when output files are written inside them"() {
+        resolve("nested/generated.h")
+
+        when:
+        def generatedHeader = generatedDir.createFile("nested/generated.h")
+        index.beforeOutputChange([generatedHeader.absolutePath])
+
+        then:
+        resolve("nested/generated.h").file == generatedHeader
+    }
+
+    def "discards the contents of all include directories at the end of the build"() {
+        resolve("sdk.h")
+
+        when:
+        def header = sdkDir.createFile("sdk.h")
+        index.beforeComplete()
+
+        then:
+        resolve("sdk.h").file == header
+    }
+
+    private IncludeFile resolve(String includePath) {
+        new DefaultSourceIncludesResolver(includePaths, index).resolveInclude(null, includePath)
+    }
+}
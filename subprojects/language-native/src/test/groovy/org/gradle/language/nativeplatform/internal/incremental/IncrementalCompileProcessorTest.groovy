@@ -40,7 +40,8 @@ class IncrementalCompileProcessorTest extends Specification {
     def dependencyResolver = new DummyResolver()
     def fileSystemSnapshotter = new TestFileSnapshotter()
     def stateCache = new DummyPersistentStateCache()
-    def incrementalCompileProcessor = new IncrementalCompileProcessor(stateCache, new IncrementalCompileFilesFactory(IncludeDirectives.EMPTY, includesParser, dependencyResolver, fileSystemSnapshotter), new TestBuildOperationExecutor())
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def incrementalCompileProcessor = new IncrementalCompileProcessor(stateCache, new IncrementalCompileFilesFactory(IncludeDirectives.EMPTY, includesParser, dependencyResolver, fileSystemSnapshotter, buildOperationExecutor), buildOperationExecutor)
 
     def source1 = sourceFile("source1")
     def source2 = sourceFile("source2")
@@ -375,6 +376,61 @@ class IncrementalCompileProcessorTest extends Specification {
         result.unresolvedHeaders
     }
 
+    def "analyzes many source files in batches with the same result as one source file at a time"() {
+        given:
+        initialFiles()
+        def many = (1..120).collect { sourceFile("many$it") }
+        many.each { sourceAdded(it, [dep1, dep4]) }
+
+        expect:
+        checkCompile recompiled: many, removed: []
+        buildOperationExecutor.log.descriptors*.displayName.containsAll([
+            "Parse and check include file graphs of source files 0 to 50",
+            "Collect include file graphs of source files 100 to 122"
+        ])
+
+        when:
+        modified(dep3)
+        def processor = new IncrementalCompileFilesFactory(IncludeDirectives.EMPTY, includesParser, dependencyResolver, fileSystemSnapshotter, buildOperationExecutor).files(stateCache.get())
+        sourceFiles.each { processor.processSource(it) }
+        def oneAtATime = processor.result
+
+        then:
+        checkCompile recompiled: [source1, source2] + many, removed: []
+        oneAtATime.recompile == [source1, source2] + many
+        describe(oneAtATime.finalState) == describe(stateCache.get())
+    }
+
+    def "parses source files in the batched checks and each header file once"() {
+        given:
+        sourceFiles = []
+        def many = (1..120).collect { sourceFile("many$it") }
+        many.each { sourceAdded(it, [dep1, dep4]) }
+        def parsedIn = [:]
+
+        when:
+        def result = state
+
+        then:
+        120 * includesParser.parseIncludes({ it in many }) >> { File file ->
+            parsedIn[file] = buildOperationExecutor.log.records.peekLast().toString()
+            includes(graph[file])
+        }
+        1 * includesParser.parseIncludes(dep1) >> includes(graph[dep1])
+        1 * includesParser.parseIncludes(dep3) >> includes(graph[dep3])
+        1 * includesParser.parseIncludes(dep4) >> includes(graph[dep4])
+        0 * includesParser._
+
+        and:
+        result.recompile == many
+        parsedIn.keySet() == many as Set
+        parsedIn.values().every { it.startsWith("Parse and check include file graphs of source files ") }
+    }
+
+    private static Map<File, List<Object>> describe(CompilationState state) {
+        state.fileStates.collectEntries { file, fileState -> [file, [fileState.hash, fileState.hasUnresolved, fileState.edges as List]] }
+    }
+
     def checkCompile(Map<String, List<File>> args) {
         parseAndResolve()
         with(state) {
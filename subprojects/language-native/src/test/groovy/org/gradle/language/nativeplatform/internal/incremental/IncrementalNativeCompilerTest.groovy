@@ -15,14 +15,19 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental
 
+import com.google.common.collect.ImmutableMap
+import com.google.common.collect.ImmutableSet
 import com.google.common.collect.Sets
 import org.gradle.api.internal.TaskOutputsInternal
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.tasks.WorkResults
 import org.gradle.cache.PersistentStateCache
+import org.gradle.internal.hash.HashCode
 import org.gradle.language.base.internal.compile.Compiler
+import org.gradle.language.nativeplatform.internal.ObjectFileCachingCompiler
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
 import spock.lang.Specification
@@ -30,6 +35,7 @@ import spock.lang.Specification
 @UsesNativeServices
 class IncrementalNativeCompilerTest extends Specification {
     @Rule final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    @Rule final SetSystemProperties systemProperties = new SetSystemProperties()
 
     def delegateCompiler = Mock(Compiler)
     def outputs = Mock(TaskOutputsInternal)
@@ -48,6 +54,8 @@ class IncrementalNativeCompilerTest extends Specification {
         when:
         compilation.getRecompile() >> [newSource]
         compilation.getRemoved() >> [removedSource]
+        spec.getSourceFiles() >> [newSource]
+        incrementalCompilation.getFinalState() >> new CompilationState()
 
         and:
         compiler.doIncrementalCompile(compilation, spec)
@@ -81,6 +89,9 @@ class IncrementalNativeCompilerTest extends Specification {
         1 * spec.getObjectFileDir() >> outputFile.parentFile
         1 * outputs.previousOutputFiles >> Sets.newHashSet(outputFile)
         1 * spec.setSourceFilesForPch(_)
+        1 * spec.setTranslationUnitHashes([:])
+        _ * spec.getSourceFiles() >> sources
+        _ * incrementalCompilation.getFinalState() >> new CompilationState()
         0 * spec._
         1 * delegateCompiler.execute(spec) >> WorkResults.didWork(false)
 
@@ -88,4 +99,48 @@ class IncrementalNativeCompilerTest extends Specification {
         result.didWork
         outputFile.assertDoesNotExist()
     }
+
+    def "provides translation unit hashes for source files with resolved includes"() {
+        System.setProperty(ObjectFileCachingCompiler.ENABLED_PROPERTY, "true")
+        def spec = Mock(NativeCompileSpec)
+        def resolved = temporaryFolder.file("resolved.c")
+        def unresolved = temporaryFolder.file("unresolved.c")
+        def compilation = Mock(IncrementalCompilation)
+        def sourceHash = HashCode.fromInt(1)
+        def header = new IncludeFileEdge("a.h", sourceHash, HashCode.fromInt(2))
+        def changedHeader = new IncludeFileEdge("a.h", sourceHash, HashCode.fromInt(3))
+        Map<File, HashCode> hashes = null
+
+        when:
+        compilation.getRecompile() >> [resolved, unresolved]
+        spec.getSourceFiles() >> [resolved, unresolved]
+        incrementalCompilation.getFinalState() >>> [
+            new CompilationState(ImmutableMap.of(resolved, new SourceFileState(sourceHash, false, ImmutableSet.of(header)), unresolved, new SourceFileState(sourceHash, true, ImmutableSet.of()))),
+            new CompilationState(ImmutableMap.of(resolved, new SourceFileState(sourceHash, false, ImmutableSet.of(changedHeader)), unresolved, new SourceFileState(sourceHash, true, ImmutableSet.of())))
+        ]
+        compiler.doIncrementalCompile(compilation, spec)
+        def first = hashes
+        compiler.doIncrementalCompile(compilation, spec)
+
+        then:
+        2 * spec.setTranslationUnitHashes(_) >> { arguments -> hashes = arguments[0] }
+        first.keySet() == [resolved] as Set
+        hashes.keySet() == [resolved] as Set
+        first[resolved] != hashes[resolved]
+    }
+
+    def "does not hash translation units unless the object file cache is enabled"() {
+        def spec = Mock(NativeCompileSpec)
+        def source = temporaryFolder.file("source.c")
+        def compilation = Mock(IncrementalCompilation)
+
+        when:
+        compilation.getRecompile() >> [source]
+        spec.getSourceFiles() >> [source]
+        compiler.doIncrementalCompile(compilation, spec)
+
+        then:
+        1 * spec.setTranslationUnitHashes([:])
+        0 * incrementalCompilation.getFinalState()
+    }
 }
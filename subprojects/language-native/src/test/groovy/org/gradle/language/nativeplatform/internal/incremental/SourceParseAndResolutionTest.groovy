@@ -36,7 +36,7 @@ class SourceParseAndResolutionTest extends SerializerSpec {
     def sourceDir = tmpDir.createDir("src")
     def sourceFile = sourceDir.createFile("src.cpp")
     def fileSystemSnapshotter = new TestFileSnapshotter()
-    def resolver = new DefaultSourceIncludesResolver([includeDir], fileSystemSnapshotter)
+    def resolver = new DefaultSourceIncludesResolver([includeDir], new IncludeDirectoryIndex(fileSystemSnapshotter))
     def parser = new RegexBackedCSourceParser()
     def serializer = IncludeDirectivesSerializer.INSTANCE
 
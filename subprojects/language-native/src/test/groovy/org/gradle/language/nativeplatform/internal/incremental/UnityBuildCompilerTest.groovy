@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import com.google.common.collect.ImmutableMap
+import com.google.common.collect.ImmutableSet
+import org.gradle.api.tasks.WorkResults
+import org.gradle.internal.hash.HashCode
+import org.gradle.language.base.internal.compile.Compiler
+import org.gradle.language.cpp.tasks.internal.DefaultCppCompileSpec
+import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class UnityBuildCompilerTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def delegate = Mock(Compiler)
+    def incrementalCompilation = Stub(IncrementalCompilation)
+    def compiler = new UnityBuildCompiler<NativeCompileSpec>(delegate, incrementalCompilation, 2)
+    def objectFileDir = temporaryFolder.createDir("objs")
+    def unityDir = new File(objectFileDir, "unity")
+    def a = source("a.cpp")
+    def b = source("b.cpp")
+    def c = source("c.cpp")
+    def d = source("d.cpp")
+    def unresolved = source("unresolved.cpp")
+
+    def setup() {
+        incrementalCompilation.finalState >> new CompilationState(ImmutableMap.builder()
+            .put(a, state(1, 10))
+            .put(b, state(2, 20))
+            .put(c, state(3, 10))
+            .put(d, state(4, 20))
+            .put(unresolved, new SourceFileState(HashCode.fromInt(5), true, ImmutableSet.of()))
+            .build())
+    }
+
+    def "compiles source files that include the same headers as unity translation units"() {
+        def spec = spec([a, b, c, d, unresolved])
+        List<File> compiled = null
+
+        when:
+        compiler.execute(spec)
+
+        then:
+        1 * delegate.execute(spec) >> { compiled = spec.sourceFiles; WorkResults.didWork(true) }
+        compiled.size() == 3
+        compiled[0] == unresolved
+        unityMembers(compiled[1]) == [a, c]
+        unityMembers(compiled[2]) == [b, d]
+        compiled[1].parentFile == unityDir
+        compiled[1].name.endsWith(".cpp")
+        compiled[1].text.contains('#include "../../src/a.cpp"')
+    }
+
+    def "compiles the source files of a batch on their own when a change touches the batch"() {
+        given:
+        compiler.execute(spec([a, b, c, d]))
+        def unityFiles = unityDir.listFiles() as List
+        def batchOfA = unityFiles.find { unityMembers(it).contains(a) }
+
+        when:
+        def incremental = spec([a])
+        incremental.incrementalCompile = true
+        incremental.removedSourceFiles = [temporaryFolder.file("removed.cpp")]
+        compiler.execute(incremental)
+
+        then:
+        1 * delegate.execute(_)
+        incremental.sourceFiles == [a, c]
+        incremental.removedSourceFiles == [temporaryFolder.file("removed.cpp"), batchOfA]
+        !batchOfA.exists()
+        unityDir.listFiles().size() == 1
+    }
+
+    def "compiles the source files of a batch on their own after unity builds have been disabled"() {
+        given:
+        compiler.execute(spec([a, b, c, d]))
+        def batchOfA = unityDir.listFiles().find { unityMembers(it).contains(a) }
+        def disabled = new UnityBuildCompiler<NativeCompileSpec>(delegate, incrementalCompilation, 0)
+
+        when:
+        def incremental = spec([a])
+        incremental.incrementalCompile = true
+        disabled.execute(incremental)
+
+        then:
+        1 * delegate.execute(_)
+        incremental.sourceFiles == [a, c]
+        incremental.removedSourceFiles == [batchOfA]
+    }
+
+    def "does not batch source files of a full compilation when unity builds are disabled"() {
+        given:
+        compiler.execute(spec([a, b, c, d]))
+        def disabled = new UnityBuildCompiler<NativeCompileSpec>(delegate, incrementalCompilation, 0)
+        def full = spec([a, b, c, d])
+
+        when:
+        disabled.execute(full)
+
+        then:
+        1 * delegate.execute(full)
+        full.sourceFiles == [a, b, c, d]
+        !unityDir.exists()
+    }
+
+    def "does not batch source files when a pre-compiled header is used"() {
+        def spec = spec([a, b, c, d])
+        spec.preCompiledHeader = "header.h"
+
+        when:
+        compiler.execute(spec)
+
+        then:
+        1 * delegate.execute(spec)
+        spec.sourceFiles == [a, b, c, d]
+    }
+
+    private TestFile source(String name) {
+        temporaryFolder.createFile("src/${name}")
+    }
+
+    private static SourceFileState state(int hash, int header) {
+        def sourceHash = HashCode.fromInt(hash)
+        new SourceFileState(sourceHash, false, ImmutableSet.of(new IncludeFileEdge("header.h", sourceHash, HashCode.fromInt(header))))
+    }
+
+    private NativeCompileSpec spec(List<File> sourceFiles) {
+        def spec = new DefaultCppCompileSpec()
+        spec.objectFileDir = objectFileDir
+        spec.sourceFiles = sourceFiles
+        return spec
+    }
+
+    private static List<File> unityMembers(File unityFile) {
+        unityFile.readLines().findAll { it.startsWith("#include") }.collect { new File(unityFile.parentFile, it.substring(10, it.length() - 1)).canonicalFile }
+    }
+}
@@ -38,6 +38,7 @@
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.util.CollectionUtils;
@@ -97,6 +98,8 @@ public DaemonStartupInfo startDaemon(boolean singleUse) {
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        File javaExecutable = daemonParameters.getEffectiveJvm().getJavaExecutable();
+        daemonArgs.addAll(ClassDataSharingArchives.forUserHome(daemonParameters.getGradleUserHomeDir()).getJvmArgs(javaExecutable, classpath.getAsFiles(), Collections.<File>emptyList()));
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -37,7 +37,19 @@ public class StyledTextOutputBackedRenderer implements OutputEventListener {
     private RenderableOutputEvent lastEvent;
 
     public StyledTextOutputBackedRenderer(StyledTextOutput textOutput) {
-        this.textOutput = new OutputEventTextOutputImpl(textOutput);
+        this(textOutput, false);
+    }
+
+    private StyledTextOutputBackedRenderer(StyledTextOutput textOutput, boolean batched) {
+        this.textOutput = new OutputEventTextOutputImpl(textOutput, batched);
+    }
+
+    /**
+     * Creates a renderer that forwards the text of each event to the given output in as few pieces as possible, rather than one piece per line
+     * and end of line. Useful when the output writes through to a stream on each piece of text.
+     */
+    public static StyledTextOutputBackedRenderer batched(StyledTextOutput textOutput) {
+        return new StyledTextOutputBackedRenderer(textOutput, true);
     }
 
     @Override
@@ -67,32 +79,51 @@ public void onOutput(OutputEvent event) {
             outputEvent.render(textOutput);
             lastEvent = outputEvent;
             textOutput.style(Normal);
+            textOutput.flushText();
         }
     }
 
     private class OutputEventTextOutputImpl extends AbstractLineChoppingStyledTextOutput {
         private final StyledTextOutput textOutput;
+        private final StringBuilder pendingText;
         private boolean atEndOfLine = true;
 
-        public OutputEventTextOutputImpl(StyledTextOutput textOutput) {
+        public OutputEventTextOutputImpl(StyledTextOutput textOutput, boolean batched) {
             this.textOutput = textOutput;
+            this.pendingText = batched ? new StringBuilder() : null;
         }
 
         @Override
         protected void doStyleChange(Style style) {
+            flushText();
             textOutput.style(style);
         }
 
         @Override
         protected void doLineText(CharSequence text) {
-            textOutput.text(text);
+            writeText(text);
             atEndOfLine = false;
         }
 
         @Override
         protected void doEndLine(CharSequence endOfLine) {
-            textOutput.text(endOfLine);
+            writeText(endOfLine);
             atEndOfLine = true;
         }
+
+        private void writeText(CharSequence text) {
+            if (pendingText != null) {
+                pendingText.append(text);
+            } else {
+                textOutput.text(text);
+            }
+        }
+
+        void flushText() {
+            if (pendingText != null && pendingText.length() > 0) {
+                textOutput.text(pendingText.toString());
+                pendingText.setLength(0);
+            }
+        }
     }
 }
@@ -39,8 +39,9 @@ public class ThrottlingOutputEventListener implements OutputEventListener {
     private final Clock clock;
     private final int throttleMs;
     private final Object lock = new Object();
+    private final Object renderLock = new Object();
 
-    private final List<OutputEvent> queue = new ArrayList<OutputEvent>();
+    private List<OutputEvent> queue = new ArrayList<OutputEvent>();
 
     public ThrottlingOutputEventListener(OutputEventListener listener, Clock clock) {
         this(listener, Integer.getInteger("org.gradle.internal.console.throttle", 100), Executors.newSingleThreadScheduledExecutor(), clock);
@@ -68,31 +69,35 @@ public void onOutput(OutputEvent newEvent) {
         synchronized (lock) {
             queue.add(newEvent);
 
-            if (newEvent instanceof UpdateNowEvent) {
-                // Flush any buffered events and update the clock
-                renderNow();
+            if (!(newEvent instanceof UpdateNowEvent || newEvent instanceof FlushOutputEvent || newEvent instanceof EndOutputEvent)) {
+                // Wait for the next update event
                 return;
             }
+        }
 
-            if (newEvent instanceof FlushOutputEvent) {
-                renderNow();
-                return;
-            }
+        // Flush any buffered events. Rendering happens outside of the queue lock, so that threads producing output are not
+        // held up by a slow console while a batch is being rendered
+        renderNow();
 
-            if (newEvent instanceof EndOutputEvent) {
-                // Flush and clean up
-                renderNow();
-                executor.shutdown();
-            }
-
-            // Else, wait for the next update event
+        if (newEvent instanceof EndOutputEvent) {
+            // Clean up
+            executor.shutdown();
         }
     }
 
     private void renderNow() {
-        for (OutputEvent event : queue) {
-            listener.onOutput(event);
+        synchronized (renderLock) {
+            List<OutputEvent> events;
+            synchronized (lock) {
+                if (queue.isEmpty()) {
+                    return;
+                }
+                events = queue;
+                queue = new ArrayList<OutputEvent>(events.size());
+            }
+            for (OutputEvent event : events) {
+                listener.onOutput(event);
+            }
         }
-        queue.clear();
     }
 }
@@ -54,15 +54,26 @@
 
 import javax.annotation.Nullable;
 import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A {@link OutputEventListener} implementation which renders output events to various
  * destinations. This implementation is thread-safe.
+ *
+ * <p>Events are queued in a bounded buffer and rendered in order by whichever thread holds the render lock. A thread that produces an
+ * event while another thread holds the lock returns immediately, and the thread holding the lock renders the event once it has released the lock.
+ * When the buffer is full, progress updates are dropped and all other events block the producer until the buffer has been drained.
+ * Flush, end of output and log level changes are always rendered before {@link #onOutput(OutputEvent)} returns.</p>
  */
 @ThreadSafe
 public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
-    private final Object lock = new Object();
+    public static final String BUFFER_SIZE_PROPERTY = "org.gradle.internal.logging.output-buffer-size";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BlockingQueue<OutputEvent> pendingEvents;
     private final AtomicReference<LogLevel> logLevel = new AtomicReference<LogLevel>(LogLevel.LIFECYCLE);
     private final Clock clock;
     private final ListenerBroadcast<OutputEventListener> formatters = new ListenerBroadcast<OutputEventListener>(OutputEventListener.class);
@@ -79,20 +90,29 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
     private ListenerBroadcast<StandardOutputListener> userStderrListeners;
 
     public OutputEventRenderer(final Clock clock) {
+        this(clock, Integer.getInteger(BUFFER_SIZE_PROPERTY, 10000));
+    }
+
+    OutputEventRenderer(Clock clock, int bufferSize) {
         this.clock = clock;
+        this.pendingEvents = new ArrayBlockingQueue<OutputEvent>(bufferSize);
     }
 
     @Override
     public Snapshot snapshot() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             // Currently only snapshot the console output listener. Should snapshot all output listeners, and cleanup in restore()
             return new SnapshotImpl(logLevel.get(), console);
+        } finally {
+            unlock();
         }
     }
 
     @Override
     public void restore(Snapshot state) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             SnapshotImpl snapshot = (SnapshotImpl) state;
             if (snapshot.logLevel != logLevel.get()) {
                 configure(snapshot.logLevel);
@@ -107,24 +127,31 @@ public void restore(Snapshot state) {
                     throw new UnsupportedOperationException("Cannot restore previous console. This is not implemented yet.");
                 }
             }
+        } finally {
+            unlock();
         }
     }
 
     private void addChain(OutputEventListener listener) {
+        renderPendingEvents();
         listener.onOutput(new LogLevelChangeEvent(logLevel.get()));
         formatters.add(listener);
     }
 
     private void removeChain(OutputEventListener listener) {
+        renderPendingEvents();
         formatters.remove(listener);
         listener.onOutput(new EndOutputEvent());
     }
 
     public ColorMap getColourMap() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (colourMap == null) {
                 colourMap = new DefaultColorMap();
             }
+        } finally {
+            unlock();
         }
         return colourMap;
     }
@@ -144,8 +171,11 @@ public OutputStream getOriginalStdErr() {
 
     @Override
     public void attachProcessConsole(ConsoleOutput consoleOutput) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             ConsoleConfigureAction.execute(this, consoleOutput);
+        } finally {
+            unlock();
         }
     }
 
@@ -156,11 +186,14 @@ public void attachConsole(OutputStream outputStream, OutputStream errorStream, C
 
     @Override
     public void attachConsole(OutputStream outputStream, OutputStream errorStream, ConsoleOutput consoleOutput, @Nullable ConsoleMetaData consoleMetadata) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (consoleMetadata == null) {
                 consoleMetadata = FallbackConsoleMetaData.NOT_ATTACHED;
             }
             ConsoleConfigureAction.execute(this, consoleOutput, consoleMetadata, outputStream, errorStream);
+        } finally {
+            unlock();
         }
     }
 
@@ -171,7 +204,8 @@ public void attachSystemOutAndErr() {
     }
 
     private void addSystemOutAsLoggingDestination() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             originalStdOut = System.out;
             if (stdOutListener != null) {
                 removeChain(stdOutListener);
@@ -179,15 +213,18 @@ private void addSystemOutAsLoggingDestination() {
             stdOutListener = new LazyListener(new Factory<OutputEventListener>() {
                 @Override
                 public OutputEventListener create() {
-                    return onNonError(new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener((Appendable) originalStdOut))));
+                    return onNonError(StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener((Appendable) originalStdOut))));
                 }
             });
             addChain(stdOutListener);
+        } finally {
+            unlock();
         }
     }
 
     private void addSystemErrAsLoggingDestination() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             originalStdErr = System.err;
             if (stdErrListener != null) {
                 removeChain(stdErrListener);
@@ -195,42 +232,56 @@ private void addSystemErrAsLoggingDestination() {
             stdErrListener = new LazyListener(new Factory<OutputEventListener>() {
                 @Override
                 public OutputEventListener create() {
-                    return onError(new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener((Appendable) originalStdErr))));
+                    return onError(StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener((Appendable) originalStdErr))));
                 }
             });
             addChain(stdErrListener);
+        } finally {
+            unlock();
         }
     }
 
     private void removeSystemOutAsLoggingDestination() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (stdOutListener != null) {
                 removeChain(stdOutListener);
                 stdOutListener = null;
             }
+        } finally {
+            unlock();
         }
     }
 
     private void removeSystemErrAsLoggingDestination() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (stdErrListener != null) {
                 removeChain(stdErrListener);
                 stdErrListener = null;
             }
+        } finally {
+            unlock();
         }
     }
 
     @Override
     public void addOutputEventListener(OutputEventListener listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             addChain(listener);
+        } finally {
+            unlock();
         }
     }
 
     @Override
     public void removeOutputEventListener(OutputEventListener listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             removeChain(listener);
+        } finally {
+            unlock();
         }
     }
 
@@ -250,14 +301,14 @@ public void addRichConsole(Console stdout, Console stderr, ConsoleMetaData conso
 
     public void addRichConsole(Console stdout, OutputStream stderr, ConsoleMetaData consoleMetaData, boolean verbose) {
         OutputEventListener stdoutChain = new StyledTextOutputBackedRenderer(stdout.getBuildOutputArea());
-        OutputEventListener stderrChain = new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stderr)));
+        OutputEventListener stderrChain = StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stderr)));
         OutputEventListener consoleListener = new ErrorOutputDispatchingListener(stderrChain, stdoutChain);
         OutputEventListener consoleChain = getConsoleChainWithDynamicStdout(stdout, consoleMetaData, verbose, consoleListener);
         addConsoleChain(consoleChain);
     }
 
     public void addRichConsole(OutputStream stdout, Console stderr, boolean verbose) {
-        OutputEventListener stdoutChain = new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stdout)));
+        OutputEventListener stdoutChain = StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stdout)));
         OutputEventListener stderrChain = new FlushConsoleListener(stderr, new StyledTextOutputBackedRenderer(stderr.getBuildOutputArea()));
         OutputEventListener consoleListener = new ErrorOutputDispatchingListener(stderrChain, stdoutChain);
         OutputEventListener consoleChain = getConsoleChainWithoutDynamicStdout(consoleListener, verbose);
@@ -265,13 +316,13 @@ public void addRichConsole(OutputStream stdout, Console stderr, boolean verbose)
     }
 
     public void addPlainConsoleWithErrorOutputOnStdout(OutputStream stdout) {
-        OutputEventListener stdoutChain = new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stdout)));
+        OutputEventListener stdoutChain = StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stdout)));
         addConsoleChain(getConsoleChainWithoutDynamicStdout(stdoutChain, true));
     }
 
     public void addPlainConsole(OutputStream stdout, OutputStream stderr) {
-        OutputEventListener stdoutChain = new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stdout)));
-        OutputEventListener stderrChain = new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stderr)));
+        OutputEventListener stdoutChain = StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stdout)));
+        OutputEventListener stderrChain = StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(new StreamBackedStandardOutputListener(stderr)));
         OutputEventListener outputListener = new ErrorOutputDispatchingListener(stderrChain, stdoutChain);
         addConsoleChain(getConsoleChainWithoutDynamicStdout(outputListener, true));
     }
@@ -311,11 +362,14 @@ private OutputEventListener throttled(OutputEventListener consoleChain) {
     }
 
     private OutputEventRenderer addConsoleChain(OutputEventListener consoleChain) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             this.console = consoleChain;
             removeSystemOutAsLoggingDestination();
             removeSystemErrAsLoggingDestination();
             addChain(this.console);
+        } finally {
+            unlock();
         }
         return this;
     }
@@ -333,7 +387,8 @@ public void enableUserStandardOutputListeners() {
         // Create all of the pipeline eagerly as soon as this is enabled, to track the state of build operations.
         // All of the pipelines do this, so should instead have a single stage that tracks this for all pipelines and that can replay the current state to new pipelines
         // Then, a pipeline can be added for each listener as required
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (userStdoutListeners == null) {
                 userStdoutListeners = new ListenerBroadcast<StandardOutputListener>(StandardOutputListener.class);
                 userStderrListeners = new ListenerBroadcast<StandardOutputListener>(StandardOutputListener.class);
@@ -357,6 +412,8 @@ public void onOutput(OutputEvent event) {
                 );
                 addChain(userListenerChain);
             }
+        } finally {
+            unlock();
         }
     }
 
@@ -364,22 +421,29 @@ private void assertUserListenersEnabled() {
         if (userListenerChain == null) {
             throw new IllegalStateException("Custom standard output listeners not enabled.");
         }
+        renderPendingEvents();
         userListenerChain.onOutput(new FlushOutputEvent());
     }
 
     @Override
     public void addStandardErrorListener(StandardOutputListener listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             assertUserListenersEnabled();
             userStderrListeners.add(listener);
+        } finally {
+            unlock();
         }
     }
 
     @Override
     public void addStandardOutputListener(StandardOutputListener listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             assertUserListenersEnabled();
             userStdoutListeners.add(listener);
+        } finally {
+            unlock();
         }
     }
 
@@ -395,17 +459,23 @@ public void addStandardErrorListener(OutputStream outputStream) {
 
     @Override
     public void removeStandardOutputListener(StandardOutputListener listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             assertUserListenersEnabled();
             userStdoutListeners.remove(listener);
+        } finally {
+            unlock();
         }
     }
 
     @Override
     public void removeStandardErrorListener(StandardOutputListener listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             assertUserListenersEnabled();
             userStderrListeners.remove(listener);
+        } finally {
+            unlock();
         }
     }
 
@@ -427,7 +497,54 @@ public void onOutput(OutputEvent event) {
             }
             this.logLevel.set(newLogLevel);
         }
-        synchronized (lock) {
+        if (!pendingEvents.offer(event)) {
+            if (event instanceof ProgressEvent) {
+                // The buffer is full. A progress update is superseded by the next one for the same operation, so drop it rather than wait
+                return;
+            }
+            // The buffer is full, so help drain it rather than letting the producer run ahead of the console
+            lock.lock();
+            try {
+                renderPendingEvents();
+                transformer.onOutput(event);
+            } finally {
+                unlock();
+            }
+        } else if (event instanceof FlushOutputEvent || event instanceof EndOutputEvent || event instanceof LogLevelChangeEvent) {
+            lock.lock();
+            try {
+                renderPendingEvents();
+            } finally {
+                unlock();
+            }
+        } else {
+            renderIfIdle();
+        }
+    }
+
+    /**
+     * Releases the render lock, then renders the events queued by other threads while it was held. Every thread that holds the lock must release
+     * it through this method, as a producer that fails to acquire the lock leaves its event for the holder to render.
+     */
+    private void unlock() {
+        lock.unlock();
+        renderIfIdle();
+    }
+
+    private void renderIfIdle() {
+        // When another thread holds the lock, it checks the queue again after releasing the lock and renders any event queued here
+        while (!pendingEvents.isEmpty() && lock.tryLock()) {
+            try {
+                renderPendingEvents();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void renderPendingEvents() {
+        OutputEvent event;
+        while ((event = pendingEvents.poll()) != null) {
             transformer.onOutput(event);
         }
     }
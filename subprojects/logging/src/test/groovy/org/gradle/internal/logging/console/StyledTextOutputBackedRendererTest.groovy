@@ -16,11 +16,13 @@
 package org.gradle.internal.logging.console
 
 import org.gradle.api.logging.LogLevel
+import org.gradle.api.logging.StandardOutputListener
 import org.gradle.internal.SystemProperties
 import org.gradle.internal.logging.OutputSpecification
 import org.gradle.internal.logging.events.LogLevelChangeEvent
 import org.gradle.internal.logging.events.RenderableOutputEvent
 import org.gradle.internal.logging.events.StyledTextOutputEvent
+import org.gradle.internal.logging.text.StreamingStyledTextOutput
 import org.gradle.internal.logging.text.StyledTextOutput
 import org.gradle.internal.logging.text.TestLineChoppingStyledTextOutput
 import org.gradle.internal.logging.text.TestStyledTextOutput
@@ -136,4 +138,17 @@ class StyledTextOutputBackedRendererTest extends OutputSpecification {
         where:
         eol << [SystemProperties.instance.lineSeparator, "\n", "\r\n"]
     }
+
+    def batchedRendererForwardsTextOfEventInOnePiece() {
+        def listener = Mock(StandardOutputListener)
+        def renderer = StyledTextOutputBackedRenderer.batched(new StreamingStyledTextOutput(listener))
+        def eol = SystemProperties.instance.lineSeparator
+
+        when:
+        renderer.onOutput(event("line 1${eol}line 2", LogLevel.INFO))
+
+        then:
+        1 * listener.onOutput("line 1${eol}line 2${eol}")
+        0 * listener._
+    }
 }
@@ -18,12 +18,16 @@ package org.gradle.internal.logging.console
 import org.gradle.internal.logging.OutputSpecification
 import org.gradle.internal.logging.events.EndOutputEvent
 import org.gradle.internal.logging.events.FlushOutputEvent
+import org.gradle.internal.logging.events.OutputEvent
 import org.gradle.internal.logging.events.OutputEventListener
 import org.gradle.internal.logging.events.UpdateNowEvent
 import org.gradle.internal.time.MockClock
 import org.gradle.util.MockExecutor
 import spock.lang.Subject
 
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
 class ThrottlingOutputEventListenerTest extends OutputSpecification {
     def listener = Mock(OutputEventListener)
     def clock = new MockClock()
@@ -139,4 +143,37 @@ class ThrottlingOutputEventListenerTest extends OutputSpecification {
         then:
         executor.isShutdown()
     }
+
+    def "does not block producers while a batch is being rendered"() {
+        def rendering = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def event1 = event('1')
+        def event2 = event('2')
+        def received = new CopyOnWriteArrayList<OutputEvent>()
+        def throttling = new ThrottlingOutputEventListener({ OutputEvent e ->
+            received << e
+            if (e == event1) {
+                rendering.countDown()
+                release.await()
+            }
+        } as OutputEventListener, 100, executor, clock)
+
+        when:
+        throttling.onOutput(event1)
+        def flusher = Thread.start { throttling.onOutput(new FlushOutputEvent()) }
+        rendering.await()
+        def producer = Thread.start { throttling.onOutput(event2) }
+        producer.join(5000)
+
+        then:
+        !producer.alive
+
+        when:
+        release.countDown()
+        flusher.join()
+        throttling.onOutput(new FlushOutputEvent())
+
+        then:
+        received.findAll { it.is(event1) || it.is(event2) } == [event1, event2]
+    }
 }
@@ -25,6 +25,7 @@ import org.gradle.internal.logging.console.ConsoleStub
 import org.gradle.internal.logging.events.EndOutputEvent
 import org.gradle.internal.logging.events.LogEvent
 import org.gradle.internal.logging.events.LogLevelChangeEvent
+import org.gradle.internal.logging.events.OutputEvent
 import org.gradle.internal.logging.events.OutputEventListener
 import org.gradle.internal.nativeintegration.console.ConsoleMetaData
 import org.gradle.internal.operations.BuildOperationCategory
@@ -33,6 +34,9 @@ import org.gradle.util.RedirectStdOutAndErr
 import org.junit.Rule
 import spock.lang.Unroll
 
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
 class OutputEventRendererTest extends OutputSpecification {
     @Rule
     public final RedirectStdOutAndErr outputs = new RedirectStdOutAndErr()
@@ -470,6 +474,105 @@ class OutputEventRendererTest extends OutputSpecification {
         outputs.stdOut == ''
         outputs.stdErr == ''
     }
+
+    def "producer does not wait while another thread is rendering and its events are rendered in order"() {
+        def rendering = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def received = new CopyOnWriteArrayList<String>()
+        renderer.addOutputEventListener({ OutputEvent e ->
+            if (e instanceof LogEvent) {
+                received << e.message
+                if (e.message == 'first') {
+                    rendering.countDown()
+                    release.await()
+                }
+            }
+        } as OutputEventListener)
+
+        when:
+        def renderingThread = Thread.start { renderer.onOutput(event('first', LogLevel.INFO)) }
+        rendering.await()
+        def producer = Thread.start {
+            renderer.onOutput(event('second', LogLevel.INFO))
+            renderer.onOutput(event('third', LogLevel.INFO))
+        }
+        producer.join(5000)
+
+        then:
+        !producer.alive
+        received == ['first']
+
+        when:
+        release.countDown()
+        renderingThread.join()
+
+        then:
+        received == ['first', 'second', 'third']
+    }
+
+    def "renders events logged while another thread adds a listener once the lock is released"() {
+        def adding = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def received = new CopyOnWriteArrayList<String>()
+        renderer.addOutputEventListener({ OutputEvent e ->
+            if (e instanceof LogEvent) {
+                received << e.message
+            }
+        } as OutputEventListener)
+        def blockingListener = { OutputEvent e ->
+            if (e instanceof LogLevelChangeEvent) {
+                adding.countDown()
+                release.await()
+            }
+        } as OutputEventListener
+
+        when:
+        def addingThread = Thread.start { renderer.addOutputEventListener(blockingListener) }
+        adding.await()
+        renderer.onOutput(event('message', LogLevel.INFO))
+
+        then:
+        received == []
+
+        when:
+        release.countDown()
+        addingThread.join()
+
+        then:
+        received == ['message']
+    }
+
+    def "drops progress updates when the output buffer is full"() {
+        def bufferedRenderer = new OutputEventRenderer(Time.clock(), 1)
+        def rendering = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def received = new CopyOnWriteArrayList<OutputEvent>()
+        def startEvent = start('operation')
+        def progressEvent = progress('status')
+        bufferedRenderer.configure(LogLevel.INFO)
+        bufferedRenderer.addOutputEventListener({ OutputEvent e ->
+            received << e
+            if (e instanceof LogEvent && e.message == 'first') {
+                rendering.countDown()
+                release.await()
+            }
+        } as OutputEventListener)
+        bufferedRenderer.onOutput(startEvent)
+
+        when:
+        def renderingThread = Thread.start { bufferedRenderer.onOutput(event('first', LogLevel.INFO)) }
+        rendering.await()
+        bufferedRenderer.onOutput(event('second', LogLevel.INFO))
+        bufferedRenderer.onOutput(progressEvent)
+        release.countDown()
+        renderingThread.join()
+        bufferedRenderer.flush()
+
+        then:
+        received.findAll { it instanceof LogEvent }*.message == ['first', 'second']
+        received.contains(startEvent)
+        !received.contains(progressEvent)
+    }
 }
 
 class TestListener implements StandardOutputListener {
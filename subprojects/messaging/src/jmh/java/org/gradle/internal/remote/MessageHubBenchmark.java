@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.remote.services.MessagingServices;
+import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.service.ServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Measures the throughput of messages sent over a TCP connection between two message hubs, for messages shaped like test events and like worker protocol requests.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class MessageHubBenchmark {
+    private static final int MESSAGES_PER_OPERATION = 1000;
+
+    @Param({"test-events", "worker-protocol"})
+    String workload;
+
+    private ServiceRegistry serverServices;
+    private ServiceRegistry clientServices;
+    private ConnectionAcceptor acceptor;
+    private ObjectConnection serverConnection;
+    private ObjectConnection clientConnection;
+    private BenchmarkProtocol protocol;
+    private final Semaphore received = new Semaphore(0);
+    private final byte[] parameters = new byte[16 * 1024];
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        serverServices = ServiceRegistryBuilder.builder().provider(new BenchmarkMessagingServices()).build();
+        clientServices = ServiceRegistryBuilder.builder().provider(new BenchmarkMessagingServices()).build();
+
+        final BlockingQueue<ObjectConnection> accepted = new ArrayBlockingQueue<ObjectConnection>(1);
+        acceptor = serverServices.get(MessagingServer.class).accept(new Action<ObjectConnection>() {
+            @Override
+            public void execute(ObjectConnection connection) {
+                accepted.add(connection);
+            }
+        });
+        clientConnection = clientServices.get(MessagingClient.class).getConnection(acceptor.getAddress());
+        serverConnection = accepted.take();
+
+        serverConnection.addIncoming(BenchmarkProtocol.class, new BenchmarkProtocol() {
+            @Override
+            public void testEvent(String className, String testName, long timestamp) {
+                received.release();
+            }
+
+            @Override
+            public void work(String implementationClassName, byte[] parameters) {
+                received.release();
+            }
+        });
+        protocol = clientConnection.addOutgoing(BenchmarkProtocol.class);
+        serverConnection.connect();
+        clientConnection.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CompositeStoppable.stoppable(clientConnection, serverConnection, acceptor).stop();
+        CompositeStoppable.stoppable(clientServices, serverServices).stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_OPERATION)
+    public void sendMessages() throws InterruptedException {
+        if (workload.equals("test-events")) {
+            for (int i = 0; i < MESSAGES_PER_OPERATION; i++) {
+                protocol.testEvent("org.gradle.SomeTest", "test method " + i, i);
+            }
+        } else {
+            for (int i = 0; i < MESSAGES_PER_OPERATION; i++) {
+                protocol.work("org.gradle.SomeWorkAction", parameters);
+            }
+        }
+        received.acquire(MESSAGES_PER_OPERATION);
+    }
+
+    public interface BenchmarkProtocol {
+        void testEvent(String className, String testName, long timestamp);
+
+        void work(String implementationClassName, byte[] parameters);
+    }
+
+    private static class BenchmarkMessagingServices extends MessagingServices {
+        ExecutorFactory createExecutorFactory() {
+            return new DefaultExecutorFactory();
+        }
+    }
+}
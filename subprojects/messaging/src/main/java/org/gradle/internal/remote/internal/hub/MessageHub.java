@@ -45,6 +45,7 @@ public class MessageHub implements AsyncStoppable {
     private enum State {Running, Stopping, Stopped}
 
     private static final Discard DISCARD = new Discard();
+    private static final int MAX_MESSAGES_PER_FLUSH = 1000;
     private final ManagedExecutor workers;
     private final String displayName;
     private final Action<? super Throwable> errorHandler;
@@ -321,19 +322,33 @@ public void run() {
                         } finally {
                             lock.unlock();
                         }
-                        for (InterHubMessage message : messages) {
-                            try {
-                                connection.dispatch(message);
-                            } catch (RecoverableMessageIOException e) {
-                                addToIncoming(new StreamFailureMessage(e));
+                        int dispatched = 0;
+                        while (!messages.isEmpty()) {
+                            for (InterHubMessage message : messages) {
+                                try {
+                                    connection.dispatch(message);
+                                } catch (RecoverableMessageIOException e) {
+                                    addToIncoming(new StreamFailureMessage(e));
+                                }
+                                if (message instanceof EndOfStream) {
+                                    connection.flush();
+                                    return;
+                                }
                             }
-                            if (message instanceof EndOfStream) {
-                                connection.flush();
-                                return;
+                            dispatched += messages.size();
+                            messages.clear();
+                            if (dispatched >= MAX_MESSAGES_PER_FLUSH) {
+                                break;
+                            }
+                            // Send the messages queued for this connection while the previous ones were being written with the same flush
+                            lock.lock();
+                            try {
+                                queue.poll(messages);
+                            } finally {
+                                lock.unlock();
                             }
                         }
                         connection.flush();
-                        messages.clear();
                     }
                 } finally {
                     lock.lock();
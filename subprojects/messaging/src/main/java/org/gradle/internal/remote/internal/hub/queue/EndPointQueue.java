@@ -56,6 +56,17 @@ public void take(Collection<InterHubMessage> drainTo) {
         queue.clear();
     }
 
+    /**
+     * Moves any messages that are ready for this endpoint to the given collection, without blocking. Unlike {@link #take(Collection)}, this does not
+     * register this endpoint as waiting for messages, so unicast messages keep going to the endpoints that are waiting. When this is the only endpoint,
+     * the queued unicast messages are forwarded to it as well.
+     */
+    public void poll(Collection<InterHubMessage> drainTo) {
+        owner.polled(this);
+        drainTo.addAll(queue);
+        queue.clear();
+    }
+
     public void stop() {
         owner.stopped(this);
     }
@@ -20,6 +20,7 @@
 import org.gradle.internal.remote.internal.hub.protocol.EndOfStream;
 import org.gradle.internal.remote.internal.hub.protocol.InterHubMessage;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -53,6 +54,13 @@ void empty(EndPointQueue endPointQueue) {
         flush();
     }
 
+    void polled(EndPointQueue endPointQueue) {
+        if (endpoints.size() == 1 && endpoints.contains(endPointQueue)) {
+            // No other endpoint can handle the unicast messages, so forward them to this endpoint even though it is not waiting
+            flush(endPointQueue);
+        }
+    }
+
     void stopped(EndPointQueue queue) {
         waiting.remove(queue);
         endpoints.remove(queue);
@@ -67,7 +75,10 @@ public void drain(Collection<InterHubMessage> drainTo) {
     private void flush() {
         // TODO - need to do a better job of routing messages when there are multiple endpoints. This is just going to forward all queued messages to the first
         // waiting endpoint, even if there are multiple waiting to do work
-        EndPointQueue selected = waiting.isEmpty() ? null : waiting.get(0);
+        flush(waiting.isEmpty() ? null : waiting.get(0));
+    }
+
+    private void flush(@Nullable EndPointQueue selected) {
         while (!queue.isEmpty()) {
             InterHubMessage message = queue.peekFirst();
             switch (message.getDelivery()) {
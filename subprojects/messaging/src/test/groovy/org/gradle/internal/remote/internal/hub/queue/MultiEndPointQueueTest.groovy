@@ -162,4 +162,82 @@ class MultiEndPointQueueTest extends AbstractQueueTest {
         messages.size() == 1
         messages[0] instanceof EndOfStream
     }
+
+    def "endpoint can poll for messages without blocking"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def message3 = broadcast()
+        def endpoint = queue.newEndpoint()
+
+        when:
+        def messages = []
+        endpoint.poll(messages)
+
+        then:
+        messages.empty
+
+        when:
+        queue.dispatch(message1)
+        queue.dispatch(message3)
+        queue.dispatch(message2)
+        endpoint.poll(messages)
+
+        then:
+        messages == [message1, message3, message2]
+    }
+
+    def "endpoint that polls does not receive unicast messages when there are other endpoints"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def message3 = broadcast()
+        def endpoint1 = queue.newEndpoint()
+        def endpoint2 = queue.newEndpoint()
+
+        when:
+        def messages = []
+        queue.dispatch(message1)
+        queue.dispatch(message2)
+        endpoint1.poll(messages)
+
+        then:
+        messages.empty
+
+        when:
+        endpoint1.take(messages)
+
+        then:
+        messages == [message1, message2]
+
+        when:
+        queue.dispatch(message3)
+        endpoint1.poll(messages)
+
+        then:
+        messages == [message1, message2, message3]
+    }
+
+    def "forwards unicast messages to endpoint that takes rather than to endpoint that polls"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def endpoint1 = queue.newEndpoint()
+        def endpoint2 = queue.newEndpoint()
+
+        and:
+        def messages1 = []
+        endpoint1.poll(messages1)
+
+        when:
+        queue.dispatch(message1)
+        queue.dispatch(message2)
+        endpoint1.poll(messages1)
+        def messages2 = []
+        endpoint2.take(messages2)
+
+        then:
+        messages1.empty
+        messages2 == [message1, message2]
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.performance.experiment.java
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.categories.PerformanceExperiment
+import org.gradle.process.internal.ClassDataSharingArchives
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+import static org.gradle.performance.generator.JavaTestProject.LARGE_JAVA_MULTI_PROJECT
+import static org.gradle.performance.generator.JavaTestProject.LARGE_MONOLITHIC_JAVA_PROJECT
+
+@Category(PerformanceExperiment)
+class ClassDataSharingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    @Unroll
+    def "cold daemon on #testProject with class data sharing"() {
+        given:
+        // The warm-up builds record the archives, later builds use them
+        def classDataSharing = "-D${ClassDataSharingArchives.ENABLED_PROPERTY}=true"
+        runner.testGroup = "class data sharing"
+        runner.buildSpec {
+            warmUpCount = warmUpRuns
+            invocationCount = runs
+            projectName(testProject.projectName).displayName("class data sharing").invocation {
+                tasksToRun("tasks").args(classDataSharing).gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}", classDataSharing)
+            }
+        }
+        runner.baseline {
+            warmUpCount = warmUpRuns
+            invocationCount = runs
+            projectName(testProject.projectName).displayName("no class data sharing").invocation {
+                tasksToRun("tasks").gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}")
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+
+        where:
+        testProject                   | warmUpRuns | runs
+        LARGE_MONOLITHIC_JAVA_PROJECT | 5          | 10
+        LARGE_JAVA_MULTI_PROJECT      | 5          | 10
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.performance.AbstractCrossVersionGradleProfilerPerformanceTest
 import spock.lang.Unroll
 
 import static org.gradle.performance.generator.JavaTestProject.LARGE_JAVA_MULTI_PROJECT
+import static org.gradle.performance.generator.JavaTestProject.LARGE_JAVA_MULTI_PROJECT_DECOUPLED
 import static org.gradle.performance.generator.JavaTestProject.LARGE_JAVA_MULTI_PROJECT_KOTLIN_DSL
 import static org.gradle.performance.generator.JavaTestProject.LARGE_MONOLITHIC_JAVA_PROJECT
 
@@ -44,5 +45,6 @@ class JavaConfigurationPerformanceTest extends AbstractCrossVersionGradleProfile
         LARGE_MONOLITHIC_JAVA_PROJECT            | _
         LARGE_JAVA_MULTI_PROJECT                 | _
         LARGE_JAVA_MULTI_PROJECT_KOTLIN_DSL      | _
+        LARGE_JAVA_MULTI_PROJECT_DECOUPLED       | _
     }
 }
@@ -19,25 +19,39 @@
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.internal.Factory;
 
+import java.util.function.Supplier;
+
+/**
+ * A cache that creates missing values at most once at a time per key: a thread asking for a value that another thread
+ * is already creating waits for it and then uses the stored value.
+ */
 public class MinimalPersistentCache<K, V> implements Cache<K, V> {
     private final PersistentIndexedCache<K, V> cache;
+    private final ProducerGuard<K> guard = ProducerGuard.adaptive();
 
     public MinimalPersistentCache(PersistentIndexedCache<K, V> cache) {
         this.cache = cache;
     }
 
     @Override
-    public V get(K key, Factory<V> factory) {
+    public V get(final K key, final Factory<V> factory) {
         V cached = cache.get(key);
         if (cached != null) {
             return cached;
         }
 
-        V value = factory.create(); //don't synchronize value creation
-        //we could potentially avoid creating value that is already being created by a different thread.
-
-        cache.put(key, value);
-        return value;
+        return guard.guardByKey(key, new Supplier<V>() {
+            @Override
+            public V get() {
+                V cached = cache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                V value = factory.create();
+                cache.put(key, value);
+                return value;
+            }
+        });
     }
 
     public V get(K value) {
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+class MinimalPersistentCacheTest extends ConcurrentSpec {
+    def values = new ConcurrentHashMap<String, String>()
+    def persistentCache = Stub(PersistentIndexedCache) {
+        get(_) >> { String key -> values.get(key) }
+        put(_, _) >> { String key, String value -> values.put(key, value) }
+    }
+    def cache = new MinimalPersistentCache<String, String>(persistentCache)
+
+    def "returns stored value without creating it"() {
+        given:
+        values.put("foo", "stored")
+
+        expect:
+        cache.get("foo", { throw new IllegalStateException() } as Factory) == "stored"
+    }
+
+    def "creates and stores missing value"() {
+        expect:
+        cache.get("foo", { "created" } as Factory) == "created"
+        values.get("foo") == "created"
+    }
+
+    def "creates a value that is requested concurrently only once"() {
+        given:
+        def calls = new AtomicInteger()
+        def results = new ConcurrentHashMap<Integer, String>()
+
+        when:
+        async {
+            10.times { i ->
+                start {
+                    results.put(i, cache.get("foo", {
+                        calls.incrementAndGet()
+                        thread.block()
+                        "created"
+                    } as Factory))
+                }
+            }
+        }
+
+        then:
+        calls.get() == 1
+        results.values().toSet() == ["created"] as Set
+        results.size() == 10
+    }
+}
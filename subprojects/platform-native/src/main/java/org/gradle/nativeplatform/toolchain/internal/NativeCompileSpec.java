@@ -16,6 +16,7 @@
 
 package org.gradle.nativeplatform.toolchain.internal;
 
+import org.gradle.internal.hash.HashCode;
 import org.gradle.nativeplatform.internal.BinaryToolSpec;
 
 import java.io.File;
@@ -92,4 +93,11 @@ public interface NativeCompileSpec extends BinaryToolSpec {
     List<File> getSourceFilesForPch();
 
     void setSourceFilesForPch(List<File> sourceFilesForPch);
+
+    /**
+     * The hash of each source file together with the content of every header it includes, for those source files whose includes could all be resolved.
+     */
+    Map<File, HashCode> getTranslationUnitHashes();
+
+    void setTranslationUnitHashes(Map<File, HashCode> translationUnitHashes);
 }
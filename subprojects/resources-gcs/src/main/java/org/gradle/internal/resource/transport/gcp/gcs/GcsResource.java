@@ -48,6 +48,11 @@ public ExternalResourceMetaData getMetaData() {
         return toExternalResourceMetaData(uri, gcsObject);
     }
 
+    @Override
+    public boolean isUnchanged() {
+        return false;
+    }
+
     @Override
     public void close() throws IOException {
         // no-op
@@ -65,6 +65,20 @@ public void close() {
         }
     }
 
+    /**
+     * Closes this response without reading the remaining content. The underlying connection is not reused.
+     */
+    void discard() {
+        if (!closed) {
+            closed = true;
+            try {
+                httpResponse.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
     String getMethod() {
         return method;
     }
@@ -78,6 +92,11 @@ boolean wasSuccessful() {
         return statusCode >= 200 && statusCode < 400;
     }
 
+    boolean wasNotModified() {
+        int statusCode = getStatusLine().getStatusCode();
+        return statusCode == 304;
+    }
+
     boolean wasMissing() {
         int statusCode = getStatusLine().getStatusCode();
         return statusCode == 404;
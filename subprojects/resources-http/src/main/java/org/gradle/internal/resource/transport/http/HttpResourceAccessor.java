@@ -16,6 +16,7 @@
 
 package org.gradle.internal.resource.transport.http;
 
+import com.google.common.collect.Sets;
 import org.gradle.internal.IoActions;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceAccessor;
@@ -24,11 +25,15 @@
 
 import javax.annotation.Nullable;
 import java.net.URI;
+import java.util.Date;
+import java.util.Set;
 
 public class HttpResourceAccessor implements ExternalResourceAccessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
+    // Hosts that have answered a conditional request with the full content of a resource whose ETag had not changed
+    private final Set<String> hostsIgnoringConditionalRequests = Sets.newConcurrentHashSet();
 
     public HttpResourceAccessor(HttpClientHelper http) {
         this.http = http;
@@ -48,6 +53,57 @@ public HttpResponseResource openResource(final URI uri, boolean revalidate) {
         return null;
     }
 
+    @Override
+    @Nullable
+    public HttpResponseResource openResourceIfChanged(final URI uri, ExternalResourceMetaData cachedMetaData) {
+        String location = uri.toString();
+        String etag = cachedMetaData.getEtag();
+        Date lastModified = cachedMetaData.getLastModified();
+        if (etag == null && lastModified == null) {
+            // Nothing to validate against
+            return openResource(uri, true);
+        }
+
+        if (etag != null && hostsIgnoringConditionalRequests.contains(hostOf(uri))) {
+            return openResourceIfEtagChanged(uri, etag);
+        }
+
+        LOGGER.debug("Constructing external resource, if changed since etag: {} lastModified: {}: {}", etag, lastModified, location);
+        HttpClientResponse response = http.performConditionalGet(location, etag, lastModified);
+        if (response == null) {
+            return null;
+        }
+        HttpResponseResource resource = wrapResponse(uri, response);
+        if (!resource.isUnchanged() && etag != null && etag.equals(resource.getMetaData().getEtag())) {
+            // The server ignored the conditional headers. Don't download content that has not changed, and compare ETags
+            // from a HEAD request for the resources of this host from now on
+            LOGGER.debug("Server for {} does not support conditional requests, falling back to comparing ETags.", location);
+            hostsIgnoringConditionalRequests.add(hostOf(uri));
+            return resource.markUnchanged();
+        }
+        return resource;
+    }
+
+    @Nullable
+    private HttpResponseResource openResourceIfEtagChanged(URI uri, String etag) {
+        String location = uri.toString();
+        LOGGER.debug("Constructing external resource, if ETag has changed since {}: {}", etag, location);
+        HttpClientResponse response = http.performHead(location, true);
+        if (response == null) {
+            return null;
+        }
+        HttpResponseResource resource = new HttpResponseResource("HEAD", uri, response);
+        if (etag.equals(resource.getMetaData().getEtag())) {
+            return resource.markUnchanged();
+        }
+        IoActions.closeQuietly(resource);
+        return openResource(uri, true);
+    }
+
+    private static String hostOf(URI uri) {
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
     /**
      * Same as #getResource except that it always gives access to the response body,
      * irrespective of the returned HTTP status code. Never returns {@code null}.
@@ -36,6 +36,7 @@ public class HttpResponseResource implements ExternalResourceReadResponse {
     private final HttpClientResponse response;
     private final ExternalResourceMetaData metaData;
     private boolean wasOpened;
+    private boolean unchanged;
 
     public HttpResponseResource(String method, URI source, HttpClientResponse response) {
         this.method = method;
@@ -101,6 +102,20 @@ public boolean isLocal() {
         return false;
     }
 
+    @Override
+    public boolean isUnchanged() {
+        return unchanged || response.wasNotModified();
+    }
+
+    /**
+     * Marks this response as describing a resource that is known to be unchanged, and discards any content.
+     */
+    HttpResponseResource markUnchanged() {
+        unchanged = true;
+        response.discard();
+        return this;
+    }
+
     @Override
     public InputStream openStream() throws IOException {
         if (wasOpened) {
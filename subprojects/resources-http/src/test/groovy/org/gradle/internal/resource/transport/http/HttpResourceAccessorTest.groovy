@@ -16,7 +16,12 @@
 
 package org.gradle.internal.resource.transport.http
 
+import org.apache.http.HttpVersion
+import org.apache.http.HttpEntity
 import org.apache.http.client.methods.CloseableHttpResponse
+import org.apache.http.message.BasicHeader
+import org.apache.http.message.BasicStatusLine
+import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData
 import spock.lang.Specification
 
 class HttpResourceAccessorTest extends Specification {
@@ -34,4 +39,102 @@ class HttpResourceAccessorTest extends Specification {
         then:
         1 * response.close()
     }
+
+    def "performs conditional request using validators of cached resource"() {
+        def lastModified = new Date(1000)
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, lastModified, 42, null, "abc", null)
+        def response = Mock(CloseableHttpResponse) {
+            getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, 304, "Not Modified")
+        }
+        def http = Mock(HttpClientHelper)
+
+        when:
+        def resource = new HttpResourceAccessor(http).openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performConditionalGet(uri.toString(), "abc", lastModified) >> new HttpClientResponse("GET", uri, response)
+        resource.unchanged
+    }
+
+    def "reads resource when there is nothing to validate the cached resource against"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, (Date) null, 42, null, null, null)
+        def response = Mock(CloseableHttpResponse) {
+            getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK")
+        }
+        def http = Mock(HttpClientHelper)
+
+        when:
+        def resource = new HttpResourceAccessor(http).openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performGet(uri.toString(), true) >> new HttpClientResponse("GET", uri, response)
+        0 * http.performConditionalGet(_, _, _)
+        !resource.unchanged
+    }
+
+    def "treats full response with unchanged etag as unchanged and validates with HEAD requests afterwards"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, new Date(1000), 42, null, "abc", null)
+        def entity = Mock(HttpEntity)
+        def getResponse = response(200, "abc", entity)
+        def headResponse = response(200, "abc")
+        def http = Mock(HttpClientHelper)
+        def accessor = new HttpResourceAccessor(http)
+
+        when:
+        def resource = accessor.openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performConditionalGet(uri.toString(), "abc", _) >> new HttpClientResponse("GET", uri, getResponse)
+        1 * getResponse.close()
+        0 * entity._
+        resource.unchanged
+
+        when:
+        resource = accessor.openResourceIfChanged(new URI("http://somewhere/other"), cachedMetaData)
+
+        then:
+        1 * http.performHead("http://somewhere/other", true) >> new HttpClientResponse("HEAD", uri, headResponse)
+        0 * http.performConditionalGet(_, _, _)
+        0 * http.performGet(_, _)
+        resource.unchanged
+    }
+
+    def "reads resource when HEAD request reports a changed etag for a host that ignores conditional requests"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, new Date(1000), 42, null, "abc", null)
+        def http = Mock(HttpClientHelper)
+        def accessor = new HttpResourceAccessor(http)
+        http.performConditionalGet(_, _, _) >> new HttpClientResponse("GET", uri, response(200, "abc", Mock(HttpEntity)))
+        accessor.openResourceIfChanged(uri, cachedMetaData)
+        def headResponse = response(200, "def")
+        def getResponse = response(200, "def")
+
+        when:
+        def resource = accessor.openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performHead(uri.toString(), true) >> new HttpClientResponse("HEAD", uri, headResponse)
+        1 * http.performGet(uri.toString(), true) >> new HttpClientResponse("GET", uri, getResponse)
+        !resource.unchanged
+    }
+
+    def "reads resource when full response has a different etag"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, new Date(1000), 42, null, "abc", null)
+        def http = Mock(HttpClientHelper)
+        def getResponse = response(200, "def")
+
+        when:
+        def resource = new HttpResourceAccessor(http).openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performConditionalGet(uri.toString(), "abc", _) >> new HttpClientResponse("GET", uri, getResponse)
+        !resource.unchanged
+    }
+
+    private CloseableHttpResponse response(int statusCode, String etag, HttpEntity entity = null) {
+        def response = Mock(CloseableHttpResponse)
+        response.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, "")
+        response.getFirstHeader(_) >> { String name -> name == "ETag" ? new BasicHeader("ETag", etag) : null }
+        response.getEntity() >> entity
+        return response
+    }
 }
@@ -66,6 +66,11 @@ public ExternalResourceMetaData getMetaData() {
                 null); // Passing null for sha1 - TODO - consider using the etag which is an MD5 hash of the file (when less than 5Gb)
     }
 
+    @Override
+    public boolean isUnchanged() {
+        return false;
+    }
+
     @Override
     public void close() throws IOException {
         s3Object.close();
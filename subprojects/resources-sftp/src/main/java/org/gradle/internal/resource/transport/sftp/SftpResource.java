@@ -63,6 +63,11 @@ public ExternalResourceMetaData getMetaData() {
         return metaData;
     }
 
+    @Override
+    public boolean isUnchanged() {
+        return false;
+    }
+
     @Override
     public void close() {
         clientFactory.releaseSftpClient(client);
@@ -239,6 +239,22 @@ public ExternalResourceReadResult<T> call(BuildOperationContext buildOperationCo
         });
     }
 
+    @Nullable
+    @Override
+    public <T> ExternalResourceReadResult<T> withContentIfChanged(final ExternalResourceMetaData cachedMetaData, final ContentAction<? extends T> readAction) throws ResourceException {
+        return buildOperationExecutor.call(new CallableBuildOperation<ExternalResourceReadResult<T>>() {
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return createBuildOperationDetails();
+            }
+
+            @Override
+            public ExternalResourceReadResult<T> call(BuildOperationContext buildOperationContext) {
+                return result(buildOperationContext, delegate.withContentIfChanged(cachedMetaData, readAction));
+            }
+        });
+    }
+
     private static <T> ExternalResourceReadResult<T> result(BuildOperationContext buildOperationContext, ExternalResourceReadResult<T> result) {
         buildOperationContext.setResult(new ReadOperationResult(result == null ? 0 : result.getBytesRead()));
         return result;
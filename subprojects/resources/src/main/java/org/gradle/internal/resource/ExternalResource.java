@@ -108,6 +108,16 @@ public interface ExternalResource extends Resource {
     @Nullable
     <T> ExternalResourceReadResult<T> withContentIfPresent(ContentAction<? extends T> readAction) throws ResourceException;
 
+    /**
+     * Executes the given action against the binary contents and meta-data of this resource, if the resource exists and has changed since
+     * the given meta-data was obtained. The resource is always revalidated. When the transport supports it, a single conditional request is made.
+     *
+     * @throws ResourceException on failure to read the content.
+     * @return null if the resource does not exist. When the resource has not changed, the action is not executed and the result is {@link ExternalResourceReadResult#isUnchanged() unchanged}.
+     */
+    @Nullable
+    <T> ExternalResourceReadResult<T> withContentIfChanged(ExternalResourceMetaData cachedMetaData, ContentAction<? extends T> readAction) throws ResourceException;
+
     /**
      * Copies the given content to this resource.
      *
@@ -25,18 +25,24 @@
 
     private final long bytesRead;
     private final T result;
+    private final boolean unchanged;
 
-    private ExternalResourceReadResult(long bytesRead, T result) {
+    private ExternalResourceReadResult(long bytesRead, T result, boolean unchanged) {
         this.bytesRead = bytesRead;
         this.result = result;
+        this.unchanged = unchanged;
     }
 
     public static ExternalResourceReadResult<Void> of(long bytesRead) {
-        return new ExternalResourceReadResult<Void>(bytesRead, null);
+        return new ExternalResourceReadResult<Void>(bytesRead, null, false);
     }
 
     public static <T> ExternalResourceReadResult<T> of(long bytesRead, T t) {
-        return new ExternalResourceReadResult<T>(bytesRead, t);
+        return new ExternalResourceReadResult<T>(bytesRead, t, false);
+    }
+
+    public static <T> ExternalResourceReadResult<T> unchanged() {
+        return new ExternalResourceReadResult<T>(0, null, true);
     }
 
     /**
@@ -62,4 +68,11 @@ public long getBytesRead() {
     public T getResult() {
         return result;
     }
+
+    /**
+     * Whether a conditional read found the resource to be unchanged, in which case no content was read.
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
 }
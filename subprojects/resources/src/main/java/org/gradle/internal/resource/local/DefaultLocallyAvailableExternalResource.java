@@ -120,4 +120,10 @@ public <T> ExternalResourceReadResult<T> withContent(ContentAction<? extends T>
     public <T> ExternalResourceReadResult<T> withContentIfPresent(ContentAction<? extends T> readAction) throws ResourceException {
         return localFile.withContentIfPresent(readAction);
     }
+
+    @Override
+    @Nullable
+    public <T> ExternalResourceReadResult<T> withContentIfChanged(ExternalResourceMetaData cachedMetaData, ContentAction<? extends T> readAction) throws ResourceException {
+        return localFile.withContentIfChanged(cachedMetaData, readAction);
+    }
 }
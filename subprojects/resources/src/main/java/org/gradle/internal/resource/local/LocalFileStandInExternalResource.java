@@ -180,6 +180,13 @@ public <T> ExternalResourceReadResult<T> withContentIfPresent(ContentAction<? ex
         }
     }
 
+    @Nullable
+    @Override
+    public <T> ExternalResourceReadResult<T> withContentIfChanged(ExternalResourceMetaData cachedMetaData, ContentAction<? extends T> readAction) throws ResourceException {
+        // Reading a local file is as cheap as checking whether it has changed
+        return withContentIfPresent(readAction);
+    }
+
     @Nullable
     @Override
     public <T> ExternalResourceReadResult<T> withContentIfPresent(Transformer<? extends T, ? super InputStream> readAction) throws ResourceException {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import org.gradle.api.resources.ResourceException;
+import org.gradle.internal.Factory;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaDataCompare;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Base class for accessors whose transport does not support conditional requests. A conditional read is emulated by comparing
+ * the cached meta-data with the current meta-data of the resource, before reading the content.
+ */
+public abstract class AbstractExternalResourceAccessor implements ExternalResourceAccessor {
+
+    @Nullable
+    @Override
+    public ExternalResourceReadResponse openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) throws ResourceException {
+        final ExternalResourceMetaData remoteMetaData = getMetaData(location, true);
+        if (remoteMetaData == null) {
+            return null;
+        }
+        boolean isUnchanged = ExternalResourceMetaDataCompare.isDefinitelyUnchanged(cachedMetaData, new Factory<ExternalResourceMetaData>() {
+            @Override
+            public ExternalResourceMetaData create() {
+                return remoteMetaData;
+            }
+        });
+        if (isUnchanged) {
+            return new UnchangedResourceResponse(location, cachedMetaData);
+        }
+        return openResource(location, true);
+    }
+
+    /**
+     * The response to a conditional read of a resource that has not changed.
+     */
+    public static class UnchangedResourceResponse implements ExternalResourceReadResponse {
+        private final URI location;
+        private final ExternalResourceMetaData metaData;
+
+        public UnchangedResourceResponse(URI location, ExternalResourceMetaData metaData) {
+            this.location = location;
+            this.metaData = metaData;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            throw new IOException(String.format("Resource '%s' has not changed and has no content.", location));
+        }
+
+        @Override
+        public ExternalResourceMetaData getMetaData() {
+            return metaData;
+        }
+
+        @Override
+        public boolean isUnchanged() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return "Unchanged resource: " + location;
+        }
+    }
+}
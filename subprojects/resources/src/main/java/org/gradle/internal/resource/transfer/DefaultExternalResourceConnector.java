@@ -56,6 +56,13 @@ public ExternalResourceReadResponse openResource(URI location, boolean revalidat
         return accessor.openResource(location, revalidate);
     }
 
+    @Nullable
+    @Override
+    public ExternalResourceReadResponse openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) {
+        STATS.resource(location);
+        return accessor.openResourceIfChanged(location, cachedMetaData);
+    }
+
     @Nullable
     @Override
     public ExternalResourceMetaData getMetaData(URI location, boolean revalidate) {
@@ -40,6 +40,21 @@ public interface ExternalResourceAccessor {
     @Nullable
     ExternalResourceReadResponse openResource(URI location, boolean revalidate) throws ResourceException;
 
+    /**
+     * Read the resource at the given location, unless it has not changed since the given meta-data was obtained. The resource is always revalidated.
+     *
+     * Implementations should use a single conditional request where the transport supports it, for example {@code If-None-Match} and {@code If-Modified-Since} for HTTP.
+     *
+     * If the resource does not exist, this method should return null.
+     *
+     * @param location The address of the resource to obtain
+     * @param cachedMetaData The meta-data of the locally cached copy of the resource
+     * @return The resource if it exists, otherwise null. The response is {@link ExternalResourceReadResponse#isUnchanged() unchanged} when the resource has not changed. Caller is responsible for closing the result.
+     * @throws ResourceException If the resource may exist, but not could be obtained for some reason.
+     */
+    @Nullable
+    ExternalResourceReadResponse openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) throws ResourceException;
+
     /**
      * Obtains only the metadata about the resource.
      *
@@ -29,4 +29,10 @@ public interface ExternalResourceReadResponse extends Closeable {
     InputStream openStream() throws IOException;
 
     ExternalResourceMetaData getMetaData();
+
+    /**
+     * Returns true when this response is the result of a conditional read and the resource has not changed since the meta-data passed to
+     * {@link ExternalResourceAccessor#openResourceIfChanged(java.net.URI, ExternalResourceMetaData)} was obtained. Such a response has no content.
+     */
+    boolean isUnchanged();
 }
@@ -35,7 +35,7 @@
 import java.net.URLConnection;
 import java.util.List;
 
-public class UrlExternalResource implements ExternalResourceConnector {
+public class UrlExternalResource extends AbstractExternalResourceAccessor implements ExternalResourceConnector {
     public static ExternalResource open(URL url) throws IOException {
         URI uri;
         try {
@@ -83,6 +83,11 @@ public ExternalResourceMetaData getMetaData() {
                     return new DefaultExternalResourceMetaData(location, connection.getLastModified(), connection.getContentLength(), connection.getContentType(), null, null);
                 }
 
+                @Override
+                public boolean isUnchanged() {
+                    return false;
+                }
+
                 @Override
                 public void close() throws IOException {
                     inputStream.close();
@@ -164,6 +164,51 @@ class AccessorBackedExternalResourceTest extends Specification {
         0 * _
     }
 
+    def "applies ContentAction to the content of the resource only when it has changed"() {
+        def name = new ExternalResourceName("resource")
+        def action = Mock(ExternalResource.ContentAction)
+        def response = Mock(ExternalResourceReadResponse)
+
+        def resource = new AccessorBackedExternalResource(name, resourceAccessor, resourceUploader, resourceLister, false)
+        def cachedMetaData = Stub(ExternalResourceMetaData)
+        def metaData = Stub(ExternalResourceMetaData)
+
+        when:
+        def result = resource.withContentIfChanged(cachedMetaData, action)
+
+        then:
+        result.unchanged
+        result.result == null
+        result.bytesRead == 0
+        1 * resourceAccessor.openResourceIfChanged(name.uri, cachedMetaData) >> response
+        1 * response.unchanged >> true
+        1 * response.close()
+        0 * _
+
+        when:
+        result = resource.withContentIfChanged(cachedMetaData, action)
+
+        then:
+        !result.unchanged
+        result.result == "result"
+        result.bytesRead == 4
+        1 * resourceAccessor.openResourceIfChanged(name.uri, cachedMetaData) >> response
+        1 * response.unchanged >> false
+        1 * response.openStream() >> new ByteArrayInputStream("1234".getBytes())
+        _ * response.metaData >> metaData
+        1 * action.execute(_, metaData) >> { InputStream input, ExternalResourceMetaData m -> input.text; "result" }
+        1 * response.close()
+        0 * _
+
+        when:
+        result = resource.withContentIfChanged(cachedMetaData, action)
+
+        then:
+        result == null
+        1 * resourceAccessor.openResourceIfChanged(name.uri, cachedMetaData) >> null
+        0 * _
+    }
+
     def "closes response when Action fails"() {
         def name = new ExternalResourceName("resource")
         def action = Mock(Action)
@@ -16,7 +16,10 @@
 
 package org.gradle.api.internal.tasks.testing;
 
+import org.gradle.StartParameter;
 import org.gradle.api.internal.tasks.testing.operations.TestExecutionBuildOperationBuildSessionScopeServices;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
+import org.gradle.internal.classloader.ClasspathHasher;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
 
@@ -25,6 +28,13 @@ public class TestingBasePluginServiceRegistry extends AbstractPluginServiceRegis
     @Override
     public void registerBuildSessionServices(ServiceRegistration registration) {
         registration.addProvider(new TestExecutionBuildOperationBuildSessionScopeServices());
+        registration.addProvider(new BuildSessionScopeTestWorkerServices());
+    }
+
+    private static class BuildSessionScopeTestWorkerServices {
+        TestWorkerProcessPool createTestWorkerProcessPool(StartParameter startParameter, ClasspathHasher classpathHasher) {
+            return new TestWorkerProcessPool(startParameter.getMaxWorkerCount(), classpathHasher);
+        }
     }
 
 }
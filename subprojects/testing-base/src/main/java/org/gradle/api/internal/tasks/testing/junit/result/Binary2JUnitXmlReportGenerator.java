@@ -18,6 +18,7 @@
 
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.FileUtils;
@@ -29,11 +30,15 @@
 import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.time.Timer;
+import org.gradle.reporting.ReportFiles;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 public class Binary2JUnitXmlReportGenerator {
 
@@ -53,13 +58,29 @@ public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider t
     public void generate() {
         Timer clock = Time.startTimer();
 
+        final Set<String> reportFileNames = new HashSet<String>();
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
+            @Override
+            public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
+                testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                    @Override
+                    public void execute(final TestClassResult result) {
+                        String reportFileName = getReportFileName(result);
+                        reportFileNames.add(reportFileName);
+                        final File reportFile = new File(testResultsDir, reportFileName);
+                        queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
+                    }
+                });
+            }
+        });
+
         buildOperationExecutor.run(new RunnableBuildOperation() {
             @Override
             public void run(BuildOperationContext context) {
                 File[] oldXmlFiles = testResultsDir.listFiles(new FilenameFilter() {
                     @Override
                     public boolean accept(File dir, String name) {
-                        return name.startsWith("TEST") && name.endsWith(".xml");
+                        return name.startsWith("TEST") && name.endsWith(".xml") && !reportFileNames.contains(name);
                     }
                 });
 
@@ -70,20 +91,7 @@ public boolean accept(File dir, String name) {
 
             @Override
             public BuildOperationDescriptor.Builder description() {
-                return BuildOperationDescriptor.displayName("Delete old JUnit XML results");
-            }
-        });
-
-        buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
-            @Override
-            public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
-                testResultsProvider.visitClasses(new Action<TestClassResult>() {
-                    @Override
-                    public void execute(final TestClassResult result) {
-                        final File reportFile = new File(testResultsDir, getReportFileName(result));
-                        queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
-                    }
-                });
+                return BuildOperationDescriptor.displayName("Delete stale JUnit XML results");
             }
         });
 
@@ -112,16 +120,32 @@ public BuildOperationDescriptor.Builder description() {
 
         @Override
         public void run(BuildOperationContext context) {
-            FileOutputStream output = null;
             try {
-                output = new FileOutputStream(reportFile);
-                xmlWriter.write(result, output);
-                output.close();
+                // Leaves the file untouched when the results of the class did not change
+                ReportFiles.writeIfChanged(reportFile, new Action<File>() {
+                    @Override
+                    public void execute(File file) {
+                        FileOutputStream output = null;
+                        try {
+                            output = new FileOutputStream(file);
+                            xmlWriter.write(result, output);
+                            output.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        } finally {
+                            IoActions.closeQuietly(output);
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw writeFailure(e.getCause());
             } catch (Exception e) {
-                throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), reportFile), e);
-            } finally {
-                IoActions.closeQuietly(output);
+                throw writeFailure(e);
             }
         }
+
+        private GradleException writeFailure(Throwable cause) {
+            return new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), reportFile), cause);
+        }
     }
 }
@@ -26,8 +26,14 @@
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import javax.annotation.Nullable;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -35,6 +41,8 @@ public class TestOutputStore {
 
     private final File resultsDir;
     private final Charset messageStorageCharset;
+    private Index index;
+    private boolean indexLoaded;
 
     public TestOutputStore(File resultsDir) {
         this.resultsDir = resultsDir;
@@ -86,6 +94,7 @@ public Writer() {
         public void close() {
             output.close();
             writeIndex();
+            discardIndex();
         }
 
         public void onOutput(long classId, TestOutputEvent outputEvent) {
@@ -217,62 +226,88 @@ Index build() {
         }
     }
 
-    public class Reader implements Closeable {
-        private final Index index;
-        private final RandomAccessFile dataFile;
+    /**
+     * Loads the index of the outputs file, or returns null when there is no outputs file. The index is immutable, so it is read once and shared by all readers.
+     */
+    @Nullable
+    private synchronized Index loadIndex() {
+        if (indexLoaded) {
+            return index;
+        }
 
-        public Reader() {
-            File indexFile = getIndexFile();
-            File outputsFile = getOutputsFile();
+        File indexFile = getIndexFile();
+        File outputsFile = getOutputsFile();
 
-            if (outputsFile.exists()) {
-                if (!indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
-                }
-
-                Input input;
-                try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
+        if (outputsFile.exists()) {
+            if (!indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
+            }
 
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
+            Input input;
+            try {
+                input = new Input(new FileInputStream(indexFile));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
 
-                        rootBuilder.add(classId, classBuilder.build());
+            IndexBuilder rootBuilder = null;
+            try {
+                int numClasses = input.readInt(true);
+                rootBuilder = new IndexBuilder();
+
+                for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
+                    long classId = input.readLong(true);
+                    IndexBuilder classBuilder = new IndexBuilder();
+
+                    int numEntries = input.readInt(true);
+                    for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
+                        long testId = input.readLong(true);
+                        Region stdOut = new Region(input.readLong(), input.readLong());
+                        Region stdErr = new Region(input.readLong(), input.readLong());
+                        classBuilder.add(testId, new Index(stdOut, stdErr));
                     }
-                } finally {
-                    input.close();
+
+                    rootBuilder.add(classId, classBuilder.build());
                 }
+            } finally {
+                input.close();
+            }
+
+            index = rootBuilder.build();
+        } else { // no outputs file
+            if (indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
+            }
+
+            index = null;
+        }
+        indexLoaded = true;
+        return index;
+    }
+
+    private synchronized void discardIndex() {
+        index = null;
+        indexLoaded = false;
+    }
 
-                index = rootBuilder.build();
+    public class Reader implements Closeable {
+        private final Index index;
+        private final RandomAccessFile dataFile;
+        private final CharsetDecoder messageDecoder = messageStorageCharset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CharBuffer messageChars = CharBuffer.allocate(8192);
+        private byte[] messageBytes = new byte[8192];
 
+        public Reader() {
+            index = loadIndex();
+            if (index != null) {
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
                     throw new UncheckedIOException(e);
                 }
-            } else { // no outputs file
-                if (indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
-                }
-
-                index = null;
+            } else {
                 dataFile = null;
             }
         }
@@ -362,17 +397,11 @@ private void doRead(long classId, long testId, boolean allClassOutput, TestOutpu
                     }
 
                     if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
+                        if (messageBytes.length < readLength) {
+                            messageBytes = new byte[Math.max(readLength, messageBytes.length * 2)];
                         }
-
-                        writer.write(message);
+                        decoder.readBytes(messageBytes, 0, readLength);
+                        writeMessage(readLength, writer);
                     } else {
                         decoder.skipBytes(readLength);
                     }
@@ -381,6 +410,24 @@ private void doRead(long classId, long testId, boolean allClassOutput, TestOutpu
                 throw new UncheckedIOException(e1);
             }
         }
+
+        /**
+         * Decodes a message straight into the target writer, without creating an intermediate string per message.
+         */
+        private void writeMessage(int length, java.io.Writer writer) throws IOException {
+            ByteBuffer bytes = ByteBuffer.wrap(messageBytes, 0, length);
+            messageDecoder.reset();
+            boolean flushed = false;
+            while (!flushed) {
+                CoderResult result = bytes.hasRemaining() ? messageDecoder.decode(bytes, messageChars, true) : null;
+                if (result == null || result.isUnderflow()) {
+                    result = messageDecoder.flush(messageChars);
+                    flushed = result.isUnderflow();
+                }
+                writer.write(messageChars.array(), 0, messageChars.position());
+                messageChars.clear();
+            }
+        }
     }
 
     // IMPORTANT: return must be closed when done with.
@@ -26,17 +26,26 @@
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.dispatch.DispatchException;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
  * processors.
+ *
+ * <p>When pull-based, each test class is instead assigned to a processor that has finished with its previous test class,
+ * so that a processor that draws slow test classes does not hold up the others. This requires processors whose
+ * {@link TestClassProcessor#processTestClass(TestClassRunInfo)} blocks until the test class has been processed.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final boolean pullBased;
+    private final Object idleLock = new Object();
+    private final Deque<TestClassProcessor> idleProcessors = new ArrayDeque<TestClassProcessor>();
     private TestResultProcessor resultProcessor;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
@@ -46,9 +55,14 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, false);
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, boolean pullBased) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.pullBased = pullBased;
     }
 
     @Override
@@ -65,14 +79,13 @@ public void processTestClass(TestClassRunInfo testClass) {
         }
 
         TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            rawProcessors.add(processor);
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+        if (pullBased) {
+            processor = takeIdleProcessor();
+            if (processor == null) {
+                return;
+            }
+        } else if (processors.size() < maxProcessors) {
+            processor = startProcessor();
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -80,6 +93,47 @@ public void processTestClass(TestClassRunInfo testClass) {
         processor.processTestClass(testClass);
     }
 
+    private TestClassProcessor startProcessor() {
+        TestClassProcessor processor = factory.create();
+        rawProcessors.add(processor);
+        IdleReportingTestClassProcessor idleReportingProcessor = null;
+        if (pullBased) {
+            idleReportingProcessor = new IdleReportingTestClassProcessor(processor);
+            processor = idleReportingProcessor;
+        }
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        if (idleReportingProcessor != null) {
+            idleReportingProcessor.proxy = processor;
+        }
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
+    /**
+     * Waits for a processor to finish with its current test class, unless another processor can still be started.
+     */
+    private TestClassProcessor takeIdleProcessor() {
+        synchronized (idleLock) {
+            while (idleProcessors.isEmpty() && processors.size() >= maxProcessors && !stoppedNow) {
+                try {
+                    idleLock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (stoppedNow) {
+                return null;
+            }
+            if (!idleProcessors.isEmpty()) {
+                return idleProcessors.removeFirst();
+            }
+        }
+        return startProcessor();
+    }
+
     @Override
     public void stop() {
         try {
@@ -92,8 +146,50 @@ public void stop() {
     @Override
     public void stopNow() {
         stoppedNow = true;
+        synchronized (idleLock) {
+            idleLock.notifyAll();
+        }
         for (TestClassProcessor processor : rawProcessors) {
             processor.stopNow();
         }
     }
+
+    /**
+     * Reports the processor as idle once it has finished with a test class. Runs on the thread of the processor's actor.
+     */
+    private class IdleReportingTestClassProcessor implements TestClassProcessor {
+        private final TestClassProcessor delegate;
+        private volatile TestClassProcessor proxy;
+
+        IdleReportingTestClassProcessor(TestClassProcessor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            delegate.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                delegate.processTestClass(testClass);
+            } finally {
+                synchronized (idleLock) {
+                    idleProcessors.addLast(proxy);
+                    idleLock.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+
+        @Override
+        public void stopNow() {
+            delegate.stopNow();
+        }
+    }
 }
@@ -37,7 +37,9 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
@@ -82,23 +84,9 @@ public void execute(TestClassResult classResult) {
         return model;
     }
 
-    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
+    private void generateFiles(final AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
         try {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
-            buildOperationExecutor.run(new RunnableBuildOperation() {
-                @Override
-                public void run(BuildOperationContext context) {
-                    // Clean-up old HTML report directories
-                    GFileUtils.deleteQuietly(new File(reportDir, "packages"));
-                    GFileUtils.deleteQuietly(new File(reportDir, "classes"));
-                }
-
-                @Override
-                public BuildOperationDescriptor.Builder description() {
-                    return BuildOperationDescriptor.displayName("Delete old HTML results");
-                }
-            });
-
             htmlRenderer.render(model, new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
                 @Override
                 public void render(final AllTestResults model, final HtmlReportBuilder output) throws IOException {
@@ -116,11 +104,45 @@ public void execute(BuildOperationQueue<HtmlReportFileGenerator<? extends Compos
                     });
                 }
             }, reportDir);
+
+            buildOperationExecutor.run(new RunnableBuildOperation() {
+                @Override
+                public void run(BuildOperationContext context) {
+                    // Clean-up pages of packages and classes that are no longer part of the results. Pages that are still
+                    // part of the results have been overwritten, or left untouched when their content did not change.
+                    Set<String> pages = new HashSet<String>();
+                    for (PackageTestResults packageResults : model.getPackages()) {
+                        pages.add(packageResults.getBaseUrl());
+                        for (ClassTestResults classResults : packageResults.getClasses()) {
+                            pages.add(classResults.getBaseUrl());
+                        }
+                    }
+                    deleteStalePages(reportDir, "packages", pages);
+                    deleteStalePages(reportDir, "classes", pages);
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    return BuildOperationDescriptor.displayName("Delete old HTML results");
+                }
+            });
         } catch (Exception e) {
             throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
         }
     }
 
+    private static void deleteStalePages(File reportDir, String pageDir, Set<String> pages) {
+        File[] files = new File(reportDir, pageDir).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!pages.contains(pageDir + "/" + file.getName())) {
+                GFileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
     public static <T extends CompositeTestResults> HtmlReportFileGenerator<T> generator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output) {
         return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output);
     }
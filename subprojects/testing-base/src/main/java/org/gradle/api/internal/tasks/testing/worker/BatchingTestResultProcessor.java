@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TestResultProcessor} that coalesces the events of a test worker into batches, so that chatty test suites don't send a message per event to the build process.
+ *
+ * <p>A batch is sent once it holds a maximum number of events or amount of output, once the flush interval has elapsed, or when {@link #flush()} is called. Events are sent in the order they were received.
+ * When the build process falls behind and too many batches are still waiting to be processed, the producers of events are blocked until the build process catches up.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, TestEventBatchListener, StreamCompletion, Stoppable {
+    static final int MAX_EVENTS_PER_BATCH = 500;
+    static final int MAX_OUTPUT_CHARS_PER_BATCH = 64 * 1024;
+    static final int MAX_BATCHES_IN_FLIGHT = 16;
+    static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private final TestEventBatchProcessor batchProcessor;
+    private final ManagedScheduledExecutor executor;
+    private final Semaphore batchesInFlight = new Semaphore(MAX_BATCHES_IN_FLIGHT);
+    private volatile boolean unbounded;
+    private List<TestEventBatch.Event> events = new ArrayList<TestEventBatch.Event>();
+    private int outputChars;
+
+    public BatchingTestResultProcessor(TestEventBatchProcessor batchProcessor, ManagedScheduledExecutor executor) {
+        this.batchProcessor = batchProcessor;
+        this.executor = executor;
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+        add(new TestEventBatch.Started(test, event));
+    }
+
+    @Override
+    public synchronized void completed(Object testId, TestCompleteEvent event) {
+        add(new TestEventBatch.Completed(testId, event));
+    }
+
+    @Override
+    public synchronized void output(Object testId, TestOutputEvent event) {
+        outputChars += event.getMessage().length();
+        add(new TestEventBatch.Output(testId, event));
+    }
+
+    @Override
+    public synchronized void failure(Object testId, Throwable result) {
+        add(new TestEventBatch.Failure(testId, result));
+    }
+
+    private void add(TestEventBatch.Event event) {
+        events.add(event);
+        if (events.size() >= MAX_EVENTS_PER_BATCH || outputChars >= MAX_OUTPUT_CHARS_PER_BATCH) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the pending events to the build process. Blocks while too many batches are waiting to be processed by the build process.
+     */
+    public synchronized void flush() {
+        if (events.isEmpty()) {
+            return;
+        }
+        TestEventBatch batch = new TestEventBatch(events);
+        events = new ArrayList<TestEventBatch.Event>();
+        outputChars = 0;
+        if (!unbounded) {
+            batchesInFlight.acquireUninterruptibly();
+        }
+        batchProcessor.processBatch(batch);
+    }
+
+    @Override
+    public void batchProcessed() {
+        batchesInFlight.release();
+    }
+
+    @Override
+    public void endStream() {
+        // The build process will not acknowledge any further batches, so stop waiting for it
+        unbounded = true;
+        batchesInFlight.release(MAX_BATCHES_IN_FLIGHT);
+    }
+
+    @Override
+    public void stop() {
+        try {
+            flush();
+        } finally {
+            executor.stop();
+        }
+    }
+}
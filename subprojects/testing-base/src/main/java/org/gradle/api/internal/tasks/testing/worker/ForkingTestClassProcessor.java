@@ -16,6 +16,9 @@
 
 package org.gradle.api.internal.tasks.testing.worker;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.gradle.api.Action;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -23,18 +26,24 @@
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -46,15 +55,35 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final boolean waitForTestClassCompletion;
+    private final TestWorkerProcessPool workerPool;
     private final Lock lock = new ReentrantLock();
+    private final Condition testClassProcessed = lock.newCondition();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
+    private PooledTestWorker pooledWorker;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private DocumentationRegistry documentationRegistry;
     private boolean stoppedNow;
+    private boolean workerStopped;
+    private int testClassesInProgress;
 
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, documentationRegistry, false);
+    }
+
+    /**
+     * @param waitForTestClassCompletion when true, {@link #processTestClass(TestClassRunInfo)} blocks until the worker process has finished with the test class.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, boolean waitForTestClassCompletion) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, documentationRegistry, waitForTestClassCompletion, null);
+    }
+
+    /**
+     * @param workerPool when not null, the worker process is taken from and returned to the given pool instead of being started and stopped by this processor.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, boolean waitForTestClassCompletion, @Nullable TestWorkerProcessPool workerPool) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -63,6 +92,8 @@ public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLea
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.waitForTestClassCompletion = waitForTestClassCompletion;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -90,32 +121,103 @@ public void processTestClass(TestClassRunInfo testClass) {
             }
 
             remoteProcessor.processTestClass(testClass);
+            if (waitForTestClassCompletion) {
+                testClassesInProgress++;
+                while (testClassesInProgress > 0 && !stoppedNow && !workerStopped) {
+                    testClassProcessed.awaitUninterruptibly();
+                }
+            }
         } finally {
             lock.unlock();
         }
     }
 
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
+        List<URL> implementationClasspath = getTestWorkerImplementationClasspath();
+        if (workerPool == null) {
+            workerProcess = startWorkerProcess(createWorkerProcessBuilder(new TestWorker(processorFactory), implementationClasspath, classPath));
+            RemoteTestClassProcessor remoteProcessor = connect(workerProcess, resultProcessor, new WorkerProgressListener());
+            remoteProcessor.startProcessing(waitForTestClassCompletion);
+            return remoteProcessor;
+        }
+
+        // Libraries, including the test framework, are loaded by the system ClassLoader of the worker and so decide which workers can be reused.
+        // The classes of the task, which live in directories, are loaded by a ClassLoader of their own for each task.
+        List<File> frameworkClasspath = new ArrayList<File>();
+        List<File> sessionClasspath = new ArrayList<File>();
+        for (File file : classPath) {
+            if (file.isDirectory()) {
+                sessionClasspath.add(file);
+            } else {
+                frameworkClasspath.add(file);
+            }
+        }
+        WorkerProcessBuilder builder = createWorkerProcessBuilder(new TestWorker(), implementationClasspath, frameworkClasspath);
+        Object workerKey = createWorkerKey(builder, implementationClasspath, frameworkClasspath);
+        pooledWorker = workerPool.reserveIdleWorker(workerKey);
+        if (pooledWorker == null) {
+            pooledWorker = new PooledTestWorker(workerKey, startWorkerProcess(builder));
+            pooledWorker.setRemoteProcessor(connect(pooledWorker.getWorkerProcess(), pooledWorker.getResultProcessor(), pooledWorker.getProgressListener()));
+        }
+        workerProcess = pooledWorker.getWorkerProcess();
+        pooledWorker.startSession(resultProcessor, new WorkerProgressListener(), processorFactory, sessionClasspath, waitForTestClassCompletion);
+        return pooledWorker.getRemoteProcessor();
+    }
+
+    private WorkerProcessBuilder createWorkerProcessBuilder(TestWorker testWorker, List<URL> implementationClasspath, Iterable<File> applicationClasspath) {
+        WorkerProcessBuilder builder = workerFactory.create(testWorker);
         builder.setBaseName("Gradle Test Executor");
-        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
-        builder.applicationClasspath(classPath);
+        builder.setImplementationClasspath(implementationClasspath);
+        builder.applicationClasspath(applicationClasspath);
         options.copyTo(builder.getJavaCommand());
         builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
         buildConfigAction.execute(builder);
+        return builder;
+    }
 
-        workerProcess = builder.build();
-        workerProcess.start();
+    private static WorkerProcess startWorkerProcess(WorkerProcessBuilder builder) {
+        WorkerProcess process = builder.build();
+        process.start();
+        return process;
+    }
 
-        ObjectConnection connection = workerProcess.getConnection();
+    private static RemoteTestClassProcessor connect(WorkerProcess process, TestResultProcessor resultProcessor, TestWorkerProgressListener progressListener) {
+        ObjectConnection connection = process.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
-        connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        TestEventBatchListener batchListener = connection.addOutgoing(TestEventBatchListener.class);
+        connection.addIncoming(TestEventBatchProcessor.class, new ReplayingTestEventBatchProcessor(resultProcessor, batchListener));
+        connection.addIncoming(TestWorkerProgressListener.class, progressListener);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
-        remoteProcessor.startProcessing();
         return remoteProcessor;
     }
 
+    /**
+     * Everything that goes into starting a worker process: the JVM options, the classpath of the test framework and the executable.
+     * A pooled worker process is only reused when all of these are the same, including the content of the libraries on the classpath.
+     *
+     * <p>The build configuration action is not serializable, so the settings it applied to the builder are used instead.</p>
+     */
+    private Object createWorkerKey(WorkerProcessBuilder builder, List<URL> implementationClasspath, List<File> frameworkClasspath) {
+        List<String> implementationClasspathEntries = new ArrayList<String>(implementationClasspath.size());
+        for (URL url : implementationClasspath) {
+            implementationClasspathEntries.add(url.toString());
+        }
+        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
+        return Arrays.asList(
+            implementationClasspathEntries,
+            ImmutableList.copyOf(frameworkClasspath),
+            workerPool.hashLibraries(frameworkClasspath),
+            ImmutableSet.copyOf(builder.getSharedPackages()),
+            builder.getLogLevel(),
+            javaCommand.getExecutable(),
+            javaCommand.getWorkingDir(),
+            javaCommand.getAllJvmArgs(),
+            ImmutableMap.copyOf(javaCommand.getEnvironment()),
+            ImmutableList.copyOf(javaCommand.getBootstrapClasspath())
+        );
+    }
+
     List<URL> getTestWorkerImplementationClasspath() {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
@@ -156,7 +258,11 @@ public void stop() {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (pooledWorker != null && !stoppedNow && pooledWorker.awaitSessionCompleted()) {
+                    workerPool.release(pooledWorker);
+                } else {
+                    workerProcess.waitForStop();
+                }
             }
         } catch (ExecException e) {
             if (!stoppedNow) {
@@ -177,6 +283,7 @@ public void stopNow() {
         lock.lock();
         try {
             stoppedNow = true;
+            testClassProcessed.signalAll();
             if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
@@ -184,4 +291,60 @@ public void stopNow() {
             lock.unlock();
         }
     }
+
+    private class WorkerProgressListener implements TestWorkerProgressListener, StreamCompletion {
+        @Override
+        public void testClassProcessed() {
+            lock.lock();
+            try {
+                if (testClassesInProgress > 0) {
+                    testClassesInProgress--;
+                }
+                testClassProcessed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void endStream() {
+            // The worker process has gone away, so no further test classes will be reported as processed
+            lock.lock();
+            try {
+                workerStopped = true;
+                testClassProcessed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replays the batches of events received from the worker to the result processor, and tells the worker when it can send more.
+     */
+    private static class ReplayingTestEventBatchProcessor implements TestEventBatchProcessor, StreamCompletion {
+        private final TestResultProcessor resultProcessor;
+        private final TestEventBatchListener batchListener;
+
+        ReplayingTestEventBatchProcessor(TestResultProcessor resultProcessor, TestEventBatchListener batchListener) {
+            this.resultProcessor = resultProcessor;
+            this.batchListener = batchListener;
+        }
+
+        @Override
+        public void processBatch(TestEventBatch batch) {
+            try {
+                batch.replay(resultProcessor);
+            } finally {
+                batchListener.batchProcessed();
+            }
+        }
+
+        @Override
+        public void endStream() {
+            if (resultProcessor instanceof StreamCompletion) {
+                ((StreamCompletion) resultProcessor).endStream();
+            }
+        }
+    }
 }
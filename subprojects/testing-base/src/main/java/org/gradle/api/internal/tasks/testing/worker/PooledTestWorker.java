@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A test worker process that can run the tests of several {@code Test} tasks, one after the other.
+ *
+ * <p>Each task uses the worker for one session, from {@link RemoteTestClassProcessor#startSession(WorkerTestClassProcessorFactory, List, boolean)} to {@link RemoteTestClassProcessor#stop()}.
+ * The session is complete once the worker has reported the completion of its root test suite, as all results of the session are sent before that.</p>
+ */
+class PooledTestWorker implements Stoppable {
+    private final Object key;
+    private final WorkerProcess workerProcess;
+    private final SessionResultProcessor resultProcessor = new SessionResultProcessor();
+    private final SessionProgressListener progressListener = new SessionProgressListener();
+    private RemoteTestClassProcessor remoteProcessor;
+    private Object sessionSuiteId;
+    private boolean sessionCompleted;
+    private boolean workerStopped;
+
+    PooledTestWorker(Object key, WorkerProcess workerProcess) {
+        this.key = key;
+        this.workerProcess = workerProcess;
+    }
+
+    Object getKey() {
+        return key;
+    }
+
+    WorkerProcess getWorkerProcess() {
+        return workerProcess;
+    }
+
+    TestResultProcessor getResultProcessor() {
+        return resultProcessor;
+    }
+
+    TestWorkerProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    RemoteTestClassProcessor getRemoteProcessor() {
+        return remoteProcessor;
+    }
+
+    void setRemoteProcessor(RemoteTestClassProcessor remoteProcessor) {
+        this.remoteProcessor = remoteProcessor;
+    }
+
+    /**
+     * Directs the results and progress of the next session to the given receivers, and starts the session.
+     */
+    void startSession(TestResultProcessor sessionResultProcessor, TestWorkerProgressListener sessionProgressListener, WorkerTestClassProcessorFactory factory, List<File> sessionClasspath, boolean reportProcessedTestClasses) {
+        synchronized (this) {
+            resultProcessor.delegate = sessionResultProcessor;
+            progressListener.delegate = sessionProgressListener;
+            sessionSuiteId = null;
+            sessionCompleted = false;
+        }
+        remoteProcessor.startSession(factory, sessionClasspath, reportProcessedTestClasses);
+    }
+
+    /**
+     * Waits for the worker to finish the current session, after it has been asked to stop.
+     *
+     * @return true when the session completed and the worker can be reused, false when the worker process has stopped.
+     */
+    boolean awaitSessionCompleted() {
+        synchronized (this) {
+            while (!sessionCompleted && !workerStopped) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            return sessionCompleted && !workerStopped;
+        }
+    }
+
+    @Override
+    public void stop() {
+        workerProcess.getConnection().requestStop();
+        workerProcess.waitForStop();
+    }
+
+    private class SessionResultProcessor implements TestResultProcessor, StreamCompletion {
+        private volatile TestResultProcessor delegate;
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            synchronized (PooledTestWorker.this) {
+                if (sessionSuiteId == null && event.getParentId() == null) {
+                    sessionSuiteId = test.getId();
+                }
+            }
+            delegate.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            delegate.completed(testId, event);
+            synchronized (PooledTestWorker.this) {
+                if (testId.equals(sessionSuiteId)) {
+                    sessionCompleted = true;
+                    PooledTestWorker.this.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            delegate.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            delegate.failure(testId, result);
+        }
+
+        @Override
+        public void endStream() {
+            synchronized (PooledTestWorker.this) {
+                workerStopped = true;
+                PooledTestWorker.this.notifyAll();
+            }
+        }
+    }
+
+    private static class SessionProgressListener implements TestWorkerProgressListener, StreamCompletion {
+        private volatile TestWorkerProgressListener delegate;
+
+        @Override
+        public void testClassProcessed() {
+            delegate.testClassProcessed();
+        }
+
+        @Override
+        public void endStream() {
+            if (delegate instanceof StreamCompletion) {
+                ((StreamCompletion) delegate).endStream();
+            }
+        }
+    }
+}
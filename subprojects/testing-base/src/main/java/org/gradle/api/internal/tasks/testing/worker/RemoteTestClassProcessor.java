@@ -17,6 +17,10 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+
+import java.io.File;
+import java.util.List;
 
 /**
  * @see org.gradle.api.internal.tasks.testing.TestClassProcessor
@@ -24,8 +28,19 @@
 public interface RemoteTestClassProcessor {
     /**
      * Does not block.
+     *
+     * @param reportProcessedTestClasses whether the worker notifies the {@link TestWorkerProgressListener} of the build after each test class.
+     */
+    void startProcessing(boolean reportProcessedTestClasses);
+
+    /**
+     * Starts a session of a reusable worker, which runs the tests of one {@code Test} task. Does not block.
+     *
+     * @param factory the test framework of the session.
+     * @param sessionClasspath the classes of the session, loaded by a ClassLoader of their own on top of the system ClassLoader of the worker.
+     * @param reportProcessedTestClasses whether the worker notifies the {@link TestWorkerProgressListener} of the build after each test class.
      */
-    void startProcessing();
+    void startSession(WorkerTestClassProcessorFactory factory, List<File> sessionClasspath, boolean reportProcessedTestClasses);
 
     /**
      * Does not block.
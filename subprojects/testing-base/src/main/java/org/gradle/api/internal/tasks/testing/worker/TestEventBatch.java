@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.List;
+
+/**
+ * An ordered batch of test events, sent from a test worker to the build process as a single message.
+ */
+public class TestEventBatch {
+    private final List<Event> events;
+
+    TestEventBatch(List<Event> events) {
+        this.events = events;
+    }
+
+    List<Event> getEvents() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Forwards the events of this batch to the given processor, in the order they were produced.
+     */
+    public void replay(TestResultProcessor processor) {
+        for (Event event : events) {
+            event.replay(processor);
+        }
+    }
+
+    abstract static class Event {
+        abstract Object getTestId();
+
+        abstract void replay(TestResultProcessor processor);
+    }
+
+    static class Started extends Event {
+        final TestDescriptorInternal test;
+        final TestStartEvent event;
+
+        Started(TestDescriptorInternal test, TestStartEvent event) {
+            this.test = test;
+            this.event = event;
+        }
+
+        @Override
+        Object getTestId() {
+            return test.getId();
+        }
+
+        @Override
+        void replay(TestResultProcessor processor) {
+            processor.started(test, event);
+        }
+    }
+
+    static class Completed extends Event {
+        final Object testId;
+        final TestCompleteEvent event;
+
+        Completed(Object testId, TestCompleteEvent event) {
+            this.testId = testId;
+            this.event = event;
+        }
+
+        @Override
+        Object getTestId() {
+            return testId;
+        }
+
+        @Override
+        void replay(TestResultProcessor processor) {
+            processor.completed(testId, event);
+        }
+    }
+
+    static class Output extends Event {
+        final Object testId;
+        final TestOutputEvent event;
+
+        Output(Object testId, TestOutputEvent event) {
+            this.testId = testId;
+            this.event = event;
+        }
+
+        @Override
+        Object getTestId() {
+            return testId;
+        }
+
+        @Override
+        void replay(TestResultProcessor processor) {
+            processor.output(testId, event);
+        }
+    }
+
+    static class Failure extends Event {
+        final Object testId;
+        final Throwable failure;
+
+        Failure(Object testId, Throwable failure) {
+            this.testId = testId;
+            this.failure = failure;
+        }
+
+        @Override
+        Object getTestId() {
+            return testId;
+        }
+
+        @Override
+        void replay(TestResultProcessor processor) {
+            processor.failure(testId, failure);
+        }
+    }
+}
@@ -22,6 +22,9 @@
 import org.gradle.internal.id.CompositeIdGenerator;
 import org.gradle.internal.serialize.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TestEventSerializer {
     public static SerializerRegistry create() {
         BaseSerializerFactory factory = new BaseSerializerFactory();
@@ -37,6 +40,7 @@ public static SerializerRegistry create() {
         registry.register(TestCompleteEvent.class, new TestCompleteEventSerializer());
         registry.register(DefaultTestOutputEvent.class, new DefaultTestOutputEventSerializer());
         registry.register(Throwable.class, factory.getSerializerFor(Throwable.class));
+        registry.register(TestEventBatch.class, new TestEventBatchSerializer(registry));
         return registry;
     }
 
@@ -64,6 +68,98 @@ public void write(Encoder encoder, T value) throws Exception {
         }
     }
 
+    private static class TestEventBatchSerializer implements Serializer<TestEventBatch> {
+        private static final byte STARTED = 0;
+        private static final byte COMPLETED = 1;
+        private static final byte OUTPUT = 2;
+        private static final byte FAILURE = 3;
+
+        private final Serializer<Object> idSerializer;
+        private final Serializer<TestDescriptorInternal> descriptorSerializer;
+        private final Serializer<TestStartEvent> startEventSerializer;
+        private final Serializer<TestCompleteEvent> completeEventSerializer;
+        private final Serializer<TestOutputEvent> outputEventSerializer;
+        private final Serializer<Throwable> failureSerializer;
+
+        private TestEventBatchSerializer(SerializerRegistry registry) {
+            idSerializer = registry.build(Object.class);
+            descriptorSerializer = registry.build(TestDescriptorInternal.class);
+            startEventSerializer = registry.build(TestStartEvent.class);
+            completeEventSerializer = registry.build(TestCompleteEvent.class);
+            outputEventSerializer = registry.build(TestOutputEvent.class);
+            failureSerializer = registry.build(Throwable.class);
+        }
+
+        @Override
+        public TestEventBatch read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            List<TestEventBatch.Event> events = new ArrayList<TestEventBatch.Event>(count);
+            Object previousTestId = null;
+            for (int i = 0; i < count; i++) {
+                byte type = decoder.readByte();
+                TestEventBatch.Event event;
+                if (type == STARTED) {
+                    TestDescriptorInternal test = descriptorSerializer.read(decoder);
+                    event = new TestEventBatch.Started(test, startEventSerializer.read(decoder));
+                } else {
+                    // Consecutive events for the same test, such as lines of output, don't repeat the test id
+                    Object testId = decoder.readBoolean() ? previousTestId : idSerializer.read(decoder);
+                    if (type == COMPLETED) {
+                        event = new TestEventBatch.Completed(testId, completeEventSerializer.read(decoder));
+                    } else if (type == OUTPUT) {
+                        event = new TestEventBatch.Output(testId, outputEventSerializer.read(decoder));
+                    } else if (type == FAILURE) {
+                        event = new TestEventBatch.Failure(testId, failureSerializer.read(decoder));
+                    } else {
+                        throw new IllegalArgumentException(String.format("Unexpected test event type %d found.", type));
+                    }
+                }
+                events.add(event);
+                previousTestId = event.getTestId();
+            }
+            return new TestEventBatch(events);
+        }
+
+        @Override
+        public void write(Encoder encoder, TestEventBatch value) throws Exception {
+            encoder.writeSmallInt(value.size());
+            Object previousTestId = null;
+            for (TestEventBatch.Event event : value.getEvents()) {
+                if (event instanceof TestEventBatch.Started) {
+                    TestEventBatch.Started started = (TestEventBatch.Started) event;
+                    encoder.writeByte(STARTED);
+                    descriptorSerializer.write(encoder, started.test);
+                    startEventSerializer.write(encoder, started.event);
+                } else {
+                    encoder.writeByte(typeOf(event));
+                    boolean sameTest = previousTestId != null && previousTestId.equals(event.getTestId());
+                    encoder.writeBoolean(sameTest);
+                    if (!sameTest) {
+                        idSerializer.write(encoder, event.getTestId());
+                    }
+                    if (event instanceof TestEventBatch.Completed) {
+                        completeEventSerializer.write(encoder, ((TestEventBatch.Completed) event).event);
+                    } else if (event instanceof TestEventBatch.Output) {
+                        outputEventSerializer.write(encoder, ((TestEventBatch.Output) event).event);
+                    } else {
+                        failureSerializer.write(encoder, ((TestEventBatch.Failure) event).failure);
+                    }
+                }
+                previousTestId = event.getTestId();
+            }
+        }
+
+        private static byte typeOf(TestEventBatch.Event event) {
+            if (event instanceof TestEventBatch.Completed) {
+                return COMPLETED;
+            }
+            if (event instanceof TestEventBatch.Output) {
+                return OUTPUT;
+            }
+            return FAILURE;
+        }
+    }
+
     private static class IdSerializer implements Serializer<CompositeIdGenerator.CompositeId> {
         @Override
         public CompositeIdGenerator.CompositeId read(Decoder decoder) throws Exception {
@@ -19,14 +19,17 @@
 import org.gradle.api.Action;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.VisitableURLClassLoader;
+import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.actor.internal.DefaultActorFactory;
 import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.dispatch.ContextClassLoaderProxy;
 import org.gradle.internal.id.CompositeIdGenerator;
 import org.gradle.internal.id.IdGenerator;
@@ -39,27 +42,46 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.Serializable;
 import java.security.AccessControlException;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
-public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable, Stoppable {
+public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable, Stoppable, StreamCompletion {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
     private final WorkerTestClassProcessorFactory factory;
+    private final boolean reusable;
     private CountDownLatch completed;
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor resultProcessor;
+    private TestWorkerProgressListener progressListener;
+    private boolean reportProcessedTestClasses;
+    private transient ClassLoader sessionClassLoader;
+    private transient WorkerProcessContext workerProcessContext;
+    private transient ServiceRegistry testServices;
+    private transient SecurityManager securityManager;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
+        this.reusable = false;
+    }
+
+    /**
+     * Creates a reusable worker. The worker receives the test framework and the classes to test with each session, see {@link #startSession(WorkerTestClassProcessorFactory, List, boolean)},
+     * accepts another session after {@link #stop()}, and only exits when the connection to the build is closed.
+     */
+    public TestWorker() {
+        this.factory = null;
+        this.reusable = true;
     }
 
     @Override
     public void execute(final WorkerProcessContext workerProcessContext) {
         LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
 
-        SecurityManager securityManager = System.getSecurityManager();
+        securityManager = System.getSecurityManager();
         completed = new CountDownLatch(1);
 
         System.setProperty(WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
@@ -76,41 +98,66 @@ public void execute(final WorkerProcessContext workerProcessContext) {
         } finally {
             LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
 
-            if (System.getSecurityManager() != securityManager) {
-                try {
-                    // Reset security manager the tests seem to have installed
-                    System.setSecurityManager(securityManager);
-                } catch (SecurityException e) {
-                    LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
-                }
-            }
+            resetSecurityManager();
+            resultProcessor.stop();
             testServices.close();
         }
     }
 
-    private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
+    private void resetSecurityManager() {
+        if (System.getSecurityManager() != securityManager) {
+            try {
+                // Reset security manager the tests seem to have installed
+                System.setSecurityManager(securityManager);
+            } catch (SecurityException e) {
+                LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
+            }
+        }
+    }
+
+    private TestClassProcessor createProcessor(WorkerTestClassProcessorFactory factory, ClassLoader applicationClassLoader) {
         TestClassProcessor targetProcessor = factory.create(testServices);
         IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
 
         targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
                 workerProcessContext.getDisplayName(), testServices.get(Clock.class));
         ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
-                TestClassProcessor.class, targetProcessor, workerProcessContext.getApplicationClassLoader());
-        processor = proxy.getSource();
+                TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        return proxy.getSource();
+    }
+
+    private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
+        this.workerProcessContext = workerProcessContext;
+        this.testServices = testServices;
+        if (!reusable) {
+            processor = createProcessor(factory, workerProcessContext.getApplicationClassLoader());
+        }
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        TestEventBatchProcessor batchProcessor = serverConnection.addOutgoing(TestEventBatchProcessor.class);
+        this.resultProcessor = new BatchingTestResultProcessor(batchProcessor, testServices.get(ExecutorFactory.class).createScheduled("Test event batching", 1));
+        this.progressListener = serverConnection.addOutgoing(TestWorkerProgressListener.class);
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
+        serverConnection.addIncoming(TestEventBatchListener.class, resultProcessor);
         serverConnection.connect();
     }
 
     @Override
-    public void startProcessing() {
+    public void startProcessing(boolean reportProcessedTestClasses) {
         Thread.currentThread().setName("Test worker");
+        this.reportProcessedTestClasses = reportProcessedTestClasses;
         processor.startProcessing(resultProcessor);
     }
 
+    @Override
+    public void startSession(WorkerTestClassProcessorFactory factory, List<File> sessionClasspath, boolean reportProcessedTestClasses) {
+        // Each session gets a fresh test class processor and ClassLoader, so nothing loaded by the tests of a previous session is visible
+        sessionClassLoader = new VisitableURLClassLoader("test-session", workerProcessContext.getApplicationClassLoader(), DefaultClassPath.of(sessionClasspath));
+        processor = createProcessor(factory, sessionClassLoader);
+        startProcessing(reportProcessedTestClasses);
+    }
+
     @Override
     public void processTestClass(final TestClassRunInfo testClass) {
         Thread.currentThread().setName("Test worker");
@@ -122,6 +169,11 @@ public void processTestClass(final TestClassRunInfo testClass) {
         } finally {
             // Clean the interrupted status
             Thread.interrupted();
+            // Send all events of the test class before asking for the next one
+            resultProcessor.flush();
+            if (reportProcessedTestClasses) {
+                progressListener.testClassProcessed();
+            }
         }
     }
 
@@ -131,13 +183,28 @@ public void stop() {
         try {
             processor.stop();
         } finally {
-            completed.countDown();
+            resultProcessor.flush();
+            if (reusable) {
+                // Discard the test class processor, the next Test task that uses this worker starts over with a fresh one
+                resetSecurityManager();
+                processor = null;
+                ClassLoaderUtils.tryClose(sessionClassLoader);
+                sessionClassLoader = null;
+            } else {
+                completed.countDown();
+            }
             // Clean the interrupted status
             // because some test class processors do work here, e.g. JUnitPlatform
             Thread.interrupted();
         }
     }
 
+    @Override
+    public void endStream() {
+        // The build has closed the connection, so no further test classes will be received
+        completed.countDown();
+    }
+
     private static class TestFrameworkServiceRegistry extends DefaultServiceRegistry {
         private final WorkerProcessContext workerProcessContext;
 
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Keeps idle test worker processes for the rest of the build session, so that a later {@code Test} task with the same worker configuration
+ * can run its tests without starting a new JVM.
+ *
+ * <p>The libraries on the test runtime classpath, including the test framework, are loaded by the system ClassLoader of a worker, so a worker is only
+ * reused by tasks with the same libraries. Libraries are compared by location and by content, since a library may be rebuilt at the same location
+ * between the builds of a session, for example in a continuous build. The classes of each task are loaded by a ClassLoader that is discarded at the
+ * end of the task.</p>
+ */
+public class TestWorkerProcessPool implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(TestWorkerProcessPool.class);
+
+    private final Object lock = new Object();
+    private final LinkedList<PooledTestWorker> idleWorkers = new LinkedList<PooledTestWorker>();
+    private final int maxIdleWorkers;
+    private final ClasspathHasher classpathHasher;
+
+    public TestWorkerProcessPool(int maxIdleWorkers, ClasspathHasher classpathHasher) {
+        this.maxIdleWorkers = maxIdleWorkers;
+        this.classpathHasher = classpathHasher;
+    }
+
+    /**
+     * Returns a hash of the content of the given libraries, to be included in the key of a worker which loads them.
+     */
+    HashCode hashLibraries(Iterable<File> libraries) {
+        return classpathHasher.hash(DefaultClassPath.of(libraries));
+    }
+
+    @Nullable
+    PooledTestWorker reserveIdleWorker(Object key) {
+        synchronized (lock) {
+            Iterator<PooledTestWorker> iterator = idleWorkers.iterator();
+            while (iterator.hasNext()) {
+                PooledTestWorker candidate = iterator.next();
+                if (candidate.getKey().equals(key)) {
+                    iterator.remove();
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    void release(PooledTestWorker worker) {
+        PooledTestWorker evicted = null;
+        synchronized (lock) {
+            idleWorkers.addLast(worker);
+            if (idleWorkers.size() > maxIdleWorkers) {
+                evicted = idleWorkers.removeFirst();
+            }
+        }
+        if (evicted != null) {
+            // Least recently used worker
+            evicted.stop();
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<PooledTestWorker> workers;
+        synchronized (lock) {
+            workers = new ArrayList<PooledTestWorker>(idleWorkers);
+            idleWorkers.clear();
+        }
+        if (!workers.isEmpty()) {
+            LOGGER.debug("Stopping {} idle test worker(s).", workers.size());
+            CompositeStoppable.stoppable(workers).stop();
+        }
+    }
+}
@@ -76,6 +76,42 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reads output that is larger than the read buffers"() {
+        def message = "\u03b1\u03b2-" * 10000
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[out-1]"))
+        writer.onOutput(1, 1, output(StdOut, message))
+        writer.onOutput(1, 1, output(StdOut, "[out-2]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[out-1]" + message + "[out-2]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "readers share the index of the outputs"() {
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[out-1]"))
+        writer.close()
+        def reader1 = output.reader()
+        def reader2 = output.reader()
+
+        then:
+        collectOutput(reader1, 1, 1, StdOut) == "[out-1]"
+        collectOutput(reader2, 1, 1, StdOut) == "[out-1]"
+        reader1.index.is(reader2.index)
+
+        cleanup:
+        reader1?.close()
+        reader2?.close()
+    }
+
     def "non-test output includes all events with the given class id and no method id"() {
         when:
         def writer = output.writer()
@@ -202,4 +202,72 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * processor1.stopNow()
         1 * processor2.stopNow()
     }
+
+    def "pull-based processor assigns test classes to processors that have finished their previous test class"() {
+        def pullProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, true)
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassRunInfo test3 = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        TestClassProcessor idleReporting2 = null
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        pullProcessor.startProcessing(resultProcessor)
+
+        when:
+        pullProcessor.processTestClass(test1)
+        pullProcessor.processTestClass(test2)
+
+        then:
+        2 * factory.create() >>> [processor1, processor2]
+        1 * actorFactory.createActor(_) >> actor1
+        1 * actorFactory.createActor(_) >> { TestClassProcessor p -> idleReporting2 = p; actor2 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * asyncProcessor2.processTestClass(test2)
+
+        when:
+        idleReporting2.processTestClass(test2)
+        pullProcessor.processTestClass(test3)
+
+        then:
+        1 * processor2.processTestClass(test2)
+        1 * asyncProcessor2.processTestClass(test3)
+        0 * asyncProcessor1.processTestClass(_)
+        0 * factory.create()
+    }
+
+    def "pull-based processor stops waiting for an idle processor on stopNow"() {
+        def pullProcessor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, true)
+        TestClassRunInfo test = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        pullProcessor.startProcessing(resultProcessor)
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        pullProcessor.processTestClass(test)
+
+        when:
+        def waiting = new Thread({ pullProcessor.processTestClass(test) })
+        waiting.start()
+        pullProcessor.stopNow()
+        waiting.join(10000)
+
+        then:
+        !waiting.alive
+        0 * asyncProcessor1.processTestClass(_)
+        1 * processor1.stopNow()
+    }
 }
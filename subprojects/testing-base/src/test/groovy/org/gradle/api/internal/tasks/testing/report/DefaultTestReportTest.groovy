@@ -384,6 +384,24 @@ class DefaultTestReportTest extends Specification {
         numThreads << [ 1, 4 ]
     }
 
+    def "keeps class pages of unchanged results when generating the report again"() {
+        given:
+        report = reportWithMaxThreads(1)
+        def testTestResults = failingBuildResults()
+        report.generateReport(testTestResults, reportDir)
+        def classFile = reportDir.file('classes/org.gradle.passing.Passed.html')
+        classFile.lastModified = 1000
+        // Make sure the page footer shows a different generation time
+        sleep(1100)
+
+        when:
+        report.generateReport(testTestResults, reportDir)
+
+        then:
+        classFile.lastModified() == 1000
+        results(classFile).assertHasTests(1)
+    }
+
     @Unroll
     def "aggregate same tests run with different results - #numThreads parallel thread(s)"() {
         given:
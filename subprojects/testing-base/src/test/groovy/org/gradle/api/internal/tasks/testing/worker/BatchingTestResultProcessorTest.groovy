@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.internal.concurrent.ManagedScheduledExecutor
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.TimeUnit
+
+class BatchingTestResultProcessorTest extends ConcurrentSpec {
+    def batchProcessor = Mock(TestEventBatchProcessor)
+    def flushExecutor = Mock(ManagedScheduledExecutor)
+    def processor = new BatchingTestResultProcessor(batchProcessor, flushExecutor)
+
+    def "sends pending events in order when flushed"() {
+        def suite = new DefaultTestSuiteDescriptor("suite", "Suite")
+        def target = Mock(TestResultProcessor)
+        TestEventBatch batch = null
+
+        when:
+        processor.started(suite, new TestStartEvent(0))
+        processor.output("suite", output("line 1"))
+        processor.failure("suite", new RuntimeException())
+        processor.completed("suite", new TestCompleteEvent(1))
+
+        then:
+        0 * batchProcessor._
+
+        when:
+        processor.flush()
+        processor.flush()
+
+        then:
+        1 * batchProcessor.processBatch(_) >> { TestEventBatch b -> batch = b }
+        0 * batchProcessor._
+
+        when:
+        batch.replay(target)
+
+        then:
+        1 * target.started(suite, _)
+
+        then:
+        1 * target.output("suite", _)
+
+        then:
+        1 * target.failure("suite", _)
+
+        then:
+        1 * target.completed("suite", _)
+    }
+
+    def "flushes periodically"() {
+        Runnable flush = null
+
+        when:
+        def processor = new BatchingTestResultProcessor(batchProcessor, flushExecutor)
+
+        then:
+        1 * flushExecutor.scheduleWithFixedDelay(_, BatchingTestResultProcessor.FLUSH_INTERVAL_MILLIS, BatchingTestResultProcessor.FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS) >> { flush = it[0]; null }
+
+        when:
+        processor.output("test", output("line"))
+        flush.run()
+
+        then:
+        1 * batchProcessor.processBatch({ it.size() == 1 })
+    }
+
+    def "sends batch when it holds the maximum number of events"() {
+        when:
+        (BatchingTestResultProcessor.MAX_EVENTS_PER_BATCH - 1).times {
+            processor.output("test", output("line"))
+        }
+
+        then:
+        0 * batchProcessor._
+
+        when:
+        processor.output("test", output("line"))
+
+        then:
+        1 * batchProcessor.processBatch({ it.size() == BatchingTestResultProcessor.MAX_EVENTS_PER_BATCH })
+    }
+
+    def "sends batch when it holds the maximum amount of output"() {
+        when:
+        processor.output("test", output("x" * BatchingTestResultProcessor.MAX_OUTPUT_CHARS_PER_BATCH))
+
+        then:
+        1 * batchProcessor.processBatch({ it.size() == 1 })
+    }
+
+    def "blocks producer while too many batches are waiting to be processed"() {
+        given:
+        BatchingTestResultProcessor.MAX_BATCHES_IN_FLIGHT.times {
+            processor.output("test", output("line"))
+            processor.flush()
+        }
+
+        when:
+        async {
+            start {
+                processor.output("test", output("line"))
+                processor.flush()
+                instant.flushed
+            }
+            thread.block()
+            instant.processed
+            processor.batchProcessed()
+        }
+
+        then:
+        instant.flushed > instant.processed
+    }
+
+    def "stops blocking producer when the build process goes away"() {
+        given:
+        BatchingTestResultProcessor.MAX_BATCHES_IN_FLIGHT.times {
+            processor.output("test", output("line"))
+            processor.flush()
+        }
+
+        when:
+        async {
+            start {
+                processor.output("test", output("line"))
+                processor.flush()
+                instant.flushed
+            }
+            thread.block()
+            instant.closed
+            processor.endStream()
+        }
+
+        then:
+        instant.flushed > instant.closed
+    }
+
+    def "flushes pending events and stops executor on stop"() {
+        when:
+        processor.output("test", output("line"))
+        processor.stop()
+
+        then:
+        1 * batchProcessor.processBatch({ it.size() == 1 })
+
+        then:
+        1 * flushExecutor.stop()
+    }
+
+    private static TestOutputEvent output(String message) {
+        return new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, message)
+    }
+}
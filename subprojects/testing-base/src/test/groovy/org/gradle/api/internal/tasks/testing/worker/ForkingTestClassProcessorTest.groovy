@@ -20,10 +20,17 @@ import org.gradle.api.Action
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.classpath.ClassPath
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.remote.ObjectConnection
+import org.gradle.internal.service.ServiceRegistry
 import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.process.JavaForkOptions
 import org.gradle.process.internal.ExecException
@@ -31,10 +38,15 @@ import org.gradle.process.internal.JavaExecHandleBuilder
 import org.gradle.process.internal.worker.WorkerProcess
 import org.gradle.process.internal.worker.WorkerProcessBuilder
 import org.gradle.process.internal.worker.WorkerProcessFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
+import spock.util.concurrent.PollingConditions
 
 class ForkingTestClassProcessorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     WorkerLeaseRegistry.WorkerLease workerLease = Mock(WorkerLeaseRegistry.WorkerLease)
     WorkerProcessBuilder workerProcessBuilder = Mock(WorkerProcessBuilder)
     WorkerProcess workerProcess = Mock(WorkerProcess)
@@ -50,6 +62,7 @@ class ForkingTestClassProcessorTest extends Specification {
         workerProcessBuilder.build() >> workerProcess
         workerProcessFactory.create(_) >> workerProcessBuilder
         workerProcessBuilder.getJavaCommand() >> Stub (JavaExecHandleBuilder)
+        workerProcessBuilder.getSharedPackages() >> (["org.junit"] as Set)
     }
 
     def "acquires worker lease and starts worker process on first test"() {
@@ -72,7 +85,10 @@ class ForkingTestClassProcessorTest extends Specification {
 
     def "starts process with a limited implementation classpath"() {
         setup:
-        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> Stub(RemoteTestClassProcessor)
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+        }
 
         when:
         processor.forkProcess()
@@ -96,7 +112,10 @@ class ForkingTestClassProcessorTest extends Specification {
         ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
 
         setup:
-        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> Stub(RemoteTestClassProcessor)
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+        }
 
         when:
         processor.processTestClass(Mock(TestClassRunInfo))
@@ -110,7 +129,10 @@ class ForkingTestClassProcessorTest extends Specification {
         ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
 
         setup:
-        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> Stub(RemoteTestClassProcessor)
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+        }
 
         when:
         processor.processTestClass(Mock(TestClassRunInfo))
@@ -123,6 +145,154 @@ class ForkingTestClassProcessorTest extends Specification {
         notThrown(ExecException)
     }
 
+    def "waits for the worker process to finish with a test class when requested"() {
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, true)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        TestWorkerProgressListener progressListener = null
+
+        setup:
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+            addIncoming(TestWorkerProgressListener, _) >> { progressListener = it[1] }
+        }
+
+        when:
+        def processing = new Thread({ processor.processTestClass(Mock(TestClassRunInfo)) })
+        processing.start()
+        new PollingConditions().eventually { assert progressListener != null }
+        processing.join(200)
+
+        then:
+        processing.alive
+        1 * remoteProcessor.startProcessing(true)
+
+        when:
+        progressListener.testClassProcessed()
+        processing.join(10000)
+
+        then:
+        !processing.alive
+    }
+
+    def "returns worker process to the pool once the worker has completed the session"() {
+        def workerPool = Mock(TestWorkerProcessPool)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, new SerializableProcessorFactory(), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, false, workerPool)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        def resultProcessor = Mock(TestResultProcessor)
+        TestEventBatchProcessor workerResults = null
+        PooledTestWorker pooledWorker = null
+
+        setup:
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+            addIncoming(TestEventBatchProcessor, _) >> { workerResults = it[1] }
+        }
+
+        def suite = new DefaultTestSuiteDescriptor("worker", "Gradle Test Executor 1")
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        1 * workerPool.reserveIdleWorker(_) >> null
+        1 * remoteProcessor.startSession(_ as SerializableProcessorFactory, [], false)
+
+        when:
+        workerResults.processBatch(new TestEventBatch([new TestEventBatch.Started(suite, new TestStartEvent(0)), new TestEventBatch.Completed("worker", new TestCompleteEvent(1))]))
+        processor.stop()
+
+        then:
+        1 * resultProcessor.started(suite, _)
+        1 * resultProcessor.completed("worker", _)
+        1 * remoteProcessor.stop()
+        1 * workerPool.release(_) >> { pooledWorker = it[0] }
+        0 * workerProcess.waitForStop()
+        pooledWorker.workerProcess == workerProcess
+    }
+
+    def "reuses pooled worker processes for tasks with the same libraries and different classes"() {
+        def workerPool = Mock(TestWorkerProcessPool)
+        def library = tmpDir.createFile("lib/library.jar")
+        def classesA = tmpDir.createDir("a/classes")
+        def classesB = tmpDir.createDir("b/classes")
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        def keys = []
+        def idleWorker = new PooledTestWorker("key", workerProcess)
+        idleWorker.remoteProcessor = remoteProcessor
+
+        setup:
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+        }
+
+        when:
+        pooledProcessor(workerPool, [library, classesA]).processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        1 * workerPool.reserveIdleWorker(_) >> { keys << it[0]; null }
+        1 * workerProcessBuilder.applicationClasspath([library])
+        1 * remoteProcessor.startSession(_, [classesA], false)
+
+        when:
+        pooledProcessor(workerPool, [library, classesB]).processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        1 * workerPool.reserveIdleWorker(_) >> { keys << it[0]; idleWorker }
+        0 * workerProcessBuilder.build()
+        1 * remoteProcessor.startSession(_, [classesB], false)
+
+        and:
+        keys[0] == keys[1]
+    }
+
+    def "does not reuse pooled worker processes for tasks with different libraries"() {
+        def workerPool = Mock(TestWorkerProcessPool)
+        def keys = []
+
+        setup:
+        _ * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> Stub(RemoteTestClassProcessor)
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+        }
+
+        when:
+        pooledProcessor(workerPool, [tmpDir.createFile("library-1.0.jar")]).processTestClass(Mock(TestClassRunInfo))
+        pooledProcessor(workerPool, [tmpDir.createFile("library-2.0.jar")]).processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        2 * workerPool.reserveIdleWorker(_) >> { keys << it[0]; null }
+        keys[0] != keys[1]
+    }
+
+    def "does not reuse pooled worker processes after a library has been rebuilt at the same location"() {
+        def workerPool = Mock(TestWorkerProcessPool)
+        def library = tmpDir.createFile("library.jar")
+        def keys = []
+
+        setup:
+        _ * workerProcess.getConnection() >> Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> Stub(RemoteTestClassProcessor)
+            addOutgoing(TestEventBatchListener) >> Stub(TestEventBatchListener)
+        }
+
+        when:
+        pooledProcessor(workerPool, [library]).processTestClass(Mock(TestClassRunInfo))
+        pooledProcessor(workerPool, [library]).processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        2 * workerPool.hashLibraries([library]) >>> [HashCode.fromInt(1), HashCode.fromInt(2)]
+        2 * workerPool.reserveIdleWorker(_) >> { keys << it[0]; null }
+        keys[0] != keys[1]
+    }
+
+    ForkingTestClassProcessor pooledProcessor(TestWorkerProcessPool workerPool, List<File> classpath) {
+        return new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, new SerializableProcessorFactory(), options, classpath, Mock(Action), Stub(ModuleRegistry), documentationRegistry, false, workerPool)
+    }
+
     def module(String module) {
         return Stub(Module) {
             _ * getImplementationClasspath() >> {
@@ -132,4 +302,11 @@ class ForkingTestClassProcessorTest extends Specification {
             }
         }
     }
+
+    static class SerializableProcessorFactory implements WorkerTestClassProcessorFactory, Serializable {
+        @Override
+        TestClassProcessor create(ServiceRegistry serviceRegistry) {
+            throw new UnsupportedOperationException()
+        }
+    }
 }
@@ -175,6 +175,47 @@ class TestEventSerializerTest extends SerializerSpec {
         result.cause.message == "cause"
     }
 
+    def "serializes TestEventBatch preserving the order of events"() {
+        def suiteId = new CompositeIdGenerator.CompositeId(1L, 2L)
+        def testId = new CompositeIdGenerator.CompositeId(1L, 3L)
+        def batch = new TestEventBatch([
+            new TestEventBatch.Started(new DefaultTestMethodDescriptor(testId, "some-class", "some-test"), new TestStartEvent(123L, suiteId)),
+            new TestEventBatch.Output(testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "line 1")),
+            new TestEventBatch.Output(testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "line 2")),
+            new TestEventBatch.Failure(testId, new RuntimeException("broken")),
+            new TestEventBatch.Completed(testId, new TestCompleteEvent(456L, TestResult.ResultType.FAILURE)),
+            new TestEventBatch.Output(suiteId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "line 3")),
+            new TestEventBatch.Completed(suiteId, new TestCompleteEvent(789L))
+        ])
+        def processor = Mock(TestResultProcessor)
+
+        when:
+        def result = serialize(batch)
+        result.replay(processor)
+
+        then:
+        1 * processor.started({ it instanceof DefaultTestMethodDescriptor && it.id == testId && it.name == "some-test" }, { it.startTime == 123L && it.parentId == suiteId })
+
+        then:
+        1 * processor.output(testId, { it.destination == TestOutputEvent.Destination.StdOut && it.message == "line 1" })
+
+        then:
+        1 * processor.output(testId, { it.destination == TestOutputEvent.Destination.StdErr && it.message == "line 2" })
+
+        then:
+        1 * processor.failure(testId, { it instanceof RuntimeException && it.message == "broken" })
+
+        then:
+        1 * processor.completed(testId, { it.endTime == 456L && it.resultType == TestResult.ResultType.FAILURE })
+
+        then:
+        1 * processor.output(suiteId, { it.message == "line 3" })
+
+        then:
+        1 * processor.completed(suiteId, { it.endTime == 789L && it.resultType == null })
+        0 * processor._
+    }
+
     def Object serialize(Object source, Class type = source.getClass()) {
         return super.serialize(source, serializer.build(type))
     }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.internal.classloader.ClasspathHasher
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.internal.worker.WorkerProcess
+import spock.lang.Specification
+
+class TestWorkerProcessPoolTest extends Specification {
+    def pool = new TestWorkerProcessPool(2, Stub(ClasspathHasher))
+
+    def "reserves idle worker with the same key only"() {
+        def worker = worker("a")
+
+        when:
+        pool.release(worker)
+
+        then:
+        pool.reserveIdleWorker("b") == null
+        pool.reserveIdleWorker("a") == worker
+        pool.reserveIdleWorker("a") == null
+    }
+
+    def "stops least recently released worker when too many workers are idle"() {
+        def worker1 = worker("a")
+        def worker2 = worker("b")
+        def worker3 = worker("c")
+
+        when:
+        pool.release(worker1)
+        pool.release(worker2)
+
+        then:
+        0 * worker1.workerProcess.waitForStop()
+
+        when:
+        pool.release(worker3)
+
+        then:
+        1 * worker1.workerProcess.waitForStop()
+        0 * worker2.workerProcess.waitForStop()
+        pool.reserveIdleWorker("a") == null
+        pool.reserveIdleWorker("b") == worker2
+    }
+
+    def "stops idle workers when stopped"() {
+        def worker1 = worker("a")
+        def worker2 = worker("b")
+        pool.release(worker1)
+        pool.release(worker2)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * worker1.workerProcess.waitForStop()
+        1 * worker2.workerProcess.waitForStop()
+        pool.reserveIdleWorker("a") == null
+    }
+
+    def worker(String key) {
+        def process = Mock(WorkerProcess) {
+            _ * getConnection() >> Stub(ObjectConnection)
+        }
+        return new PooledTestWorker(key, process)
+    }
+}
@@ -18,9 +18,14 @@
 package org.gradle.api.internal.tasks.testing.worker
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.internal.remote.ObjectConnection
 import org.gradle.internal.service.DefaultServiceRegistry
 import org.gradle.internal.time.Clock
@@ -31,13 +36,15 @@ import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 
 public class TestWorkerTest extends ConcurrentSpec {
+    TestResultProcessor workerResults
     @Rule SetSystemProperties properties = new SetSystemProperties()
     def workerContext = Mock(WorkerProcessContext)
     def connection = Mock(ObjectConnection)
     def factory = Mock(WorkerTestClassProcessorFactory)
     def processor = Mock(TestClassProcessor)
     def test = Mock(TestClassRunInfo)
-    def resultProcessor = Mock(TestResultProcessor)
+    def batchProcessor = Mock(TestEventBatchProcessor)
+    def progressListener = Mock(TestWorkerProgressListener)
     def worker = new TestWorker(factory)
     def serviceRegistry = new DefaultServiceRegistry().add(Clock, Time.clock())
 
@@ -45,6 +52,7 @@ public class TestWorkerTest extends ConcurrentSpec {
         workerContext.workerId >> "<worker-id>"
         workerContext.serverConnection >> connection
         workerContext.serviceRegistry >> serviceRegistry
+        workerContext.applicationClassLoader >> getClass().classLoader
     }
 
     def createsTestProcessorAndBlocksUntilEndOfProcessingReceived() {
@@ -60,12 +68,14 @@ public class TestWorkerTest extends ConcurrentSpec {
 
         and:
         1 * factory.create(_) >> processor
-        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(TestEventBatchProcessor) >> batchProcessor
+        1 * connection.addOutgoing(TestWorkerProgressListener) >> progressListener
         1 * connection.addIncoming(RemoteTestClassProcessor, worker)
+        1 * connection.addIncoming(TestEventBatchListener, _ as BatchingTestResultProcessor)
         1 * connection.useParameterSerializers(_)
         1 * connection.connect() >> {
             start {
-                worker.startProcessing()
+                worker.startProcessing(false)
                 worker.processTestClass(test)
                 thread.block()
                 instant.stopped
@@ -74,6 +84,93 @@ public class TestWorkerTest extends ConcurrentSpec {
         }
         1 * processor.startProcessing(_)
         1 * processor.processTestClass(test)
+        0 * progressListener.testClassProcessed()
         1 * processor.stop()
     }
+
+    def sendsEventsOfTestClassBeforeReportingItAsProcessed() {
+        def descriptor = new DefaultTestSuiteDescriptor("class", "SomeTest")
+        def events = []
+
+        when:
+        async {
+            worker.execute(workerContext)
+        }
+
+        then:
+        1 * factory.create(_) >> processor
+        1 * connection.addOutgoing(TestEventBatchProcessor) >> batchProcessor
+        1 * connection.addOutgoing(TestWorkerProgressListener) >> progressListener
+        1 * connection.connect() >> {
+            start {
+                worker.startProcessing(true)
+                worker.processTestClass(test)
+                worker.endStream()
+            }
+        }
+        1 * processor.startProcessing(_) >> { TestResultProcessor resultProcessor -> workerResults = resultProcessor }
+        1 * processor.processTestClass(test) >> {
+            workerResults.started(descriptor, new TestStartEvent(0))
+            workerResults.output("class", new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "line 1"))
+            workerResults.output("class", new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "line 2"))
+            workerResults.completed("class", new TestCompleteEvent(1))
+        }
+
+        then:
+        1 * batchProcessor.processBatch(_) >> { TestEventBatch batch -> events.addAll(batch.events) }
+
+        then:
+        1 * progressListener.testClassProcessed()
+        _ * batchProcessor.processBatch(_)
+
+        and:
+        events.findAll { it.testId == "class" }*.class == [TestEventBatch.Started, TestEventBatch.Output, TestEventBatch.Output, TestEventBatch.Completed]
+    }
+
+    def reusableWorkerStartsNewSessionAfterStopAndBlocksUntilConnectionClosed() {
+        def reusableWorker = new TestWorker()
+        def processor2 = Mock(TestClassProcessor)
+        def sessionClasses = new File("session-classes").absoluteFile
+        def sessionClassLoaders = []
+
+        when:
+        async {
+            reusableWorker.execute(workerContext)
+            instant.completed
+        }
+
+        then:
+        instant.completed > instant.closed
+
+        and:
+        2 * factory.create(_) >>> [processor, processor2]
+        1 * connection.addOutgoing(TestEventBatchProcessor) >> batchProcessor
+        1 * connection.addOutgoing(TestWorkerProgressListener) >> progressListener
+        1 * connection.addIncoming(RemoteTestClassProcessor, reusableWorker)
+        1 * connection.addIncoming(TestEventBatchListener, _ as BatchingTestResultProcessor)
+        1 * connection.useParameterSerializers(_)
+        1 * connection.connect() >> {
+            start {
+                reusableWorker.startSession(factory, [], false)
+                reusableWorker.stop()
+                reusableWorker.startSession(factory, [sessionClasses], false)
+                reusableWorker.processTestClass(test)
+                reusableWorker.stop()
+                thread.block()
+                instant.closed
+                reusableWorker.endStream()
+            }
+        }
+        1 * processor.startProcessing(_) >> { sessionClassLoaders << Thread.currentThread().contextClassLoader }
+        1 * processor.stop()
+        1 * processor2.startProcessing(_) >> { sessionClassLoaders << Thread.currentThread().contextClassLoader }
+        1 * processor2.processTestClass(test)
+        1 * processor2.stop()
+
+        and:
+        sessionClassLoaders.size() == 2
+        !sessionClassLoaders[0].is(sessionClassLoaders[1])
+        sessionClassLoaders[1].URLs as List == [sessionClasses.toURI().toURL()]
+        sessionClassLoaders[1].parent.is(getClass().classLoader)
+    }
 }
@@ -29,6 +29,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -49,6 +50,7 @@
     private final ClassFileExtractionManager classFileExtractionManager;
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
+    private TestClassDetectionCache detectionCache;
 
     private Set<File> testClassesDirectories;
     private Set<File> testClasspath;
@@ -117,7 +119,29 @@ public void setTestClasspath(Set<File> testClasspath) {
         this.testClasspath = testClasspath;
     }
 
-    private TestClass readClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
+    @Override
+    public void setDetectionCache(@Nullable TestClassDetectionCache detectionCache) {
+        this.detectionCache = detectionCache;
+    }
+
+    private TestClass readClassFile(final File testClassFile, Factory<String> fallbackClassNameProvider) {
+        try {
+            if (detectionCache == null) {
+                return parseClassFile(testClassFile);
+            }
+            return detectionCache.get(testClassFile, getClass(), new Factory<TestClass>() {
+                @Override
+                public TestClass create() {
+                    return parseClassFile(testClassFile);
+                }
+            });
+        } catch (ClassFileReadException e) {
+            LOGGER.debug("Failed to read class file " + testClassFile.getAbsolutePath() + "; assuming it's a test class and continuing", e.getCause());
+            return TestClass.forUnparseableFile(fallbackClassNameProvider.create());
+        }
+    }
+
+    private TestClass parseClassFile(File testClassFile) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
         InputStream classStream = null;
@@ -127,8 +151,8 @@ private TestClass readClassFile(File testClassFile, Factory<String> fallbackClas
             classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
             return TestClass.forParseableFile(classVisitor);
         } catch (Throwable e) {
-            LOGGER.debug("Failed to read class file " + testClassFile.getAbsolutePath() + "; assuming it's a test class and continuing", e);
-            return TestClass.forUnparseableFile(fallbackClassNameProvider.create());
+            // Wrap whatever reading the class file throws, so that only failures of the detection cache itself propagate
+            throw new ClassFileReadException(e);
         } finally {
             IoActions.closeQuietly(classStream);
         }
@@ -210,42 +234,12 @@ public void startDetection(TestClassProcessor testClassProcessor) {
         this.testClassProcessor = testClassProcessor;
     }
 
-    private static class TestClass {
-        private final boolean test;
-        private final boolean isAbstract;
-        private final String className;
-        private final String superClassName;
-
-        static TestClass forParseableFile(TestClassVisitor testClassVisitor) {
-            return new TestClass(testClassVisitor.isTest(), testClassVisitor.isAbstract(), testClassVisitor.getClassName(), testClassVisitor.getSuperClassName());
-        }
-
-        static TestClass forUnparseableFile(String className) {
-            return new TestClass(true, false, className, null);
-        }
-
-        private TestClass(boolean test, boolean isAbstract, String className, String superClassName) {
-            this.test = test;
-            this.isAbstract = isAbstract;
-            this.className = className;
-            this.superClassName = superClassName;
-        }
-
-        boolean isTest() {
-            return test;
-        }
-
-        boolean isAbstract() {
-            return isAbstract;
-        }
-
-        String getClassName() {
-            return className;
-        }
-
-        String getSuperClassName() {
-            return superClassName;
+    /**
+     * A class file that could not be read or parsed. Any other failure, including one of the detection cache, is not expected and is propagated.
+     */
+    private static class ClassFileReadException extends RuntimeException {
+        ClassFileReadException(Throwable cause) {
+            super(cause);
         }
     }
-
 }
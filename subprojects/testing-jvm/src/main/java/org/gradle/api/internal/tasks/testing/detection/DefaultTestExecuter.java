@@ -32,7 +32,9 @@
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
+import org.gradle.api.internal.tasks.testing.selection.CarryForwardTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
@@ -42,6 +44,7 @@
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Set;
 
@@ -52,6 +55,17 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
 
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
+    /**
+     * When set, test classes are handed to whichever test worker becomes free first rather than being assigned round-robin up front.
+     */
+    public static final String PULL_BASED_DISTRIBUTION_PROPERTY = "org.gradle.internal.testing.pull-based-distribution";
+
+    /**
+     * When set, test worker processes are kept for the rest of the build session and reused by later Test tasks with the same worker configuration.
+     * Does not apply to tasks using {@code forkEvery}.
+     */
+    public static final String REUSE_WORKERS_PROPERTY = "org.gradle.internal.testing.reuse-workers";
+
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
     private final ModuleRegistry moduleRegistry;
@@ -61,11 +75,14 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final TestClassDetectionCache detectionCache;
+    private final TestWorkerProcessPool workerPool;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount,
-                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
+                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter, @Nullable TestClassDetectionCache detectionCache,
+                               @Nullable TestWorkerProcessPool workerPool) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
@@ -75,6 +92,8 @@ public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory acto
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.detectionCache = detectionCache;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -83,11 +102,14 @@ public void execute(final JvmTestExecutionSpec testExecutionSpec, TestResultProc
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final WorkerLeaseRegistry.WorkerLease currentWorkerLease = workerLeaseRegistry.getCurrentWorkerLease();
         final Set<File> classpath = ImmutableSet.copyOf(testExecutionSpec.getClasspath());
+        final boolean pullBased = Boolean.getBoolean(PULL_BASED_DISTRIBUTION_PROPERTY);
+        // Workers are not reused when the task asks for a fresh worker every few test classes
+        final TestWorkerProcessPool reusableWorkers = Boolean.getBoolean(REUSE_WORKERS_PROPERTY) && testExecutionSpec.getForkEvery() <= 0 ? workerPool : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             @Override
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, pullBased, reusableWorkers);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -97,9 +119,10 @@ public TestClassProcessor create() {
             }
         };
         processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+            new CarryForwardTestClassProcessor(testExecutionSpec.getCarriedForwardResults(),
+                new PatternMatchTestClassProcessor(testFilter,
+                    new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
+                        new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory, pullBased))));
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -108,6 +131,7 @@ public TestClassProcessor create() {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClasses(testExecutionSpec.getTestClassesDirs().getFiles());
             testFrameworkDetector.setTestClasspath(classpath);
+            testFrameworkDetector.setDetectionCache(detectionCache);
             detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
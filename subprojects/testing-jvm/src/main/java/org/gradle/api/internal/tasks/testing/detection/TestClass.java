@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import javax.annotation.Nullable;
+
+/**
+ * The outcome of inspecting a single class file for a test framework.
+ */
+public class TestClass {
+    private final boolean test;
+    private final boolean isAbstract;
+    private final String className;
+    private final String superClassName;
+
+    static TestClass forParseableFile(TestClassVisitor testClassVisitor) {
+        return new TestClass(testClassVisitor.isTest(), testClassVisitor.isAbstract(), testClassVisitor.getClassName(), testClassVisitor.getSuperClassName());
+    }
+
+    static TestClass forUnparseableFile(String className) {
+        return new TestClass(true, false, className, null);
+    }
+
+    private TestClass(boolean test, boolean isAbstract, String className, @Nullable String superClassName) {
+        this.test = test;
+        this.isAbstract = isAbstract;
+        this.className = className;
+        this.superClassName = superClassName;
+    }
+
+    boolean isTest() {
+        return test;
+    }
+
+    boolean isAbstract() {
+        return isAbstract;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    @Nullable
+    String getSuperClassName() {
+        return superClassName;
+    }
+
+    public static class Serializer extends AbstractSerializer<TestClass> {
+        @Override
+        public TestClass read(Decoder decoder) throws Exception {
+            boolean test = decoder.readBoolean();
+            boolean isAbstract = decoder.readBoolean();
+            String className = decoder.readString();
+            String superClassName = decoder.readNullableString();
+            return new TestClass(test, isAbstract, className, superClassName);
+        }
+
+        @Override
+        public void write(Encoder encoder, TestClass value) throws Exception {
+            encoder.writeBoolean(value.test);
+            encoder.writeBoolean(value.isAbstract);
+            encoder.writeString(value.className);
+            encoder.writeNullableString(value.superClassName);
+        }
+    }
+}
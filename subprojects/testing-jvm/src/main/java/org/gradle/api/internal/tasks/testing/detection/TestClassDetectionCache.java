@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.invocation.Gradle;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.MinimalPersistentCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.Closeable;
+import java.io.File;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Cross-build cache of test class detection results, keyed by the content of the class file and the detector that inspected it.
+ * Only class files that have changed since a previous run need to be parsed again.
+ *
+ * <p>Only used when the {@value #ENABLED_PROPERTY} system property is set.</p>
+ */
+public class TestClassDetectionCache implements Closeable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.testing.detection-cache";
+
+    private final PersistentCache cache;
+    private final MinimalPersistentCache<HashCode, TestClass> testClasses;
+    private final FileHasher fileHasher;
+
+    public TestClassDetectionCache(CacheRepository cacheRepository, Gradle gradle, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, FileHasher fileHasher) {
+        this.fileHasher = fileHasher;
+        cache = cacheRepository
+            .cache(gradle, "testClassDetection")
+            .withDisplayName("test class detection cache")
+            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .open();
+        PersistentIndexedCacheParameters<HashCode, TestClass> parameters = PersistentIndexedCacheParameters.of("testClasses", new HashCodeSerializer(), new TestClass.Serializer())
+            .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(100000, true));
+        testClasses = new MinimalPersistentCache<HashCode, TestClass>(cache.createCache(parameters));
+    }
+
+    /**
+     * Returns the detection result for the given class file, using the given factory to inspect the class file when it has not been seen before.
+     */
+    public TestClass get(File classFile, Class<? extends TestFrameworkDetector> detectorType, Factory<TestClass> factory) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(detectorType.getName());
+        hasher.putHash(fileHasher.hash(classFile));
+        return testClasses.get(hasher.hash(), factory);
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+}
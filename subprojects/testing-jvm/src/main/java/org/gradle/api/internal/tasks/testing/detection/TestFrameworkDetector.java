@@ -18,6 +18,7 @@
 import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Set;
 
@@ -29,4 +30,9 @@ public interface TestFrameworkDetector {
     void setTestClasses(Set<File> testClasses);
 
     void setTestClasspath(Set<File> classpath);
+
+    /**
+     * Sets the cache used to avoid re-parsing class files that have been inspected before, or {@code null} to parse every class file.
+     */
+    void setDetectionCache(@Nullable TestClassDetectionCache detectionCache);
 }
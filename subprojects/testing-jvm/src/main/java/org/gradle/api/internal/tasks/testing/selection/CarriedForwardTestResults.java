@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.selection;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.id.CompositeIdGenerator;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of the previous run for the test classes that passed and are not affected by the changes since.
+ * These are replayed as test events instead of running the test classes again.
+ */
+public class CarriedForwardTestResults {
+    private static final CarriedForwardTestResults NONE = new CarriedForwardTestResults(Collections.<String, CarriedForwardClass>emptyMap());
+    private static final String ID_SCOPE = "carried-forward";
+    private static final TestOutputEvent.Destination[] DESTINATIONS = {TestOutputEvent.Destination.StdOut, TestOutputEvent.Destination.StdErr};
+
+    private final Map<String, CarriedForwardClass> classes;
+
+    private CarriedForwardTestResults(Map<String, CarriedForwardClass> classes) {
+        this.classes = classes;
+    }
+
+    public static CarriedForwardTestResults none() {
+        return NONE;
+    }
+
+    /**
+     * Reads the results of the unaffected test classes. This has to happen before the binary results of the previous run are discarded.
+     */
+    public static CarriedForwardTestResults read(File binaryResultsDir, final TestClassSelection selection) {
+        TestResultSerializer serializer = new TestResultSerializer(binaryResultsDir);
+        if (selection.isRunAll() || !serializer.isHasResults()) {
+            return NONE;
+        }
+        final List<TestClassResult> classResults = new ArrayList<TestClassResult>();
+        serializer.read(new Action<TestClassResult>() {
+            @Override
+            public void execute(TestClassResult classResult) {
+                if (classResult.getFailuresCount() == 0 && !selection.isAffected(classResult.getClassName())) {
+                    classResults.add(classResult);
+                }
+            }
+        });
+        if (classResults.isEmpty()) {
+            return NONE;
+        }
+        Map<String, CarriedForwardClass> classes = new LinkedHashMap<String, CarriedForwardClass>();
+        TestOutputStore.Reader outputReader = new TestOutputStore(binaryResultsDir).reader();
+        try {
+            for (TestClassResult classResult : classResults) {
+                CarriedForwardClass carriedForwardClass = new CarriedForwardClass(classResult);
+                for (TestOutputEvent.Destination destination : DESTINATIONS) {
+                    if (!outputReader.hasOutput(classResult.getId(), destination)) {
+                        continue;
+                    }
+                    StringWriter classOutput = new StringWriter();
+                    outputReader.writeNonTestOutput(classResult.getId(), destination, classOutput);
+                    carriedForwardClass.addOutput(0, destination, classOutput.toString());
+                    for (TestMethodResult methodResult : classResult.getResults()) {
+                        StringWriter methodOutput = new StringWriter();
+                        outputReader.writeTestOutput(classResult.getId(), methodResult.getId(), destination, methodOutput);
+                        carriedForwardClass.addOutput(methodResult.getId(), destination, methodOutput.toString());
+                    }
+                }
+                classes.put(classResult.getClassName(), carriedForwardClass);
+            }
+        } finally {
+            CompositeStoppable.stoppable(outputReader).stop();
+        }
+        return new CarriedForwardTestResults(classes);
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Sends the carried forward results to the given processor, as if the test classes had just been executed.
+     */
+    public void replay(TestResultProcessor resultProcessor) {
+        long nextId = 0;
+        for (CarriedForwardClass carriedForwardClass : classes.values()) {
+            TestClassResult classResult = carriedForwardClass.result;
+            Object classId = new CompositeIdGenerator.CompositeId(ID_SCOPE, nextId++);
+            resultProcessor.started(new DefaultTestClassDescriptor(classId, classResult.getClassName(), classResult.getClassDisplayName()), new TestStartEvent(classResult.getStartTime()));
+            carriedForwardClass.replayOutput(0, classId, resultProcessor);
+            for (TestMethodResult methodResult : classResult.getResults()) {
+                Object testId = new CompositeIdGenerator.CompositeId(ID_SCOPE, nextId++);
+                DefaultTestDescriptor descriptor = new DefaultTestDescriptor(testId, classResult.getClassName(), methodResult.getName(), classResult.getClassDisplayName(), methodResult.getDisplayName());
+                resultProcessor.started(descriptor, new TestStartEvent(methodResult.getEndTime() - methodResult.getDuration(), classId));
+                carriedForwardClass.replayOutput(methodResult.getId(), testId, resultProcessor);
+                resultProcessor.completed(testId, new TestCompleteEvent(methodResult.getEndTime(), methodResult.getResultType()));
+            }
+            resultProcessor.completed(classId, new TestCompleteEvent(classResult.getStartTime() + classResult.getDuration()));
+        }
+    }
+
+    private static class CarriedForwardClass {
+        private final TestClassResult result;
+        // Output is keyed by the id of the test method in the previous results, or 0 for output of the class itself
+        private final Map<Long, List<TestOutputEvent>> output = new HashMap<Long, List<TestOutputEvent>>();
+
+        CarriedForwardClass(TestClassResult result) {
+            this.result = result;
+        }
+
+        void addOutput(long methodId, TestOutputEvent.Destination destination, String message) {
+            if (message.isEmpty()) {
+                return;
+            }
+            List<TestOutputEvent> events = output.get(methodId);
+            if (events == null) {
+                events = new ArrayList<TestOutputEvent>(2);
+                output.put(methodId, events);
+            }
+            events.add(new DefaultTestOutputEvent(destination, message));
+        }
+
+        void replayOutput(long methodId, Object testId, TestResultProcessor resultProcessor) {
+            List<TestOutputEvent> events = output.get(methodId);
+            if (events != null) {
+                for (TestOutputEvent event : events) {
+                    resultProcessor.output(testId, event);
+                }
+            }
+        }
+    }
+}
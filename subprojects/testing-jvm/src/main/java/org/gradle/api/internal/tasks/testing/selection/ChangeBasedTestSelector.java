@@ -0,0 +1,298 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.selection;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.FileOperations;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.CachingClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.classpath.CachingClasspathEntrySnapshotter;
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshot;
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshotCache;
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshotter;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassChanges;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.FileSystemSnapshotter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.gradle.internal.FileUtils.hasExtension;
+
+/**
+ * Selects the test classes that may be affected by the changes to the test runtime classpath since the previous run of a test task.
+ *
+ * <p>The classpath entries are snapshotted the same way as for incremental Java compilation, so the class level dependency analysis
+ * and the snapshots of unchanged entries are shared with the compile tasks. A test class is affected when it is one of the changed classes
+ * or transitively depends on one. Changes that the class analysis cannot follow fall back to running all test classes: changed resources,
+ * changed constants, added, removed or reordered classpath entries, and classes that are a dependency to all others.
+ * Dependencies that only exist through reflection are not visible to the analysis.</p>
+ */
+public class ChangeBasedTestSelector {
+    /**
+     * Opts a build into running only the test classes affected by changes, carrying forward the results of all other test classes.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.testing.change-based-selection";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeBasedTestSelector.class);
+    private static final int STATE_VERSION = 1;
+
+    private final File stateFile;
+    private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final FileHasher fileHasher;
+    private final FileOperations fileOperations;
+    private final ClasspathEntrySnapshotCache snapshotCache;
+    private final ClasspathEntrySnapshotter snapshotter;
+
+    /**
+     * @param stateFile where the state of the previous run is kept. Should be part of the outputs of the test task, so that it is restored
+     * from the build cache together with the results the selection carries forward.
+     */
+    public ChangeBasedTestSelector(File stateFile, FileSystemSnapshotter fileSystemSnapshotter, FileHasher fileHasher, StreamHasher streamHasher, StringInterner interner, GeneralCompileCaches compileCaches, FileOperations fileOperations, BuildOperationExecutor buildOperationExecutor) {
+        this(stateFile, fileSystemSnapshotter, fileHasher, fileOperations, compileCaches.getClasspathEntrySnapshotCache(),
+            new CachingClasspathEntrySnapshotter(fileHasher, streamHasher, fileSystemSnapshotter,
+                new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(interner), compileCaches.getClassAnalysisCache()),
+                compileCaches.getClasspathEntrySnapshotCache(), fileOperations, buildOperationExecutor));
+    }
+
+    ChangeBasedTestSelector(File stateFile, FileSystemSnapshotter fileSystemSnapshotter, FileHasher fileHasher, FileOperations fileOperations, ClasspathEntrySnapshotCache snapshotCache, ClasspathEntrySnapshotter snapshotter) {
+        this.stateFile = stateFile;
+        this.fileSystemSnapshotter = fileSystemSnapshotter;
+        this.fileHasher = fileHasher;
+        this.fileOperations = fileOperations;
+        this.snapshotCache = snapshotCache;
+        this.snapshotter = snapshotter;
+    }
+
+    /**
+     * Compares the given classpath with the one recorded by {@link #storeState(TestClassSelection)} after the previous run.
+     *
+     * @param configurationHash a hash of everything other than the classpath that influences which tests run and what they do.
+     */
+    public TestClassSelection select(HashCode configurationHash, Iterable<File> classpath) {
+        TestSelectionState previous = readState();
+        Map<File, TestSelectionState.Entry> previousEntries = previous == null ? Collections.<File, TestSelectionState.Entry>emptyMap() : previous.getEntriesByFile();
+        List<TestSelectionState.Entry> entries = new ArrayList<TestSelectionState.Entry>();
+        Map<File, ClasspathEntrySnapshot> snapshots = new HashMap<File, ClasspathEntrySnapshot>();
+        for (File file : classpath) {
+            if (!file.exists()) {
+                continue;
+            }
+            HashCode hash = fileSystemSnapshotter.snapshot(file).getHash();
+            TestSelectionState.Entry previousEntry = previousEntries.get(file);
+            if (previousEntry != null && previousEntry.getHash().equals(hash)) {
+                entries.add(previousEntry);
+            } else {
+                // Snapshot new and changed entries right away, so that the next run can find this version in the cache
+                snapshots.put(file, snapshotter.createSnapshot(file));
+                entries.add(new TestSelectionState.Entry(file, hash, hashResources(file)));
+            }
+        }
+        TestSelectionState current = new TestSelectionState(configurationHash, entries);
+
+        if (previous == null) {
+            return TestClassSelection.all("no previous test run was recorded", current);
+        }
+        if (!previous.getConfigurationHash().equals(configurationHash)) {
+            return TestClassSelection.all("the test configuration has changed", current);
+        }
+        if (!Lists.newArrayList(previousEntries.keySet()).equals(Lists.newArrayList(current.getEntriesByFile().keySet()))) {
+            return TestClassSelection.all("the test runtime classpath has changed", current);
+        }
+
+        Set<String> changedClasses = new HashSet<String>();
+        for (TestSelectionState.Entry entry : entries) {
+            TestSelectionState.Entry previousEntry = previousEntries.get(entry.getFile());
+            if (previousEntry == entry) {
+                continue;
+            }
+            if (!previousEntry.getResourcesHash().equals(entry.getResourcesHash())) {
+                return TestClassSelection.all("resources in '" + entry.getFile() + "' have changed", current);
+            }
+            ClasspathEntrySnapshot previousSnapshot = snapshotCache.get(entry.getFile(), previousEntry.getHash());
+            if (previousSnapshot == null) {
+                return TestClassSelection.all("the snapshot of '" + entry.getFile() + "' from the previous run is no longer available", current);
+            }
+            ClasspathEntrySnapshot currentSnapshot = snapshots.get(entry.getFile());
+            ClassChanges classChanges = currentSnapshot.getChangedClassesSince(previousSnapshot);
+            Set<String> changed = Sets.union(classChanges.getModified(), classChanges.getAdded());
+            if (!currentSnapshot.getRelevantConstants(previousSnapshot, changed).isEmpty()) {
+                return TestClassSelection.all("a constant in '" + entry.getFile() + "' has changed", current);
+            }
+            changedClasses.addAll(changed);
+        }
+
+        DependentsSet affected = collectDependents(changedClasses, entries, snapshots);
+        if (affected.isDependencyToAll()) {
+            String description = affected.getDescription();
+            return TestClassSelection.all(description != null ? description : "a changed class is a dependency to all other classes", current);
+        }
+        return TestClassSelection.affected(affected.getDependentClasses(), current);
+    }
+
+    /**
+     * Records the classpath that the selected tests ran against, for use by the next run.
+     */
+    public void storeState(TestClassSelection selection) {
+        try {
+            stateFile.getParentFile().mkdirs();
+            OutputStream outputStream = new FileOutputStream(stateFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(STATE_VERSION);
+                new TestSelectionState.Serializer().write(encoder, selection.getState());
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (Exception e) {
+            // The next run will simply run all tests
+            stateFile.delete();
+            LOGGER.debug("Could not write test selection state to {}", stateFile, e);
+        }
+    }
+
+    @Nullable
+    private TestSelectionState readState() {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(stateFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != STATE_VERSION) {
+                    return null;
+                }
+                return new TestSelectionState.Serializer().read(decoder);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read test selection state from {}", stateFile, e);
+            return null;
+        }
+    }
+
+    private DependentsSet collectDependents(Set<String> changedClasses, List<TestSelectionState.Entry> entries, Map<File, ClasspathEntrySnapshot> snapshots) {
+        if (changedClasses.isEmpty()) {
+            return DependentsSet.empty();
+        }
+        List<ClasspathEntrySnapshot> entrySnapshots = new ArrayList<ClasspathEntrySnapshot>(entries.size());
+        for (TestSelectionState.Entry entry : entries) {
+            ClasspathEntrySnapshot snapshot = snapshots.get(entry.getFile());
+            entrySnapshots.add(snapshot != null ? snapshot : snapshotter.createSnapshot(entry.getFile()));
+        }
+        Set<String> dependentClasses = new HashSet<String>(changedClasses);
+        Deque<String> queue = Lists.newLinkedList(changedClasses);
+        while (!queue.isEmpty()) {
+            String dependentClass = queue.poll();
+            for (ClasspathEntrySnapshot snapshot : entrySnapshots) {
+                DependentsSet dependents = snapshot.getData().getClassAnalysis().getDependents(dependentClass);
+                if (dependents.isDependencyToAll()) {
+                    return dependents;
+                }
+                for (String intermediate : dependents.getDependentClasses()) {
+                    if (dependentClasses.add(intermediate)) {
+                        queue.add(intermediate);
+                    }
+                }
+            }
+        }
+        return DependentsSet.dependentClasses(dependentClasses);
+    }
+
+    private HashCode hashResources(File entry) {
+        final SortedMap<String, HashCode> resources = new TreeMap<String, HashCode>();
+        if (entry.isDirectory()) {
+            fileOperations.fileTree(entry).visit(new FileVisitor() {
+                @Override
+                public void visitDir(FileVisitDetails dirDetails) {
+                }
+
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    if (!fileDetails.getName().endsWith(".class")) {
+                        resources.put(fileDetails.getRelativePath().getPathString(), fileHasher.hash(fileDetails.getFile()));
+                    }
+                }
+            });
+        } else if (hasExtension(entry, ".jar")) {
+            try {
+                // The central directory already has a checksum of each entry, so there is no need to inflate anything
+                ZipFile zipFile = new ZipFile(entry);
+                try {
+                    Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+                    while (zipEntries.hasMoreElements()) {
+                        ZipEntry zipEntry = zipEntries.nextElement();
+                        if (!zipEntry.isDirectory() && !zipEntry.getName().endsWith(".class")) {
+                            resources.put(zipEntry.getName(), HashCode.fromInt((int) zipEntry.getCrc()));
+                        }
+                    }
+                } finally {
+                    zipFile.close();
+                }
+            } catch (IOException e) {
+                // Treat any change to the entry as a change to its resources
+                return fileHasher.hash(entry);
+            }
+        } else {
+            return fileHasher.hash(entry);
+        }
+        Hasher hasher = Hashing.newHasher();
+        for (Map.Entry<String, HashCode> resource : resources.entrySet()) {
+            hasher.putString(resource.getKey());
+            hasher.putHash(resource.getValue());
+        }
+        return hasher.hash();
+    }
+}
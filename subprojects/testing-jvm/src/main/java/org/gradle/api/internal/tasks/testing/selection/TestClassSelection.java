@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.selection;
+
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nullable;
+import java.util.Set;
+
+/**
+ * The outcome of change based test selection: either every test class has to run, or only those that are affected by the changed classes.
+ */
+public class TestClassSelection {
+    private final Set<String> affectedClasses;
+    private final String fullRunReason;
+    private final TestSelectionState state;
+
+    private TestClassSelection(@Nullable Set<String> affectedClasses, @Nullable String fullRunReason, TestSelectionState state) {
+        this.affectedClasses = affectedClasses;
+        this.fullRunReason = fullRunReason;
+        this.state = state;
+    }
+
+    public static TestClassSelection all(String reason, TestSelectionState state) {
+        return new TestClassSelection(null, reason, state);
+    }
+
+    public static TestClassSelection affected(Set<String> affectedClasses, TestSelectionState state) {
+        return new TestClassSelection(ImmutableSet.copyOf(affectedClasses), null, state);
+    }
+
+    public boolean isRunAll() {
+        return affectedClasses == null;
+    }
+
+    @Nullable
+    public String getFullRunReason() {
+        return fullRunReason;
+    }
+
+    /**
+     * Returns true when the given test class may be affected by the changes and has to run. A nested class is affected when its outermost class is.
+     */
+    public boolean isAffected(String className) {
+        if (affectedClasses == null || affectedClasses.contains(className)) {
+            return true;
+        }
+        int nestedSeparator = className.indexOf('$');
+        return nestedSeparator > 0 && affectedClasses.contains(className.substring(0, nestedSeparator));
+    }
+
+    /**
+     * The state to persist once the selected tests have run.
+     */
+    public TestSelectionState getState() {
+        return state;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.selection;
+
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The classpath of a test task as seen by change based test selection: the hash of each classpath entry, plus a separate hash of the resources it contains.
+ */
+public class TestSelectionState {
+    private final HashCode configurationHash;
+    private final List<Entry> entries;
+
+    public TestSelectionState(HashCode configurationHash, List<Entry> entries) {
+        this.configurationHash = configurationHash;
+        this.entries = entries;
+    }
+
+    public HashCode getConfigurationHash() {
+        return configurationHash;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public Map<File, Entry> getEntriesByFile() {
+        Map<File, Entry> result = new LinkedHashMap<File, Entry>();
+        for (Entry entry : entries) {
+            result.put(entry.getFile(), entry);
+        }
+        return result;
+    }
+
+    public static class Entry {
+        private final File file;
+        private final HashCode hash;
+        private final HashCode resourcesHash;
+
+        public Entry(File file, HashCode hash, HashCode resourcesHash) {
+            this.file = file;
+            this.hash = hash;
+            this.resourcesHash = resourcesHash;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * The hash of the whole entry, as used to key its classpath entry snapshot.
+         */
+        public HashCode getHash() {
+            return hash;
+        }
+
+        /**
+         * The hash of all files in the entry that are not class files.
+         */
+        public HashCode getResourcesHash() {
+            return resourcesHash;
+        }
+    }
+
+    public static class Serializer extends AbstractSerializer<TestSelectionState> {
+        private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+
+        @Override
+        public TestSelectionState read(Decoder decoder) throws Exception {
+            HashCode configurationHash = hashCodeSerializer.read(decoder);
+            int count = decoder.readSmallInt();
+            List<Entry> entries = new ArrayList<Entry>(count);
+            for (int i = 0; i < count; i++) {
+                File file = new File(decoder.readString());
+                HashCode hash = hashCodeSerializer.read(decoder);
+                HashCode resourcesHash = hashCodeSerializer.read(decoder);
+                entries.add(new Entry(file, hash, resourcesHash));
+            }
+            return new TestSelectionState(configurationHash, entries);
+        }
+
+        @Override
+        public void write(Encoder encoder, TestSelectionState value) throws Exception {
+            hashCodeSerializer.write(encoder, value.configurationHash);
+            encoder.writeSmallInt(value.entries.size());
+            for (Entry entry : value.entries) {
+                encoder.writeString(entry.file.getAbsolutePath());
+                hashCodeSerializer.write(encoder, entry.hash);
+                hashCodeSerializer.write(encoder, entry.resourcesHash);
+            }
+        }
+    }
+}
@@ -27,19 +27,27 @@
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.classpath.ModuleRegistry;
+import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
 import org.gradle.api.internal.tasks.testing.JvmTestExecutionSpec;
 import org.gradle.api.internal.tasks.testing.TestExecuter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
 import org.gradle.api.internal.tasks.testing.junitplatform.JUnitPlatformTestFramework;
+import org.gradle.api.internal.tasks.testing.selection.CarriedForwardTestResults;
+import org.gradle.api.internal.tasks.testing.selection.ChangeBasedTestSelector;
+import org.gradle.api.internal.tasks.testing.selection.TestClassSelection;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
@@ -59,9 +67,16 @@
 import org.gradle.internal.Actions;
 import org.gradle.internal.Cast;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.jvm.UnsupportedJavaRuntimeException;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.snapshot.FileSystemSnapshotter;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.CommandLineArgumentProvider;
@@ -75,11 +90,14 @@
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import static org.gradle.util.ConfigureUtil.configureUsing;
 
@@ -149,6 +167,8 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     private long forkEvery;
     private int maxParallelForks = 1;
     private TestExecuter<JvmTestExecutionSpec> testExecuter;
+    private ChangeBasedTestSelector testSelector;
+    private TestClassSelection testClassSelection;
 
     public Test() {
         patternSet = getFileResolver().getPatternSetFactory().create();
@@ -576,7 +596,69 @@ public Test copyTo(JavaForkOptions target) {
     protected JvmTestExecutionSpec createTestExecutionSpec() {
         JavaForkOptions javaForkOptions = getForkOptionsFactory().newJavaForkOptions();
         copyTo(javaForkOptions);
-        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses());
+        CarriedForwardTestResults carriedForwardResults = Boolean.getBoolean(ChangeBasedTestSelector.ENABLED_PROPERTY) ? selectAffectedTestClasses() : CarriedForwardTestResults.none();
+        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses(), carriedForwardResults);
+    }
+
+    private CarriedForwardTestResults selectAffectedTestClasses() {
+        ServiceRegistry services = getServices();
+        // Kept with the binary results, which are restored from the build cache together with it
+        testSelector = new ChangeBasedTestSelector(new File(getBinResultsDir(), "testSelection.bin"),
+            services.get(FileSystemSnapshotter.class),
+            services.get(FileHasher.class),
+            services.get(StreamHasher.class),
+            services.get(StringInterner.class),
+            services.get(GeneralCompileCaches.class),
+            services.get(FileOperations.class),
+            services.get(BuildOperationExecutor.class));
+        Set<File> classpath = new LinkedHashSet<File>(getClasspath().getFiles());
+        classpath.addAll(getTestClassesDirs().getFiles());
+        testClassSelection = testSelector.select(getTestSelectionConfigurationHash(), classpath);
+        if (testClassSelection.isRunAll()) {
+            getLogger().info("Running all test classes because {}.", testClassSelection.getFullRunReason());
+            return CarriedForwardTestResults.none();
+        }
+        CarriedForwardTestResults carriedForwardResults = CarriedForwardTestResults.read(getBinResultsDir(), testClassSelection);
+        getLogger().info("Carrying forward the results of {} test classes that are not affected by changes.", carriedForwardResults.size());
+        return carriedForwardResults;
+    }
+
+    private HashCode getTestSelectionConfigurationHash() {
+        Hasher hasher = Hashing.newHasher();
+        TestFramework testFramework = getTestFramework();
+        hasher.putString(testFramework.getClass().getName());
+        hasher.putBoolean(isScanForTestClasses());
+        putStrings(hasher, getIncludes());
+        putStrings(hasher, getExcludes());
+        DefaultTestFilter filter = (DefaultTestFilter) getFilter();
+        putStrings(hasher, filter.getIncludePatterns());
+        putStrings(hasher, filter.getExcludePatterns());
+        putStrings(hasher, filter.getCommandLineIncludePatterns());
+        Object options = testFramework.getOptions();
+        if (options instanceof JUnitOptions) {
+            putStrings(hasher, ((JUnitOptions) options).getIncludeCategories());
+            putStrings(hasher, ((JUnitOptions) options).getExcludeCategories());
+        } else if (options instanceof JUnitPlatformOptions) {
+            putStrings(hasher, ((JUnitPlatformOptions) options).getIncludeEngines());
+            putStrings(hasher, ((JUnitPlatformOptions) options).getExcludeEngines());
+            putStrings(hasher, ((JUnitPlatformOptions) options).getIncludeTags());
+            putStrings(hasher, ((JUnitPlatformOptions) options).getExcludeTags());
+        } else if (options instanceof TestNGOptions) {
+            putStrings(hasher, ((TestNGOptions) options).getIncludeGroups());
+            putStrings(hasher, ((TestNGOptions) options).getExcludeGroups());
+            putStrings(hasher, ((TestNGOptions) options).getListeners());
+        }
+        hasher.putString(getExecutable());
+        putStrings(hasher, getAllJvmArgs());
+        putStrings(hasher, new TreeMap<String, Object>(getEnvironment()).entrySet());
+        return hasher.hash();
+    }
+
+    private static void putStrings(Hasher hasher, Collection<?> values) {
+        hasher.putInt(values.size());
+        for (Object value : values) {
+            hasher.putString(String.valueOf(value));
+        }
     }
 
     private Set<String> getPreviousFailedTestClasses() {
@@ -613,6 +695,11 @@ public void executeTests() {
             super.executeTests();
         } finally {
             testFramework = null;
+            if (testClassSelection != null) {
+                testSelector.storeState(testClassSelection);
+                testSelector = null;
+                testClassSelection = null;
+            }
         }
     }
 
@@ -625,7 +712,9 @@ protected TestExecuter<JvmTestExecutionSpec> createTestExecuter() {
                 getServices().get(StartParameter.class).getMaxWorkerCount(),
                 getServices().get(Clock.class),
                 getServices().get(DocumentationRegistry.class),
-                (DefaultTestFilter) getFilter());
+                (DefaultTestFilter) getFilter(),
+                Boolean.getBoolean(TestClassDetectionCache.ENABLED_PROPERTY) ? getServices().get(TestClassDetectionCache.class) : null,
+                getServices().get(TestWorkerProcessPool.class));
         } else {
             return testExecuter;
         }
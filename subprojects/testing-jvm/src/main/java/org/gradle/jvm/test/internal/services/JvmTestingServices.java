@@ -16,6 +16,11 @@
 
 package org.gradle.jvm.test.internal.services;
 
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
 import org.gradle.jvm.test.internal.JUnitTestSuiteBinaryRenderer;
@@ -25,4 +30,15 @@ public class JvmTestingServices extends AbstractPluginServiceRegistry {
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.add(JUnitTestSuiteBinaryRenderer.class);
     }
+
+    @Override
+    public void registerGradleServices(ServiceRegistration registration) {
+        registration.addProvider(new GradleScopeTestingServices());
+    }
+
+    private static class GradleScopeTestingServices {
+        TestClassDetectionCache createTestClassDetectionCache(CacheRepository cacheRepository, Gradle gradle, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, FileHasher fileHasher) {
+            return new TestClassDetectionCache(cacheRepository, gradle, inMemoryCacheDecoratorFactory, fileHasher);
+        }
+    }
 }
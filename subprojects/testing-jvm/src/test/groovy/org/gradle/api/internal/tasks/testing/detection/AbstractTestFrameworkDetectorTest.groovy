@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.RelativeFile
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.junit.JUnitDetector
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.junit.Test
+import spock.lang.Specification
+
+class AbstractTestFrameworkDetectorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def processor = Mock(TestClassProcessor)
+    def detectionCache = Mock(TestClassDetectionCache)
+    def detector = new JUnitDetector(Stub(ClassFileExtractionManager))
+
+    def setup() {
+        detector.startDetection(processor)
+        detector.setDetectionCache(detectionCache)
+    }
+
+    def "uses cached result instead of parsing the class file"() {
+        def classFile = new RelativeFile(new File("does-not-exist/SomeTest.class"), RelativePath.parse(true, "org/gradle/SomeTest.class"))
+
+        when:
+        def isTest = detector.processTestClass(classFile)
+
+        then:
+        isTest
+        1 * detectionCache.get(classFile.file, JUnitDetector, _) >> new TestClass(true, false, "org/gradle/SomeTest", "java/lang/Object")
+        1 * processor.processTestClass({ it.testClassName == "org.gradle.SomeTest" })
+        0 * _
+    }
+
+    def "parses the class file when no result is cached"() {
+        def file = new File(getClass().getResource('AbstractTestFrameworkDetectorTest$SomeTest.class').toURI())
+        def classFile = new RelativeFile(file, RelativePath.parse(true, "org/gradle/api/internal/tasks/testing/detection/AbstractTestFrameworkDetectorTest\$SomeTest.class"))
+
+        when:
+        def isTest = detector.processTestClass(classFile)
+
+        then:
+        isTest
+        1 * detectionCache.get(file, JUnitDetector, _) >> { File f, Class<?> type, Factory<TestClass> factory -> factory.create() }
+        1 * processor.processTestClass({ it.testClassName == SomeTest.name })
+    }
+
+    def "assumes a class file that cannot be parsed is a test class"() {
+        def file = tmpDir.file("BrokenTest.class")
+        file.bytes = [0xCA, 0xFE, 0xBA, 0xBE, 0, 0] as byte[]
+        def classFile = new RelativeFile(file, RelativePath.parse(true, "org/gradle/BrokenTest.class"))
+
+        when:
+        def isTest = detector.processTestClass(classFile)
+
+        then:
+        isTest
+        1 * detectionCache.get(file, JUnitDetector, _) >> { File f, Class<?> type, Factory<TestClass> factory -> factory.create() }
+        1 * processor.processTestClass({ it.testClassName == "org.gradle.BrokenTest" })
+    }
+
+    def "propagates failures of the detection cache"() {
+        def classFile = new RelativeFile(new File("does-not-exist/SomeTest.class"), RelativePath.parse(true, "org/gradle/SomeTest.class"))
+        def failure = new IllegalStateException("cache is broken")
+
+        when:
+        detector.processTestClass(classFile)
+
+        then:
+        1 * detectionCache.get(classFile.file, JUnitDetector, _) >> { throw failure }
+        def e = thrown(IllegalStateException)
+        e.is(failure)
+    }
+
+    def "assumes a class file that the detector fails to inspect is a test class"() {
+        def failingDetector = new FailingDetector(Stub(ClassFileExtractionManager))
+        failingDetector.startDetection(processor)
+        failingDetector.setDetectionCache(detectionCache)
+        def file = new File(getClass().getResource('AbstractTestFrameworkDetectorTest$SomeTest.class').toURI())
+        def classFile = new RelativeFile(file, RelativePath.parse(true, "org/gradle/SomeTest.class"))
+
+        when:
+        def isTest = failingDetector.processTestClass(classFile)
+
+        then:
+        isTest
+        1 * detectionCache.get(file, FailingDetector, _) >> { File f, Class<?> type, Factory<TestClass> factory -> factory.create() }
+        1 * processor.processTestClass({ it.testClassName == "org.gradle.SomeTest" })
+    }
+
+    static class FailingDetector extends AbstractTestFrameworkDetector<TestClassVisitor> {
+        FailingDetector(ClassFileExtractionManager classFileExtractionManager) {
+            super(classFileExtractionManager)
+        }
+
+        @Override
+        protected TestClassVisitor createClassVisitor() {
+            return new TestClassVisitor(this) {
+                @Override
+                void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                    throw new NoClassDefFoundError("org/gradle/Missing")
+                }
+
+                @Override
+                protected boolean ignoreNonStaticInnerClass() {
+                    return false
+                }
+            }
+        }
+
+        @Override
+        protected boolean isKnownTestCaseClassName(String testCaseClassName) {
+            return false
+        }
+    }
+
+    static class SomeTest {
+        @Test
+        void ok() {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.selection
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.WorkspaceTest
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+
+class CarriedForwardTestResultsTest extends WorkspaceTest {
+    def state = new TestSelectionState(HashCode.fromInt(1), [])
+    def resultProcessor = Mock(TestResultProcessor)
+
+    def setup() {
+        def passed = new TestClassResult(1, "org.PassedTest", 1000)
+            .add(new TestMethodResult(2, "ok", TestResult.ResultType.SUCCESS, 100, 1200))
+            .add(new TestMethodResult(3, "ignored", TestResult.ResultType.SKIPPED, 0, 1200))
+        def failed = new TestClassResult(4, "org.FailedTest", 1000)
+            .add(new TestMethodResult(5, "broken", TestResult.ResultType.FAILURE, 100, 1100).addFailure("message", "stack-trace", "ExceptionType"))
+        def affected = new TestClassResult(6, "org.AffectedTest", 1000)
+            .add(new TestMethodResult(7, "ok", TestResult.ResultType.SUCCESS, 100, 1100))
+        new TestResultSerializer(testDirectory).write([passed, failed, affected])
+
+        def writer = new TestOutputStore(testDirectory).writer()
+        writer.onOutput(1, new DefaultTestOutputEvent(StdOut, "class output"))
+        writer.onOutput(1, 2, new DefaultTestOutputEvent(StdOut, "test output"))
+        writer.onOutput(1, 2, new DefaultTestOutputEvent(StdErr, "test error"))
+        writer.onOutput(6, 7, new DefaultTestOutputEvent(StdOut, "affected output"))
+        writer.close()
+    }
+
+    def "carries forward only passed test classes that are not affected"() {
+        when:
+        def results = CarriedForwardTestResults.read(testDirectory, TestClassSelection.affected(["org.AffectedTest"] as Set, state))
+
+        then:
+        results.size() == 1
+        results.contains("org.PassedTest")
+        !results.contains("org.FailedTest")
+        !results.contains("org.AffectedTest")
+    }
+
+    def "carries forward nothing when all test classes have to run"() {
+        expect:
+        CarriedForwardTestResults.read(testDirectory, TestClassSelection.all("some reason", state)).size() == 0
+    }
+
+    def "carries forward nothing when there are no previous results"() {
+        expect:
+        CarriedForwardTestResults.read(file("other"), TestClassSelection.affected([] as Set, state)).size() == 0
+    }
+
+    def "replays results and output of carried forward test classes"() {
+        def results = CarriedForwardTestResults.read(testDirectory, TestClassSelection.affected(["org.AffectedTest"] as Set, state))
+        def classId = null
+        def testIds = []
+
+        when:
+        results.replay(resultProcessor)
+
+        then:
+        1 * resultProcessor.started({ it.className == "org.PassedTest" && it.composite }, { it.startTime == 1000 && it.parentId == null }) >> { TestDescriptorInternal test, TestStartEvent event -> classId = test.id }
+        1 * resultProcessor.output({ it == classId }, { it.destination == StdOut && it.message == "class output" })
+
+        then:
+        1 * resultProcessor.started({ it.name == "ok" }, { it.startTime == 1100 && it.parentId == classId }) >> { TestDescriptorInternal test, TestStartEvent event -> testIds << test.id }
+        1 * resultProcessor.output({ it == testIds[0] }, { it.destination == StdOut && it.message == "test output" })
+        1 * resultProcessor.output({ it == testIds[0] }, { it.destination == StdErr && it.message == "test error" })
+        1 * resultProcessor.completed({ it == testIds[0] }, { it.endTime == 1200 && it.resultType == TestResult.ResultType.SUCCESS })
+
+        then:
+        1 * resultProcessor.started({ it.name == "ignored" }, { it.parentId == classId }) >> { TestDescriptorInternal test, TestStartEvent event -> testIds << test.id }
+        1 * resultProcessor.completed({ it == testIds[1] }, { TestCompleteEvent event -> event.resultType == TestResult.ResultType.SKIPPED })
+
+        then:
+        1 * resultProcessor.completed({ it == classId }, { it.endTime == 1200 })
+        0 * resultProcessor._
+    }
+
+    def "nested classes are affected when their outermost class is affected"() {
+        def selection = TestClassSelection.affected(["org.AffectedTest"] as Set, state)
+
+        expect:
+        selection.isAffected("org.AffectedTest")
+        selection.isAffected('org.AffectedTest$Nested')
+        !selection.isAffected("org.PassedTest")
+        TestClassSelection.all("some reason", state).isAffected("org.PassedTest")
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.selection
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class CarryForwardTestClassProcessorTest extends Specification {
+    def carriedForwardResults = Mock(CarriedForwardTestResults)
+    def delegate = Mock(TestClassProcessor)
+    def resultProcessor = Mock(TestResultProcessor)
+    def processor = new CarryForwardTestClassProcessor(carriedForwardResults, delegate)
+
+    def "replays carried forward results before starting the delegate"() {
+        when:
+        processor.startProcessing(resultProcessor)
+
+        then:
+        1 * carriedForwardResults.replay(resultProcessor)
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+    }
+
+    def "passes only test classes without carried forward results to the delegate"() {
+        def carried = testClass("org.CarriedTest")
+        def other = testClass("org.OtherTest")
+        carriedForwardResults.contains("org.CarriedTest") >> true
+
+        when:
+        processor.processTestClass(carried)
+        processor.processTestClass(other)
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass(other)
+        0 * delegate.processTestClass(carried)
+        1 * delegate.stop()
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.selection
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet
+import it.unimi.dsi.fastutil.ints.IntSet
+import org.gradle.api.file.ConfigurableFileTree
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.FileOperations
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshot
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshotCache
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshotData
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshotter
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.FileSystemSnapshotter
+import org.gradle.test.fixtures.file.WorkspaceTest
+import spock.lang.Unroll
+
+class ChangeBasedTestSelectorTest extends WorkspaceTest {
+    def configurationHash = HashCode.fromInt(1)
+    def classes = file("classes").createDir()
+    def lib = file("lib").createDir()
+    def stateFile = file("testSelection.bin")
+    List<File> classpath = [lib, classes]
+
+    // The current content of each classpath entry
+    Map<File, ClasspathEntrySnapshot> current = [:]
+    Map<File, String> resources = [:]
+    // The snapshots recorded for each version of a classpath entry
+    Map<HashCode, ClasspathEntrySnapshot> cached = [:]
+
+    def fileSystemSnapshotter = Stub(FileSystemSnapshotter) {
+        snapshot(_) >> { File file ->
+            Stub(FileSystemLocationSnapshot) {
+                getHash() >> current[file].hash
+            }
+        }
+    }
+    def fileHasher = Stub(FileHasher) {
+        hash(_ as File) >> { File file -> HashCode.fromInt(resources[file.parentFile].hashCode()) }
+    }
+    def fileOperations = Stub(FileOperations) {
+        fileTree(_) >> { File dir -> resourceTree(dir) }
+    }
+    def snapshotCache = Stub(ClasspathEntrySnapshotCache) {
+        get(_, _) >> { File file, HashCode hash -> cached[hash] }
+    }
+    def snapshotter = Stub(ClasspathEntrySnapshotter) {
+        createSnapshot(_) >> { File file ->
+            def snapshot = current[file]
+            cached[snapshot.hash] = snapshot
+            snapshot
+        }
+    }
+    def selector = new ChangeBasedTestSelector(stateFile, fileSystemSnapshotter, fileHasher, fileOperations, snapshotCache, snapshotter)
+
+    def setup() {
+        current[lib] = snapshot(["org.Util": 1, "org.Other": 1], ["org.Util": ["org.Helper"]])
+        current[classes] = snapshot(["org.UtilTest": 1, "org.HelperTest": 1, "org.Helper": 1, "org.OtherTest": 1],
+            ["org.Helper": ["org.HelperTest"], "org.Util": ["org.UtilTest"], "org.Other": ["org.OtherTest"]])
+    }
+
+    def "runs all test classes when there is no previous run"() {
+        when:
+        def selection = select()
+
+        then:
+        selection.runAll
+        selection.fullRunReason == "no previous test run was recorded"
+    }
+
+    def "runs all test classes when the state of the previous run cannot be read"() {
+        given:
+        stateFile.write("corrupt")
+
+        when:
+        def selection = select()
+
+        then:
+        selection.runAll
+        selection.fullRunReason == "no previous test run was recorded"
+    }
+
+    def "runs no test classes when nothing has changed"() {
+        given:
+        previousRun()
+
+        when:
+        def selection = select()
+
+        then:
+        !selection.runAll
+        !selection.isAffected("org.UtilTest")
+        !selection.isAffected("org.HelperTest")
+        !selection.isAffected("org.OtherTest")
+    }
+
+    def "selects changed test classes"() {
+        given:
+        previousRun()
+        current[classes] = snapshot(["org.UtilTest": 2, "org.HelperTest": 1, "org.Helper": 1, "org.OtherTest": 1],
+            ["org.Helper": ["org.HelperTest"], "org.Util": ["org.UtilTest"], "org.Other": ["org.OtherTest"]])
+
+        when:
+        def selection = select()
+
+        then:
+        !selection.runAll
+        selection.isAffected("org.UtilTest")
+        selection.isAffected('org.UtilTest$Nested')
+        !selection.isAffected("org.HelperTest")
+        !selection.isAffected("org.OtherTest")
+    }
+
+    def "selects test classes that transitively depend on a changed class in another classpath entry"() {
+        given:
+        previousRun()
+        current[lib] = snapshot(["org.Util": 2, "org.Other": 1], ["org.Util": ["org.Helper"]])
+
+        when:
+        def selection = select()
+
+        then:
+        !selection.runAll
+        selection.isAffected("org.UtilTest")
+        selection.isAffected("org.HelperTest")
+        !selection.isAffected("org.OtherTest")
+    }
+
+    def "selects test classes that depend on an added class"() {
+        given:
+        previousRun()
+        current[lib] = snapshot(["org.Util": 1, "org.Other": 1, "org.Added": 1], ["org.Util": ["org.Helper"], "org.Added": ["org.OtherTest"]])
+
+        when:
+        def selection = select()
+
+        then:
+        !selection.runAll
+        selection.isAffected("org.OtherTest")
+        !selection.isAffected("org.UtilTest")
+    }
+
+    @Unroll
+    def "runs all test classes when #description"() {
+        given:
+        previousRun()
+        change.call(this)
+
+        when:
+        def selection = select()
+
+        then:
+        selection.runAll
+        selection.fullRunReason == reason.replace("LIB", lib.toString())
+
+        where:
+        description                                 | change                                                                                                            | reason
+        "the configuration has changed"             | { it.configurationHash = HashCode.fromInt(2) }                                                                    | "the test configuration has changed"
+        "a classpath entry was added"               | { def more = it.file("more").createDir(); it.current[more] = it.snapshot(["org.More": 1]); it.classpath << more } | "the test runtime classpath has changed"
+        "a classpath entry was removed"             | { it.classes.deleteDir() }                                                                                        | "the test runtime classpath has changed"
+        "a resource has changed"                    | { it.resources[it.lib] = "changed"; it.current[it.lib] = it.snapshot(["org.Util": 1, "org.Other": 1]) }           | "resources in 'LIB' have changed"
+        "the previous snapshot is no longer cached" | { it.cached.clear(); it.current[it.lib] = it.snapshot(["org.Util": 2, "org.Other": 1]) }                          | "the snapshot of 'LIB' from the previous run is no longer available"
+        "a constant has changed"                    | { it.current[it.lib] = it.snapshot(["org.Util": 2, "org.Other": 1], [:], ["org.Util": [2]]) }                     | "a constant in 'LIB' has changed"
+        "a changed class is a dependency to all"    | { it.current[it.lib] = it.snapshot(["org.Util": 1, "org.Other": 2], ["org.Other": null]) }                        | "other is a dependency to all"
+    }
+
+    def "selects affected test classes again after a run of all test classes"() {
+        given:
+        previousRun()
+        configurationHash = HashCode.fromInt(2)
+        selector.storeState(select())
+
+        when:
+        current[lib] = snapshot(["org.Util": 2, "org.Other": 1], ["org.Util": ["org.Helper"]])
+        def selection = select()
+
+        then:
+        !selection.runAll
+        selection.isAffected("org.UtilTest")
+        !selection.isAffected("org.OtherTest")
+    }
+
+    private TestClassSelection select() {
+        selector.select(configurationHash, classpath)
+    }
+
+    private void previousRun() {
+        selector.storeState(select())
+    }
+
+    /**
+     * Creates the snapshot of a classpath entry from the version of each class, the classes depending on each class, and the constants of each class.
+     * A class without dependents in the map is a dependency to all.
+     */
+    ClasspathEntrySnapshot snapshot(Map<String, Integer> classVersions, Map<String, List<String>> dependents = [:], Map<String, List<Integer>> constants = ["org.Util": [1]]) {
+        Map<String, HashCode> hashes = classVersions.collectEntries { name, version -> [name, HashCode.fromInt(name.hashCode() * 31 + version)] }
+        Map<String, DependentsSet> dependentSets = dependents.collectEntries { name, classes ->
+            [name, classes == null ? DependentsSet.dependencyToAll("${name.substring(4).toLowerCase()} is a dependency to all") : DependentsSet.dependentClasses(classes as Set)]
+        }
+        Map<String, IntSet> constantSets = constants.findAll { classVersions.containsKey(it.key) }.collectEntries { name, values -> [name, new IntOpenHashSet(values as int[])] }
+        def hash = HashCode.fromInt(Objects.hash(hashes, dependents, constants))
+        new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, new ClassSetAnalysisData(hashes.keySet(), dependentSets, constantSets, null)))
+    }
+
+    private ConfigurableFileTree resourceTree(File dir) {
+        Stub(ConfigurableFileTree) {
+            visit(_ as FileVisitor) >> { FileVisitor visitor ->
+                if (resources.containsKey(dir)) {
+                    visitor.visitFile(Stub(FileVisitDetails) {
+                        getName() >> "app.properties"
+                        getRelativePath() >> RelativePath.parse(true, "app.properties")
+                        getFile() >> new File(dir, "app.properties")
+                    })
+                }
+                null
+            }
+        }
+    }
+}
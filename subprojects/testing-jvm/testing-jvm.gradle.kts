@@ -29,6 +29,7 @@ dependencies {
     implementation(project(":messaging"))
     implementation(project(":logging"))
     implementation(project(":processServices"))
+    implementation(project(":persistentCache"))
     implementation(project(":fileCollections"))
     implementation(project(":jvmServices"))
     implementation(project(":coreApi"))
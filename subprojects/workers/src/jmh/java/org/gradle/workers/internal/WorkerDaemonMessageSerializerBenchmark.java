@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.workers.internal;
+
+import org.gradle.internal.Cast;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.isolation.Isolatable;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder;
+import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter;
+import org.gradle.internal.state.DefaultManagedFactoryRegistry;
+import org.gradle.internal.state.ManagedFactoryRegistry;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures a round trip of a unit of work through {@link WorkerDaemonMessageSerializer}, from the isolated parameters to the parameter values in the worker daemon,
+ * for a parameter holding 10k files and for a parameter holding 10k values that are Java serialized.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class WorkerDaemonMessageSerializerBenchmark {
+    private static final int VALUES = 10000;
+
+    @Param({"files", "serializable-values"})
+    String parameters;
+
+    private IsolatableSerializerRegistry serializerRegistry;
+    private DefaultActionExecutionSpecFactory specFactory;
+    private Serializer<TransportableActionExecutionSpec> serializer;
+    private IsolatedParametersActionExecutionSpec<WorkParameters> spec;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ClassLoaderHierarchyHasher classLoaderHasher = new ClassLoaderHierarchyHasher() {
+            @Override
+            public HashCode getClassLoaderHash(ClassLoader classLoader) {
+                return HashCode.fromInt(123);
+            }
+        };
+        ManagedFactoryRegistry managedFactoryRegistry = new DefaultManagedFactoryRegistry();
+        DefaultValueSnapshotter isolatableFactory = new DefaultValueSnapshotter(classLoaderHasher, managedFactoryRegistry);
+        serializerRegistry = IsolatableSerializerRegistry.create(classLoaderHasher, managedFactoryRegistry);
+        specFactory = new DefaultActionExecutionSpecFactory(isolatableFactory, serializerRegistry, null);
+        serializer = WorkerDaemonMessageSerializer.create().build(TransportableActionExecutionSpec.class);
+
+        List<Object> values = new ArrayList<Object>(VALUES);
+        for (int i = 0; i < VALUES; i++) {
+            File file = new File("/home/user/project/module" + (i % 20) + "/src/main/java/org/gradle/sample/package" + (i % 100), "Sample" + i + ".java");
+            values.add(parameters.equals("files") ? file : new SourceLocation(file.getPath(), i));
+        }
+        // The state of managed parameters is isolated and serialized as the isolated values of their properties
+        Isolatable<WorkParameters> isolatedParameters = Cast.uncheckedCast(isolatableFactory.isolate(values));
+        spec = new IsolatedParametersActionExecutionSpec<WorkParameters>(NoOpWorkAction.class, "benchmark", isolatedParameters, new FlatClassLoaderStructure(null));
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, specFactory.newTransportableSpec(spec));
+        encoder.flush();
+
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(outputStream.toByteArray()));
+        TransportableActionExecutionSpec<?> received = serializer.read(decoder);
+        StringDeduplicatingKryoBackedDecoder parametersDecoder = new StringDeduplicatingKryoBackedDecoder(new ByteArrayInputStream(received.getSerializedParameters()));
+        return serializerRegistry.readIsolatable(parametersDecoder).isolate();
+    }
+
+    public static abstract class NoOpWorkAction implements WorkAction<WorkParameters> {
+    }
+
+    public static class SourceLocation implements Serializable {
+        private final String path;
+        private final int line;
+
+        public SourceLocation(String path, int line) {
+            this.path = path;
+            this.line = line;
+        }
+    }
+}
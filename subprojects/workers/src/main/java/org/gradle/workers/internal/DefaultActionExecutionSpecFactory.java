@@ -21,8 +21,8 @@
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.isolation.Isolatable;
 import org.gradle.internal.isolation.IsolatableFactory;
-import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
-import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder;
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 
@@ -82,7 +82,8 @@ Class<?> fromClassName(String className) {
 
     private byte[] serialize(Isolatable<?> isolatable) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        // Parameters often hold many files from the same directories, so deduplicate strings within each unit of work
+        StringDeduplicatingKryoBackedEncoder encoder = new StringDeduplicatingKryoBackedEncoder(outputStream);
         try {
             serializerRegistry.writeIsolatable(encoder, isolatable);
             encoder.flush();
@@ -94,7 +95,7 @@ private byte[] serialize(Isolatable<?> isolatable) {
 
     private Isolatable<?> deserialize(byte[] bytes) {
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-        KryoBackedDecoder decoder = new KryoBackedDecoder(inputStream);
+        StringDeduplicatingKryoBackedDecoder decoder = new StringDeduplicatingKryoBackedDecoder(inputStream);
         try {
             return serializerRegistry.readIsolatable(decoder);
         } catch (Exception e) {
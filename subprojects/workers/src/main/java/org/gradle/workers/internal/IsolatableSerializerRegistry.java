@@ -52,6 +52,7 @@
 import org.gradle.internal.state.ManagedFactory;
 import org.gradle.internal.state.ManagedFactoryRegistry;
 
+import java.io.File;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.List;
@@ -359,16 +360,30 @@ public Class<IsolatedManagedValue> getIsolatableClass() {
         }
     }
 
+    /**
+     * Writes the parent path and the name of a file separately, so that an encoder which deduplicates strings writes the path of a directory
+     * only once for all the files it contains.
+     */
     private class FileValueSnapshotSerializer implements IsolatableSerializer<FileValueSnapshot> {
         @Override
         public void write(Encoder encoder, FileValueSnapshot value) throws Exception {
             encoder.writeByte(FILE_VALUE);
-            encoder.writeString(value.getValue());
+            String path = value.getValue();
+            int separator = path.lastIndexOf(File.separatorChar);
+            if (separator < 0) {
+                encoder.writeNullableString(null);
+                encoder.writeString(path);
+            } else {
+                encoder.writeNullableString(path.substring(0, separator));
+                encoder.writeString(path.substring(separator + 1));
+            }
         }
 
         @Override
         public FileValueSnapshot read(Decoder decoder) throws Exception {
-            return new FileValueSnapshot(decoder.readString());
+            String parent = decoder.readNullableString();
+            String name = decoder.readString();
+            return new FileValueSnapshot(parent == null ? name : parent + File.separatorChar + name);
         }
 
         @Override
@@ -377,13 +392,15 @@ public Class<FileValueSnapshot> getIsolatableClass() {
         }
     }
 
+    /**
+     * Writes the implementation hash as a string, so that an encoder which deduplicates strings writes the hash of a class loader only once.
+     */
     private class IsolatedSerializedValueSnapshotSerializer implements IsolatableSerializer<IsolatedSerializedValueSnapshot> {
         @Override
         public void write(Encoder encoder, IsolatedSerializedValueSnapshot value) throws Exception {
             encoder.writeByte(SERIALIZED_VALUE);
             encoder.writeString(value.getOriginalClass().getName());
-            encoder.writeInt(value.getImplementationHash().toByteArray().length);
-            encoder.writeBytes(value.getImplementationHash().toByteArray());
+            encoder.writeString(value.getImplementationHash().toString());
             encoder.writeInt(value.getValue().length);
             encoder.writeBytes(value.getValue());
         }
@@ -392,13 +409,11 @@ public void write(Encoder encoder, IsolatedSerializedValueSnapshot value) throws
         public IsolatedSerializedValueSnapshot read(Decoder decoder) throws Exception {
             String originalClassName = decoder.readString();
             Class<?> originalClass = fromClassName(originalClassName);
-            int hashSize = decoder.readInt();
-            byte[] hashBytes = new byte[hashSize];
-            decoder.readBytes(hashBytes);
+            HashCode implementationHash = HashCode.fromString(decoder.readString());
             int serializedSize = decoder.readInt();
             byte[] serializedBytes = new byte[serializedSize];
             decoder.readBytes(serializedBytes);
-            return new IsolatedSerializedValueSnapshot(HashCode.fromBytes(hashBytes), serializedBytes, originalClass);
+            return new IsolatedSerializedValueSnapshot(implementationHash, serializedBytes, originalClass);
         }
 
         @Override
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import com.google.common.base.Objects;
+import org.gradle.api.internal.classloading.GroovySystemLoaderFactory;
+import org.gradle.internal.Factory;
+import org.gradle.internal.classloader.ClassLoaderSpec;
+import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.classloader.VisitableURLClassLoader;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, reference counted cache of the isolated classloaders used to run worker API work items in the build process.
+ *
+ * <p>Classloaders are keyed by their {@link ClassLoaderStructure} and the hash of the classpath of that structure, so a changed jar
+ * results in a new classloader. A classloader is never stopped while a work item is using it. Once released by all work items, it is kept
+ * around for reuse, and the least recently released classloaders are stopped when more than the configured number are idle.</p>
+ */
+public class IsolatedClassloaderCache implements Stoppable {
+    /**
+     * The maximum number of idle isolated classloaders to keep. Caching is disabled when this is not set or is 0.
+     */
+    public static final String MAX_IDLE_CLASSLOADERS_PROPERTY = "org.gradle.internal.workers.isolated-classloader-cache-size";
+
+    private final GroovySystemLoaderFactory groovySystemLoaderFactory = new GroovySystemLoaderFactory();
+    private final ClasspathHasher classpathHasher;
+    private final int maxIdleClassLoaders;
+    private final Map<Key, CachedClassLoader> classLoaders = new HashMap<Key, CachedClassLoader>();
+    private final Map<ClassLoader, CachedClassLoader> inUse = new IdentityHashMap<ClassLoader, CachedClassLoader>();
+    // Ordered from least to most recently released
+    private final LinkedHashMap<Key, CachedClassLoader> idle = new LinkedHashMap<Key, CachedClassLoader>();
+    private boolean stopped;
+
+    public IsolatedClassloaderCache(ClasspathHasher classpathHasher) {
+        this(classpathHasher, Integer.getInteger(MAX_IDLE_CLASSLOADERS_PROPERTY, 0));
+    }
+
+    public IsolatedClassloaderCache(ClasspathHasher classpathHasher, int maxIdleClassLoaders) {
+        this.classpathHasher = classpathHasher;
+        this.maxIdleClassLoaders = maxIdleClassLoaders;
+    }
+
+    public boolean isEnabled() {
+        return maxIdleClassLoaders > 0;
+    }
+
+    /**
+     * Returns a classloader for the given structure, creating it using the given factory when there is no usable cached classloader.
+     * The classloader must be handed back using {@link #release(ClassLoader)} once the work item has finished.
+     */
+    public ClassLoader acquire(ClassLoaderStructure classLoaderStructure, Factory<? extends ClassLoader> factory) {
+        Key key = new Key(classLoaderStructure, hashClasspath(classLoaderStructure));
+        synchronized (this) {
+            if (stopped) {
+                throw new IllegalStateException("Cannot acquire a classloader as the cache has been stopped.");
+            }
+            CachedClassLoader cachedClassLoader = classLoaders.get(key);
+            if (cachedClassLoader == null) {
+                cachedClassLoader = new CachedClassLoader(key, factory.create());
+                classLoaders.put(key, cachedClassLoader);
+            } else if (cachedClassLoader.references == 0) {
+                idle.remove(key);
+            }
+            cachedClassLoader.references++;
+            inUse.put(cachedClassLoader.classLoader, cachedClassLoader);
+            return cachedClassLoader.classLoader;
+        }
+    }
+
+    public void release(ClassLoader classLoader) {
+        List<ClassLoader> evicted = new ArrayList<ClassLoader>();
+        synchronized (this) {
+            CachedClassLoader cachedClassLoader = inUse.get(classLoader);
+            if (cachedClassLoader == null) {
+                throw new IllegalStateException("Classloader " + classLoader + " is not in use.");
+            }
+            if (--cachedClassLoader.references > 0) {
+                return;
+            }
+            inUse.remove(classLoader);
+            if (stopped) {
+                classLoaders.remove(cachedClassLoader.key);
+                evicted.add(classLoader);
+            } else {
+                idle.put(cachedClassLoader.key, cachedClassLoader);
+                Iterator<CachedClassLoader> iterator = idle.values().iterator();
+                while (idle.size() > maxIdleClassLoaders) {
+                    CachedClassLoader eldest = iterator.next();
+                    iterator.remove();
+                    classLoaders.remove(eldest.key);
+                    evicted.add(eldest.classLoader);
+                }
+            }
+        }
+        stop(evicted);
+    }
+
+    @Override
+    public void stop() {
+        List<ClassLoader> evicted = new ArrayList<ClassLoader>();
+        synchronized (this) {
+            stopped = true;
+            for (CachedClassLoader cachedClassLoader : idle.values()) {
+                classLoaders.remove(cachedClassLoader.key);
+                evicted.add(cachedClassLoader.classLoader);
+            }
+            idle.clear();
+        }
+        // Classloaders that are still in use are stopped when they are released
+        stop(evicted);
+    }
+
+    private void stop(List<ClassLoader> classLoaders) {
+        for (ClassLoader classLoader : classLoaders) {
+            groovySystemLoaderFactory.forClassLoader(classLoader).shutdown();
+        }
+        CompositeStoppable.stoppable(classLoaders).stop();
+    }
+
+    private HashCode hashClasspath(ClassLoaderStructure classLoaderStructure) {
+        List<File> files = new ArrayList<File>();
+        for (ClassLoaderStructure current = classLoaderStructure; current != null; current = current.getParent()) {
+            ClassLoaderSpec spec = current.getSpec();
+            if (spec instanceof VisitableURLClassLoader.Spec) {
+                for (URL url : ((VisitableURLClassLoader.Spec) spec).getClasspath()) {
+                    if ("file".equals(url.getProtocol())) {
+                        files.add(toFile(url));
+                    }
+                }
+            }
+        }
+        return classpathHasher.hash(DefaultClassPath.of(files));
+    }
+
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return new File(url.getPath());
+        }
+    }
+
+    private static class CachedClassLoader {
+        private final Key key;
+        private final ClassLoader classLoader;
+        private int references;
+
+        CachedClassLoader(Key key, ClassLoader classLoader) {
+            this.key = key;
+            this.classLoader = classLoader;
+        }
+    }
+
+    private static class Key {
+        private final ClassLoaderStructure classLoaderStructure;
+        private final HashCode classpathHash;
+
+        Key(ClassLoaderStructure classLoaderStructure, HashCode classpathHash) {
+            this.classLoaderStructure = classLoaderStructure;
+            this.classpathHash = classpathHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return classpathHash.equals(that.classpathHash) && classLoaderStructure.equals(that.classLoaderStructure);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(classLoaderStructure, classpathHash);
+        }
+    }
+}
@@ -20,6 +20,7 @@
 import org.gradle.api.internal.classloading.GroovySystemLoaderFactory;
 import org.gradle.initialization.LegacyTypesSupport;
 import org.gradle.initialization.MixInLegacyTypesClassLoader;
+import org.gradle.internal.Factory;
 import org.gradle.internal.classloader.ClassLoaderSpec;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classloader.VisitableURLClassLoader;
@@ -33,6 +34,7 @@ public class IsolatedClassloaderWorker extends AbstractClassLoaderWorker {
     private final ServiceRegistry serviceRegistry;
     private ClassLoader workerClassLoader;
     private boolean reuseClassloader;
+    private IsolatedClassloaderCache classloaderCache;
 
     public IsolatedClassloaderWorker(ClassLoaderStructure classLoaderStructure, ClassLoader workerInfrastructureClassloader, ServiceRegistry serviceRegistry) {
         super(serviceRegistry);
@@ -46,7 +48,16 @@ public IsolatedClassloaderWorker(ClassLoaderStructure classLoaderStructure, Clas
         this.reuseClassloader = reuseClassloader;
     }
 
+    public IsolatedClassloaderWorker(ClassLoaderStructure classLoaderStructure, ClassLoader workerInfrastructureClassloader, ServiceRegistry serviceRegistry, IsolatedClassloaderCache classloaderCache) {
+        this(classLoaderStructure, workerInfrastructureClassloader, serviceRegistry);
+        this.classloaderCache = classloaderCache;
+    }
+
     public DefaultWorkResult execute(ActionExecutionSpec spec) {
+        if (classloaderCache != null) {
+            return executeWithCachedClassLoader(spec);
+        }
+
         ClassLoader workerClassLoader = getWorkerClassLoader();
         GroovySystemLoader workerClasspathGroovy = groovySystemLoaderFactory.forClassLoader(workerClassLoader);
 
@@ -54,7 +65,6 @@ public DefaultWorkResult execute(ActionExecutionSpec spec) {
             return executeInClassLoader(spec, workerClassLoader);
         } finally {
             workerClasspathGroovy.shutdown();
-            // TODO: we should just cache these classloaders and eject/stop them when they are no longer in use
             if (!reuseClassloader) {
                 CompositeStoppable.stoppable(workerClassLoader).stop();
                 this.workerClassLoader = null;
@@ -62,6 +72,21 @@ public DefaultWorkResult execute(ActionExecutionSpec spec) {
         }
     }
 
+    private DefaultWorkResult executeWithCachedClassLoader(ActionExecutionSpec spec) {
+        // The cache shuts down the Groovy system of the classloader when it evicts it, as other work items may still be using it
+        ClassLoader workerClassLoader = classloaderCache.acquire(classLoaderStructure, new Factory<ClassLoader>() {
+            @Override
+            public ClassLoader create() {
+                return createWorkerClassloader();
+            }
+        });
+        try {
+            return executeInClassLoader(spec, workerClassLoader);
+        } finally {
+            classloaderCache.release(workerClassLoader);
+        }
+    }
+
     private ClassLoader getWorkerClassLoader() {
         if (workerClassLoader == null) {
             workerClassLoader = createWorkerClassloader();
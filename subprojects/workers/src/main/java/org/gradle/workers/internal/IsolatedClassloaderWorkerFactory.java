@@ -26,11 +26,13 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
     private final BuildOperationExecutor buildOperationExecutor;
     private final ServiceRegistry serviceRegistry;
     private final ClassLoaderRegistry classLoaderRegistry;
+    private final IsolatedClassloaderCache classloaderCache;
 
-    public IsolatedClassloaderWorkerFactory(BuildOperationExecutor buildOperationExecutor, ServiceRegistry parent, ClassLoaderRegistry classLoaderRegistry) {
+    public IsolatedClassloaderWorkerFactory(BuildOperationExecutor buildOperationExecutor, ServiceRegistry parent, ClassLoaderRegistry classLoaderRegistry, IsolatedClassloaderCache classloaderCache) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.serviceRegistry = parent;
         this.classLoaderRegistry = classLoaderRegistry;
+        this.classloaderCache = classloaderCache;
     }
 
     @Override
@@ -42,7 +44,10 @@ public DefaultWorkResult execute(ActionExecutionSpec spec, BuildOperationRef par
                     @Override
                     public DefaultWorkResult execute(ActionExecutionSpec spec) {
                         ClassLoader workerInfrastructureClassloader = classLoaderRegistry.getPluginsClassLoader();
-                        return new IsolatedClassloaderWorker(forkOptions.getClassLoaderStructure(), workerInfrastructureClassloader, serviceRegistry).execute(spec);
+                        IsolatedClassloaderWorker worker = classloaderCache.isEnabled()
+                            ? new IsolatedClassloaderWorker(forkOptions.getClassLoaderStructure(), workerInfrastructureClassloader, serviceRegistry, classloaderCache)
+                            : new IsolatedClassloaderWorker(forkOptions.getClassLoaderStructure(), workerInfrastructureClassloader, serviceRegistry);
+                        return worker.execute(spec);
                     }
                 });
             }
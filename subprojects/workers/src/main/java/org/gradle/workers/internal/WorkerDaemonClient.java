@@ -30,6 +30,7 @@ class WorkerDaemonClient implements BuildOperationAwareWorker, Stoppable {
     private final LogLevel logLevel;
     private final ActionExecutionSpecFactory actionExecutionSpecFactory;
     private int uses;
+    private long lastUsed;
     private boolean failed;
     private boolean cannotBeExpired = Boolean.getBoolean(DISABLE_EXPIRATION_PROPERTY_KEY);
 
@@ -73,6 +74,17 @@ public int getUses() {
         return uses;
     }
 
+    /**
+     * Returns the time at which this client last became idle.
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+
     public KeepAliveMode getKeepAliveMode() {
         return forkOptions.getKeepAliveMode();
     }
@@ -25,6 +25,8 @@
 import org.gradle.api.specs.Spec;
 import org.gradle.initialization.SessionLifecycleListener;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
@@ -34,6 +36,7 @@
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.OsMemoryInfo;
+import org.gradle.internal.time.Clock;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.util.CollectionUtils;
 
@@ -43,12 +46,25 @@
 import java.util.List;
 
 public class WorkerDaemonClientsManager implements Stoppable {
+    /**
+     * Enables the adaptive pool, which starts daemons ahead of time for the fork options used by recent builds and retires long idle daemons.
+     */
+    public static final String ADAPTIVE_POOL_PROPERTY = "org.gradle.internal.workers.adaptive-daemon-pool";
+    /**
+     * How long an idle daemon is kept by the adaptive pool, expressed as the product of the memory it holds and the time it has been idle.
+     */
+    public static final String IDLE_RETENTION_PROPERTY = "org.gradle.internal.workers.daemon-idle-retention-gb-minutes";
 
     private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
+    private static final int RECENT_SESSIONS = 3;
+    private static final int MAX_WARM_DAEMONS_PER_POOL = 4;
+    private static final long MB = 1024 * 1024;
+    private static final long MINUTE = 60 * 1000;
 
     private final Object lock = new Object();
     private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
     private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
+    private final List<WorkerDaemonPool> pools = new ArrayList<WorkerDaemonPool>();
     private final Action<WorkerProcess> workerProcessCleanupAction = new WorkerProcessCleanupAction();
 
     private final WorkerDaemonStarter workerDaemonStarter;
@@ -59,9 +75,19 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final OutputEventListener logLevelChangeEventListener;
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
+    private final Clock clock;
+    private final boolean adaptivePool;
+    private final long idleRetentionMbMinutes;
+    private final ManagedExecutor warmUpExecutor;
     private volatile LogLevel currentLogLevel;
+    private int session;
+    private boolean stopped;
 
-    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory, Clock clock) {
+        this(workerDaemonStarter, listenerManager, loggingManager, memoryManager, memoryInfo, executorFactory, clock, Boolean.getBoolean(ADAPTIVE_POOL_PROPERTY), Integer.getInteger(IDLE_RETENTION_PROPERTY, 30));
+    }
+
+    WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory, Clock clock, boolean adaptivePool, int idleRetentionGbMinutes) {
         this.workerDaemonStarter = workerDaemonStarter;
         this.listenerManager = listenerManager;
         this.loggingManager = loggingManager;
@@ -74,6 +100,10 @@ public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, Liste
         this.memoryManager = memoryManager;
         this.workerDaemonExpiration = new WorkerDaemonExpiration(this, getTotalPhysicalMemory());
         memoryManager.addMemoryHolder(workerDaemonExpiration);
+        this.clock = clock;
+        this.adaptivePool = adaptivePool;
+        this.idleRetentionMbMinutes = idleRetentionGbMinutes * 1024L;
+        this.warmUpExecutor = adaptivePool ? executorFactory.create("Worker daemon warm up") : null;
     }
 
     // TODO - should supply and check for the same parameters as passed to reserveNewClient()
@@ -93,6 +123,9 @@ WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerD
                         LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
                         candidate.stop();
                     } else {
+                        if (adaptivePool) {
+                            poolFor(candidate.getForkOptions()).reused(session);
+                        }
                         return candidate;
                     }
                 }
@@ -106,21 +139,46 @@ public WorkerDaemonClient reserveNewClient(Class<? extends WorkerProtocol> worke
         WorkerDaemonClient client = workerDaemonStarter.startDaemon(workerProtocolImplementationClass, forkOptions, workerProcessCleanupAction);
         synchronized (lock) {
             allClients.add(client);
+            if (adaptivePool) {
+                poolFor(forkOptions).started(workerProtocolImplementationClass, session);
+            }
         }
         return client;
     }
 
     public void release(WorkerDaemonClient client) {
         synchronized (lock) {
+            if (adaptivePool) {
+                poolFor(client.getForkOptions()).released();
+            }
+            client.setLastUsed(clock.getCurrentTime());
             if (!client.isFailed()) {
                 idleClients.add(client);
             }
         }
     }
 
+    /**
+     * Returns the metrics of each pool of compatible worker daemons. Only collected when the adaptive pool is enabled.
+     */
+    public List<WorkerDaemonPoolMetrics> getPoolMetrics() {
+        synchronized (lock) {
+            List<WorkerDaemonPoolMetrics> metrics = new ArrayList<WorkerDaemonPoolMetrics>(pools.size());
+            for (WorkerDaemonPool pool : pools) {
+                metrics.add(pool.getMetrics(countIdleClients(pool)));
+            }
+            return metrics;
+        }
+    }
+
     @Override
     public void stop() {
+        if (warmUpExecutor != null) {
+            // Wait for daemons that are being warmed up, so that they are stopped below
+            warmUpExecutor.stop();
+        }
         synchronized (lock) {
+            stopped = true;
             stopWorkers(allClients);
             allClients.clear();
             idleClients.clear();
@@ -159,6 +217,84 @@ public int compare(WorkerDaemonClient o1, WorkerDaemonClient o2) {
         }
     }
 
+    private WorkerDaemonPool poolFor(DaemonForkOptions forkOptions) {
+        for (WorkerDaemonPool pool : pools) {
+            if (pool.isCompatibleWith(forkOptions)) {
+                return pool;
+            }
+        }
+        WorkerDaemonPool pool = new WorkerDaemonPool(forkOptions);
+        pools.add(pool);
+        return pool;
+    }
+
+    private int countIdleClients(WorkerDaemonPool pool) {
+        int idle = 0;
+        for (WorkerDaemonClient client : idleClients) {
+            if (pool.isCompatibleWith(client.getForkOptions())) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * Retires the idle daemons that have held too much memory for too long, then starts daemons ahead of time for the pools used by recent builds,
+     * up to the concurrency observed in the previous build that used them and as long as there is enough free memory.
+     */
+    private void adaptPools() {
+        synchronized (lock) {
+            session++;
+            retireIdleClients();
+            long availableMemory = getFreePhysicalMemory();
+            for (WorkerDaemonPool pool : pools) {
+                if (pool.getWorkerProtocolImplementationClass() == null || session - pool.getLastUsedSession() > RECENT_SESSIONS) {
+                    continue;
+                }
+                int missing = Math.min(pool.getTargetSize(), MAX_WARM_DAEMONS_PER_POOL) - countIdleClients(pool);
+                long daemonMemory = workerDaemonExpiration.estimateMemoryUsage(pool.getForkOptions());
+                for (int i = 0; i < missing; i++) {
+                    if (availableMemory != -1) {
+                        if (availableMemory < daemonMemory) {
+                            LOGGER.debug("Not enough free memory to warm up worker daemon(s) for {}.", pool.getForkOptions());
+                            break;
+                        }
+                        availableMemory -= daemonMemory;
+                    }
+                    warmUpExecutor.execute(new WarmUpDaemon(pool));
+                }
+            }
+        }
+    }
+
+    private void retireIdleClients() {
+        long now = clock.getCurrentTime();
+        List<WorkerDaemonClient> clientsToRetire = new ArrayList<WorkerDaemonClient>();
+        for (WorkerDaemonClient client : idleClients) {
+            if (client.isNotExpirable()) {
+                continue;
+            }
+            long idleMinutes = (now - client.getLastUsed()) / MINUTE;
+            long memoryMb = workerDaemonExpiration.getMemoryUsage(client) / MB;
+            if (idleMinutes * memoryMb > idleRetentionMbMinutes) {
+                clientsToRetire.add(client);
+                poolFor(client.getForkOptions()).retired();
+            }
+        }
+        if (!clientsToRetire.isEmpty()) {
+            LOGGER.debug("Retiring {} idle worker daemon(s).", clientsToRetire.size());
+            stopWorkers(clientsToRetire);
+        }
+    }
+
+    private long getFreePhysicalMemory() {
+        try {
+            return memoryInfo.getOsSnapshot().getFreePhysicalMemory();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
     private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
         if (clientsToStop.size() > 0) {
             int clientCount = clientsToStop.size();
@@ -187,7 +323,11 @@ private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
 
     private class StopSessionScopedWorkers implements SessionLifecycleListener {
         @Override
-        public void afterStart() { }
+        public void afterStart() {
+            if (adaptivePool) {
+                adaptPools();
+            }
+        }
 
         @Override
         public void beforeComplete() {
@@ -198,11 +338,46 @@ public boolean isSatisfiedBy(WorkerDaemonClient client) {
                         return client.getKeepAliveMode() == KeepAliveMode.SESSION;
                     }
                 });
+                if (adaptivePool) {
+                    for (WorkerDaemonPool pool : pools) {
+                        pool.sessionCompleted();
+                        LOGGER.debug("Worker daemon pool: {}", pool.getMetrics(countIdleClients(pool)));
+                    }
+                }
                 stopWorkers(sessionScopedClients);
             }
         }
     }
 
+    private class WarmUpDaemon implements Runnable {
+        private final WorkerDaemonPool pool;
+
+        WarmUpDaemon(WorkerDaemonPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void run() {
+            WorkerDaemonClient client;
+            try {
+                client = workerDaemonStarter.startDaemon(pool.getWorkerProtocolImplementationClass(), pool.getForkOptions(), workerProcessCleanupAction);
+            } catch (Exception e) {
+                LOGGER.debug("Could not warm up worker daemon.", e);
+                return;
+            }
+            synchronized (lock) {
+                if (!stopped) {
+                    client.setLastUsed(clock.getCurrentTime());
+                    allClients.add(client);
+                    idleClients.add(client);
+                    pool.warmedUp();
+                    return;
+                }
+            }
+            client.stop();
+        }
+    }
+
     private class LogLevelChangeEventListener implements OutputEventListener {
         @Override
         public void onOutput(OutputEvent event) {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+/**
+ * Usage history of the worker daemons that are compatible with a given set of fork options. Guarded by the lock of the {@link WorkerDaemonClientsManager}.
+ */
+class WorkerDaemonPool {
+    private final DaemonForkOptions forkOptions;
+    private Class<? extends WorkerProtocol> workerProtocolImplementationClass;
+    private int busy;
+    private int peakBusyInSession;
+    private int targetSize;
+    private int lastUsedSession;
+    private long daemonsStarted;
+    private long daemonsWarmedUp;
+    private long idleDaemonsReused;
+    private long daemonsRetired;
+
+    WorkerDaemonPool(DaemonForkOptions forkOptions) {
+        this.forkOptions = forkOptions;
+    }
+
+    DaemonForkOptions getForkOptions() {
+        return forkOptions;
+    }
+
+    Class<? extends WorkerProtocol> getWorkerProtocolImplementationClass() {
+        return workerProtocolImplementationClass;
+    }
+
+    boolean isCompatibleWith(DaemonForkOptions other) {
+        return forkOptions.isCompatibleWith(other);
+    }
+
+    void started(Class<? extends WorkerProtocol> workerProtocolImplementationClass, int session) {
+        this.workerProtocolImplementationClass = workerProtocolImplementationClass;
+        daemonsStarted++;
+        reserved(session);
+    }
+
+    void reused(int session) {
+        idleDaemonsReused++;
+        reserved(session);
+    }
+
+    private void reserved(int session) {
+        lastUsedSession = session;
+        busy++;
+        peakBusyInSession = Math.max(peakBusyInSession, busy);
+    }
+
+    void released() {
+        busy = Math.max(0, busy - 1);
+    }
+
+    void warmedUp() {
+        daemonsWarmedUp++;
+    }
+
+    void retired() {
+        daemonsRetired++;
+    }
+
+    /**
+     * Adopts the concurrency observed during the session that has just completed as the number of daemons to keep warm.
+     */
+    void sessionCompleted() {
+        if (peakBusyInSession > 0) {
+            targetSize = peakBusyInSession;
+        }
+        peakBusyInSession = 0;
+    }
+
+    int getTargetSize() {
+        return targetSize;
+    }
+
+    int getLastUsedSession() {
+        return lastUsedSession;
+    }
+
+    WorkerDaemonPoolMetrics getMetrics(int idle) {
+        return new WorkerDaemonPoolMetrics(forkOptions, busy, idle, targetSize, daemonsStarted, daemonsWarmedUp, idleDaemonsReused, daemonsRetired);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of the activity of the worker daemons that are compatible with a given set of fork options.
+ */
+public class WorkerDaemonPoolMetrics {
+    private final DaemonForkOptions forkOptions;
+    private final int busyDaemons;
+    private final int idleDaemons;
+    private final int targetSize;
+    private final long daemonsStarted;
+    private final long daemonsWarmedUp;
+    private final long idleDaemonsReused;
+    private final long daemonsRetired;
+
+    WorkerDaemonPoolMetrics(DaemonForkOptions forkOptions, int busyDaemons, int idleDaemons, int targetSize, long daemonsStarted, long daemonsWarmedUp, long idleDaemonsReused, long daemonsRetired) {
+        this.forkOptions = forkOptions;
+        this.busyDaemons = busyDaemons;
+        this.idleDaemons = idleDaemons;
+        this.targetSize = targetSize;
+        this.daemonsStarted = daemonsStarted;
+        this.daemonsWarmedUp = daemonsWarmedUp;
+        this.idleDaemonsReused = idleDaemonsReused;
+        this.daemonsRetired = daemonsRetired;
+    }
+
+    public DaemonForkOptions getForkOptions() {
+        return forkOptions;
+    }
+
+    public int getBusyDaemons() {
+        return busyDaemons;
+    }
+
+    public int getIdleDaemons() {
+        return idleDaemons;
+    }
+
+    /**
+     * The number of daemons that are started ahead of time at the start of a build, based on the concurrency observed in the previous build.
+     */
+    public int getTargetSize() {
+        return targetSize;
+    }
+
+    /**
+     * The number of daemons started on demand, which includes the cost of starting the daemon in the execution of a work item.
+     */
+    public long getDaemonsStarted() {
+        return daemonsStarted;
+    }
+
+    public long getDaemonsWarmedUp() {
+        return daemonsWarmedUp;
+    }
+
+    public long getIdleDaemonsReused() {
+        return idleDaemonsReused;
+    }
+
+    public long getDaemonsRetired() {
+        return daemonsRetired;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("forkOptions", forkOptions)
+            .add("busy", busyDaemons)
+            .add("idle", idleDaemons)
+            .add("targetSize", targetSize)
+            .add("started", daemonsStarted)
+            .add("warmedUp", daemonsWarmedUp)
+            .add("reused", idleDaemonsReused)
+            .add("retired", daemonsRetired)
+            .toString();
+    }
+}
@@ -24,6 +24,8 @@ import org.gradle.internal.isolation.Isolatable
 import org.gradle.internal.isolation.IsolatableFactory
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder
 import org.gradle.internal.service.DefaultServiceRegistry
 import org.gradle.internal.service.ServiceLookup
 import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter
@@ -206,6 +208,41 @@ class IsolatableSerializerRegistryTest extends Specification {
         newIsolatables[1].isolate() == file2
     }
 
+    def "can serialize/deserialize isolated absolute File values"() {
+        File file1 = new File("foo").absoluteFile
+        File file2 = new File(File.listRoots()[0], "bar")
+        Isolatable<?>[] isolatables = [isolatableFactory.isolate(file1), isolatableFactory.isolate(file2)]
+
+        when:
+        serialize(isolatables)
+
+        and:
+        Isolatable<?>[] newIsolatables = deserialize()
+
+        then:
+        newIsolatables[0].isolate() == file1
+        newIsolatables[1].isolate() == file2
+    }
+
+    def "writes the directory of isolated File values once when strings are deduplicated"() {
+        def dir = new File("some-long-directory-name/with/several/levels").absoluteFile
+        def files = (1..1000).collect { new File(dir, "File${it}.java") } as Set
+        def deduplicatingOutputStream = new ByteArrayOutputStream()
+        def deduplicatingEncoder = new StringDeduplicatingKryoBackedEncoder(deduplicatingOutputStream)
+
+        when:
+        serializer.writeIsolatable(deduplicatingEncoder, isolatableFactory.isolate(files))
+        deduplicatingEncoder.flush()
+
+        and:
+        def decoder = new StringDeduplicatingKryoBackedDecoder(new ByteArrayInputStream(deduplicatingOutputStream.toByteArray()))
+        def newIsolatable = serializer.readIsolatable(decoder)
+
+        then:
+        newIsolatable.isolate() == files
+        deduplicatingOutputStream.size() < files.size() * dir.path.length()
+    }
+
     def "can serialize/deserialize isolated Serialized values"() {
         SerializableType type1 = new SerializableType("bar")
         SerializableType type2 = new SerializableType("baz")
@@ -223,6 +260,23 @@ class IsolatableSerializerRegistryTest extends Specification {
         newIsolatables[1].isolate().foo == "baz"
     }
 
+    def "can serialize/deserialize isolated Serialized values written with a replacement"() {
+        ReplacedType type1 = new ReplacedType("bar")
+        SerializableType type2 = new SerializableType("baz")
+        Isolatable<?>[] isolatables = [isolatableFactory.isolate(type1), isolatableFactory.isolate(type2)]
+        assert isolatables.every { it instanceof IsolatedSerializedValueSnapshot }
+
+        when:
+        serialize(isolatables)
+
+        and:
+        Isolatable<?>[] newIsolatables = deserialize()
+
+        then:
+        newIsolatables[0].isolate().foo == "bar"
+        newIsolatables[1].isolate().foo == "baz"
+    }
+
     def "can serialize/deserialize isolated Null values"() {
         Isolatable<?>[] isolatables = [isolatableFactory.isolate(null), isolatableFactory.isolate(null)]
 
@@ -366,6 +420,18 @@ class IsolatableSerializerRegistryTest extends Specification {
         }
     }
 
+    static class ReplacedType implements Serializable {
+        final String foo
+
+        ReplacedType(String foo) {
+            this.foo = foo
+        }
+
+        private Object writeReplace() {
+            return new SerializableType(foo)
+        }
+    }
+
     enum EnumType {
         FOO, BAR
     }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal
+
+import org.gradle.internal.Factory
+import org.gradle.internal.classloader.ClasspathHasher
+import org.gradle.internal.classloader.VisitableURLClassLoader
+import org.gradle.internal.hash.HashCode
+import spock.lang.Specification
+
+class IsolatedClassloaderCacheTest extends Specification {
+    def hashes = [:]
+    def classpathHasher = Stub(ClasspathHasher) {
+        hash(_) >> { args -> hashes[args[0].asFiles] ?: HashCode.fromInt(0) }
+    }
+    def cache = new IsolatedClassloaderCache(classpathHasher, 2)
+    def created = []
+
+    def "reuses the classloader for a structure while in use and after release"() {
+        def classLoaderStructure = structure("a.jar")
+
+        when:
+        def first = cache.acquire(classLoaderStructure, factory())
+        def second = cache.acquire(structure("a.jar"), factory())
+        cache.release(first)
+        cache.release(second)
+        def third = cache.acquire(classLoaderStructure, factory())
+
+        then:
+        first.is(second)
+        first.is(third)
+        created.size() == 1
+        !first.closed
+    }
+
+    def "creates a new classloader when the classpath content changes"() {
+        def classLoaderStructure = structure("a.jar")
+
+        when:
+        def first = cache.acquire(classLoaderStructure, factory())
+        cache.release(first)
+        hashes[[new File("a.jar").absoluteFile]] = HashCode.fromInt(1)
+        def second = cache.acquire(classLoaderStructure, factory())
+
+        then:
+        !first.is(second)
+        created.size() == 2
+    }
+
+    def "stops least recently released classloaders when too many are idle"() {
+        when:
+        def a = cache.acquire(structure("a.jar"), factory())
+        def b = cache.acquire(structure("b.jar"), factory())
+        def c = cache.acquire(structure("c.jar"), factory())
+        cache.release(a)
+        cache.release(c)
+
+        then:
+        !a.closed
+        !c.closed
+
+        when:
+        cache.release(b)
+
+        then:
+        a.closed
+        !b.closed
+        !c.closed
+
+        when:
+        def again = cache.acquire(structure("a.jar"), factory())
+
+        then:
+        !again.is(a)
+        created.size() == 4
+    }
+
+    def "stops idle classloaders on stop and in use classloaders when they are released"() {
+        def idle = cache.acquire(structure("a.jar"), factory())
+        def inUse = cache.acquire(structure("b.jar"), factory())
+        cache.release(idle)
+
+        when:
+        cache.stop()
+
+        then:
+        idle.closed
+        !inUse.closed
+
+        when:
+        cache.release(inUse)
+
+        then:
+        inUse.closed
+    }
+
+    def "fails to release a classloader that is not in use"() {
+        def classLoader = cache.acquire(structure("a.jar"), factory())
+        cache.release(classLoader)
+
+        when:
+        cache.release(classLoader)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    private static ClassLoaderStructure structure(String jar) {
+        return new HierarchicalClassLoaderStructure(new VisitableURLClassLoader.Spec("test", [new File(jar).absoluteFile.toURI().toURL()]))
+    }
+
+    private Factory<ClassLoader> factory() {
+        return {
+            def classLoader = new TestClassLoader()
+            created << classLoader
+            classLoader
+        } as Factory<ClassLoader>
+    }
+
+    static class TestClassLoader extends ClassLoader implements Closeable {
+        boolean closed
+
+        @Override
+        void close() {
+            closed = true
+        }
+    }
+}
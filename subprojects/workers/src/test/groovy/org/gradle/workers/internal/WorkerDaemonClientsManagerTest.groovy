@@ -25,9 +25,12 @@ import org.gradle.internal.exceptions.DefaultMultiCauseException
 import org.gradle.internal.logging.LoggingManagerInternal
 import org.gradle.internal.logging.events.LogLevelChangeEvent
 import org.gradle.internal.logging.events.OutputEventListener
+import org.gradle.internal.time.MockClock
 import org.gradle.process.internal.ExecException
+import org.gradle.process.internal.health.memory.JvmMemoryStatus
 import org.gradle.process.internal.health.memory.MBeanOsMemoryInfo
 import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.health.memory.OsMemoryInfo
 import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
 
@@ -41,8 +44,9 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
     def listenerManager = Stub(ListenerManager)
     def loggingManager = Stub(LoggingManagerInternal)
     def memoryManager = Mock(MemoryManager)
+    def clock = new MockClock(0)
 
-    @Subject manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+    @Subject manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory, clock)
 
     def "does not reserve idle client when no clients"() {
         expect:
@@ -151,7 +155,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "can stop session-scoped clients"() {
         listenerManager = new DefaultListenerManager()
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory, clock)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(serverImpl.class, options, _) >>> [client1, client2]
@@ -170,7 +174,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "Stopping session-scoped clients does not stop other clients"() {
         listenerManager = new DefaultListenerManager()
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory, clock)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(serverImpl.class, options, _) >>> [client1, client2]
@@ -218,7 +222,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         loggingManager.getLevel() >> LogLevel.INFO
 
         when:
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory, clock)
 
         then:
         listener != null
@@ -295,7 +299,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         WorkerDaemonExpiration workerDaemonExpiration
 
         when:
-        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory, clock)
 
         then:
         1 * memoryManager.addMemoryHolder(_) >> { args -> workerDaemonExpiration = args[0] }
@@ -306,4 +310,87 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         then:
         1 * memoryManager.removeMemoryHolder(_) >> { args -> assert args[0] == workerDaemonExpiration }
     }
+
+    def "warms up daemons for the fork options used by the previous session"() {
+        listenerManager = new DefaultListenerManager()
+        manager = adaptiveManager(30)
+        def sessionListener = listenerManager.getBroadcaster(SessionLifecycleListener)
+        def forkOptions = Stub(DaemonForkOptions) { isCompatibleWith(_) >> true }
+        def client1 = client(forkOptions)
+        def client2 = client(forkOptions)
+        def warm1 = client(forkOptions)
+        def warm2 = client(forkOptions)
+        starter.startDaemon(serverImpl.class, forkOptions, _) >>> [client1, client2, warm1, warm2]
+
+        when:
+        sessionListener.afterStart()
+        manager.reserveNewClient(serverImpl.class, forkOptions)
+        manager.reserveNewClient(serverImpl.class, forkOptions)
+        manager.release(client1)
+        manager.release(client2)
+        sessionListener.beforeComplete()
+        manager.selectIdleClientsToStop({ it } as Transformer)
+
+        then:
+        manager.poolMetrics.size() == 1
+        manager.poolMetrics[0].targetSize == 2
+        manager.poolMetrics[0].idleDaemons == 0
+
+        when:
+        sessionListener.afterStart()
+        finished()
+
+        then:
+        manager.poolMetrics[0].daemonsStarted == 2
+        manager.poolMetrics[0].daemonsWarmedUp == 2
+        manager.poolMetrics[0].idleDaemons == 2
+        [manager.reserveIdleClient(forkOptions), manager.reserveIdleClient(forkOptions)] as Set == [warm1, warm2] as Set
+        manager.poolMetrics[0].idleDaemonsReused == 2
+    }
+
+    def "retires idle daemons that have held too much memory for too long"() {
+        listenerManager = new DefaultListenerManager()
+        manager = adaptiveManager(1)
+        def forkOptions = Stub(DaemonForkOptions) { isCompatibleWith(_) >> true }
+        def small = Mock(WorkerDaemonClient) {
+            getForkOptions() >> forkOptions
+            getJvmMemoryStatus() >> Stub(JvmMemoryStatus) { getCommittedMemory() >> 256L * 1024 * 1024 }
+        }
+        def large = Mock(WorkerDaemonClient) {
+            getForkOptions() >> forkOptions
+            getJvmMemoryStatus() >> Stub(JvmMemoryStatus) { getCommittedMemory() >> 2048L * 1024 * 1024 }
+        }
+        starter.startDaemon(serverImpl.class, forkOptions, _) >>> [small, large]
+
+        when:
+        manager.reserveNewClient(serverImpl.class, forkOptions)
+        manager.reserveNewClient(serverImpl.class, forkOptions)
+        manager.release(small)
+        manager.release(large)
+        clock.increment(3 * 60 * 1000)
+        listenerManager.getBroadcaster(SessionLifecycleListener).afterStart()
+
+        then:
+        1 * large.stop()
+        0 * small.stop()
+
+        and:
+        manager.poolMetrics[0].daemonsRetired == 1
+        manager.poolMetrics[0].idleDaemons == 1
+    }
+
+    private WorkerDaemonClientsManager adaptiveManager(int idleRetentionGbMinutes) {
+        def memoryInfo = Stub(OsMemoryInfo) {
+            getOsSnapshot() >> { throw new UnsupportedOperationException() }
+        }
+        return new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, memoryInfo, executorFactory, clock, true, idleRetentionGbMinutes)
+    }
+
+    private WorkerDaemonClient client(DaemonForkOptions forkOptions) {
+        return Stub(WorkerDaemonClient) {
+            getForkOptions() >> forkOptions
+            isCompatibleWith(_) >> true
+            getKeepAliveMode() >> KeepAliveMode.DAEMON
+        }
+    }
 }